@@ -16,7 +16,9 @@ import dk.gormkrings.simulation.SimulationStartService;
 import dk.gormkrings.simulation.SimulationResultsCache;
 import dk.gormkrings.simulation.SimulationSummariesCache;
 import dk.gormkrings.simulation.SimulationRunner;
-import dk.gormkrings.simulation.util.ConcurrentCsvExporter;
+import dk.gormkrings.simulation.util.ColumnarExporter;
+import dk.gormkrings.simulation.util.ExportSlice;
+import dk.gormkrings.simulation.util.StreamingCsvExporter;
 import dk.gormkrings.statistics.MetricSummary;
 import dk.gormkrings.statistics.StatisticsService;
 import dk.gormkrings.statistics.YearlySummary;
@@ -38,6 +40,7 @@ import dk.gormkrings.contract.PublicApi;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -50,12 +53,12 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @Profile("!local") // only active when NOT in local mode
@@ -71,7 +74,6 @@ public class FirecastingController {
     private final SimulationQueueService simQueue;
     private final SimulationSseService sseService;
     private final StatisticsService statisticsService;
-    private final ScheduledExecutorService sseScheduler;
     private final SimulationStartService simulationStartService;
     private final SimulationRunner simulationRunner;
     private final SimulationResultsCache resultsCache;
@@ -99,7 +101,6 @@ public class FirecastingController {
     public FirecastingController(SimulationQueueService simQueue,
                                  SimulationSseService sseService,
                                  StatisticsService statisticsService,
-                                 ScheduledExecutorService sseScheduler,
                                  SimulationStartService simulationStartService,
                                  SimulationRunner simulationRunner,
                                  SimulationResultsCache resultsCache,
@@ -114,7 +115,6 @@ public class FirecastingController {
         this.simQueue = simQueue;
         this.sseService = sseService;
         this.statisticsService = statisticsService;
-        this.sseScheduler = sseScheduler;
         this.simulationStartService = simulationStartService;
         this.simulationRunner = simulationRunner;
         this.resultsCache = resultsCache;
@@ -783,7 +783,7 @@ public class FirecastingController {
         } catch (Exception ignore) {
         }
 
-        final AtomicReference<ScheduledFuture<?>> handle = new AtomicReference<>();
+        final AtomicReference<Runnable> stopTicks = new AtomicReference<>();
 
         Runnable tick = () -> {
             try {
@@ -829,26 +829,28 @@ public class FirecastingController {
                     case DONE, FAILED -> {
                         sseService.setLastState(simulationId, status);
                         sseService.setLastQueuedPos(simulationId, null);
-                        var h = handle.get();
-                        if (h != null) h.cancel(false);
+                        var stop = stopTicks.get();
+                        if (stop != null) stop.run();
                     }
                 }
             } catch (Exception ignored) {
             }
         };
 
-        handle.set(sseScheduler.scheduleAtFixedRate(tick, 0, 2, TimeUnit.SECONDS));
+        // Queue status follows the shared SSE timer (settings.sse-interval)
+        tick.run();
+        stopTicks.set(sseService.addTicker(tick));
 
         emitter.onCompletion(() -> {
             sseService.clearState(simulationId);
-            var h = handle.get();
-            if (h != null) h.cancel(false);
+            var stop = stopTicks.get();
+            if (stop != null) stop.run();
         });
 
         emitter.onTimeout(() -> {
             sseService.clearState(simulationId);
-            var h = handle.get();
-            if (h != null) h.cancel(false);
+            var stop = stopTicks.get();
+            if (stop != null) stop.run();
         });
 
         return emitter;
@@ -859,52 +861,24 @@ public class FirecastingController {
     // ------------------------------------------------------------------------------------
 
     @GetMapping("/{simulationId}/export")
-    public ResponseEntity<StreamingResponseBody> exportResultsAsCsvForRun(@PathVariable String simulationId) {
+    public ResponseEntity<StreamingResponseBody> exportResultsAsCsvForRun(
+            @PathVariable String simulationId,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "paths", required = false) String paths,
+            @RequestParam(value = "years", required = false) String years,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Validate the selectors before a possibly expensive recompute
+        ExportSlice slice = exportSlice(paths, years);
+        boolean columnar = wantsColumnar(format, accept);
+
         var results = resultsCache.get(simulationId);
 
-        // If this was a dedup hit (run already existed), we may not have the full results in memory.
+        // Dedup hits and streamed persisted runs keep no full results in memory.
         // Recompute from persisted input_json on-demand so per-run CSV export still works.
         if (results == null || results.isEmpty()) {
             try {
-                var run = statisticsService.getRun(simulationId);
-                if (run == null || run.getInputJson() == null || run.getInputJson().isBlank()) {
-                    return ResponseEntity.notFound().build();
-                }
-
-                final ObjectMapper lenientMapper = objectMapper.copy()
-                        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-                JsonNode inputNode = lenientMapper.readTree(run.getInputJson());
-                SimulationRunSpec spec;
-
-                if (inputNode != null && inputNode.hasNonNull("returnType")) {
-                    // advanced-mode persisted request
-                    AdvancedSimulationRequest req = lenientMapper.treeToValue(inputNode, AdvancedSimulationRequest.class);
-                    spec = AdvancedSimulationRequestMapper.toRunSpec(req);
-                } else {
-                    // legacy/normal persisted request
-                    SimulationRequest req = lenientMapper.treeToValue(inputNode, SimulationRequest.class);
-                    spec = new SimulationRunSpec(
-                            req.getStartDate(),
-                            req.getPhases(),
-                            req.getOverallTaxRule() == null ? null : req.getOverallTaxRule().toFactoryKey(),
-                            req.getTaxPercentage(),
-                            "dataDrivenReturn",
-                            1.02D
-                    );
-                }
-
-                // Compute results without persisting (run already exists)
-                results = simulationRunner.runSimulationNoPersist(
-                        spec,
-                        runs,
-                        batchSize,
-                        msg -> {
-                        }
-                );
-
-                // Cache for subsequent exports during TTL
-                resultsCache.put(simulationId, results);
+                results = recomputeResults(simulationId);
             } catch (Exception e) {
                 log.error("Failed to recompute results for CSV export of {}", simulationId, e);
                 return ResponseEntity.status(500).build();
@@ -915,62 +889,157 @@ public class FirecastingController {
             return ResponseEntity.notFound().build();
         }
 
-        return exportCsv(results, "simulation-results-" + simulationId);
+        return export(results, "simulation-results-" + simulationId, slice, columnar, acceptsGzip(acceptEncoding));
+    }
+
+    /**
+     * Full results of persisted run {@code simulationId}, recomputed from its input_json with the paths and
+     * batch size it ran with, or null if the run is unknown.
+     */
+    private List<IRunResult> recomputeResults(String simulationId) throws Exception {
+        var run = statisticsService.getRun(simulationId);
+        if (run == null || run.getInputJson() == null || run.getInputJson().isBlank()) {
+            return null;
+        }
+
+        final ObjectMapper lenientMapper = objectMapper.copy()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        JsonNode inputNode = lenientMapper.readTree(run.getInputJson());
+        SimulationRunSpec spec;
+
+        if (inputNode != null && inputNode.hasNonNull("returnType")) {
+            // advanced-mode persisted request
+            AdvancedSimulationRequest req = lenientMapper.treeToValue(inputNode, AdvancedSimulationRequest.class);
+            spec = AdvancedSimulationRequestMapper.toRunSpec(req);
+        } else {
+            // legacy/normal persisted request
+            SimulationRequest req = lenientMapper.treeToValue(inputNode, SimulationRequest.class);
+            spec = new SimulationRunSpec(
+                    req.getStartDate(),
+                    req.getPhases(),
+                    req.getOverallTaxRule() == null ? null : req.getOverallTaxRule().toFactoryKey(),
+                    req.getTaxPercentage(),
+                    "dataDrivenReturn",
+                    1.02D
+            );
+        }
+
+        // The resolved input carries the paths and batch size the run was started with
+        JsonNode sizing = inputNode;
+        if (run.getResolvedInputJson() != null && !run.getResolvedInputJson().isBlank()) {
+            sizing = lenientMapper.readTree(run.getResolvedInputJson());
+        }
+
+        // Compute results without persisting (run already exists)
+        List<IRunResult> results = simulationRunner.runSimulationNoPersist(
+                spec,
+                resolvePathsFromLookupInput(sizing),
+                resolveBatchSizeFromLookupInput(sizing),
+                msg -> {
+                }
+        );
+
+        // Cache for subsequent exports during TTL
+        resultsCache.put(simulationId, results);
+        return results;
     }
 
     @GetMapping("/export")
-    public ResponseEntity<StreamingResponseBody> exportResultsAsCsv() {
-        var results = resultsCache.getLatest();
+    public ResponseEntity<StreamingResponseBody> exportResultsAsCsv(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "paths", required = false) String paths,
+            @RequestParam(value = "years", required = false) String years,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportSlice slice = exportSlice(paths, years);
+        boolean columnar = wantsColumnar(format, accept);
+
+        // Streamed persisted runs keep no full results; recompute the latest run like a per-run export
+        String latestId = resultsCache.getLatestId();
+        var results = (latestId == null) ? null : resultsCache.get(latestId);
+        if ((results == null || results.isEmpty()) && latestId != null) {
+            try {
+                results = recomputeResults(latestId);
+            } catch (Exception e) {
+                log.error("Failed to recompute results for CSV export of {}", latestId, e);
+                return ResponseEntity.status(500).build();
+            }
+        }
         if (results == null || results.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
 
-        return exportCsv(results, "simulation-results");
+        return export(results, "simulation-results", slice, columnar, acceptsGzip(acceptEncoding));
     }
 
-    private ResponseEntity<StreamingResponseBody> exportCsv(List<IRunResult> results, String baseFileName) {
-        long t0 = System.currentTimeMillis();
-
-        File file;
+    private static ExportSlice exportSlice(String paths, String years) {
         try {
-            file = ConcurrentCsvExporter.exportCsv(results, baseFileName);
-        } catch (IOException e) {
-            log.error("Error exporting CSV", e);
-            return ResponseEntity.status(500)
-                    .body(outputStream -> outputStream.write("Error exporting CSV".getBytes()));
+            return ExportSlice.parse(paths, years);
+        } catch (IllegalArgumentException e) {
+            throw new ApiValidationException("Validation failed", List.of(e.getMessage()), e);
         }
+    }
 
-        if (file == null || !file.exists() || file.length() <= 0) {
-            log.error("CSV export produced an empty file for {}", baseFileName);
-            try {
-                if (file != null) Files.deleteIfExists(file.toPath());
-            } catch (Exception ignore) {
-            }
-            return ResponseEntity.status(500)
-                    .body(outputStream -> outputStream.write("Error exporting CSV".getBytes()));
+    /** {@code format=} wins over the Accept header; CSV unless the columnar media type is accepted. */
+    private static boolean wantsColumnar(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            return switch (format.trim().toLowerCase(Locale.ROOT)) {
+                case "csv" -> false;
+                case "columnar" -> true;
+                default -> throw new ApiValidationException("Validation failed", List.of("format: must be csv or columnar"));
+            };
+        }
+        if (accept == null || accept.isBlank()) return false;
+        MediaType columnar = MediaType.parseMediaType(ColumnarExporter.MEDIA_TYPE);
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(t -> t.equalsTypeAndSubtype(columnar) && t.getQualityValue() > 0);
+        } catch (IllegalArgumentException e) {
+            return false;
         }
+    }
 
-        long t1 = System.currentTimeMillis();
-        log.info("Handling exports in {} ms", (t1 - t0));
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            if (parts.length == 1) return true;
+            String q = parts[1].trim();
+            return !(q.startsWith("q=") && q.substring(2).trim().matches("0(\\.0*)?"));
+        }
+        return false;
+    }
 
+    private ResponseEntity<StreamingResponseBody> export(List<IRunResult> results, String baseFileName,
+                                                         ExportSlice slice, boolean columnar, boolean gzip) {
+        // Rows are formatted and written while the response streams; no temp file in between
         StreamingResponseBody stream = out -> {
+            long t0 = System.currentTimeMillis();
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
             try {
-                Files.copy(file.toPath(), out);
-                out.flush();
-            } finally {
-                try {
-                    Files.deleteIfExists(file.toPath());
-                } catch (Exception ignore) {
+                if (columnar) {
+                    ColumnarExporter.write(results, target, slice);
+                } else {
+                    StreamingCsvExporter.write(results, target, slice);
                 }
+                if (target instanceof GZIPOutputStream compressed) compressed.finish();
+                out.flush();
+            } catch (IOException e) {
+                log.error("Error exporting {} for {}", columnar ? "columnar data" : "CSV", baseFileName, e);
+                throw e;
             }
+            log.info("Handling exports in {} ms", (System.currentTimeMillis() - t0));
         };
 
-        String downloadFileName = baseFileName + ".csv";
-        return ResponseEntity.ok()
+        String downloadFileName = baseFileName + (columnar ? ".fcol" : ".csv");
+        var response = ResponseEntity.ok()
             .header(HttpHeaders.CONTENT_DISPOSITION,
                 "attachment; filename=\"" + downloadFileName + "\"")
-            .contentLength(file.length())
-            .contentType(MediaType.parseMediaType("text/csv"))
-            .body(stream);
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.parseMediaType(columnar ? ColumnarExporter.MEDIA_TYPE : "text/csv"));
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(stream);
     }
 }
@@ -0,0 +1,297 @@
+package dk.gormkrings.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory cache bounded by the estimated byte size of its values, with segmented-LRU eviction.
+ *
+ * <p>Reads are lock-free: a hit only sets a reference bit on the entry. Writes take a lock and evict;
+ * new entries start in a probation segment and referenced ones are promoted to a protected segment
+ * (at most {@value #PROTECTED_PERCENT}% of the budget), so a burst of one-off entries cannot push out
+ * entries that are read again. Recency within a segment is approximated with the reference bit (second
+ * chance) instead of reordering on every read. The newest entry is never evicted for size, even if it
+ * alone exceeds the budget.</p>
+ *
+ * <p>Entries expire {@code ttlMs} after they were stored (0 disables this). Expired entries are
+ * removed on the next write, or when a read runs into one. Evicted and expired entries are handed to
+ * the optional eviction listener outside the lock. Hits, misses, evictions, entries and bytes are
+ * published as {@code firecasting.cache.*} meters tagged with the cache name.</p>
+ */
+public final class WeightedCache<V> {
+
+    static final int PROTECTED_PERCENT = 80;
+
+    private static final class Node<V> {
+        final String key;
+        final V value;
+        final long weight;
+        final long storedAtMs;
+        volatile boolean referenced;
+        // Segment links; guarded by the cache lock
+        Node<V> prev;
+        Node<V> next;
+        boolean inProtected;
+
+        Node(String key, V value, long weight, long storedAtMs) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.storedAtMs = storedAtMs;
+        }
+    }
+
+    /** Doubly linked segment, eldest first. */
+    private static final class Segment<V> {
+        Node<V> head;
+        Node<V> tail;
+        long bytes;
+
+        void addLast(Node<V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) head = node;
+            else tail.next = node;
+            tail = node;
+            bytes += node.weight;
+        }
+
+        void unlink(Node<V> node) {
+            if (node.prev == null) head = node.next;
+            else node.prev.next = node.next;
+            if (node.next == null) tail = node.prev;
+            else node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            bytes -= node.weight;
+        }
+    }
+
+    private final String name;
+    private final long maxBytes;
+    private final long ttlMs;
+    private final ToLongFunction<? super V> weigher;
+    private final BiConsumer<String, V> evictionListener;
+
+    private final ConcurrentHashMap<String, Node<V>> map = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Segment<V> probation = new Segment<>();
+    private final Segment<V> protectedSegment = new Segment<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param name             cache name, used as the {@code cache} meter tag
+     * @param maxBytes         budget for the summed weights; 0 or less means unbounded
+     * @param ttlMs            time to live after a put; 0 or less means no expiry
+     * @param weigher          estimated heap bytes of a value
+     * @param evictionListener called for evicted and expired entries (not for replaced or removed ones); may be null
+     * @param registry         registry for the cache meters; may be null
+     */
+    public WeightedCache(String name,
+                         long maxBytes,
+                         long ttlMs,
+                         ToLongFunction<? super V> weigher,
+                         BiConsumer<String, V> evictionListener,
+                         MeterRegistry registry) {
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+        if (registry != null) registerMeters(registry);
+    }
+
+    public V get(String key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node, System.currentTimeMillis())) {
+            misses.increment();
+            cleanUp();
+            return null;
+        }
+        if (!node.referenced) node.referenced = true;
+        hits.increment();
+        return node.value;
+    }
+
+    /** The live value under {@code key} without counting a lookup or marking it read; null if none. */
+    public V peek(String key) {
+        Node<V> node = map.get(key);
+        return node == null || isExpired(node, System.currentTimeMillis()) ? null : node.value;
+    }
+
+    /** Stores {@code value} under {@code key}, replacing any earlier value, and evicts down to the budget. */
+    public void put(String key, V value) {
+        put(key, value, false);
+    }
+
+    /** Like {@link #put}, unless {@code key} already holds a live value; returns the value held afterwards. */
+    public V putIfAbsent(String key, V value) {
+        return put(key, value, true);
+    }
+
+    private V put(String key, V value, boolean onlyIfAbsent) {
+        long now = System.currentTimeMillis();
+        Node<V> node = new Node<>(key, value, Math.max(0, weigher.applyAsLong(value)), now);
+        List<Node<V>> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            Node<V> old = map.get(key);
+            if (onlyIfAbsent && old != null && !isExpired(old, now)) return old.value;
+            map.put(key, node);
+            if (old != null) unlink(old);
+            probation.addLast(node);
+            expireLocked(now, evicted);
+            evictLocked(node, evicted);
+        } finally {
+            lock.unlock();
+        }
+        notifyEvicted(evicted);
+        return value;
+    }
+
+    public void remove(String key) {
+        lock.lock();
+        try {
+            Node<V> node = map.remove(key);
+            if (node != null) unlink(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes expired entries now rather than on the next write. */
+    public void cleanUp() {
+        List<Node<V>> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            expireLocked(System.currentTimeMillis(), evicted);
+        } finally {
+            lock.unlock();
+        }
+        notifyEvicted(evicted);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long bytes() {
+        lock.lock();
+        try {
+            return probation.bytes + protectedSegment.bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(Node<V> node, long now) {
+        return ttlMs > 0 && (now - node.storedAtMs) > ttlMs;
+    }
+
+    private void unlink(Node<V> node) {
+        (node.inProtected ? protectedSegment : probation).unlink(node);
+    }
+
+    private void expireLocked(long now, List<Node<V>> evicted) {
+        if (ttlMs <= 0) return;
+        // A full scan; there is one write per simulation and few entries per cache
+        for (Map.Entry<String, Node<V>> e : map.entrySet()) {
+            Node<V> node = e.getValue();
+            if (!isExpired(node, now) || !map.remove(e.getKey(), node)) continue;
+            unlink(node);
+            evicted.add(node);
+            expirations.increment();
+        }
+    }
+
+    private void evictLocked(Node<V> newest, List<Node<V>> evicted) {
+        if (maxBytes <= 0) return;
+        long protectedMax = (long) (maxBytes * (PROTECTED_PERCENT / 100.0));
+        // Every pass either evicts or clears a reference bit, so this ends within two rounds
+        while (probation.bytes + protectedSegment.bytes > maxBytes) {
+            Node<V> victim = probation.head;
+            if (victim == newest) victim = victim.next;
+            if (victim == null) {
+                // Probation holds nothing but the newest entry; demote the eldest protected one
+                Node<V> demoted = protectedSegment.head;
+                if (demoted == null) break;
+                protectedSegment.unlink(demoted);
+                demoted.inProtected = false;
+                demoted.referenced = false;
+                probation.addLast(demoted);
+                continue;
+            }
+            if (victim.referenced) {
+                victim.referenced = false;
+                probation.unlink(victim);
+                victim.inProtected = true;
+                protectedSegment.addLast(victim);
+                rebalanceLocked(protectedMax);
+                continue;
+            }
+            probation.unlink(victim);
+            map.remove(victim.key, victim);
+            evicted.add(victim);
+            sizeEvictions.increment();
+        }
+    }
+
+    /** Moves the eldest protected entries back to probation while the protected segment is over its share. */
+    private void rebalanceLocked(long protectedMax) {
+        while (protectedSegment.bytes > protectedMax && protectedSegment.head != protectedSegment.tail) {
+            Node<V> eldest = protectedSegment.head;
+            protectedSegment.unlink(eldest);
+            if (eldest.referenced) {
+                eldest.referenced = false;
+                protectedSegment.addLast(eldest);
+                continue;
+            }
+            eldest.inProtected = false;
+            probation.addLast(eldest);
+        }
+    }
+
+    private void notifyEvicted(List<Node<V>> evicted) {
+        if (evictionListener == null) return;
+        for (Node<V> node : evicted) evictionListener.accept(node.key, node.value);
+    }
+
+    private void registerMeters(MeterRegistry registry) {
+        FunctionCounter.builder("firecasting.cache.gets", hits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit")
+                .description("Cache lookups").register(registry);
+        FunctionCounter.builder("firecasting.cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss")
+                .description("Cache lookups").register(registry);
+        FunctionCounter.builder("firecasting.cache.evictions", sizeEvictions, LongAdder::sum)
+                .tag("cache", name).tag("cause", "size")
+                .description("Entries removed by the cache").register(registry);
+        FunctionCounter.builder("firecasting.cache.evictions", expirations, LongAdder::sum)
+                .tag("cache", name).tag("cause", "expired")
+                .description("Entries removed by the cache").register(registry);
+        Gauge.builder("firecasting.cache.entries", map, Map::size)
+                .tag("cache", name).description("Entries in the cache").register(registry);
+        Gauge.builder("firecasting.cache.bytes", this, WeightedCache::bytes)
+                .tag("cache", name).baseUnit("bytes").description("Estimated size of the cached values").register(registry);
+        Gauge.builder("firecasting.cache.max.bytes", () -> maxBytes)
+                .tag("cache", name).baseUnit("bytes").description("Byte budget of the cache").register(registry);
+    }
+}
@@ -6,36 +6,60 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class ExecConfig {
 
-    // Single-worker queue that serializes simulations
+    // One thread per simulation slot; SimulationQueueService does the queueing and never hands over more jobs than slots
     @Bean(name = "simExecutor", destroyMethod = "shutdown")
-    public ExecutorService simExecutor(@Value("${simulation.queue.capacity:100}") int cap) {
-        var ex = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-                new ArrayBlockingQueue<>(cap),
-                r -> { var t = new Thread(r, "sim-queue"); t.setDaemon(true); return t; },
+    public ExecutorService simExecutor(@Value("${simulation.queue.slots:2}") int slots) {
+        int n = Math.max(1, slots);
+        var counter = new AtomicInteger();
+        var ex = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> { var t = new Thread(r, "sim-queue-" + counter.getAndIncrement()); t.setDaemon(true); return t; },
                 new ThreadPoolExecutor.AbortPolicy());
         ex.prestartAllCoreThreads();
         return Executors.unconfigurableExecutorService(ex); // hides concrete type
     }
 
-    // CPU-bound pool used inside MonteCarloSimulation
+    // CPU-bound work-stealing pool used inside MonteCarloSimulation (path ranges split recursively)
     @Bean(name = "simWorkerPool", destroyMethod = "shutdown")
     public ExecutorService simWorkerPool(@Value("${simulation.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int p) {
         int cores = Runtime.getRuntime().availableProcessors();
         int size = (p > 0 ? p : Math.max(2, cores - 2)); // keep 1–2 cores free
-        return Executors.newFixedThreadPool(size, r -> { var t = new Thread(r, "sim-worker"); t.setDaemon(true); return t; });
+        return new ForkJoinPool(size, pool -> {
+            var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("sim-worker-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
     }
 
-    // Scheduler for SSE/queue heartbeats
+    // Writes results evicted from the heap cache to the results volume, off the simulation threads
+    @Bean(name = "resultsSpillExecutor", destroyMethod = "shutdown")
+    public ExecutorService resultsSpillExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "results-spill");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // The one SSE timer: flushes pending progress and runs the queue-status ticks of all simulations
     @Bean(name = "sseScheduler", destroyMethod = "shutdown")
     public ScheduledExecutorService sseScheduler() {
         return Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "sse-heartbeat");
+            Thread t = new Thread(r, "sse-timer");
             t.setDaemon(true);
             return t;
         });
     }
+
+    // Blocking SseEmitter writes, one virtual thread per subscriber while it has events queued
+    @Bean(name = "sseWriterExecutor", destroyMethod = "shutdown")
+    public ExecutorService sseWriterExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-write-", 0).factory());
+    }
 }
@@ -1,5 +1,6 @@
 package dk.gormkrings.config;
 
+import dk.gormkrings.calendar.BitmapTradingCalendar;
 import dk.gormkrings.calendar.TradingCalendar;
 import dk.gormkrings.calendar.WeekdayTradingCalendar;
 import dk.gormkrings.simulation.ReturnStep;
@@ -28,6 +29,8 @@ public class SimulationRuntimeConfig {
         String key = (configuredCalendar == null) ? "" : configuredCalendar.trim().toLowerCase();
         TradingCalendar calendar = switch (key) {
             case "", "weekday", "weekdays" -> new WeekdayTradingCalendar();
+            case "xcse", "copenhagen" -> BitmapTradingCalendar.fromResource("xcse");
+            case "xnys", "nyse" -> BitmapTradingCalendar.fromResource("xnys");
             default -> {
                 log.warn("Unknown simulation.trading.calendar='{}'; falling back to weekday calendar", configuredCalendar);
                 yield new WeekdayTradingCalendar();
@@ -1,34 +1,106 @@
 package dk.gormkrings.queue;
 
-import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeSet;
 import java.util.concurrent.*;
 
+/**
+ * Admission control and scheduling for simulation jobs.
+ *
+ * <p>Up to {@code simulation.queue.slots} jobs run at once on the {@code simExecutor} threads; their
+ * paths all run on the shared {@code simWorkerPool}, so extra slots interleave work on the same CPU
+ * budget instead of adding threads. At most {@code simulation.queue.capacity} jobs wait; beyond that
+ * {@link #submitWithId} rejects.</p>
+ *
+ * <p>Waiting jobs are ordered by a virtual finish time: {@code tag = clock + cost}, where cost is the
+ * estimate passed with {@link #costed} and the clock advances to the tag of every job that starts.
+ * Small jobs therefore overtake large ones, but a large job is overtaken by at most its own cost worth
+ * of later work, so it cannot starve.</p>
+ */
+@Slf4j
 @Service
 public class SimulationQueueService {
 
     public enum Status { QUEUED, RUNNING, DONE, FAILED }
 
-    @Value
+    @lombok.Value
     public static class TaskInfo {
         String simulationId;
         Status status;
         Integer position; // 1-based when QUEUED; null otherwise
     }
 
-    /** Executor wired from ExecConfig (bean name: simExecutor). */
-    private final ExecutorService executor;
+    /** Cost assumed for tasks submitted without an estimate: a default-sized request. */
+    static final long DEFAULT_COST = estimateCost(10_000, 40 * 12, 2);
+
+    /** A task with its estimated cost; see {@link #costed}. */
+    public static final class CostedTask implements Runnable {
+        private final long cost;
+        private final Runnable task;
+
+        private CostedTask(long cost, Runnable task) {
+            this.cost = cost;
+            this.task = task;
+        }
+
+        public long cost() {
+            return cost;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private record Job(String id, Runnable task, Runnable onRejected, long tag, long seq) {
+    }
+
+    private static final Comparator<Job> ORDER = Comparator.comparingLong(Job::tag).thenComparingLong(Job::seq);
+
+    /** Executor wired from ExecConfig (bean name: simExecutor); one thread per slot. */
+    private final Executor executor;
+    private final int capacity;
+    private final int slots;
 
     // status per id
     private final ConcurrentHashMap<String, Status> states = new ConcurrentHashMap<>();
-    // FIFO of queued ids to compute positions (order of arrival)
-    private final ConcurrentLinkedQueue<String> shadowQueue = new ConcurrentLinkedQueue<>();
 
-    public SimulationQueueService(@Qualifier("simExecutor") ExecutorService executor) {
+    // Guarded by this
+    private final TreeSet<Job> waiting = new TreeSet<>(ORDER);
+    private int running;
+    private long clock;
+    private long seq;
+
+    /** 1-based positions of the waiting ids; rebuilt on the first read after the queue changed. */
+    private volatile Map<String, Integer> positions = Map.of();
+
+    public SimulationQueueService(@Qualifier("simExecutor") Executor executor,
+                                  @Value("${simulation.queue.capacity:100}") int capacity,
+                                  @Value("${simulation.queue.slots:2}") int slots) {
         this.executor = executor;
+        this.capacity = Math.max(0, capacity);
+        this.slots = Math.max(1, slots);
+    }
+
+    /** Rough amount of work in a request, used only to order the queue. */
+    public static long estimateCost(long paths, int months, int phases) {
+        return Math.max(1L, paths) * Math.max(1, months) * Math.max(1, phases);
+    }
+
+    /** Wraps {@code task} so the queue schedules it by {@code cost} (see {@link #estimateCost}). */
+    public static Runnable costed(long cost, Runnable task) {
+        return new CostedTask(Math.max(1L, cost), Objects.requireNonNull(task, "task"));
     }
 
     /** Convenience: delegates to submitWithId (preferred). */
@@ -38,10 +110,20 @@ public class SimulationQueueService {
 
     /**
      * Submit a simulation task with a stable id.
-     * Returns true if accepted (queued or already known), false if the executor rejects it.
+     * Returns true if accepted (queued or already known), false if the waiting queue is full.
      * Idempotent: if the id is already QUEUED/RUNNING/DONE/FAILED, we don't enqueue again.
+     * Tasks wrapped with {@link #costed} are scheduled by their cost, others by {@link #DEFAULT_COST}.
      */
     public boolean submitWithId(String simulationId, Runnable task) {
+        return submitWithId(simulationId, task, null);
+    }
+
+    /**
+     * Like {@link #submitWithId(String, Runnable)}. If the executor later refuses the task when a slot
+     * frees up, the job is marked FAILED and {@code onRejected} runs instead, so the submitter can close
+     * what it opened for the job. A refusal while submitting returns false and does not call it.
+     */
+    public boolean submitWithId(String simulationId, Runnable task, Runnable onRejected) {
         Objects.requireNonNull(simulationId, "simulationId");
         Objects.requireNonNull(task, "task");
 
@@ -52,30 +134,72 @@ public class SimulationQueueService {
             return true;
         }
 
-        // track arrival order for position computation
-        shadowQueue.add(simulationId);
+        long cost = task instanceof CostedTask costed ? costed.cost() : DEFAULT_COST;
+        List<Job> rejected = new ArrayList<>();
+        synchronized (this) {
+            if (waiting.size() >= capacity && running >= slots) {
+                states.remove(simulationId);
+                return false;
+            }
+            waiting.add(new Job(simulationId, task, onRejected, clock + cost, seq++));
+            positions = null;
+            dispatch(rejected);
+        }
+        boolean accepted = true;
+        for (Job job : rejected) {
+            if (job.id().equals(simulationId)) {
+                // Refused right away: the caller answers and cleans up as for a full queue
+                states.remove(simulationId);
+                accepted = false;
+            } else {
+                notifyRejected(job);
+            }
+        }
+        return accepted;
+    }
 
-        Runnable wrapped = () -> {
-            // When this task actually starts, remove *this id* (not just queue head)
-            shadowQueue.remove(simulationId);
-            states.put(simulationId, Status.RUNNING);
+    /** Starts waiting jobs while slots are free and collects those the executor refuses; caller holds the lock. */
+    private void dispatch(List<Job> rejected) {
+        while (running < slots && !waiting.isEmpty()) {
+            Job job = waiting.pollFirst();
+            positions = null;
+            running++;
+            clock = Math.max(clock, job.tag());
             try {
-                task.run();
-                states.put(simulationId, Status.DONE);
-            } catch (Throwable t) {
-                states.put(simulationId, Status.FAILED);
-                throw t;
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException ex) {
+                running--;
+                states.put(job.id(), Status.FAILED);
+                rejected.add(job);
             }
-        };
+        }
+    }
 
+    /** Runs the job's rejection callback; called without the lock. */
+    private static void notifyRejected(Job job) {
+        if (job.onRejected() == null) return;
         try {
-            executor.execute(wrapped);
-            return true;
-        } catch (RejectedExecutionException ex) {
-            // rollback if executor queue is full
-            states.remove(simulationId);
-            shadowQueue.remove(simulationId);
-            return false;
+            job.onRejected().run();
+        } catch (RuntimeException e) {
+            log.warn("Rejection callback of {} failed", job.id(), e);
+        }
+    }
+
+    private void run(Job job) {
+        states.put(job.id(), Status.RUNNING);
+        try {
+            job.task().run();
+            states.put(job.id(), Status.DONE);
+        } catch (Throwable t) {
+            states.put(job.id(), Status.FAILED);
+            throw t;
+        } finally {
+            List<Job> rejected = new ArrayList<>();
+            synchronized (this) {
+                running--;
+                dispatch(rejected);
+            }
+            rejected.forEach(SimulationQueueService::notifyRejected);
         }
     }
 
@@ -89,12 +213,19 @@ public class SimulationQueueService {
      * Returns -1 if not currently queued.
      */
     public int queuedPosition(String simulationId) {
-        int idx = 0;
-        for (String id : shadowQueue) {
-            idx++;
-            if (Objects.equals(id, simulationId)) return idx;
-        }
-        return -1;
+        Map<String, Integer> current = positions;
+        if (current == null) current = rebuildPositions();
+        return current.getOrDefault(simulationId, -1);
+    }
+
+    private synchronized Map<String, Integer> rebuildPositions() {
+        Map<String, Integer> current = positions;
+        if (current != null) return current;
+        current = new HashMap<>(waiting.size() * 2);
+        int position = 0;
+        for (Job job : waiting) current.put(job.id(), ++position);
+        positions = current;
+        return current;
     }
 
     /** Backward-compatible alias for position (1-based). */
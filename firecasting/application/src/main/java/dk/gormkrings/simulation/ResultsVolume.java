@@ -0,0 +1,156 @@
+package dk.gormkrings.simulation;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.result.RunResultsFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Disk tier of {@link SimulationResultsCache}: one {@link RunResultsFile} per simulation in the results
+ * volume, evicted least-recently-used once the files exceed {@code maxBytes}.
+ *
+ * <p>Each file records the generation of the results it holds, as numbered by the cache, and a write only
+ * lands while its caller still confirms it is current, so an older spill that finishes late cannot replace
+ * newer results. Files only live as long as the process; leftovers from an earlier process are deleted on
+ * start.</p>
+ */
+@Slf4j
+final class ResultsVolume {
+
+    private static final String SUFFIX = ".fcr";
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+
+    /** Results read back from the volume, with the generation they were written as. */
+    record Spilled(List<IRunResult> results, long generation) {
+    }
+
+    private record Stored(long size, long generation) {
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+
+    // Guarded by this; access order, eldest first
+    private final LinkedHashMap<String, Stored> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    ResultsVolume(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "*{" + SUFFIX + ",.tmp}")) {
+            for (Path leftover : leftovers) Files.deleteIfExists(leftover);
+        }
+    }
+
+    static boolean storable(String simulationId) {
+        return simulationId != null && SAFE_ID.matcher(simulationId).matches();
+    }
+
+    /** Whether generation {@code generation} of {@code simulationId} is stored. */
+    synchronized boolean holds(String simulationId, long generation) {
+        Stored stored = files.get(simulationId);
+        return stored != null && stored.generation() == generation;
+    }
+
+    /**
+     * Writes {@code results} as generation {@code generation} unless they alone exceed the volume; evicts
+     * older files to make room. The file is discarded instead if {@code current} is false once it is
+     * complete, or if a newer generation is stored by then; {@code current} runs under the volume's lock.
+     */
+    void write(String simulationId, long generation, List<IRunResult> results, BooleanSupplier current) throws IOException {
+        if (!storable(simulationId)) return;
+        // One temporary file per generation, so concurrent spills of the same id do not share one
+        Path tmp = dir.resolve(simulationId + "-" + generation + ".tmp");
+        long size;
+        try {
+            size = RunResultsFile.write(results, tmp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (size > maxBytes) {
+            Files.deleteIfExists(tmp);
+            log.debug("Results of {} ({} bytes) exceed the results volume; not spilled", simulationId, size);
+            return;
+        }
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Stored previous = files.get(simulationId);
+            if (!current.getAsBoolean() || (previous != null && previous.generation() > generation)) {
+                Files.deleteIfExists(tmp);
+                log.debug("Results of {} were replaced while being spilled; not stored", simulationId);
+                return;
+            }
+            Files.move(tmp, file(simulationId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            files.put(simulationId, new Stored(size, generation));
+            bytes += size - (previous == null ? 0 : previous.size());
+            Iterator<Map.Entry<String, Stored>> eldest = files.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Stored> e = eldest.next();
+                if (e.getKey().equals(simulationId)) continue;
+                bytes -= e.getValue().size();
+                evicted.add(e.getKey());
+                eldest.remove();
+            }
+        }
+        for (String id : evicted) delete(id);
+    }
+
+    /** Maps the stored results back in; null if not stored (or evicted meanwhile). */
+    Spilled read(String simulationId) {
+        Stored stored;
+        synchronized (this) {
+            stored = files.get(simulationId);
+            if (stored == null) return null;
+        }
+        try {
+            return new Spilled(RunResultsFile.read(file(simulationId)), stored.generation());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read spilled results of {}", simulationId, e);
+            remove(simulationId);
+            return null;
+        }
+    }
+
+    void remove(String simulationId) {
+        synchronized (this) {
+            Stored stored = files.remove(simulationId);
+            if (stored == null) return;
+            bytes -= stored.size();
+        }
+        delete(simulationId);
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private void delete(String simulationId) {
+        try {
+            Files.deleteIfExists(file(simulationId));
+        } catch (IOException e) {
+            log.warn("Failed to delete spilled results of {}", simulationId, e);
+        }
+    }
+
+    private Path file(String simulationId) {
+        return dir.resolve(simulationId + SUFFIX);
+    }
+}
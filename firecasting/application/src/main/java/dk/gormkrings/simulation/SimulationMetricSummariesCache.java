@@ -1,96 +1,45 @@
 package dk.gormkrings.simulation;
 
+import dk.gormkrings.cache.WeightedCache;
 import dk.gormkrings.statistics.MetricSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class SimulationMetricSummariesCache {
 
-    private record Entry(long storedAtMs, List<MetricSummary> summaries) {
-    }
+    // Object header, seven percentiles and the scope/phase/year/metric references (strings are mostly shared)
+    private static final long BYTES_PER_SUMMARY = 112;
 
-    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedDeque<String> order = new ConcurrentLinkedDeque<>();
+    private final WeightedCache<List<MetricSummary>> cache;
     private final AtomicReference<String> latestId = new AtomicReference<>(null);
 
-    @Value("${simulation.metric-summaries-cache.maxEntries:50}")
-    private int maxEntries;
-
-    @Value("${simulation.metric-summaries-cache.ttlMs:900000}")
-    private long ttlMs;
+    public SimulationMetricSummariesCache(@Value("${simulation.metric-summaries-cache.maxBytes:33554432}") long maxBytes,
+                                          @Value("${simulation.metric-summaries-cache.ttlMs:900000}") long ttlMs,
+                                          MeterRegistry meterRegistry) {
+        this.cache = new WeightedCache<>("metric-summaries", maxBytes, ttlMs,
+                summaries -> 64 + BYTES_PER_SUMMARY * summaries.size(), null, meterRegistry);
+    }
 
     public void put(String simulationId, List<MetricSummary> summaries) {
         if (simulationId == null || simulationId.isBlank()) return;
         if (summaries == null || summaries.isEmpty()) return;
 
-        long now = System.currentTimeMillis();
-        byId.put(simulationId, new Entry(now, summaries));
+        cache.put(simulationId, summaries);
         latestId.set(simulationId);
-
-        synchronized (order) {
-            order.remove(simulationId);
-            order.addLast(simulationId);
-            pruneLocked(now);
-        }
     }
 
     public List<MetricSummary> get(String simulationId) {
         if (simulationId == null || simulationId.isBlank()) return null;
-
-        long now = System.currentTimeMillis();
-        Entry e = byId.get(simulationId);
-        if (e == null) return null;
-
-        if (isExpired(e, now)) {
-            remove(simulationId);
-            return null;
-        }
-
-        synchronized (order) {
-            order.remove(simulationId);
-            order.addLast(simulationId);
-            pruneLocked(now);
-        }
-
-        return e.summaries();
+        return cache.get(simulationId);
     }
 
     public List<MetricSummary> getLatest() {
         String id = latestId.get();
         return id == null ? null : get(id);
     }
-
-    private boolean isExpired(Entry e, long now) {
-        return ttlMs > 0 && (now - e.storedAtMs()) > ttlMs;
-    }
-
-    private void remove(String simulationId) {
-        byId.remove(simulationId);
-        synchronized (order) {
-            order.remove(simulationId);
-        }
-    }
-
-    private void pruneLocked(long now) {
-        while (true) {
-            String head = order.peekFirst();
-            if (head == null) break;
-            Entry e = byId.get(head);
-            if (e != null && !isExpired(e, now)) break;
-            order.pollFirst();
-            if (e != null) byId.remove(head);
-        }
-
-        while (maxEntries > 0 && order.size() > maxEntries) {
-            String oldest = order.pollFirst();
-            if (oldest == null) break;
-            byId.remove(oldest);
-        }
-    }
 }
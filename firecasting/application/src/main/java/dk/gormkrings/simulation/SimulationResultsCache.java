@@ -1,66 +1,111 @@
 package dk.gormkrings.simulation;
 
+import dk.gormkrings.cache.WeightedCache;
 import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Full run results kept for per-run CSV export, in two tiers.
+ *
+ * <p>Recent results stay on the heap in a {@link WeightedCache} named {@code results}, bounded by their
+ * estimated size ({@code simulation.csv-cache.maxBytes}) and by {@code simulation.csv-cache.ttlMs}. With a
+ * results volume configured ({@code simulation.results-volume.path}), results leaving the heap are written there on the
+ * {@code resultsSpillExecutor} instead of being dropped, and a later {@link #get} maps them back in; the
+ * volume evicts by its own byte budget ({@code simulation.results-volume.maxBytes}). Without a volume,
+ * evicted results are gone and exports recompute them.</p>
+ *
+ * <p>Every put numbers its results with a new generation. A spill only lands while it is still the newest
+ * one for its id and the id is not back on the heap, so an eviction still being written when the same id
+ * is put again cannot replace the newer results on the volume.</p>
+ */
+@Slf4j
 @Service
 public class SimulationResultsCache {
 
-    private record Entry(long storedAtMs, List<IRunResult> results) {
+    private final ResultsVolume volume;
+    private final Executor spillExecutor;
+    private final WeightedCache<Held> heap;
+
+    /** Results with the generation of the put that stored them. */
+    private record Held(List<IRunResult> results, long generation) {
     }
 
-    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedDeque<String> order = new ConcurrentLinkedDeque<>();
+    private final AtomicLong generations = new AtomicLong();
+    // Evicted from the heap and still being written to the volume; the newest generation per id
+    private final ConcurrentHashMap<String, Held> spilling = new ConcurrentHashMap<>();
     private final AtomicReference<String> latestId = new AtomicReference<>(null);
 
-    @Value("${simulation.csv-cache.maxEntries:2}")
-    private int maxEntries;
-
-    @Value("${simulation.csv-cache.ttlMs:300000}")
-    private long ttlMs;
+    public SimulationResultsCache(@Value("${simulation.csv-cache.maxBytes:536870912}") long maxHeapBytes,
+                                  @Value("${simulation.csv-cache.ttlMs:300000}") long ttlMs,
+                                  @Value("${simulation.results-volume.path:}") String volumePath,
+                                  @Value("${simulation.results-volume.maxBytes:4294967296}") long maxVolumeBytes,
+                                  @Qualifier("resultsSpillExecutor") Executor spillExecutor,
+                                  MeterRegistry meterRegistry) {
+        this.spillExecutor = spillExecutor;
+        ResultsVolume v = null;
+        if (volumePath != null && !volumePath.isBlank() && maxVolumeBytes > 0) {
+            try {
+                v = new ResultsVolume(Path.of(volumePath), maxVolumeBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot use results volume " + volumePath, e);
+            }
+        }
+        this.volume = v;
+        this.heap = new WeightedCache<>("results", maxHeapBytes, ttlMs,
+                held -> estimateBytes(held.results()), this::spill, meterRegistry);
+    }
 
     public void put(String simulationId, List<IRunResult> results) {
         if (simulationId == null || simulationId.isBlank()) return;
-        if (results == null || results.isEmpty()) return;
+        if (results == null || results.isEmpty()) {
+            // Streamed persisted runs keep no results but are still the latest run; /export recomputes them
+            latestId.set(simulationId);
+            return;
+        }
 
-        long now = System.currentTimeMillis();
-        byId.put(simulationId, new Entry(now, results));
+        heap.put(simulationId, new Held(results, generations.incrementAndGet()));
+        // A newer result for the same id replaces any spilled copy. After the heap, so a spill of the old one
+        // that is still running either lands before this removes it or finds itself superseded
+        spilling.remove(simulationId);
+        if (volume != null) volume.remove(simulationId);
         latestId.set(simulationId);
-
-        synchronized (order) {
-            // Refresh ordering
-            order.remove(simulationId);
-            order.addLast(simulationId);
-            pruneLocked(now);
-        }
     }
 
     public List<IRunResult> get(String simulationId) {
         if (simulationId == null || simulationId.isBlank()) return null;
 
-        long now = System.currentTimeMillis();
-        Entry e = byId.get(simulationId);
-        if (e == null) return null;
+        Held cached = heap.get(simulationId);
+        if (cached != null) return cached.results();
 
-        if (isExpired(e, now)) {
-            remove(simulationId);
-            return null;
-        }
+        Held pending = spilling.get(simulationId);
+        if (pending != null) return pending.results();
+        if (volume == null) return null;
 
-        // Touch ordering (best-effort)
-        synchronized (order) {
-            order.remove(simulationId);
-            order.addLast(simulationId);
-            pruneLocked(now);
-        }
+        ResultsVolume.Spilled loaded = volume.read(simulationId);
+        if (loaded == null) return null;
+        // Back on the heap while it is being used again; the file stays, so a later eviction needs no write.
+        // A put that got there first wins.
+        return heap.putIfAbsent(simulationId, new Held(loaded.results(), loaded.generation())).results();
+    }
 
-        return e.results();
+    /** Id of the run last put, whether or not its results are still held. */
+    public String getLatestId() {
+        return latestId.get();
     }
 
     public List<IRunResult> getLatest() {
@@ -68,33 +113,39 @@ public class SimulationResultsCache {
         return id == null ? null : get(id);
     }
 
-    private boolean isExpired(Entry e, long now) {
-        return ttlMs > 0 && (now - e.storedAtMs()) > ttlMs;
-    }
-
-    private void remove(String simulationId) {
-        byId.remove(simulationId);
-        synchronized (order) {
-            order.remove(simulationId);
+    /** Estimated heap size of {@code results}. */
+    static long estimateBytes(List<IRunResult> results) {
+        long bytes = 0;
+        for (IRunResult result : results) {
+            bytes += result instanceof ColumnarRunResult c
+                    ? c.estimatedBytes()
+                    : 256L * (result.getSnapshots() == null ? 1 : result.getSnapshots().size() + 1);
         }
+        return bytes;
     }
 
-    private void pruneLocked(long now) {
-        // Drop expired entries from the head
-        while (true) {
-            String head = order.peekFirst();
-            if (head == null) break;
-            Entry e = byId.get(head);
-            if (e != null && !isExpired(e, now)) break;
-            order.pollFirst();
-            if (e != null) byId.remove(head);
+    private void spill(String simulationId, Held held) {
+        if (volume == null || volume.holds(simulationId, held.generation()) || !isCurrent(simulationId, held)) return;
+        if (spilling.merge(simulationId, held, (old, next) -> next.generation() > old.generation() ? next : old) != held) return;
+        try {
+            spillExecutor.execute(() -> {
+                try {
+                    volume.write(simulationId, held.generation(), held.results(),
+                            () -> spilling.get(simulationId) == held && isCurrent(simulationId, held));
+                } catch (Exception ex) {
+                    log.warn("Failed to spill results of {} to the results volume", simulationId, ex);
+                } finally {
+                    spilling.remove(simulationId, held);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            spilling.remove(simulationId, held);
         }
+    }
 
-        // Enforce max size
-        while (maxEntries > 0 && order.size() > maxEntries) {
-            String oldest = order.pollFirst();
-            if (oldest == null) break;
-            byId.remove(oldest);
-        }
+    /** False once {@code simulationId} is back on the heap with other results, put again or read back. */
+    private boolean isCurrent(String simulationId, Held evicted) {
+        Held onHeap = heap.peek(simulationId);
+        return onHeap == null || onHeap == evicted;
     }
 }
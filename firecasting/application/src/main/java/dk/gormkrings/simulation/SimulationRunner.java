@@ -11,6 +11,7 @@ import dk.gormkrings.factory.ISpecificationFactory;
 import dk.gormkrings.phase.IPhase;
 import dk.gormkrings.result.IRunResult;
 import dk.gormkrings.statistics.MetricSummary;
+import dk.gormkrings.statistics.RunAggregationSink;
 import dk.gormkrings.statistics.SimulationAggregationService;
 import dk.gormkrings.statistics.StatisticsService;
 import dk.gormkrings.tax.ITaxExemption;
@@ -120,20 +121,59 @@ public class SimulationRunner {
             int batchSize,
             boolean persistToDb,
             IProgressCallback onProgress) {
+        return runSimulationOutcome(simulationId, spec, inputForStorage, resolvedAdvanced,
+                runs, batchSize, persistToDb, true, onProgress);
+    }
+
+    /**
+     * Runs a simulation and returns the aggregated summaries.
+     *
+     * @param retainResults when false, runs are folded into the aggregates as they complete and never
+     *                      collected, so {@link RunOutcome#results()} is empty. Aggregation work then
+     *                      mostly happens on the worker threads and is reported as compute time.
+     */
+    public RunOutcome runSimulationOutcome(
+            String simulationId,
+            SimulationRunSpec spec,
+            Object inputForStorage,
+            Object resolvedAdvanced,
+            int runs,
+            int batchSize,
+            boolean persistToDb,
+            boolean retainResults,
+            IProgressCallback onProgress) {
+        final List<IRunResult> simulationResults;
+        final List<dk.gormkrings.statistics.YearlySummary> summaries;
+        final List<MetricSummary> metricSummaries;
+
         final long tCompute0 = System.nanoTime();
-        var simulationResults = computeSimulationResults(spec, runs, batchSize, onProgress);
-        final long tCompute1 = System.nanoTime();
+        final long tCompute1;
+        final long tAgg0;
+        if (retainResults) {
+            simulationResults = computeSimulationResults(spec, runs, batchSize, onProgress);
+            tCompute1 = System.nanoTime();
 
-        // Aggregate (yearly summaries + metric summaries)
-        final long tAgg0 = System.nanoTime();
-        var summaries = aggregationService.aggregateResults(
-                simulationResults,
-                simulationId,
-                onProgress
-        );
+            // Aggregate (yearly summaries + metric summaries)
+            tAgg0 = System.nanoTime();
+            summaries = aggregationService.aggregateResults(
+                    simulationResults,
+                    simulationId,
+                    onProgress
+            );
+
+            // Metric summaries (yearly series + totals per phase + overall)
+            metricSummaries = aggregationService.aggregateMetricSummaries(simulationResults);
+        } else {
+            RunAggregationSink sink = aggregationService.newAggregationSink();
+            simulationFactory.createSimulation()
+                    .runStreaming(runs, batchSize, buildPhases(spec), onProgress, sink);
+            simulationResults = List.of();
+            tCompute1 = System.nanoTime();
 
-        // Metric summaries (yearly series + totals per phase + overall)
-        var metricSummaries = aggregationService.aggregateMetricSummaries(simulationResults);
+            tAgg0 = System.nanoTime();
+            summaries = aggregationService.aggregateResults(sink, simulationId, onProgress);
+            metricSummaries = aggregationService.aggregateMetricSummaries(sink);
+        }
         final long tAgg1 = System.nanoTime();
 
         // Persist run + summaries using the normalized seed (always positive at request mapping).
@@ -199,7 +239,14 @@ public class SimulationRunner {
                         int runs,
                         int batchSize,
                         IProgressCallback onProgress) {
+                List<IPhase> phases = buildPhases(spec);
+
+                // Run Monte Carlo with progress callback
+                return simulationFactory.createSimulation()
+                                .runWithProgress(runs, batchSize, phases, onProgress);
+        }
 
+        private List<IPhase> buildPhases(SimulationRunSpec spec) {
                 // Overall tax rule for this run
                 ITaxRule overAllTaxRule = taxRuleFactory.create(spec.getOverallTaxRule(), spec.getTaxPercentage());
 
@@ -258,9 +305,6 @@ public class SimulationRunner {
                         ));
                         currentDate = currentDate.plusMonths(pr.getDurationInMonths());
                 }
-
-                // Run Monte Carlo with progress callback
-                return simulationFactory.createSimulation()
-                                .runWithProgress(runs, batchSize, phases, onProgress);
+                return phases;
         }
 }
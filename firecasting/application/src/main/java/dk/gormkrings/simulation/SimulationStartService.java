@@ -14,6 +14,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @Service
@@ -32,12 +34,21 @@ public class SimulationStartService {
     private final SimulationMetricSummariesCache metricSummariesCache;
     private final SimulationTimingsCache timingsCache;
 
+    // Signature hash -> id of the deterministic run currently queued or running for it. Identical requests
+    // arriving before that run is persisted join it instead of computing it again.
+    private final ConcurrentHashMap<String, String> inFlight = new ConcurrentHashMap<>();
+
     @Value("${settings.runs}")
     private int runs;
 
     @Value("${settings.batch-size}")
     private int batchSize;
 
+    // Fold runs into the aggregates as they complete instead of keeping every IRunResult until the end.
+    // Only applied to persisted runs, since the per-run CSV export can recompute those from input_json.
+    @Value("${simulation.aggregation.streaming:false}")
+    private boolean streamingAggregation;
+
     @FunctionalInterface
     public interface SimulationPostProcessor {
         /**
@@ -188,11 +199,31 @@ public class SimulationStartService {
 
         // 2) New run id, enqueue job, respond 202 with JSON {id}
         final String simulationId = UUID.randomUUID().toString();
+
+        // Join an identical deterministic run that is still queued or running (its SSE stream and caches are keyed by its id).
+        // Runs with a post-processor need their own job for the hook to fire, so they are never coalesced.
+        final String inFlightKey = (allowDedup && postProcessor == null)
+                ? inFlightKey(logPrefix, effectiveRuns, effectiveBatchSize, inputForDedupAndStorage)
+                : null;
+        if (inFlightKey != null) {
+            String runningId = inFlight.putIfAbsent(inFlightKey, simulationId);
+            if (runningId != null) {
+                log.info("[{}] In-flight hit -> {}", logPrefix, runningId);
+                return ResponseEntity.accepted().body(Map.of(
+                    "id", runningId,
+                    "dedupHit", "false",
+                    "inFlightHit", "true",
+                    "effectiveRuns", String.valueOf(effectiveRuns),
+                    "effectiveBatchSize", String.valueOf(effectiveBatchSize)
+                ));
+            }
+        }
         log.info("[{}] New run -> {}", logPrefix, simulationId);
 
         final long enqueuedAtMs = System.currentTimeMillis();
 
-        boolean accepted = simQueue.submitWithId(simulationId, () -> {
+        long cost = SimulationQueueService.estimateCost(effectiveRuns, totalMonths, spec.getPhases() == null ? 1 : spec.getPhases().size());
+        boolean accepted = simQueue.submitWithId(simulationId, SimulationQueueService.costed(cost, () -> {
             try {
                 // Start SSE flushing pipeline
                 sseService.startFlusher(simulationId);
@@ -208,7 +239,8 @@ public class SimulationStartService {
                     effectiveRuns,
                     effectiveBatchSize,
                     allowPersist,
-                    msg -> sseService.onProgressMessage(simulationId, msg)
+                    !(streamingAggregation && allowPersist),
+                    IProgressCallback.typed(update -> sseService.onProgress(simulationId, update))
                 );
 
                 // Emit final timing breakdown before completion payload.
@@ -241,8 +273,9 @@ public class SimulationStartService {
                     // best-effort
                 }
 
-                // Cache full run results briefly to support deterministic per-run CSV export.
-                // This is intentionally in-memory only.
+                // Cache full run results to support deterministic per-run CSV export.
+                // They stay on the heap until evicted or expired; with simulation.results-volume.path set they
+                // then spill to disk and are served from there, otherwise they are dropped.
                 try {
                     resultsCache.put(simulationId, outcome.results());
                 } catch (Exception e) {
@@ -274,10 +307,18 @@ public class SimulationStartService {
                 sseService.stopFlusherWithError(simulationId, e);
             } finally {
                 sseService.stopFlusherAndComplete(simulationId);
+                // Persisted by now, so later identical requests hit the regular dedup
+                if (inFlightKey != null) inFlight.remove(inFlightKey, simulationId);
             }
+        }), () -> {
+            // Refused by the executor after waiting: fail the SSE stream and stop merging requests into it
+            log.warn("[{}] Simulation {} was rejected by the executor", logPrefix, simulationId);
+            sseService.stopFlusherWithError(simulationId, new RejectedExecutionException("Simulation executor rejected " + simulationId));
+            if (inFlightKey != null) inFlight.remove(inFlightKey, simulationId);
         });
 
         if (!accepted) {
+            if (inFlightKey != null) inFlight.remove(inFlightKey, simulationId);
             return ResponseEntity.status(429)
                     .body(Map.of("error", "Queue full. Try again later."));
         }
@@ -301,6 +342,15 @@ public class SimulationStartService {
         ));
     }
 
+    private String inFlightKey(String logPrefix, int effectiveRuns, int effectiveBatchSize, Object inputForDedupAndStorage) {
+        try {
+            return statisticsService.signatureHash(SimulationSignature.of(effectiveRuns, effectiveBatchSize, inputForDedupAndStorage));
+        } catch (Exception e) {
+            log.warn("[{}] Signature hash failed (not coalescing): {}", logPrefix, e.getMessage());
+            return null;
+        }
+    }
+
     private int resolvePathsOverride(Object resolvedAdvanced, Object inputForDedupAndStorage) {
         Integer requested = null;
 
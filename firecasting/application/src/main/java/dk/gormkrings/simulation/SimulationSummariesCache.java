@@ -1,96 +1,45 @@
 package dk.gormkrings.simulation;
 
+import dk.gormkrings.cache.WeightedCache;
 import dk.gormkrings.statistics.YearlySummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class SimulationSummariesCache {
 
-    private record Entry(long storedAtMs, List<YearlySummary> summaries) {
-    }
+    // Object header plus 15 mostly numeric fields, and the list slot
+    private static final long BYTES_PER_SUMMARY = 160;
 
-    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedDeque<String> order = new ConcurrentLinkedDeque<>();
+    private final WeightedCache<List<YearlySummary>> cache;
     private final AtomicReference<String> latestId = new AtomicReference<>(null);
 
-    @Value("${simulation.summaries-cache.maxEntries:10}")
-    private int maxEntries;
-
-    @Value("${simulation.summaries-cache.ttlMs:300000}")
-    private long ttlMs;
+    public SimulationSummariesCache(@Value("${simulation.summaries-cache.maxBytes:8388608}") long maxBytes,
+                                    @Value("${simulation.summaries-cache.ttlMs:300000}") long ttlMs,
+                                    MeterRegistry meterRegistry) {
+        this.cache = new WeightedCache<>("summaries", maxBytes, ttlMs,
+                summaries -> 64 + BYTES_PER_SUMMARY * summaries.size(), null, meterRegistry);
+    }
 
     public void put(String simulationId, List<YearlySummary> summaries) {
         if (simulationId == null || simulationId.isBlank()) return;
         if (summaries == null || summaries.isEmpty()) return;
 
-        long now = System.currentTimeMillis();
-        byId.put(simulationId, new Entry(now, summaries));
+        cache.put(simulationId, summaries);
         latestId.set(simulationId);
-
-        synchronized (order) {
-            order.remove(simulationId);
-            order.addLast(simulationId);
-            pruneLocked(now);
-        }
     }
 
     public List<YearlySummary> get(String simulationId) {
         if (simulationId == null || simulationId.isBlank()) return null;
-
-        long now = System.currentTimeMillis();
-        Entry e = byId.get(simulationId);
-        if (e == null) return null;
-
-        if (isExpired(e, now)) {
-            remove(simulationId);
-            return null;
-        }
-
-        synchronized (order) {
-            order.remove(simulationId);
-            order.addLast(simulationId);
-            pruneLocked(now);
-        }
-
-        return e.summaries();
+        return cache.get(simulationId);
     }
 
     public List<YearlySummary> getLatest() {
         String id = latestId.get();
         return id == null ? null : get(id);
     }
-
-    private boolean isExpired(Entry e, long now) {
-        return ttlMs > 0 && (now - e.storedAtMs()) > ttlMs;
-    }
-
-    private void remove(String simulationId) {
-        byId.remove(simulationId);
-        synchronized (order) {
-            order.remove(simulationId);
-        }
-    }
-
-    private void pruneLocked(long now) {
-        while (true) {
-            String head = order.peekFirst();
-            if (head == null) break;
-            Entry e = byId.get(head);
-            if (e != null && !isExpired(e, now)) break;
-            order.pollFirst();
-            if (e != null) byId.remove(head);
-        }
-
-        while (maxEntries > 0 && order.size() > maxEntries) {
-            String oldest = order.pollFirst();
-            if (oldest == null) break;
-            byId.remove(oldest);
-        }
-    }
 }
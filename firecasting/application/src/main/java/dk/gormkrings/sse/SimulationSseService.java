@@ -3,6 +3,7 @@ package dk.gormkrings.sse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dk.gormkrings.dto.ProgressUpdate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -12,21 +13,36 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Fans simulation events out to SSE subscribers without letting one slow client hold up the others.
+ *
+ * <p>Progress, state and heartbeat events are coalesced per simulation (highest priority wins) and
+ * flushed by a single timer on {@code sseScheduler} for all simulations, which also runs the registered
+ * {@link #addTicker tickers}. Each subscriber has its own bounded queue, drained by a virtual thread
+ * on {@code sseWriterExecutor}, so {@link SseEmitter#send} never blocks the timer or the simulation.
+ * A queued event is replaced by a newer one of the same name; once a queue is full, further progress
+ * is skipped for that subscriber, and a subscriber that cannot take a meta or completed event is
+ * dropped.</p>
+ */
 @Slf4j
 @Service
 public class SimulationSseService {
 
-    private final ScheduledExecutorService sseScheduler;
     private final ObjectMapper mapper;
-
-    public SimulationSseService(ScheduledExecutorService sseScheduler, ObjectMapper mapper) {
-        this.sseScheduler = sseScheduler;
+    private final ExecutorService writers;
+    private final int bufferSize;
+
+    public SimulationSseService(ScheduledExecutorService sseScheduler,
+                                @Qualifier("sseWriterExecutor") ExecutorService writers,
+                                ObjectMapper mapper,
+                                @Value("${settings.sse-interval:1000}") long sseIntervalMs,
+                                @Value("${settings.sse-buffer:32}") int bufferSize) {
         this.mapper = mapper;
+        this.writers = writers;
+        this.bufferSize = Math.max(1, bufferSize);
+        sseScheduler.scheduleAtFixedRate(this::tick, sseIntervalMs, sseIntervalMs, TimeUnit.MILLISECONDS);
     }
 
-    @Value("${settings.sse-interval:1000}")
-    private long sseIntervalMs;
-
     // ---- priority and internal state ---------------------------------------
 
     private static final int PRIO_HEARTBEAT = -1;
@@ -34,6 +50,9 @@ public class SimulationSseService {
     private static final int PRIO_OTHER     =  1;
     private static final int PRIO_STATE     =  2;
 
+    /** How long a stopped id keeps turning away late events before it is forgotten. */
+    private static final long STOPPED_RETENTION_MS = 60_000;
+
     private static final class PendingEvent {
         final String name;
         final Object data;
@@ -44,55 +63,76 @@ public class SimulationSseService {
         }
     }
 
-    private final ConcurrentHashMap<String, CopyOnWriteArrayList<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    /** An event on its way to one subscriber; {@code close} completes the emitter (with {@code error}, if set). */
+    private record Outgoing(String name, Object data, MediaType type, boolean coalesce, boolean close, Throwable error) {
+        static Outgoing event(String name, Object data, MediaType type, boolean coalesce) {
+            return new Outgoing(name, data, type, coalesce, false, null);
+        }
+
+        static Outgoing close(Throwable error) {
+            return new Outgoing(null, null, null, false, true, error);
+        }
+    }
+
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<Subscriber>> emitters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicReference<PendingEvent>> pendingBySim = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, ScheduledFuture<?>> flusherBySim = new ConcurrentHashMap<>();
+    /** Ids whose flusher was stopped, with the time of the stop; late progress or heartbeats for them are dropped. */
+    private final ConcurrentHashMap<String, Long> stopped = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Runnable> tickers = new CopyOnWriteArrayList<>();
     private final ConcurrentHashMap<String, String> lastStateSent = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, Integer> lastQueuedPos = new ConcurrentHashMap<>();
 
     // ---- public API ---------------------------------------------------------
 
     public void addEmitter(String simId, SseEmitter emitter) {
-        emitters.computeIfAbsent(simId, __ -> new CopyOnWriteArrayList<>()).add(emitter);
-        emitter.onCompletion(() -> removeEmitter(simId, emitter));
-        emitter.onTimeout(() -> removeEmitter(simId, emitter));
+        Subscriber subscriber = new Subscriber(simId, emitter);
+        emitters.computeIfAbsent(simId, __ -> new CopyOnWriteArrayList<>()).add(subscriber);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(e -> subscriber.detach());
     }
 
     public void sendCompleted(String simId, Object data) {
         flushOnce(simId);
-        broadcast(simId, SseEmitter.event().name("completed")
-                .data(data, MediaType.APPLICATION_JSON));
+        broadcast(simId, Outgoing.event("completed", data, MediaType.APPLICATION_JSON, false));
     }
 
     public void sendMeta(String simId, Object data) {
         flushOnce(simId);
-        broadcast(simId, SseEmitter.event().name("meta")
-                .data(data, MediaType.APPLICATION_JSON));
+        broadcast(simId, Outgoing.event("meta", data, MediaType.APPLICATION_JSON, false));
+    }
+
+    /**
+     * Typed progress. Run counts are kept as they are and only formatted when a frame is flushed, so
+     * the many updates coalesced in between cost nothing.
+     */
+    public void onProgress(String simId, ProgressUpdate update) {
+        if (update == null) return;
+        if (update.getKind() == ProgressUpdate.Kind.RUNS) {
+            enqueue(simId, "progress", update, PRIO_PROGRESS);
+        } else if (update.getMessage() != null) {
+            enqueue(simId, "progress", update.getMessage().trim(), PRIO_OTHER);
+        }
     }
 
+    /** String progress, either plain text or the JSON form of a {@link ProgressUpdate}. */
     public void onProgressMessage(String simId, String progressMessage) {
         if (progressMessage == null) return;
         String msg = progressMessage.trim();
-        boolean handled = false;
 
         if (msg.startsWith("{") && msg.contains("\"kind\"")) {
             try {
                 ProgressUpdate pu = mapper.readValue(msg, ProgressUpdate.class);
-                if (pu.getKind() == ProgressUpdate.Kind.RUNS) {
-                    String line = String.format("Completed %,d/%,d runs", pu.getCompleted(), pu.getTotal());
-                    enqueue(simId, "progress", line, PRIO_PROGRESS);
-                    handled = true;
-                } else if (pu.getKind() == ProgressUpdate.Kind.MESSAGE && pu.getMessage() != null) {
-                    enqueue(simId, "progress", pu.getMessage(), PRIO_OTHER);
-                    handled = true;
+                if (pu.getKind() == ProgressUpdate.Kind.RUNS
+                        || (pu.getKind() == ProgressUpdate.Kind.MESSAGE && pu.getMessage() != null)) {
+                    onProgress(simId, pu);
+                    return;
                 }
             } catch (Exception ignore) {
                 // fall back
             }
         }
-        if (!handled) {
-            enqueue(simId, "progress", msg, PRIO_OTHER);
-        }
+        enqueue(simId, "progress", msg, PRIO_OTHER);
     }
 
     public void enqueueStateQueued(String simId, String payload) {
@@ -107,30 +147,29 @@ public class SimulationSseService {
         enqueue(simId, "heartbeat", "tick", PRIO_HEARTBEAT);
     }
 
+    /** Makes the shared timer flush {@code simId}; events enqueued for it do this as well. */
     public void startFlusher(String simId) {
-        flusherBySim.computeIfAbsent(simId, id ->
-                sseScheduler.scheduleAtFixedRate(() -> flushOnce(id), 0L, sseIntervalMs, TimeUnit.MILLISECONDS)
-        );
+        stopped.remove(simId);
+        pendingBySim.computeIfAbsent(simId, __ -> new AtomicReference<>());
     }
 
     public void stopFlusherAndComplete(String simId) {
         stopFlusher(simId);
-        var list = emitters.remove(simId);
-        if (list != null) {
-            for (var em : list) {
-                try { em.complete(); } catch (Exception ignore) {}
-            }
-        }
+        close(simId, null);
     }
 
     public void stopFlusherWithError(String simId, Throwable t) {
         stopFlusher(simId);
-        var list = emitters.remove(simId);
-        if (list != null) {
-            for (var em : list) {
-                try { em.completeWithError(t); } catch (Exception ignore) {}
-            }
-        }
+        close(simId, t);
+    }
+
+    /**
+     * Runs {@code task} on every tick of the shared SSE timer until the returned action is run.
+     * Tasks run on the timer thread and must not block.
+     */
+    public Runnable addTicker(Runnable task) {
+        tickers.add(task);
+        return () -> tickers.remove(task);
     }
 
     public String getLastState(String simId) {
@@ -157,28 +196,40 @@ public class SimulationSseService {
 
     // ---- internal helpers ---------------------------------------------------
 
-    private void removeEmitter(String id, SseEmitter e) {
-        var list = emitters.get(id);
-        if (list != null) list.remove(e);
+    private void tick() {
+        for (Runnable task : tickers) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.debug("SSE ticker failed", e);
+            }
+        }
+        for (String simId : pendingBySim.keySet()) flushOnce(simId);
+        long expired = System.currentTimeMillis() - STOPPED_RETENTION_MS;
+        stopped.values().removeIf(stoppedAt -> stoppedAt < expired);
     }
 
-    private void broadcast(String id, SseEmitter.SseEventBuilder event) {
+    private void broadcast(String id, Outgoing event) {
         var list = emitters.get(id);
         if (list == null || list.isEmpty()) return;
+        for (var subscriber : list) subscriber.offer(event);
+    }
 
-        List<SseEmitter> dead = null;
-        for (var e : list) {
-            try { e.send(event); }
-            catch (Exception ex) {
-                if (dead == null) dead = new ArrayList<>();
-                dead.add(e);
-            }
-        }
-        if (dead != null) list.removeAll(dead);
+    private void close(String simId, Throwable error) {
+        var list = emitters.remove(simId);
+        if (list == null) return;
+        // Queued after the final events, so each emitter completes once those are written
+        for (var subscriber : list) subscriber.offer(Outgoing.close(error));
     }
 
     private void enqueue(String simId, String name, Object data, int prio) {
+        if (stopped.containsKey(simId)) return;
         var ref = pendingBySim.computeIfAbsent(simId, __ -> new AtomicReference<>());
+        if (stopped.containsKey(simId)) {
+            // Stopped while the slot was being created; stopFlusher marks the id before it removes the slot
+            pendingBySim.remove(simId, ref);
+            return;
+        }
         PendingEvent next = new PendingEvent(name, data, MediaType.TEXT_PLAIN, prio);
 
         while (true) {
@@ -190,12 +241,10 @@ public class SimulationSseService {
                 if (ref.compareAndSet(cur, next)) break;
             }
         }
-        startFlusher(simId);
     }
 
     private void stopFlusher(String simId) {
-        var f = flusherBySim.remove(simId);
-        if (f != null) f.cancel(false);
+        stopped.put(simId, System.currentTimeMillis());
         pendingBySim.remove(simId);
         clearState(simId);
     }
@@ -205,10 +254,88 @@ public class SimulationSseService {
         if (ref == null) return;
         PendingEvent ev = ref.getAndSet(null);
         if (ev == null) return;
+        broadcast(simId, Outgoing.event(ev.name, render(ev.data), ev.type, true));
+    }
 
-        var sse = SseEmitter.event().name(ev.name);
-        if (ev.data != null) sse = sse.data(ev.data, ev.type);
-        broadcast(simId, sse);
+    private static Object render(Object data) {
+        if (data instanceof ProgressUpdate pu) {
+            return String.format("Completed %,d/%,d runs", pu.getCompleted(), pu.getTotal());
+        }
+        return data;
     }
-}
 
+    /** One emitter with its bounded queue; at most one writer drains it at a time. */
+    private final class Subscriber {
+        private final String simId;
+        private final SseEmitter emitter;
+        // Guarded by this
+        private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(String simId, SseEmitter emitter) {
+            this.simId = simId;
+            this.emitter = emitter;
+        }
+
+        void offer(Outgoing event) {
+            synchronized (this) {
+                if (closed) return;
+                if (event.coalesce()) queue.removeIf(q -> q.coalesce() && q.name().equals(event.name()));
+                if (queue.size() >= bufferSize && !event.close()) {
+                    // Behind: skip progress until it catches up, give up if it cannot even take a result
+                    if (event.coalesce()) return;
+                    log.debug("Dropping slow SSE subscriber of {}", simId);
+                    queue.clear();
+                    queue.add(Outgoing.close(null));
+                } else {
+                    queue.addLast(event);
+                }
+                if (draining) return;
+                draining = true;
+            }
+            try {
+                writers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                detach();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Outgoing event;
+                synchronized (this) {
+                    event = queue.pollFirst();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    if (event.close()) {
+                        detach();
+                        if (event.error() != null) emitter.completeWithError(event.error());
+                        else emitter.complete();
+                        return;
+                    }
+                    var sse = SseEmitter.event().name(event.name());
+                    if (event.data() != null) sse = sse.data(event.data(), event.type());
+                    emitter.send(sse);
+                } catch (Exception e) {
+                    detach();
+                    return;
+                }
+            }
+        }
+
+        void detach() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+                draining = false;
+            }
+            var list = emitters.get(simId);
+            if (list != null) list.remove(this);
+        }
+    }
+}
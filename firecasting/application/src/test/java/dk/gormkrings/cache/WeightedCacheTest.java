@@ -0,0 +1,107 @@
+package dk.gormkrings.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WeightedCacheTest {
+
+    private static WeightedCache<String> cache(long maxBytes, long ttlMs, List<String> evicted, SimpleMeterRegistry registry) {
+        return new WeightedCache<>("test", maxBytes, ttlMs, String::length, (key, value) -> evicted.add(key), registry);
+    }
+
+    @Test
+    void evictsUnreferencedEntriesBeforeReadOnes() {
+        List<String> evicted = new ArrayList<>();
+        WeightedCache<String> cache = cache(30, 0, evicted, null);
+
+        cache.put("a", "0123456789");
+        cache.put("b", "0123456789");
+        cache.put("c", "0123456789");
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", "0123456789");
+
+        assertEquals(List.of("b"), evicted);
+        assertNotNull(cache.get("a"));
+        assertEquals(30, cache.bytes());
+    }
+
+    @Test
+    void keepsTheNewestEntryEvenOverBudget() {
+        List<String> evicted = new ArrayList<>();
+        WeightedCache<String> cache = cache(5, 0, evicted, null);
+
+        cache.put("a", "012");
+        cache.put("b", "0123456789");
+
+        assertEquals(List.of("a"), evicted);
+        assertEquals("0123456789", cache.get("b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void putIfAbsentKeepsALiveEntryAndPeekLeavesItUnread() {
+        List<String> evicted = new ArrayList<>();
+        WeightedCache<String> cache = cache(20, 0, evicted, null);
+
+        assertEquals("first", cache.putIfAbsent("a", "first"));
+        assertEquals("first", cache.putIfAbsent("a", "second"));
+        assertEquals("first", cache.peek("a"));
+        assertNull(cache.peek("b"));
+
+        // Peeking did not mark "a" as read, so it goes first
+        cache.put("b", "0123456789");
+        cache.put("c", "0123456789");
+        assertEquals(List.of("a"), evicted);
+    }
+
+    @Test
+    void replacingAnEntryAdjustsTheWeightWithoutEvictingIt() {
+        List<String> evicted = new ArrayList<>();
+        WeightedCache<String> cache = cache(100, 0, evicted, null);
+
+        cache.put("a", "0123456789");
+        cache.put("a", "01234");
+
+        assertEquals(5, cache.bytes());
+        assertEquals("01234", cache.get("a"));
+        assertEquals(List.of(), evicted);
+    }
+
+    @Test
+    void expiredEntriesAreMissesAndReachTheListener() throws Exception {
+        List<String> evicted = new ArrayList<>();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WeightedCache<String> cache = cache(100, 1, evicted, registry);
+
+        cache.put("a", "x");
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(List.of("a"), evicted);
+        assertEquals(0, cache.size());
+        assertEquals(1.0, registry.get("firecasting.cache.evictions").tag("cause", "expired").functionCounter().count());
+    }
+
+    @Test
+    void publishesHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WeightedCache<String> cache = cache(100, 0, new ArrayList<>(), registry);
+
+        cache.put("a", "x");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(2.0, registry.get("firecasting.cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("firecasting.cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("firecasting.cache.bytes").tag("cache", "test").gauge().value());
+    }
+}
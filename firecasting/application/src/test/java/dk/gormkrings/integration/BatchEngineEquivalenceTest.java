@@ -0,0 +1,143 @@
+package dk.gormkrings.integration;
+
+import dk.gormkrings.calendar.WeekdayTradingCalendar;
+import dk.gormkrings.data.IDate;
+import dk.gormkrings.data.ILiveData;
+import dk.gormkrings.factory.IDateFactory;
+import dk.gormkrings.inflation.IInflation;
+import dk.gormkrings.phase.IPhase;
+import dk.gormkrings.phase.callBased.SimulationCallPhase;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.result.ISnapshot;
+import dk.gormkrings.returns.IReturner;
+import dk.gormkrings.simulation.ReturnStep;
+import dk.gormkrings.simulation.engine.call.BatchCallEngine;
+import dk.gormkrings.simulation.engine.call.CallEngine;
+import dk.gormkrings.simulation.factory.DefaultDateFactory;
+import dk.gormkrings.simulation.factory.DefaultResultFactory;
+import dk.gormkrings.simulation.factory.DefaultSnapshotFactory;
+import dk.gormkrings.simulation.specification.Specification;
+import dk.gormkrings.specification.ISpecification;
+import dk.gormkrings.tax.ITaxExemption;
+import dk.gormkrings.tax.ITaxRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchEngineEquivalenceTest {
+
+    private static final IDateFactory DATES = new DefaultDateFactory();
+
+    @Test
+    void batchEngine_matchesCallEngine_forPerDayReturner() {
+        assertSameSnapshots(() -> new FixedRateReturner(0.0004, false));
+    }
+
+    @Test
+    void batchEngine_matchesCallEngine_forLogReturnReturner() {
+        assertSameSnapshots(() -> new FixedRateReturner(0.0004, true));
+    }
+
+    private static void assertSameSnapshots(Supplier<IReturner> returner) {
+        CallEngine callEngine = new CallEngine(DATES, new DefaultResultFactory(), new DefaultSnapshotFactory());
+        BatchCallEngine batchEngine = new BatchCallEngine(DATES, new DefaultResultFactory(), new DefaultSnapshotFactory(), 4);
+
+        List<List<IPhase>> paths = new ArrayList<>();
+        List<IRunResult> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            double initial = 1_000.0 * (i + 1);
+            expected.add(callEngine.simulatePhases(phases(returner.get(), initial)));
+            paths.add(phases(returner.get(), initial));
+        }
+
+        List<IRunResult> actual = batchEngine.simulateBatch(paths);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            List<ISnapshot> want = expected.get(i).getSnapshots();
+            List<ISnapshot> got = actual.get(i).getSnapshots();
+            assertEquals(want.size(), got.size(), "snapshot count of path " + i);
+            for (int s = 0; s < want.size(); s++) {
+                assertEquals(want.get(s).toCsvRow(), got.get(s).toCsvRow(), "path " + i + " snapshot " + s);
+            }
+        }
+    }
+
+    private static List<IPhase> phases(IReturner returner, double initialCapital) {
+        IDate start = DATES.dateOf(2025, 1, 15);
+        ISpecification specification = new Specification(start.getEpochDay(), NO_TAX, returner, YEARLY_INFLATION);
+        ((ILiveData) specification.getLiveData()).addToCapital(initialCapital);
+
+        List<IPhase> phases = new ArrayList<>();
+        phases.add(phase(specification, start, 400, "first"));
+        phases.add(phase(specification, start.plusDays(400), 300, "second"));
+        return phases;
+    }
+
+    private static IPhase phase(ISpecification specification, IDate start, long days, String name) {
+        return new SimulationCallPhase(specification, start, List.<ITaxExemption>of(), days, name,
+                ReturnStep.DAILY, new WeekdayTradingCalendar()) {
+            @Override
+            public IPhase copy(ISpecification specificationCopy) {
+                return this;
+            }
+        };
+    }
+
+    /** Deterministic returner; optionally exposes its draws as log-returns for the bulk path. */
+    private static final class FixedRateReturner implements IReturner {
+        private final double logReturn;
+        private final boolean bulk;
+
+        FixedRateReturner(double logReturn, boolean bulk) {
+            this.logReturn = logReturn;
+            this.bulk = bulk;
+        }
+
+        @Override
+        public double calculateReturn(double amount) {
+            return amount * Math.exp(logReturn) - amount;
+        }
+
+        @Override
+        public boolean sampleLogReturns(double[] out, int count) {
+            if (!bulk) return false;
+            Arrays.fill(out, 0, count, logReturn);
+            return true;
+        }
+
+        @Override
+        public IReturner copy() {
+            return new FixedRateReturner(logReturn, bulk);
+        }
+    }
+
+    private static final ITaxRule NO_TAX = new ITaxRule() {
+        @Override
+        public double calculateTax(double amount) {
+            return 0.0;
+        }
+
+        @Override
+        public ITaxRule copy() {
+            return this;
+        }
+    };
+
+    private static final IInflation YEARLY_INFLATION = new IInflation() {
+        @Override
+        public double calculateInflation() {
+            return 1.02;
+        }
+
+        @Override
+        public IInflation copy() {
+            return this;
+        }
+    };
+}
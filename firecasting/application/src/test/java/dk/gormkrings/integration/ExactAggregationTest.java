@@ -0,0 +1,143 @@
+package dk.gormkrings.integration;
+
+import dk.gormkrings.calendar.WeekdayTradingCalendar;
+import dk.gormkrings.data.IDate;
+import dk.gormkrings.data.ILiveData;
+import dk.gormkrings.factory.IDateFactory;
+import dk.gormkrings.inflation.IInflation;
+import dk.gormkrings.phase.IPhase;
+import dk.gormkrings.phase.callBased.SimulationCallPhase;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.result.ISnapshot;
+import dk.gormkrings.returns.IReturner;
+import dk.gormkrings.simulation.ReturnStep;
+import dk.gormkrings.simulation.engine.call.BatchCallEngine;
+import dk.gormkrings.simulation.engine.call.CallEngine;
+import dk.gormkrings.simulation.factory.DefaultDateFactory;
+import dk.gormkrings.simulation.factory.DefaultResultFactory;
+import dk.gormkrings.simulation.factory.DefaultSnapshotFactory;
+import dk.gormkrings.simulation.specification.Specification;
+import dk.gormkrings.specification.ISpecification;
+import dk.gormkrings.tax.ITaxExemption;
+import dk.gormkrings.tax.ITaxRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactAggregationTest {
+
+    private static final IDateFactory DATES = new DefaultDateFactory();
+    private static final double LOG_RETURN = 0.0004;
+
+    @Test
+    void aggregatedReturns_matchDailyCompounding_withFarFewerDraws() {
+        CountingReturner daily = new CountingReturner(false);
+        CountingReturner aggregated = new CountingReturner(true);
+        CallEngine engine = new CallEngine(DATES, new DefaultResultFactory(), new DefaultSnapshotFactory());
+
+        IRunResult expected = engine.simulatePhases(phases(daily));
+        IRunResult actual = engine.simulatePhases(phases(aggregated));
+
+        assertSameCapital(expected, actual);
+        assertTrue(aggregated.draws * 15 < daily.draws,
+                "expected far fewer draws, got " + aggregated.draws + " vs " + daily.draws);
+    }
+
+    @Test
+    void batchEngine_fallsBackToPerDayCalls_whenAggregating() {
+        CallEngine callEngine = new CallEngine(DATES, new DefaultResultFactory(), new DefaultSnapshotFactory());
+        BatchCallEngine batchEngine = new BatchCallEngine(DATES, new DefaultResultFactory(), new DefaultSnapshotFactory(), 4);
+
+        IRunResult expected = callEngine.simulatePhases(phases(new CountingReturner(false)));
+        IRunResult actual = batchEngine.simulatePhases(phases(new CountingReturner(true)));
+
+        assertSameCapital(expected, actual);
+    }
+
+    private static void assertSameCapital(IRunResult expected, IRunResult actual) {
+        List<ISnapshot> want = expected.getSnapshots();
+        List<ISnapshot> got = actual.getSnapshots();
+        assertEquals(want.size(), got.size());
+        for (int s = 0; s < want.size(); s++) {
+            double capital = want.get(s).getState().getCapital();
+            assertEquals(capital, got.get(s).getState().getCapital(), Math.abs(capital) * 1e-9, "snapshot " + s);
+            assertEquals(want.get(s).getState().getSessionDuration(), got.get(s).getState().getSessionDuration());
+        }
+    }
+
+    private static List<IPhase> phases(IReturner returner) {
+        IDate start = DATES.dateOf(2025, 1, 15);
+        ISpecification specification = new Specification(start.getEpochDay(), NO_TAX, returner, YEARLY_INFLATION);
+        ((ILiveData) specification.getLiveData()).addToCapital(10_000.0);
+
+        List<IPhase> phases = new ArrayList<>();
+        phases.add(new SimulationCallPhase(specification, start, List.<ITaxExemption>of(), 800, "aggregated",
+                ReturnStep.DAILY, new WeekdayTradingCalendar()) {
+            @Override
+            public IPhase copy(ISpecification specificationCopy) {
+                return this;
+            }
+        });
+        return phases;
+    }
+
+    /** Fixed daily log-return; when aggregating, a run of n days is one call with n times the log-return. */
+    private static final class CountingReturner implements IReturner {
+        private final boolean aggregate;
+        int draws;
+
+        CountingReturner(boolean aggregate) {
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public double calculateReturn(double amount) {
+            draws++;
+            return amount * Math.exp(LOG_RETURN) - amount;
+        }
+
+        @Override
+        public boolean hasExactAggregation() {
+            return aggregate;
+        }
+
+        @Override
+        public double calculateReturn(double amount, int steps) {
+            draws++;
+            return amount * Math.exp(LOG_RETURN * steps) - amount;
+        }
+
+        @Override
+        public IReturner copy() {
+            return new CountingReturner(aggregate);
+        }
+    }
+
+    private static final ITaxRule NO_TAX = new ITaxRule() {
+        @Override
+        public double calculateTax(double amount) {
+            return 0.0;
+        }
+
+        @Override
+        public ITaxRule copy() {
+            return this;
+        }
+    };
+
+    private static final IInflation YEARLY_INFLATION = new IInflation() {
+        @Override
+        public double calculateInflation() {
+            return 1.02;
+        }
+
+        @Override
+        public IInflation copy() {
+            return this;
+        }
+    };
+}
@@ -44,6 +44,8 @@ import static org.mockito.Mockito.*;
 @TestPropertySource(properties = {
     "settings.runs=1000",
     "settings.batch-size=1000",
+    // Keep full results in the cache; these tests read them back
+    "simulation.aggregation.streaming=false",
     // Disable DB/Flyway to avoid requiring Postgres in tests
     "spring.flyway.enabled=false",
     "spring.jpa.hibernate.ddl-auto=none",
@@ -114,7 +116,7 @@ class NormalAdvancedServiceReproducibilityHighLoadTest {
     }
 
     private void stubQueueToRunInline() {
-        when(queue.submitWithId(anyString(), any())).thenAnswer(inv -> {
+        when(queue.submitWithId(anyString(), any(), any())).thenAnswer(inv -> {
             Runnable r = inv.getArgument(1);
             r.run();
             return true;
@@ -43,6 +43,8 @@ import static org.mockito.Mockito.*;
 @TestPropertySource(properties = {
     "settings.runs=1",
     "settings.batch-size=1",
+    // Keep full results in the cache; these tests read them back
+    "simulation.aggregation.streaming=false",
     // Disable DB/Flyway to avoid requiring Postgres in tests
     "spring.flyway.enabled=false",
     "spring.jpa.hibernate.ddl-auto=none",
@@ -112,7 +114,7 @@ class NormalAdvancedServiceReproducibilityTest {
     }
 
     private void stubQueueToRunInline() {
-        when(queue.submitWithId(anyString(), any())).thenAnswer(inv -> {
+        when(queue.submitWithId(anyString(), any(), any())).thenAnswer(inv -> {
             Runnable r = inv.getArgument(1);
             r.run();
             return true;
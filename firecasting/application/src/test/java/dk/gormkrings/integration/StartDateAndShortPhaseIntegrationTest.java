@@ -23,7 +23,6 @@ import dk.gormkrings.simulation.engine.schedule.ScheduleEngine;
 import dk.gormkrings.simulation.factory.DefaultDateFactory;
 import dk.gormkrings.simulation.factory.DefaultResultFactory;
 import dk.gormkrings.simulation.factory.DefaultSnapshotFactory;
-import dk.gormkrings.simulation.result.Snapshot;
 import dk.gormkrings.simulation.specification.Specification;
 import dk.gormkrings.specification.ISpecification;
 import dk.gormkrings.tax.ITaxExemption;
@@ -136,7 +135,7 @@ class StartDateAndShortPhaseIntegrationTest {
 
         // Assert: start date anchors time.
         assertFalse(result.getSnapshots().isEmpty());
-        var first = (Snapshot) result.getSnapshots().get(0);
+        var first = result.getSnapshots().get(0);
         ILiveData state0 = first.getState();
         Date d0 = new Date((int) (state0.getStartTime() + state0.getTotalDurationAlive()));
         assertEquals("2027-06-18", d0.toString(), "First snapshot should reflect the chosen startDate");
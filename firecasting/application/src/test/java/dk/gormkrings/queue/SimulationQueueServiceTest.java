@@ -0,0 +1,103 @@
+package dk.gormkrings.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationQueueServiceTest {
+
+    /** Holds started jobs until the test runs them, so slot usage is under the test's control. */
+    private final Queue<Runnable> slots = new ArrayDeque<>();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    void smallJobsOvertakeALargeOneWithoutStarvingIt() {
+        SimulationQueueService queue = new SimulationQueueService(slots::add, 100, 1);
+
+        submit(queue, "blocker", 1);
+        submit(queue, "large", 500);
+        submit(queue, "small-1", 400);
+        submit(queue, "small-2", 400);
+
+        assertEquals(1, queue.queuedPosition("small-1"));
+        assertEquals(2, queue.queuedPosition("small-2"));
+        assertEquals(3, queue.queuedPosition("large"));
+        assertEquals(-1, queue.queuedPosition("blocker"));
+
+        // Starting small-1 advances the clock, so a small job arriving now queues behind the large one
+        runNext();
+        submit(queue, "small-3", 400);
+        assertEquals(2, queue.queuedPosition("large"));
+        assertEquals(3, queue.queuedPosition("small-3"));
+
+        while (!slots.isEmpty()) runNext();
+
+        assertEquals(List.of("blocker", "small-1", "small-2", "large", "small-3"), ran);
+        assertEquals(SimulationQueueService.Status.DONE, queue.status("large"));
+    }
+
+    @Test
+    void runsUpToSlotsJobsAtOnceAndRejectsBeyondCapacity() {
+        SimulationQueueService queue = new SimulationQueueService(slots::add, 1, 2);
+
+        assertTrue(submit(queue, "a", 1));
+        assertTrue(submit(queue, "b", 1));
+        assertTrue(submit(queue, "c", 1));
+        assertFalse(submit(queue, "d", 1));
+
+        assertEquals(2, slots.size());
+        assertEquals(SimulationQueueService.Status.QUEUED, queue.status("c"));
+        assertNull(queue.status("d"));
+
+        runNext();
+        assertEquals(2, slots.size());
+        assertEquals(-1, queue.queuedPosition("c"));
+        assertTrue(submit(queue, "d", 1));
+    }
+
+    @Test
+    void executorRefusalFailsTheJobAndNotifiesItsSubmitter() {
+        boolean[] refuse = {false};
+        SimulationQueueService queue = new SimulationQueueService(task -> {
+            if (refuse[0]) throw new RejectedExecutionException("shut down");
+            slots.add(task);
+        }, 10, 1);
+        List<String> rejected = new ArrayList<>();
+
+        assertTrue(queue.submitWithId("a", () -> ran.add("a"), () -> rejected.add("a")));
+        assertTrue(queue.submitWithId("b", () -> ran.add("b"), () -> rejected.add("b")));
+
+        // b is handed to the executor when a finishes, and refused there
+        refuse[0] = true;
+        runNext();
+        assertEquals(List.of("a"), ran);
+        assertEquals(List.of("b"), rejected);
+        assertEquals(SimulationQueueService.Status.FAILED, queue.status("b"));
+
+        // Refused while submitting: the caller hears it from the return value, not the callback
+        assertFalse(queue.submitWithId("c", () -> ran.add("c"), () -> rejected.add("c")));
+        assertNull(queue.status("c"));
+        assertEquals(List.of("b"), rejected);
+    }
+
+    private boolean submit(SimulationQueueService queue, String id, long cost) {
+        return queue.submitWithId(id, SimulationQueueService.costed(cost, () -> {
+            ran.add(id);
+            // Visible to the job itself while it runs
+            assertEquals(SimulationQueueService.Status.RUNNING, queue.status(id));
+        }));
+    }
+
+    private void runNext() {
+        slots.remove().run();
+    }
+}
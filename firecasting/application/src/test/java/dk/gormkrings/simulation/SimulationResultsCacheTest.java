@@ -0,0 +1,108 @@
+package dk.gormkrings.simulation;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.data.LiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationResultsCacheTest {
+
+    private static List<IRunResult> results(double capital) {
+        List<IRunResult> results = new ArrayList<>();
+        for (int r = 0; r < 10; r++) {
+            ColumnarRunResult run = new ColumnarRunResult(12);
+            LiveData data = new LiveData(45_000);
+            data.setPhaseName("Deposit");
+            for (int month = 0; month < 12; month++) {
+                data.incrementTime(30);
+                data.addToCapital(capital + r);
+                run.append(data);
+            }
+            results.add(run);
+        }
+        return results;
+    }
+
+    @Test
+    void resultsOverTheHeapBudgetSpillToTheVolumeAndReadBack(@TempDir Path dir) throws Exception {
+        List<IRunResult> first = results(1_000);
+        long oneResult = SimulationResultsCache.estimateBytes(first);
+        // Room for one result on the heap; spills run inline
+        SimulationResultsCache cache = new SimulationResultsCache(oneResult, 0, dir.toString(), 1 << 20, Runnable::run, new SimpleMeterRegistry());
+
+        cache.put("first", first);
+        List<IRunResult> second = results(2_000);
+        cache.put("second", second);
+
+        assertSame(second, cache.get("second"));
+        assertTrue(Files.exists(dir.resolve("first.fcr")));
+
+        List<IRunResult> reloaded = cache.get("first");
+        assertNotNull(reloaded);
+        assertNotSame(first, reloaded);
+        assertEquals(first.size(), reloaded.size());
+        for (int r = 0; r < first.size(); r++) {
+            ColumnarRunResult expected = (ColumnarRunResult) first.get(r);
+            ColumnarRunResult actual = (ColumnarRunResult) reloaded.get(r);
+            for (int row = 0; row < expected.size(); row++) {
+                assertEquals(expected.toCsvRow(row), actual.toCsvRow(row));
+            }
+        }
+
+        // Reading "first" back pushed "second" out to the volume in turn
+        assertTrue(Files.exists(dir.resolve("second.fcr")));
+        assertEquals(second.size(), cache.getLatest().size());
+    }
+
+    @Test
+    void aSpillStillRunningWhenTheIdIsPutAgainDoesNotReplaceTheNewerResults(@TempDir Path dir) {
+        List<IRunResult> old = results(1_000);
+        List<IRunResult> newer = results(3_000);
+        // Spills wait until the test runs them
+        Queue<Runnable> spills = new ArrayDeque<>();
+        SimulationResultsCache cache = new SimulationResultsCache(SimulationResultsCache.estimateBytes(old), 0,
+                dir.toString(), 1 << 20, spills::add, new SimpleMeterRegistry());
+
+        cache.put("run", old);
+        cache.put("other", results(2_000));
+        assertEquals(1, spills.size());
+
+        // Put again while the old results are still waiting to be written, then push the new ones out too
+        cache.put("run", newer);
+        cache.put("third", results(4_000));
+        while (!spills.isEmpty()) spills.remove().run();
+
+        List<IRunResult> reloaded = cache.get("run");
+        assertNotNull(reloaded);
+        assertEquals(((ColumnarRunResult) newer.getFirst()).toCsvRow(0), ((ColumnarRunResult) reloaded.getFirst()).toCsvRow(0));
+    }
+
+    @Test
+    void withoutAVolumeEvictedResultsAreGone() {
+        List<IRunResult> first = results(1_000);
+        SimulationResultsCache cache = new SimulationResultsCache(
+                SimulationResultsCache.estimateBytes(first), 0, "", 0, Runnable::run, new SimpleMeterRegistry());
+
+        cache.put("first", first);
+        cache.put("second", results(2_000));
+
+        assertNull(cache.get("first"));
+        assertNotNull(cache.get("second"));
+    }
+}
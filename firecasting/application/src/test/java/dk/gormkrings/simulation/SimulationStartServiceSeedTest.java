@@ -4,6 +4,7 @@ import dk.gormkrings.queue.SimulationQueueService;
 import dk.gormkrings.sse.SimulationSseService;
 import dk.gormkrings.statistics.StatisticsService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,7 +26,7 @@ class SimulationStartServiceSeedTest {
         SimulationMetricSummariesCache metricSummariesCache = mock(SimulationMetricSummariesCache.class);
         SimulationTimingsCache timingsCache = mock(SimulationTimingsCache.class);
 
-        when(queue.submitWithId(anyString(), any())).thenReturn(true);
+        when(queue.submitWithId(anyString(), any(), any())).thenReturn(true);
 
         SimulationStartService svc = new SimulationStartService(queue, runner, sse, stats, cache, summariesCache, metricSummariesCache, timingsCache);
 
@@ -56,7 +57,7 @@ class SimulationStartServiceSeedTest {
         assertTrue(resp.getBody().containsKey("id"));
 
         verify(stats, never()).findExistingRunIdForSignature(any());
-        verify(queue, times(1)).submitWithId(anyString(), any());
+        verify(queue, times(1)).submitWithId(anyString(), any(), any());
     }
 
     @Test
@@ -100,7 +101,59 @@ class SimulationStartServiceSeedTest {
         assertEquals("existing-id", resp.getBody().get("id"));
 
         verify(stats, times(1)).findExistingRunIdForSignature(any());
-        verify(queue, never()).submitWithId(anyString(), any());
+        verify(queue, never()).submitWithId(anyString(), any(), any());
+    }
+
+    @Test
+    void identicalDeterministicRequestsJoinTheRunInFlight() {
+        SimulationQueueService queue = mock(SimulationQueueService.class);
+        SimulationRunner runner = mock(SimulationRunner.class);
+        SimulationSseService sse = mock(SimulationSseService.class);
+        StatisticsService stats = mock(StatisticsService.class);
+        SimulationResultsCache cache = mock(SimulationResultsCache.class);
+        SimulationSummariesCache summariesCache = mock(SimulationSummariesCache.class);
+        SimulationMetricSummariesCache metricSummariesCache = mock(SimulationMetricSummariesCache.class);
+        SimulationTimingsCache timingsCache = mock(SimulationTimingsCache.class);
+
+        when(stats.signatureHash(any())).thenReturn("same-signature");
+        ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+        when(queue.submitWithId(anyString(), job.capture(), any())).thenReturn(true);
+
+        SimulationStartService svc = new SimulationStartService(queue, runner, sse, stats, cache, summariesCache, metricSummariesCache, timingsCache);
+
+        TestUtil.setField(svc, "runs", 1);
+        TestUtil.setField(svc, "batchSize", 1);
+
+        var rc = new dk.gormkrings.returns.ReturnerConfig();
+        rc.setSeed(123L);
+        var spec = new SimulationRunSpec(
+                new dk.gormkrings.simulation.data.Date(0),
+                List.of(),
+                "Capital",
+                0.0f,
+                "dataDrivenReturn",
+                1.02D,
+            0.0D,
+                rc,
+                null
+        );
+
+        var input = new dk.gormkrings.dto.AdvancedSimulationRequest();
+        input.setSeed(123L);
+        var first = svc.startSimulation("/start", spec, input);
+        var second = svc.startSimulation("/start", spec, input);
+
+        assertEquals(202, second.getStatusCode().value());
+        assertEquals(first.getBody().get("id"), second.getBody().get("id"));
+        assertEquals("true", second.getBody().get("inFlightHit"));
+        verify(queue, times(1)).submitWithId(anyString(), any(), any());
+
+        // Once the job has finished, the next identical request starts a new run (or hits the persisted one)
+        job.getValue().run();
+        var third = svc.startSimulation("/start", spec, input);
+
+        assertNotEquals(first.getBody().get("id"), third.getBody().get("id"));
+        verify(queue, times(2)).submitWithId(anyString(), any(), any());
     }
 
     /** Minimal reflection helper to set @Value fields in unit tests without Spring. */
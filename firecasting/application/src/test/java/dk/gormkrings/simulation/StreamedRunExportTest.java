@@ -0,0 +1,129 @@
+package dk.gormkrings.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dk.gormkrings.FirecastingController;
+import dk.gormkrings.diff.RunDiffService;
+import dk.gormkrings.export.ReproducibilityBundleService;
+import dk.gormkrings.queue.SimulationQueueService;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.data.LiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import dk.gormkrings.sse.SimulationSseService;
+import dk.gormkrings.statistics.StatisticsService;
+import dk.gormkrings.statistics.persistence.SimulationRunEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/** Exports of a persisted run whose results were folded into the aggregates instead of being kept. */
+class StreamedRunExportTest {
+
+    private static final String INPUT_JSON =
+            "{\"returnType\":\"dataDrivenReturn\",\"paths\":7,\"batchSize\":3,\"seed\":123,\"phases\":[]}";
+
+    private final SimulationQueueService queue = mock(SimulationQueueService.class);
+    private final SimulationRunner runner = mock(SimulationRunner.class);
+    private final SimulationSseService sse = mock(SimulationSseService.class);
+    private final StatisticsService stats = mock(StatisticsService.class);
+    private final SimulationSummariesCache summariesCache = mock(SimulationSummariesCache.class);
+    private final SimulationMetricSummariesCache metricSummariesCache = mock(SimulationMetricSummariesCache.class);
+    private final SimulationTimingsCache timingsCache = mock(SimulationTimingsCache.class);
+    private final SimulationResultsCache resultsCache =
+            new SimulationResultsCache(1 << 20, 300_000, "", 0, Runnable::run, new SimpleMeterRegistry());
+
+    private static List<IRunResult> results() {
+        ColumnarRunResult run = new ColumnarRunResult(2);
+        LiveData data = new LiveData(45_000);
+        data.setPhaseName("Deposit");
+        data.incrementTime(30);
+        data.addToCapital(1_000);
+        run.append(data);
+        return List.of(run);
+    }
+
+    /** Starts a streamed persisted run of {@link #INPUT_JSON} (7 paths, batch size 3) and returns its id. */
+    private String runStreamed() {
+        when(stats.findExistingRunIdForSignature(any())).thenReturn(Optional.empty());
+        when(stats.signatureHash(any())).thenReturn("signature");
+        ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+        when(queue.submitWithId(anyString(), job.capture(), any())).thenReturn(true);
+        when(runner.runSimulationOutcome(anyString(), any(), any(), any(), anyInt(), anyInt(), anyBoolean(), anyBoolean(), any()))
+                .thenReturn(new SimulationRunner.RunOutcome(List.of(), List.of(), List.of(), 123L, null));
+
+        SimulationStartService start = new SimulationStartService(queue, runner, sse, stats, resultsCache,
+                summariesCache, metricSummariesCache, timingsCache);
+        SimulationStartServiceSeedTest.TestUtil.setField(start, "runs", 1);
+        SimulationStartServiceSeedTest.TestUtil.setField(start, "batchSize", 1);
+        SimulationStartServiceSeedTest.TestUtil.setField(start, "streamingAggregation", true);
+
+        var input = new dk.gormkrings.dto.AdvancedSimulationRequest();
+        input.setPaths(7);
+        input.setBatchSize(3);
+        input.setSeed(123L);
+        var spec = new SimulationRunSpec(new dk.gormkrings.simulation.data.Date(0), List.of(), "Capital", 0.0f,
+                "dataDrivenReturn", 1.02D);
+        String id = start.startSimulation("/start-advanced", spec, input).getBody().get("id");
+        job.getValue().run();
+
+        verify(runner).runSimulationOutcome(eq(id), any(), any(), any(), eq(7), eq(3), eq(true), eq(false), any());
+
+        SimulationRunEntity run = new SimulationRunEntity();
+        run.setId(id);
+        run.setInputJson(INPUT_JSON);
+        run.setResolvedInputJson(INPUT_JSON);
+        when(stats.getRun(id)).thenReturn(run);
+        when(runner.runSimulationNoPersist(any(), anyInt(), anyInt(), any())).thenReturn(results());
+        return id;
+    }
+
+    private FirecastingController controller() {
+        FirecastingController controller = new FirecastingController(queue, sse, stats, mock(SimulationStartService.class),
+                runner, resultsCache, summariesCache, metricSummariesCache, timingsCache,
+                mock(ReproducibilityBundleService.class), Optional.empty(), mock(RunDiffService.class),
+                new ObjectMapper(), new ObjectMapper());
+        SimulationStartServiceSeedTest.TestUtil.setField(controller, "runs", 1);
+        SimulationStartServiceSeedTest.TestUtil.setField(controller, "batchSize", 1);
+        return controller;
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        assertEquals(200, response.getStatusCode().value());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void latestExportRecomputesAStreamedRunWithItsOwnPathsAndBatchSize() throws Exception {
+        runStreamed();
+
+        String csv = body(controller().exportResultsAsCsv(null, null, null, null, null));
+
+        assertFalse(csv.isBlank());
+        verify(runner).runSimulationNoPersist(any(), eq(7), eq(3), any());
+    }
+
+    @Test
+    void perRunExportRecomputesAStreamedRunOnceWithItsOwnPathsAndBatchSize() throws Exception {
+        String id = runStreamed();
+        FirecastingController controller = controller();
+
+        String first = body(controller.exportResultsAsCsvForRun(id, null, null, null, null, null));
+        String second = body(controller.exportResultsAsCsvForRun(id, null, null, null, null, null));
+
+        assertEquals(first, second);
+        // The second export is served from the cache
+        verify(runner, times(1)).runSimulationNoPersist(any(), eq(7), eq(3), any());
+    }
+}
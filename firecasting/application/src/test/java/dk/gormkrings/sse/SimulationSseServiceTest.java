@@ -0,0 +1,142 @@
+package dk.gormkrings.sse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dk.gormkrings.dto.ProgressUpdate;
+import dk.gormkrings.simulation.IProgressCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationSseServiceTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void shutdown() {
+        timer.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    /** Records the events it is sent as {@code name:data}; blocks in send until released. */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            super(0L);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            String text = builder.build().stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining());
+            events.add(field(text, "event:") + ":" + field(text, "data:"));
+        }
+
+        private static String field(String text, String prefix) {
+            int start = text.indexOf(prefix) + prefix.length();
+            return text.substring(start, text.indexOf('\n', start));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+
+    @Test
+    void aBlockedSubscriberDoesNotHoldUpTheOthers() throws Exception {
+        SimulationSseService sse = new SimulationSseService(timer, writers, new ObjectMapper(), 60_000, 8);
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(slowRelease);
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        sse.addEmitter("sim", slow);
+        sse.addEmitter("sim", fast);
+
+        sse.sendMeta("sim", "{}");
+        sse.sendCompleted("sim", "[]");
+        sse.stopFlusherAndComplete("sim");
+
+        assertTrue(fast.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("meta:{}", "completed:[]"), fast.events);
+        assertEquals(List.of(), slow.events);
+
+        slowRelease.countDown();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("meta:{}", "completed:[]"), slow.events);
+    }
+
+    @Test
+    void queuedProgressIsReplacedByNewerProgress() throws Exception {
+        SimulationSseService sse = new SimulationSseService(timer, writers, new ObjectMapper(), 5, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(release);
+        sse.addEmitter("sim", emitter);
+
+        // The writer blocks on the first event while progress keeps coming in over several ticks
+        sse.sendMeta("sim", "{}");
+        for (int i = 0; i < 20; i++) {
+            sse.onProgressMessage("sim", "step " + i);
+            Thread.sleep(10);
+        }
+        sse.sendCompleted("sim", "[]");
+        sse.stopFlusherAndComplete("sim");
+        release.countDown();
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("meta:{}", "progress:step 19", "completed:[]"), emitter.events);
+    }
+
+    @Test
+    void typedRunProgressIsFormattedOnceWhenFlushed() throws Exception {
+        SimulationSseService sse = new SimulationSseService(timer, writers, new ObjectMapper(), 60_000, 8);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        sse.addEmitter("sim", emitter);
+
+        IProgressCallback callback = IProgressCallback.typed(update -> sse.onProgress("sim", update));
+        for (int done = 10; done <= 50; done += 10) callback.update(ProgressUpdate.runs(done, 50));
+        sse.sendCompleted("sim", "[]");
+        sse.stopFlusherAndComplete("sim");
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("progress:Completed 50/50 runs", "completed:[]"), emitter.events);
+    }
+
+    @Test
+    void eventsArrivingAfterStopAreNotFlushedAgain() throws Exception {
+        SimulationSseService sse = new SimulationSseService(timer, writers, new ObjectMapper(), 60_000, 8);
+        sse.startFlusher("sim");
+        sse.onProgress("sim", ProgressUpdate.runs(1, 2));
+        sse.stopFlusherAndComplete("sim");
+
+        // A last progress callback and the heartbeat ticker racing the end of the run
+        sse.onProgress("sim", ProgressUpdate.runs(2, 2));
+        sse.enqueueHeartbeat("sim");
+
+        Field field = SimulationSseService.class.getDeclaredField("pendingBySim");
+        field.setAccessible(true);
+        assertTrue(((Map<?, ?>) field.get(sse)).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package dk.gormkrings.statistics;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.data.LiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricSummaryAggregationTest {
+
+    private static final String[] METRICS = {"capital", "deposit", "fee", "inflation", "return", "tax", "withdraw"};
+
+    @Test
+    void summariesAreOrderedByYearPhaseAndMetric() {
+        SimulationAggregationService agg = new SimulationAggregationService();
+
+        List<MetricSummary> summaries = agg.aggregateMetricSummaries(List.of(depositThenWithdraw(100.0), depositThenWithdraw(200.0)));
+
+        int i = 0;
+        for (Object[] key : new Object[][]{{1900, "Deposit"}, {1901, "Deposit"}, {1902, "Withdraw"}}) {
+            for (String metric : METRICS) {
+                MetricSummary s = summaries.get(i++);
+                assertEquals(MetricSummary.Scope.YEARLY, s.getScope());
+                assertEquals(key[0], s.getYear());
+                assertEquals(key[1], s.getPhaseName());
+                assertEquals(metric, s.getMetric());
+            }
+        }
+        for (String phase : new String[]{"Deposit", "Withdraw"}) {
+            for (String metric : METRICS) {
+                MetricSummary s = summaries.get(i++);
+                assertEquals(MetricSummary.Scope.PHASE_TOTAL, s.getScope());
+                assertEquals(phase, s.getPhaseName());
+                assertEquals(metric, s.getMetric());
+            }
+        }
+        for (String metric : METRICS) {
+            MetricSummary s = summaries.get(i++);
+            assertEquals(MetricSummary.Scope.OVERALL_TOTAL, s.getScope());
+            assertEquals(metric, s.getMetric());
+        }
+        assertEquals(summaries.size(), i);
+
+        // 1901 deposits are 200 and 400; the flow into the first snapshot of a phase is not counted.
+        MetricSummary deposit1901 = summaries.get(METRICS.length + 1);
+        assertEquals(300.0, deposit1901.getP50(), 1e-9);
+        MetricSummary withdraw1902 = summaries.get(3 * METRICS.length - 1);
+        assertEquals(50.0, withdraw1902.getP50(), 1e-9);
+    }
+
+    @Test
+    void mergedForksMatchSequentialAggregation() {
+        SimulationAggregationService agg = new SimulationAggregationService();
+        IRunResult a = depositThenWithdraw(100.0);
+        IRunResult b = withdrawOnly();
+        IRunResult c = depositThenWithdraw(250.0);
+
+        RunAggregationSink sink = agg.newAggregationSink();
+        RunAggregationSink first = sink.fork();
+        first.accept(a);
+        // Phases show up in a different order in this fork, so its phase ids differ from the first one's.
+        RunAggregationSink second = sink.fork();
+        second.accept(b);
+        second.accept(c);
+        sink.merge(first);
+        sink.merge(second);
+
+        assertEquals(agg.aggregateMetricSummaries(List.of(a, b, c)), agg.aggregateMetricSummaries(sink));
+    }
+
+    private static IRunResult depositThenWithdraw(double yearlyDeposit) {
+        ColumnarRunResult run = new ColumnarRunResult();
+        LiveData deposit = new LiveData(0); // 1900-01-01
+        deposit.setPhaseName("Deposit");
+        run.append(deposit);
+        for (int year = 1; year <= 2; year++) {
+            deposit.incrementTime(365);
+            deposit.addToDeposited(yearlyDeposit * year);
+            deposit.addToCapital(yearlyDeposit * year);
+            run.append(deposit);
+        }
+
+        LiveData withdraw = new LiveData(deposit.getStartTime() + deposit.getTotalDurationAlive());
+        withdraw.setPhaseName("Withdraw");
+        withdraw.addToCapital(deposit.getCapital());
+        withdraw.addToDeposited(deposit.getDeposited());
+        run.append(withdraw);
+        withdraw.incrementTime(365);
+        withdraw.addToWithdrawn(50.0);
+        withdraw.subtractFromCapital(50.0);
+        run.append(withdraw);
+        return run;
+    }
+
+    private static IRunResult withdrawOnly() {
+        ColumnarRunResult run = new ColumnarRunResult();
+        LiveData withdraw = new LiveData(730);
+        withdraw.setPhaseName("Withdraw");
+        withdraw.addToCapital(1_000.0);
+        run.append(withdraw);
+        withdraw.incrementTime(365);
+        withdraw.addToWithdrawn(80.0);
+        withdraw.subtractFromCapital(80.0);
+        run.append(withdraw);
+        return run;
+    }
+}
@@ -0,0 +1,66 @@
+package dk.gormkrings.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuantileSummaryTest {
+
+    private static final double[] QS = {0.0, 0.05, 0.10, 0.25, 0.50, 0.75, 0.90, 0.95, 1.0};
+
+    @Test
+    void exactSummary_matchesSortedListStatistics() {
+        SplittableRandom rng = new SplittableRandom(42);
+        for (int n : new int[]{1, 2, 3, 17, 100, 2_501}) {
+            List<Double> values = new ArrayList<>();
+            ExactQuantileSummary exact = new ExactQuantileSummary();
+            for (int i = 0; i < n; i++) {
+                // Plenty of ties so selection has to handle equal keys
+                double v = (i % 4 == 0) ? Math.floor(rng.nextGaussian() * 3) : rng.nextGaussian() * 1_000;
+                values.add(v);
+                exact.add(v);
+            }
+            List<Double> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+
+            for (double q : QS) {
+                assertEquals(StatisticsUtils.quantile(sorted, q), exact.quantile(q), 0.0, "n=" + n + " q=" + q);
+            }
+            assertEquals(StatisticsUtils.median(sorted), exact.median(), 0.0);
+            assertEquals(StatisticsUtils.average(values), exact.mean(), 0.0);
+            assertEquals(StatisticsUtils.stdDev(values, StatisticsUtils.average(values)), exact.stdDev(), 0.0);
+        }
+    }
+
+    @Test
+    void mergedSketches_stayCloseToExactPercentiles() {
+        SplittableRandom rng = new SplittableRandom(7);
+        QuantileEngine engine = QuantileEngine.sketch(200);
+        QuantileSummary merged = engine.newSummary();
+        List<Double> all = new ArrayList<>();
+
+        for (int part = 0; part < 8; part++) {
+            QuantileSummary perThread = engine.newSummary();
+            for (int i = 0; i < 20_000; i++) {
+                double v = Math.exp(rng.nextGaussian());
+                perThread.add(v);
+                all.add(v);
+            }
+            merged.merge(perThread);
+        }
+        Collections.sort(all);
+
+        assertEquals(all.size(), merged.count());
+        assertEquals(all.getFirst(), merged.min(), 0.0);
+        assertEquals(all.getLast(), merged.max(), 0.0);
+        for (double q : new double[]{0.05, 0.25, 0.50, 0.75, 0.95}) {
+            double expected = StatisticsUtils.quantile(all, q);
+            assertEquals(expected, merged.quantile(q), Math.abs(expected) * 0.01, "q=" + q);
+        }
+    }
+}
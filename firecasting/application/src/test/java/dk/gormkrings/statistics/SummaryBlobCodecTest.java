@@ -0,0 +1,61 @@
+package dk.gormkrings.statistics;
+
+import dk.gormkrings.statistics.persistence.SummaryBlobCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SummaryBlobCodecTest {
+
+    @Test
+    void yearlySummariesRoundTripBitForBit() {
+        List<YearlySummary> summaries = new ArrayList<>();
+        for (int year = 2025; year < 2125; year++) {
+            YearlySummary s = new YearlySummary();
+            s.setPhaseName(year < 2060 ? "Deposit" : "Withdraw");
+            s.setYear(year);
+            s.setAverageCapital(1_000.0 * Math.pow(1.05, year - 2025));
+            s.setMedianCapital(-0.0);
+            s.setQuantile5(Double.NaN);
+            s.setNegativeCapitalPercentage(year / 7.0);
+            summaries.add(s);
+        }
+
+        assertEquals(summaries, SummaryBlobCodec.decodeYearly(SummaryBlobCodec.encodeYearly(summaries)));
+    }
+
+    @Test
+    void metricSummariesKeepNullKeys() {
+        MetricSummary yearly = metric(MetricSummary.Scope.YEARLY, "Deposit", 2030, "capital", 1.5);
+        MetricSummary phase = metric(MetricSummary.Scope.PHASE_TOTAL, "Deposit", null, "return", -2.25);
+        MetricSummary overall = metric(MetricSummary.Scope.OVERALL_TOTAL, null, null, "inflation", Double.NaN);
+        List<MetricSummary> summaries = List.of(yearly, phase, overall);
+
+        assertEquals(summaries, SummaryBlobCodec.decodeMetrics(SummaryBlobCodec.encodeMetrics(summaries)));
+    }
+
+    @Test
+    void emptyListsRoundTrip() {
+        assertEquals(List.of(), SummaryBlobCodec.decodeYearly(SummaryBlobCodec.encodeYearly(List.of())));
+        assertEquals(List.of(), SummaryBlobCodec.decodeMetrics(SummaryBlobCodec.encodeMetrics(null)));
+    }
+
+    private static MetricSummary metric(MetricSummary.Scope scope, String phase, Integer year, String metric, double value) {
+        MetricSummary s = new MetricSummary();
+        s.setScope(scope);
+        s.setPhaseName(phase);
+        s.setYear(year);
+        s.setMetric(metric);
+        s.setP5(value);
+        s.setP10(value * 2);
+        s.setP25(value * 3);
+        s.setP50(value * 4);
+        s.setP75(value * 5);
+        s.setP90(value * 6);
+        s.setP95(value * 7);
+        return s;
+    }
+}
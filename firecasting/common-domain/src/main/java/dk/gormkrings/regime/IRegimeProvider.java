@@ -14,4 +14,12 @@ public interface IRegimeProvider {
     }
 
     IRegimeProvider copy();
+
+    /**
+     * Copy whose transitions come from path {@code pathIndex}'s stream, derived without changing this
+     * provider. The default falls back to {@link #copy()}.
+     */
+    default IRegimeProvider copyForPath(long pathIndex) {
+        return copy();
+    }
 }
@@ -11,5 +11,39 @@ public interface IReturner {
         // no-op
     }
 
+    /**
+     * Optional bulk hook for engines that apply many market days at once: draws the next {@code count}
+     * log-returns into {@code out}, each to be applied as {@code amount * exp(x) - amount}, and returns
+     * true. Returners that are not log-return based return false and are called per day instead.
+     */
+    default boolean sampleLogReturns(double[] out, int count) {
+        return false;
+    }
+
+    /**
+     * True if {@link #calculateReturn(double, int)} draws the combined return of several steps from a
+     * single variate with the same distribution as compounding them one by one.
+     */
+    default boolean hasExactAggregation() {
+        return false;
+    }
+
+    /** Combined return of {@code steps} consecutive steps on {@code amount}; compounds step by step by default. */
+    default double calculateReturn(double amount, int steps) {
+        double total = 0;
+        for (int i = 0; i < steps; i++) {
+            total += calculateReturn(amount + total);
+        }
+        return total;
+    }
+
     IReturner copy();
+
+    /**
+     * Copy that samples from path {@code pathIndex}'s random streams. It must not change this returner, so
+     * any thread can derive any path. Returners without random state can rely on the default.
+     */
+    default IReturner copyForPath(long pathIndex) {
+        return copy();
+    }
 }
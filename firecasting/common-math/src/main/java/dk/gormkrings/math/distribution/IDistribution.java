@@ -4,6 +4,29 @@ import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
 
 public interface IDistribution {
     double sample(IRandomNumberGenerator rng);
+
+    /** Fills {@code out[from..to)} with samples. Implementations may override to draw in bulk. */
+    default void sample(IRandomNumberGenerator rng, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) out[i] = sample(rng);
+    }
+
+    /** True if the sum of independent samples has a closed form that {@link #sampleSum} draws directly. */
+    default boolean hasClosedFormSum() {
+        return false;
+    }
+
+    /** Draws the sum of {@code n} independent samples. */
+    default double sampleSum(IRandomNumberGenerator rng, int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) sum += sample(rng);
+        return sum;
+    }
+
     IDistribution copy();
+
+    /** Copy whose own random state (if any) is the stream for path {@code pathIndex}; see {@code IRandomNumberGenerator#copyForPath}. */
+    default IDistribution copyForPath(long pathIndex) {
+        return copy();
+    }
     String toString();
 }
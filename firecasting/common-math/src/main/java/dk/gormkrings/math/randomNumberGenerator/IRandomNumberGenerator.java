@@ -3,4 +3,13 @@ package dk.gormkrings.math.randomNumberGenerator;
 public interface IRandomNumberGenerator {
     double nextDouble();
     IRandomNumberGenerator copy();
+
+    /**
+     * Independent stream for path {@code pathIndex}, derived without touching this generator's state, so
+     * concurrent calls are safe and the result does not depend on which other paths were derived first.
+     * The default falls back to {@link #copy()}, which is neither.
+     */
+    default IRandomNumberGenerator copyForPath(long pathIndex) {
+        return copy();
+    }
 }
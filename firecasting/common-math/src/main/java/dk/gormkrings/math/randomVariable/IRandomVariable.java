@@ -5,7 +5,30 @@ import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
 
 public interface IRandomVariable {
     double sample();
+
+    /** Fills {@code out[from..to)} with samples. */
+    default void sample(double[] out, int from, int to) {
+        for (int i = from; i < to; i++) out[i] = sample();
+    }
+
+    /** See {@link IDistribution#hasClosedFormSum()}. */
+    default boolean hasClosedFormSum() {
+        return false;
+    }
+
+    /** Draws the sum of {@code n} independent samples. */
+    default double sampleSum(int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) sum += sample();
+        return sum;
+    }
+
     IRandomVariable copy();
+
+    /** Copy drawing from path {@code pathIndex}'s streams; see {@link IRandomNumberGenerator#copyForPath}. */
+    default IRandomVariable copyForPath(long pathIndex) {
+        return copy();
+    }
     IDistribution getDistribution();
     void setDistribution(IDistribution distribution);
     void setRandomNumberGenerator(IRandomNumberGenerator rng);
@@ -13,6 +13,11 @@ public interface ISimulationPhase {
     ILiveData getLiveData();
     List<ITaxExemption> getTaxExemptions();
 
+    /** The exemptions resolved for the tax steps; phases keep one built when their exemptions are set. */
+    default TaxPipeline getTaxPipeline() {
+        return TaxPipeline.of(getTaxExemptions());
+    }
+
     default void addReturn() {
         double r = getSpecification().getReturner().calculateReturn(getLiveData().getCapital());
         getLiveData().setCurrentReturn(r);
@@ -20,6 +25,14 @@ public interface ISimulationPhase {
         getLiveData().addToCapital(r);
     }
 
+    /** Applies the combined return of {@code steps} consecutive return steps at once. */
+    default void addReturn(int steps) {
+        double r = getSpecification().getReturner().calculateReturn(getLiveData().getCapital(), steps);
+        getLiveData().setCurrentReturn(r);
+        getLiveData().addToReturned(r);
+        getLiveData().addToCapital(r);
+    }
+
     default void addNotionalTax() {
         if (getSpecification().getTaxRule() instanceof NotionalGainsTax notionalTax) {
             double taxableAmount = getLiveData().getReturned() - notionalTax.getPreviousReturned();
@@ -44,45 +57,15 @@ public interface ISimulationPhase {
     }
 
     default double taxExemptionCardToTaxableAmount(double taxableAmount) {
-        for (ITaxExemption rule : getTaxExemptions()) {
-            if (rule instanceof TaxExemptionCard taxExemptionCard) {
-                double newTaxableAmount = taxableAmount;
-                float previousExemption = taxExemptionCard.getCurrentExemption();
-                taxExemptionCard.calculateTax(taxableAmount);
-                newTaxableAmount -= (taxExemptionCard.getCurrentExemption() - previousExemption);
-                if (newTaxableAmount < 0.1) newTaxableAmount  = 0.0;
-                return newTaxableAmount;
-            }
-        }
-        return taxableAmount;
+        return getTaxPipeline().applyCard(taxableAmount);
     }
 
     default double stockTaxExemptionToTax(double tax, double taxableWithdrawal) {
-        for (ITaxExemption rule : getTaxExemptions()) {
-            if (rule instanceof StockExemptionTax stockExemptionTax) {
-                double newTax = tax;
-                float previousExemption = stockExemptionTax.getCurrentExemption();
-                newTax += stockExemptionTax.calculateTax(taxableWithdrawal);
-                stockExemptionTax.setCurrentExemption(previousExemption);
-                if (newTax < 0.1) newTax  = 0.0;
-                return newTax;
-            }
-        }
-        return tax;
+        return getTaxPipeline().stockTax(tax, taxableWithdrawal);
     }
 
     default double stockTaxExemptionToTaxableAmount(double taxableAmount) {
-        for (ITaxExemption rule : getTaxExemptions()) {
-            if (rule instanceof StockExemptionTax stockExemptionTax) {
-                double newTaxableAmount = taxableAmount;
-                float previousExemption = stockExemptionTax.getCurrentExemption();
-                stockExemptionTax.calculateTax(newTaxableAmount);
-                newTaxableAmount -= (stockExemptionTax.getCurrentExemption() - previousExemption);
-                if (newTaxableAmount < 0.1) newTaxableAmount  = 0.0;
-                return newTaxableAmount;
-            }
-        }
-        return taxableAmount;
+        return getTaxPipeline().applyStock(taxableAmount);
     }
 
     default void compoundInflation() {
@@ -23,10 +23,8 @@ public interface IWithdrawPhase extends ISimulationPhase {
 
         double realWithdrawAmount = withdrawAmount;
         if (getSpecification().getTaxRule() instanceof CapitalGainsTax capitalGainsTax && !getWithdraw().isPercentageWithdraw()) {
-            for (int i = 0; i < 3; i++) {
-                double estimateTaxRate = estimateCapitalTaxRate(realWithdrawAmount, capitalGainsTax);
-                realWithdrawAmount = withdrawAmount / (1 - estimateTaxRate);
-            }
+            // Gross up so that the amount left after tax is the planned withdrawal
+            realWithdrawAmount = getTaxPipeline().grossUp(withdrawAmount, gainOfCapitalRate(), capitalGainsTax);
         }
 
         // Safety: never withdraw more than the current capital, even after tax gross-up.
@@ -49,38 +47,8 @@ public interface IWithdrawPhase extends ISimulationPhase {
         if (withdraw <= 0.0) {
             return 0.0;
         }
-        double gainOfCapitalRate = 1 - (getLiveData().getDeposited() / getLiveData().getCapital());
-        double tax = 0;
-        if (getLiveData().getCapital() > 0) {
-            if (gainOfCapitalRate < 0) gainOfCapitalRate = 0.0;
-            if (gainOfCapitalRate > 1) gainOfCapitalRate = 1.0;
-        }
-        double taxableWithdrawal = withdraw * gainOfCapitalRate;
-
-        for (ITaxExemption rule : getTaxExemptions()) {
-            if (rule instanceof TaxExemptionCard taxExemptionCard) {
-                float previousExemption = taxExemptionCard.getCurrentExemption();
-                taxExemptionCard.calculateTax(taxableWithdrawal);
-                taxableWithdrawal -= (taxExemptionCard.getCurrentExemption() - previousExemption);
-                taxExemptionCard.setCurrentExemption(previousExemption);
-                if (taxableWithdrawal < 0.0001) taxableWithdrawal  = 0.0;
-                break;
-            }
-        }
-
-        for (ITaxExemption rule : getTaxExemptions()) {
-            if (rule instanceof StockExemptionTax stockExemptionTax) {
-                float previousExemption = stockExemptionTax.getCurrentExemption();
-                tax += stockExemptionTax.calculateTax(taxableWithdrawal);
-                taxableWithdrawal -= (stockExemptionTax.getCurrentExemption() - previousExemption);
-                stockExemptionTax.setCurrentExemption(previousExemption);
-                if (tax < 0.0001) tax  = 0.0;
-                if (taxableWithdrawal < 0.0001) taxableWithdrawal  = 0.0;
-                break;
-            }
-        }
-
-        tax += capitalGainsTax.estimateTax(taxableWithdrawal);
+        double taxableWithdrawal = withdraw * gainOfCapitalRate();
+        double tax = getTaxPipeline().estimateTax(taxableWithdrawal, capitalGainsTax);
 
         double rate = tax / withdraw;
         if (Double.isNaN(rate) || rate < 0.0) {
@@ -91,13 +59,18 @@ public interface IWithdrawPhase extends ISimulationPhase {
         return rate;
     }
 
-    default void addCapitalTax() {
+    /** Share of the capital that is gain (not deposits), clamped to [0, 1] while there is capital. */
+    default double gainOfCapitalRate() {
         double gainOfCapitalRate = 1 - (getLiveData().getDeposited() / getLiveData().getCapital());
         if (getLiveData().getCapital() > 0) {
             if (gainOfCapitalRate < 0) gainOfCapitalRate = 0.0;
             if (gainOfCapitalRate > 1) gainOfCapitalRate = 1.0;
         }
-        double taxableWithdrawal = getLiveData().getWithdraw() * gainOfCapitalRate;
+        return gainOfCapitalRate;
+    }
+
+    default void addCapitalTax() {
+        double taxableWithdrawal = getLiveData().getWithdraw() * gainOfCapitalRate();
         if (taxableWithdrawal < 0.0001) taxableWithdrawal = 0.0;
         double tax = 0;
 
@@ -0,0 +1,110 @@
+package dk.gormkrings.phase;
+
+import dk.gormkrings.tax.CapitalGainsTax;
+import dk.gormkrings.tax.ITaxExemption;
+import dk.gormkrings.tax.StockExemptionTax;
+import dk.gormkrings.tax.TaxExemptionCard;
+
+import java.util.List;
+
+/**
+ * The tax exemptions of one phase, resolved once: the first {@link TaxExemptionCard} and the first
+ * {@link StockExemptionTax} of the phase's list, which are the only ones the tax steps use.
+ *
+ * <p>Taxable gains pass the card (untaxed), then the stock exemption (taxed at its own rate), and the
+ * rest is left to the phase's tax rule. {@link #estimateTax}, {@link #stockTax} and {@link #grossUp}
+ * read the exemptions' remaining room without touching it; {@link #applyCard} and {@link #applyStock}
+ * use it up.</p>
+ */
+public final class TaxPipeline {
+
+    private static final TaxPipeline NONE = new TaxPipeline(null, null);
+
+    /** Smallest after-tax share of a withdrawal, as the rate cap of the former gross-up iteration. */
+    private static final double MIN_NET_SHARE = 0.0001;
+
+    private final TaxExemptionCard card;
+    private final StockExemptionTax stock;
+
+    private TaxPipeline(TaxExemptionCard card, StockExemptionTax stock) {
+        this.card = card;
+        this.stock = stock;
+    }
+
+    public static TaxPipeline of(List<ITaxExemption> exemptions) {
+        TaxExemptionCard card = null;
+        StockExemptionTax stock = null;
+        if (exemptions != null) {
+            for (ITaxExemption rule : exemptions) {
+                if (card == null && rule instanceof TaxExemptionCard c) card = c;
+                else if (stock == null && rule instanceof StockExemptionTax s) stock = s;
+            }
+        }
+        return card == null && stock == null ? NONE : new TaxPipeline(card, stock);
+    }
+
+    /** Tax on withdrawing {@code taxable} gains now, leaving the exemptions as they are. */
+    public double estimateTax(double taxable, CapitalGainsTax capitalGainsTax) {
+        double tax = 0;
+        if (card != null) {
+            taxable -= card.exemptionAfter(taxable) - card.getCurrentExemption();
+            if (taxable < 0.0001) taxable = 0.0;
+        }
+        if (stock != null) {
+            tax += stock.taxOn(taxable);
+            taxable -= stock.exemptionAfter(taxable) - stock.getCurrentExemption();
+            if (tax < 0.0001) tax = 0.0;
+            if (taxable < 0.0001) taxable = 0.0;
+        }
+        return tax + capitalGainsTax.estimateTax(taxable);
+    }
+
+    /**
+     * Gross withdrawal that leaves {@code net} after capital gains tax, when {@code gainRate} of every
+     * withdrawn unit is gain. The tax is piecewise linear in the gross amount (card room, stock room,
+     * the rest), so this solves one linear equation per segment until the solution falls in its segment.
+     */
+    public double grossUp(double net, double gainRate, CapitalGainsTax capitalGainsTax) {
+        if (!(net > 0.0)) return net;
+        double cardRoom = card == null ? 0.0 : card.remainingExemption();
+        double stockRoom = stock == null ? 0.0 : stock.remainingExemption();
+        double stockRate = stock == null ? 0.0 : stock.getTaxRate() / 100.0;
+        double capitalRate = capitalGainsTax.getTaxRate() / 100.0;
+
+        // Card room: no tax
+        if (net * gainRate <= cardRoom) return net;
+
+        // Stock room: G - stockRate * (G * gainRate - cardRoom) = net
+        double gross = (net - stockRate * cardRoom) / Math.max(MIN_NET_SHARE, 1.0 - stockRate * gainRate);
+        if (gross * gainRate <= cardRoom + stockRoom) return gross;
+
+        // Beyond: G - stockRate * stockRoom - capitalRate * (G * gainRate - cardRoom - stockRoom) = net
+        return (net + stockRate * stockRoom - capitalRate * (cardRoom + stockRoom))
+                / Math.max(MIN_NET_SHARE, 1.0 - capitalRate * gainRate);
+    }
+
+    /** Uses the card on {@code taxable} and returns what is left taxable. */
+    public double applyCard(double taxable) {
+        if (card == null) return taxable;
+        float previousExemption = card.getCurrentExemption();
+        card.calculateTax(taxable);
+        double left = taxable - (card.getCurrentExemption() - previousExemption);
+        return left < 0.1 ? 0.0 : left;
+    }
+
+    /** {@code tax} plus the stock exemption's tax on {@code taxable}, leaving the exemption as it is. */
+    public double stockTax(double tax, double taxable) {
+        if (stock == null) return tax;
+        double newTax = tax + stock.taxOn(taxable);
+        return newTax < 0.1 ? 0.0 : newTax;
+    }
+
+    /** Uses the stock exemption on {@code taxable} and returns what is left for the tax rule. */
+    public double applyStock(double taxable) {
+        if (stock == null) return taxable;
+        float previousExemption = stock.getCurrentExemption();
+        stock.calculateTax(taxable);
+        double left = taxable - (stock.getCurrentExemption() - previousExemption);
+        return left < 0.1 ? 0.0 : left;
+    }
+}
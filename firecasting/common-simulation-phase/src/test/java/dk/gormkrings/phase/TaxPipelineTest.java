@@ -0,0 +1,76 @@
+package dk.gormkrings.phase;
+
+import dk.gormkrings.tax.CapitalGainsTax;
+import dk.gormkrings.tax.ITaxExemption;
+import dk.gormkrings.tax.StockExemptionTax;
+import dk.gormkrings.tax.TaxExemptionCard;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TaxPipelineTest {
+
+    private static TaxExemptionCard card(float limit, float used) {
+        TaxExemptionCard card = new TaxExemptionCard();
+        card.setLimit(limit);
+        card.setCurrentExemption(used);
+        return card;
+    }
+
+    private static StockExemptionTax stock(float rate, float limit, float used) {
+        StockExemptionTax stock = new StockExemptionTax();
+        stock.setTaxRate(rate);
+        stock.setLimit(limit);
+        stock.setCurrentExemption(used);
+        return stock;
+    }
+
+    /** The tax addCapitalTax would charge on {@code taxable}, using up copies of the exemptions. */
+    private static double chargedTax(TaxExemptionCard card, StockExemptionTax stock, CapitalGainsTax capital, double taxable) {
+        TaxExemptionCard cardCopy = card(card.getLimit(), card.getCurrentExemption());
+        StockExemptionTax stockCopy = stock(stock.getTaxRate(), stock.getLimit(), stock.getCurrentExemption());
+        TaxPipeline pipeline = TaxPipeline.of(List.of(cardCopy, stockCopy));
+        taxable = pipeline.applyCard(taxable);
+        double tax = pipeline.stockTax(0, taxable);
+        taxable = pipeline.applyStock(taxable);
+        return tax + capital.calculateTax(taxable);
+    }
+
+    @Test
+    void estimateMatchesTheChargedTaxWithoutUsingTheExemptions() {
+        TaxExemptionCard card = card(2_000, 500);
+        StockExemptionTax stock = stock(27, 5_000, 1_000);
+        CapitalGainsTax capital = new CapitalGainsTax(42);
+        TaxPipeline pipeline = TaxPipeline.of(List.<ITaxExemption>of(card, stock));
+
+        for (double taxable : new double[]{0, 800, 1_500, 3_000, 5_500, 20_000}) {
+            assertEquals(chargedTax(card, stock, capital, taxable), pipeline.estimateTax(taxable, capital), 0.5);
+        }
+        assertEquals(500f, card.getCurrentExemption());
+        assertEquals(1_000f, stock.getCurrentExemption());
+    }
+
+    @Test
+    void grossUpLeavesTheNetAmountAfterTaxInEverySegment() {
+        TaxExemptionCard card = card(2_000, 0);
+        StockExemptionTax stock = stock(27, 5_000, 0);
+        CapitalGainsTax capital = new CapitalGainsTax(42);
+        TaxPipeline pipeline = TaxPipeline.of(List.<ITaxExemption>of(stock, card));
+        double gainRate = 0.6;
+
+        for (double net : new double[]{1_000, 3_000, 6_000, 20_000}) {
+            double gross = pipeline.grossUp(net, gainRate, capital);
+            assertEquals(net, gross - chargedTax(card, stock, capital, gross * gainRate), 0.5, "net " + net);
+        }
+    }
+
+    @Test
+    void withoutExemptionsGrossUpDividesByTheNetShare() {
+        TaxPipeline pipeline = TaxPipeline.of(List.of());
+        assertEquals(1_000 / (1 - 0.5 * 0.42), pipeline.grossUp(1_000, 0.5, new CapitalGainsTax(42)), 1e-9);
+        assertEquals(250.0, pipeline.applyCard(250.0));
+        assertEquals(0.0, pipeline.stockTax(0, 250.0));
+    }
+}
@@ -0,0 +1,144 @@
+package dk.gormkrings.calendar;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.IntPredicate;
+
+/**
+ * Trading calendar of one exchange, stored as one bit per day with a rank index.
+ *
+ * <p>Bit {@code i} is set when epoch day {@code firstEpochDay + i} is a trading day, and for every
+ * 64-day word the index holds the number of trading days before it. {@link #isTradingDay(int)} is a
+ * single bit test; {@link #tradingDaysBetween} takes the difference of two ranks, each an index read
+ * plus one {@link Long#bitCount}. Days outside the stored range fall back to Monday-Friday.</p>
+ *
+ * <p>Calendars ship as classpath resources {@code calendars/<name>.tcal}. Layout (big-endian): {@link #MAGIC},
+ * {@code i32} {@link #VERSION}, {@code i32} first epoch day, {@code i32} day count, then the words as
+ * {@code i64}, lowest day in the lowest bit. The resources are generated from the exchanges' holiday rules by
+ * {@code scripts/update-trading-calendars.sh}.</p>
+ */
+public final class BitmapTradingCalendar implements TradingCalendar {
+
+    public static final int MAGIC = 0x46435443; // "FCTC"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+    private static final WeekdayTradingCalendar WEEKDAYS = new WeekdayTradingCalendar();
+
+    private final String name;
+    private final int firstEpochDay;
+    private final int days;
+    private final long[] words;
+    // Trading days before each word
+    private final int[] ranks;
+
+    public BitmapTradingCalendar(String name, int firstEpochDay, int days, long[] words) {
+        if (days < 0 || words.length != (days + 63) / 64) {
+            throw new IllegalArgumentException("Calendar " + name + " needs " + (days + 63) / 64 + " words for " + days + " days");
+        }
+        this.name = name;
+        this.firstEpochDay = firstEpochDay;
+        this.days = days;
+        this.words = words.clone();
+        if (days % 64 != 0) this.words[words.length - 1] &= (1L << (days % 64)) - 1;
+        this.ranks = new int[words.length + 1];
+        for (int w = 0; w < words.length; w++) ranks[w + 1] = ranks[w] + Long.bitCount(this.words[w]);
+    }
+
+    /** Builds a calendar for {@code days} days from {@code firstEpochDay} by asking {@code isTradingDay} per day. */
+    public static BitmapTradingCalendar of(String name, int firstEpochDay, int days, IntPredicate isTradingDay) {
+        long[] words = new long[(days + 63) / 64];
+        for (int i = 0; i < days; i++) {
+            if (isTradingDay.test(firstEpochDay + i)) words[i >>> 6] |= 1L << i;
+        }
+        return new BitmapTradingCalendar(name, firstEpochDay, days, words);
+    }
+
+    /** Loads {@code calendars/<name>.tcal} from the classpath. */
+    public static BitmapTradingCalendar fromResource(String name) {
+        String path = "calendars/" + name + ".tcal";
+        try (InputStream in = BitmapTradingCalendar.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) throw new IllegalArgumentException("Trading calendar resource not found: " + path);
+            return read(name, in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read trading calendar " + path, e);
+        }
+    }
+
+    public static BitmapTradingCalendar read(String name, InputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes());
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) throw new IOException("Not a trading calendar: " + name);
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("Unsupported trading calendar version " + version);
+        int first = buffer.getInt();
+        int days = buffer.getInt();
+        long[] words = new long[(Math.max(0, days) + 63) / 64];
+        if (buffer.remaining() != words.length * 8L) throw new IOException("Truncated trading calendar: " + name);
+        buffer.asLongBuffer().get(words);
+        return new BitmapTradingCalendar(name, first, days, words);
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(firstEpochDay);
+        data.writeInt(days);
+        for (long word : words) data.writeLong(word);
+        data.flush();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    /** First epoch day after the stored range. */
+    public int getEndEpochDay() {
+        return firstEpochDay + days;
+    }
+
+    @Override
+    public boolean isTradingDay(int epochDay) {
+        int i = epochDay - firstEpochDay;
+        if (i < 0 || i >= days) return WEEKDAYS.isTradingDay(epochDay);
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    @Override
+    public int tradingDaysBetween(int fromEpochDay, int toEpochDay) {
+        if (toEpochDay <= fromEpochDay) return 0;
+        int end = getEndEpochDay();
+        int count = 0;
+        // Parts outside the stored range count weekdays
+        if (fromEpochDay < firstEpochDay) {
+            count += WEEKDAYS.tradingDaysBetween(fromEpochDay, Math.min(toEpochDay, firstEpochDay));
+        }
+        if (toEpochDay > end) {
+            count += WEEKDAYS.tradingDaysBetween(Math.max(fromEpochDay, end), toEpochDay);
+        }
+        int from = Math.max(fromEpochDay, firstEpochDay);
+        int to = Math.min(toEpochDay, end);
+        if (from < to) count += rank(to - firstEpochDay) - rank(from - firstEpochDay);
+        return count;
+    }
+
+    /** Trading days among the first {@code i} stored days. */
+    private int rank(int i) {
+        int word = i >>> 6;
+        int bit = i & 63;
+        return bit == 0 ? ranks[word] : ranks[word] + Long.bitCount(words[word] & (-1L >>> (64 - bit)));
+    }
+
+    @Override
+    public String toString() {
+        return "BitmapTradingCalendar[" + name + "]";
+    }
+}
@@ -0,0 +1,158 @@
+package dk.gormkrings.calendar;
+
+import java.time.LocalDate;
+
+/**
+ * Precomputed Gregorian calendar for epoch days (0 = 1900-01-01, a Monday) in the years
+ * {@value #FIRST_YEAR} to {@value #LAST_YEAR}.
+ *
+ * <p>One {@code short} per day gives its month (counted from January {@value #FIRST_YEAR}), and one
+ * {@code int} per month its first epoch day; every lookup below is a couple of array reads without
+ * allocation. Days outside the table are answered through {@link LocalDate}, so callers need no range
+ * check of their own.</p>
+ *
+ * <p>The {@code next*} boundaries follow {@code IDate.computeNext*}: the first boundary strictly after
+ * the given day.</p>
+ */
+public final class CalendarTable {
+
+    public static final int FIRST_YEAR = 1900;
+    public static final int LAST_YEAR = 2200;
+
+    /** {@link LocalDate#toEpochDay()} of 1900-01-01. */
+    private static final long LOCAL_DATE_OFFSET = LocalDate.of(FIRST_YEAR, 1, 1).toEpochDay();
+
+    /** Month index (months since January FIRST_YEAR) per epoch day up to December 31st of LAST_YEAR. */
+    private static final short[] MONTH_OF_DAY;
+    /** First epoch day per month index; runs two years past LAST_YEAR so next-month/year-end lookups stay inside. */
+    private static final int[] MONTH_START;
+
+    static {
+        int[] lengths = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+        int months = (LAST_YEAR - FIRST_YEAR + 3) * 12;
+        MONTH_START = new int[months + 1];
+        int day = 0;
+        for (int m = 0; m < months; m++) {
+            int year = FIRST_YEAR + m / 12;
+            int month = m % 12;
+            MONTH_START[m] = day;
+            day += lengths[month] + (month == 1 && isLeapYear(year) ? 1 : 0);
+        }
+        MONTH_START[months] = day;
+
+        MONTH_OF_DAY = new short[MONTH_START[(LAST_YEAR - FIRST_YEAR + 1) * 12]];
+        for (int m = 0; m < (LAST_YEAR - FIRST_YEAR + 1) * 12; m++) {
+            for (int d = MONTH_START[m]; d < MONTH_START[m + 1]; d++) MONTH_OF_DAY[d] = (short) m;
+        }
+    }
+
+    private CalendarTable() {
+    }
+
+    /** Whether {@code epochDay} lies in the table, i.e. in the years FIRST_YEAR to LAST_YEAR. */
+    public static boolean covers(int epochDay) {
+        return epochDay >= 0 && epochDay < MONTH_OF_DAY.length;
+    }
+
+    public static int yearOf(int epochDay) {
+        if (!covers(epochDay)) return toLocalDate(epochDay).getYear();
+        return FIRST_YEAR + MONTH_OF_DAY[epochDay] / 12;
+    }
+
+    /** Month of {@code epochDay}, 1-12. */
+    public static int monthOf(int epochDay) {
+        if (!covers(epochDay)) return toLocalDate(epochDay).getMonthValue();
+        return MONTH_OF_DAY[epochDay] % 12 + 1;
+    }
+
+    public static int dayOfMonth(int epochDay) {
+        if (!covers(epochDay)) return toLocalDate(epochDay).getDayOfMonth();
+        return epochDay - MONTH_START[MONTH_OF_DAY[epochDay]] + 1;
+    }
+
+    public static int dayOfYear(int epochDay) {
+        if (!covers(epochDay)) return toLocalDate(epochDay).getDayOfYear();
+        int month = MONTH_OF_DAY[epochDay];
+        return epochDay - MONTH_START[month - month % 12] + 1;
+    }
+
+    /** 0 = Monday, ..., 6 = Sunday, as {@code IDate.getDayOfWeek()}. */
+    public static int dayOfWeek(int epochDay) {
+        return Math.floorMod(epochDay, 7);
+    }
+
+    public static int lengthOfMonth(int epochDay) {
+        if (!covers(epochDay)) return toLocalDate(epochDay).lengthOfMonth();
+        int month = MONTH_OF_DAY[epochDay];
+        return MONTH_START[month + 1] - MONTH_START[month];
+    }
+
+    public static int lengthOfYear(int epochDay) {
+        return isLeapYear(yearOf(epochDay)) ? 366 : 365;
+    }
+
+    /** Epoch day of {@code year}-{@code month}-{@code day}; the day is not checked against the month length. */
+    public static int epochDayOf(int year, int month, int day) {
+        if (year < FIRST_YEAR || year > LAST_YEAR) {
+            return fromLocalDate(LocalDate.of(year, month, 1)) + day - 1;
+        }
+        return MONTH_START[(year - FIRST_YEAR) * 12 + month - 1] + day - 1;
+    }
+
+    public static int nextWeekStart(int epochDay) {
+        int dayOfWeek = dayOfWeek(epochDay);
+        return epochDay + (dayOfWeek == 0 ? 7 : 7 - dayOfWeek);
+    }
+
+    public static int nextWeekEnd(int epochDay) {
+        int dayOfWeek = dayOfWeek(epochDay);
+        return epochDay + (dayOfWeek == 6 ? 7 : 6 - dayOfWeek);
+    }
+
+    public static int nextMonthStart(int epochDay) {
+        if (!covers(epochDay)) return fromLocalDate(toLocalDate(epochDay).withDayOfMonth(1).plusMonths(1));
+        return MONTH_START[MONTH_OF_DAY[epochDay] + 1];
+    }
+
+    /** Last day of this month, or of the next month when {@code epochDay} is the last day of its month. */
+    public static int nextMonthEnd(int epochDay) {
+        if (!covers(epochDay)) {
+            LocalDate date = toLocalDate(epochDay);
+            if (date.getDayOfMonth() == date.lengthOfMonth()) date = date.plusDays(1);
+            return fromLocalDate(date.withDayOfMonth(date.lengthOfMonth()));
+        }
+        int month = MONTH_OF_DAY[epochDay];
+        int monthEnd = MONTH_START[month + 1] - 1;
+        return monthEnd != epochDay ? monthEnd : MONTH_START[month + 2] - 1;
+    }
+
+    public static int nextYearStart(int epochDay) {
+        if (!covers(epochDay)) return fromLocalDate(LocalDate.of(toLocalDate(epochDay).getYear() + 1, 1, 1));
+        int month = MONTH_OF_DAY[epochDay];
+        return MONTH_START[month - month % 12 + 12];
+    }
+
+    /** December 31st of this year, or of the next year when {@code epochDay} is December 31st. */
+    public static int nextYearEnd(int epochDay) {
+        if (!covers(epochDay)) {
+            LocalDate date = toLocalDate(epochDay);
+            int year = date.getMonthValue() == 12 && date.getDayOfMonth() == 31 ? date.getYear() + 1 : date.getYear();
+            return fromLocalDate(LocalDate.of(year, 12, 31));
+        }
+        int month = MONTH_OF_DAY[epochDay];
+        int yearEnd = MONTH_START[month - month % 12 + 12] - 1;
+        return yearEnd != epochDay ? yearEnd : MONTH_START[month - month % 12 + 24] - 1;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0));
+    }
+
+    private static LocalDate toLocalDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay + LOCAL_DATE_OFFSET);
+    }
+
+    private static int fromLocalDate(LocalDate date) {
+        return (int) (date.toEpochDay() - LOCAL_DATE_OFFSET);
+    }
+}
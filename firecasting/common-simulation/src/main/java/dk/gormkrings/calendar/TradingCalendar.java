@@ -9,5 +9,19 @@ import dk.gormkrings.data.IDate;
  * calendar month-end and do not use this calendar.</p>
  */
 public interface TradingCalendar {
-    boolean isTradingDay(IDate date);
+    /** Whether the epoch day (0 = 1900-01-01) is a trading day; lets daily callers skip creating a date. */
+    boolean isTradingDay(int epochDay);
+
+    default boolean isTradingDay(IDate date) {
+        return date != null && isTradingDay(date.getEpochDay());
+    }
+
+    /** Trading days from {@code fromEpochDay} (inclusive) to {@code toEpochDay} (exclusive). */
+    default int tradingDaysBetween(int fromEpochDay, int toEpochDay) {
+        int count = 0;
+        for (int day = fromEpochDay; day < toEpochDay; day++) {
+            if (isTradingDay(day)) count++;
+        }
+        return count;
+    }
 }
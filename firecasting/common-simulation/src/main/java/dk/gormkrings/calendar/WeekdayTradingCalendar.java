@@ -1,16 +1,24 @@
 package dk.gormkrings.calendar;
 
-import dk.gormkrings.data.IDate;
-
 /**
  * Default trading calendar: Monday-Friday are trading days.
  */
 public class WeekdayTradingCalendar implements TradingCalendar {
 
     @Override
-    public boolean isTradingDay(IDate date) {
-        if (date == null) return false;
-        // Date.getDayOfWeek(): 0=Monday, ..., 6=Sunday.
-        return date.getDayOfWeek() < 5;
+    public boolean isTradingDay(int epochDay) {
+        // CalendarTable.dayOfWeek(): 0=Monday, ..., 6=Sunday.
+        return CalendarTable.dayOfWeek(epochDay) < 5;
+    }
+
+    @Override
+    public int tradingDaysBetween(int fromEpochDay, int toEpochDay) {
+        if (toEpochDay <= fromEpochDay) return 0;
+        return weekdaysBefore(toEpochDay) - weekdaysBefore(fromEpochDay);
+    }
+
+    /** Weekdays from epoch day 0 (a Monday) up to {@code epochDay}; negative before it. */
+    static int weekdaysBefore(int epochDay) {
+        return Math.floorDiv(epochDay, 7) * 5 + Math.min(Math.floorMod(epochDay, 7), 5);
     }
 }
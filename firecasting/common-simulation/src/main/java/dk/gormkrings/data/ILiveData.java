@@ -21,10 +21,16 @@ public interface ILiveData extends ILive {
     /** Records an absolute fee amount deducted from capital (e.g., management fees). */
     void addToFee(double fee);
     void compoundInflation(double inflation);
+
+    /** Stores the outcome of market days applied in bulk: capital, accumulated returns and the last day's return. */
+    void setMarketState(double capital, double returned, double currentReturn);
     void addToNetEarnings(double netEarnings);
 
     double getCapital();
+    double getDeposit();
     double getDeposited();
+    double getPassiveReturn();
+    double getPassiveReturned();
     double getReturned();
     double getWithdraw();
     double getWithdrawn();
@@ -34,6 +40,7 @@ public interface ILiveData extends ILive {
     double getCurrentReturn();
     double getInflation();
     double getNet();
+    double getCurrentNet();
     double getCurrentFee();
     long getStartTime();
     long getTotalDurationAlive();
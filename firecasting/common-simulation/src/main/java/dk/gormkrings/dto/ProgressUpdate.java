@@ -28,4 +28,9 @@ public class ProgressUpdate {
         return new ProgressUpdate(Kind.MESSAGE, 0, 0, text);
     }
 
+    /** JSON form of {@link #runs}, built without an ObjectMapper so progress samplers stay dependency-free. */
+    public static String runsJson(long completed, long total) {
+        return "{\"kind\":\"RUNS\",\"completed\":" + completed + ",\"total\":" + total + "}";
+    }
+
 }
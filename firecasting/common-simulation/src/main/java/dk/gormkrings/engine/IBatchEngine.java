@@ -0,0 +1,19 @@
+package dk.gormkrings.engine;
+
+import dk.gormkrings.phase.IPhase;
+import dk.gormkrings.result.IRunResult;
+
+import java.util.List;
+
+/**
+ * Engine that advances a block of paths in lock-step instead of one path at a time.
+ * Every path must be a copy of the same phase list.
+ */
+public interface IBatchEngine extends IEngine {
+
+    /** Preferred number of paths per {@link #simulateBatch} call. */
+    int getLanes();
+
+    /** Simulates every path and returns their results in the same order. */
+    List<IRunResult> simulateBatch(List<List<IPhase>> paths);
+}
@@ -4,4 +4,9 @@ import dk.gormkrings.result.IRunResult;
 
 public interface IResultFactory {
     IRunResult newResult();
+
+    /** Like {@link #newResult()} with a hint of how many snapshots the run will record. */
+    default IRunResult newResult(int expectedSnapshots) {
+        return newResult();
+    }
 }
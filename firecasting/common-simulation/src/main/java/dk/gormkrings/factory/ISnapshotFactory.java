@@ -1,9 +1,17 @@
 package dk.gormkrings.factory;
 
 import dk.gormkrings.data.ILiveData;
+import dk.gormkrings.result.IRunResult;
 import dk.gormkrings.result.ISnapshot;
 
 public interface ISnapshotFactory {
     ISnapshot snapshot(ILiveData liveData);
 
+    /**
+     * Records the current values of {@code liveData} in {@code result}. Implementations may write
+     * straight into the result's storage instead of creating a snapshot object.
+     */
+    default void record(IRunResult result, ILiveData liveData) {
+        result.addSnapshot(snapshot(liveData));
+    }
 }
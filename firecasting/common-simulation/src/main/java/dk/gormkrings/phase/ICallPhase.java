@@ -14,4 +14,17 @@ public interface ICallPhase extends IPhase {
     void onPhaseStart();
     void onPhaseEnd();
     boolean supportsEvent(EventType eventType);
+
+    /**
+     * True if {@link #onDayStart()} does nothing and {@link #onDayEnd()} only applies the market return
+     * on return days, so an engine may apply a run of ordinary days in bulk.
+     */
+    default boolean dayEndOnlyAppliesReturn() {
+        return false;
+    }
+
+    /** True if the market return is applied at the end of the day at {@code sessionDuration}. */
+    default boolean isReturnDay(long sessionDuration) {
+        return false;
+    }
 }
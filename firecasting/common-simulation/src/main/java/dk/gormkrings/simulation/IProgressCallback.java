@@ -1,5 +1,37 @@
 package dk.gormkrings.simulation;
 
+import dk.gormkrings.dto.ProgressUpdate;
+
+import java.util.function.Consumer;
+
 public interface IProgressCallback {
     void update(String progressMessage);
+
+    /**
+     * Typed progress from the simulation and aggregation stages. Callbacks that only take strings get run
+     * counts as {@link ProgressUpdate#runsJson} and messages as their plain text; {@link #typed} callbacks
+     * receive the object as is.
+     */
+    default void update(ProgressUpdate progress) {
+        if (progress.getKind() == ProgressUpdate.Kind.RUNS) {
+            update(ProgressUpdate.runsJson(progress.getCompleted(), progress.getTotal()));
+        } else if (progress.getMessage() != null) {
+            update(progress.getMessage());
+        }
+    }
+
+    /** A callback that receives every update as a {@link ProgressUpdate}; plain strings arrive as messages. */
+    static IProgressCallback typed(Consumer<ProgressUpdate> consumer) {
+        return new IProgressCallback() {
+            @Override
+            public void update(String progressMessage) {
+                consumer.accept(ProgressUpdate.message(progressMessage));
+            }
+
+            @Override
+            public void update(ProgressUpdate progress) {
+                consumer.accept(progress);
+            }
+        };
+    }
 }
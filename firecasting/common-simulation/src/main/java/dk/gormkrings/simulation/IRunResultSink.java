@@ -0,0 +1,25 @@
+package dk.gormkrings.simulation;
+
+import dk.gormkrings.result.IRunResult;
+
+/**
+ * Receives run results as they are produced so callers can fold them into compact aggregates
+ * instead of keeping every {@link IRunResult} alive until the simulation ends.
+ *
+ * <p>A simulation forks one sink per chunk of consecutive paths. The forks are made on the worker
+ * threads, while the path range is split or as workers pull chunks, so {@link #fork} may be called
+ * concurrently on the same sink and must only read its configuration. Each fork is fed by a single
+ * thread, and forks are merged into one another in path order, whatever order the chunks finished in,
+ * on a worker or the calling thread; the result is then merged into the parent. Sinks therefore
+ * don't need to be otherwise thread-safe, but {@link #merge} must be order-preserving for results to
+ * stay deterministic.</p>
+ */
+public interface IRunResultSink {
+    void accept(IRunResult result);
+
+    /** Returns a new, empty sink with the same configuration. */
+    IRunResultSink fork();
+
+    /** Appends everything accumulated by {@code other} (a fork of this sink) to this sink. */
+    void merge(IRunResultSink other);
+}
@@ -8,4 +8,9 @@ import java.util.List;
 public interface ISimulation {
     List<IRunResult> run(long instances, List<IPhase> phases);
     List<IRunResult> runWithProgress(long runs, int batchSize, List<IPhase> phases, IProgressCallback callback);
+
+    /**
+     * Like {@link #runWithProgress} but hands every run to {@code sink} instead of collecting a result list.
+     */
+    void runStreaming(long runs, int batchSize, List<IPhase> phases, IProgressCallback callback, IRunResultSink sink);
 }
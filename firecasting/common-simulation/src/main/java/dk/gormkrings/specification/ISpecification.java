@@ -8,6 +8,15 @@ import dk.gormkrings.tax.ITaxRule;
 
 public interface ISpecification {
     ISpecification copy();
+
+    /**
+     * Fresh specification for path {@code pathIndex} whose random streams depend only on this
+     * specification's seeds and the index. Does not modify this specification, so paths can be derived
+     * concurrently and in any order.
+     */
+    default ISpecification copyForPath(long pathIndex) {
+        return copy();
+    }
     ILive getLiveData();
     IReturner getReturner();
     IInflation getInflation();
@@ -0,0 +1,121 @@
+package dk.gormkrings.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class BitmapTradingCalendarTest {
+
+    private static int epochDay(int year, int month, int day) {
+        return CalendarTable.epochDayOf(year, month, day);
+    }
+
+    /** Counts day by day through the interface default. */
+    private static int countByDay(TradingCalendar calendar, int from, int to) {
+        TradingCalendar looping = calendar::isTradingDay;
+        return looping.tradingDaysBetween(from, to);
+    }
+
+    @Test
+    public void shippedCalendarsMatchTheHolidayRules() throws IOException {
+        boolean update = Boolean.parseBoolean(System.getProperty("trading.calendars.update", "false"));
+        for (String exchange : ExchangeHolidays.EXCHANGES) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            ExchangeHolidays.calendar(exchange).write(expected);
+
+            if (update) {
+                Path file = Path.of("src", "main", "resources", "calendars", exchange + ".tcal");
+                Files.createDirectories(file.getParent());
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    expected.writeTo(out);
+                }
+                continue;
+            }
+
+            ByteArrayOutputStream shipped = new ByteArrayOutputStream();
+            BitmapTradingCalendar.fromResource(exchange).write(shipped);
+            if (!Arrays.equals(expected.toByteArray(), shipped.toByteArray())) {
+                fail("Trading calendar " + exchange + " drifted from ExchangeHolidays. Regenerate with: scripts/update-trading-calendars.sh");
+            }
+        }
+    }
+
+    @Test
+    public void copenhagenHolidays() {
+        TradingCalendar xcse = BitmapTradingCalendar.fromResource(ExchangeHolidays.XCSE);
+        assertFalse(xcse.isTradingDay(epochDay(2024, 6, 5)), "Constitution Day");
+        assertFalse(xcse.isTradingDay(epochDay(2024, 12, 24)), "Christmas Eve");
+        assertFalse(xcse.isTradingDay(epochDay(2023, 5, 5)), "Great Prayer Day 2023");
+        assertTrue(xcse.isTradingDay(epochDay(2024, 4, 26)), "Former Great Prayer Day 2024");
+        assertFalse(xcse.isTradingDay(epochDay(2024, 5, 10)), "Day after Ascension Day");
+        assertTrue(xcse.isTradingDay(epochDay(2024, 7, 4)));
+    }
+
+    @Test
+    public void newYorkHolidays() {
+        TradingCalendar xnys = BitmapTradingCalendar.fromResource(ExchangeHolidays.XNYS);
+        assertFalse(xnys.isTradingDay(epochDay(2024, 7, 4)), "Independence Day");
+        assertFalse(xnys.isTradingDay(epochDay(2024, 11, 28)), "Thanksgiving");
+        assertTrue(xnys.isTradingDay(epochDay(2024, 11, 29)));
+        assertFalse(xnys.isTradingDay(epochDay(2022, 12, 26)), "Christmas observed on Monday");
+        assertTrue(xnys.isTradingDay(epochDay(2021, 12, 31)), "Saturday New Year's Day is not observed");
+        assertFalse(xnys.isTradingDay(epochDay(2001, 9, 11)));
+        assertTrue(xnys.isTradingDay(epochDay(2024, 6, 5)));
+    }
+
+    @Test
+    public void tradingDaysBetweenMatchesCountingDayByDay() {
+        BitmapTradingCalendar calendar = BitmapTradingCalendar.fromResource(ExchangeHolidays.XNYS);
+        TradingCalendar weekdays = new WeekdayTradingCalendar();
+        int first = calendar.getFirstEpochDay();
+        int end = calendar.getEndEpochDay();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 2_000; i++) {
+            // Spans that start and end before, inside and after the stored range
+            int from = random.nextInt(first - 1_000, end + 1_000);
+            int to = from + random.nextInt(0, 5_000);
+            assertEquals(countByDay(calendar, from, to), calendar.tradingDaysBetween(from, to), from + ".." + to);
+            assertEquals(countByDay(weekdays, from, to), weekdays.tradingDaysBetween(from, to), from + ".." + to);
+        }
+        assertEquals(0, calendar.tradingDaysBetween(first + 10, first));
+        // 2024: 262 weekdays, 10 NYSE holidays
+        assertEquals(252, calendar.tradingDaysBetween(epochDay(2024, 1, 1), epochDay(2025, 1, 1)));
+    }
+
+    @Test
+    public void fallsBackToWeekdaysOutsideTheStoredRange() {
+        BitmapTradingCalendar calendar = BitmapTradingCalendar.of("none", 700, 10, day -> false);
+        assertFalse(calendar.isTradingDay(700));  // a Monday, stored as closed
+        assertTrue(calendar.isTradingDay(697));   // a Friday
+        assertFalse(calendar.isTradingDay(699));  // a Sunday
+        assertTrue(calendar.isTradingDay(710));   // a Thursday
+        assertFalse(calendar.isTradingDay(712));  // a Saturday
+    }
+
+    @Test
+    public void roundTripsThroughItsFileFormat() throws IOException {
+        BitmapTradingCalendar calendar = BitmapTradingCalendar.of("odd", 100, 131, day -> day % 3 != 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        calendar.write(out);
+
+        BitmapTradingCalendar read = BitmapTradingCalendar.read("odd", new ByteArrayInputStream(out.toByteArray()));
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        read.write(again);
+
+        assertArrayEquals(out.toByteArray(), again.toByteArray());
+        assertEquals(calendar.tradingDaysBetween(0, 400), read.tradingDaysBetween(0, 400));
+    }
+}
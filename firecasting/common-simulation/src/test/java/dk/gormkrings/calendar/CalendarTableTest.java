@@ -0,0 +1,69 @@
+package dk.gormkrings.calendar;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CalendarTableTest {
+
+    private static final long OFFSET = LocalDate.of(1900, 1, 1).toEpochDay();
+
+    private static int epochDay(LocalDate date) {
+        return (int) (date.toEpochDay() - OFFSET);
+    }
+
+    @Test
+    public void fieldsMatchLocalDateInsideAndAroundTheTable() {
+        for (LocalDate date = LocalDate.of(1899, 1, 1); date.getYear() <= 2202; date = date.plusDays(1)) {
+            int day = epochDay(date);
+            String at = date.toString();
+            assertEquals(date.getYear(), CalendarTable.yearOf(day), at);
+            assertEquals(date.getMonthValue(), CalendarTable.monthOf(day), at);
+            assertEquals(date.getDayOfMonth(), CalendarTable.dayOfMonth(day), at);
+            assertEquals(date.getDayOfYear(), CalendarTable.dayOfYear(day), at);
+            assertEquals(date.lengthOfMonth(), CalendarTable.lengthOfMonth(day), at);
+            assertEquals(date.lengthOfYear(), CalendarTable.lengthOfYear(day), at);
+            assertEquals(day, CalendarTable.epochDayOf(date.getYear(), date.getMonthValue(), date.getDayOfMonth()), at);
+        }
+    }
+
+    @Test
+    public void nextBoundariesAreStrictlyAfterTheDay() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.getYear() <= 2201; date = date.plusDays(1)) {
+            int day = epochDay(date);
+            String at = date.toString();
+
+            LocalDate monthEnd = date.withDayOfMonth(date.lengthOfMonth());
+            if (monthEnd.equals(date)) monthEnd = date.plusMonths(1).withDayOfMonth(date.plusMonths(1).lengthOfMonth());
+            LocalDate yearEnd = LocalDate.of(date.getYear(), 12, 31);
+            if (yearEnd.equals(date)) yearEnd = yearEnd.plusYears(1);
+
+            assertEquals(epochDay(date.withDayOfMonth(1).plusMonths(1)), CalendarTable.nextMonthStart(day), at);
+            assertEquals(epochDay(monthEnd), CalendarTable.nextMonthEnd(day), at);
+            assertEquals(epochDay(LocalDate.of(date.getYear() + 1, 1, 1)), CalendarTable.nextYearStart(day), at);
+            assertEquals(epochDay(yearEnd), CalendarTable.nextYearEnd(day), at);
+        }
+    }
+
+    @Test
+    public void weeksStartOnMonday() {
+        int monday = epochDay(LocalDate.of(2024, 1, 1));
+        assertEquals(0, CalendarTable.dayOfWeek(monday));
+        assertEquals(6, CalendarTable.dayOfWeek(monday + 6));
+        assertEquals(monday + 7, CalendarTable.nextWeekStart(monday));
+        assertEquals(monday + 6, CalendarTable.nextWeekEnd(monday));
+        assertEquals(monday + 13, CalendarTable.nextWeekEnd(monday + 6));
+    }
+
+    @Test
+    public void coversTheSupportedYears() {
+        assertTrue(CalendarTable.covers(0));
+        assertTrue(CalendarTable.covers(epochDay(LocalDate.of(2200, 12, 31))));
+        assertFalse(CalendarTable.covers(-1));
+        assertFalse(CalendarTable.covers(epochDay(LocalDate.of(2201, 1, 1))));
+    }
+}
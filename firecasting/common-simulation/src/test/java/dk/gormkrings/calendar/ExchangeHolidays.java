@@ -0,0 +1,134 @@
+package dk.gormkrings.calendar;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Holiday rules the shipped {@code calendars/*.tcal} resources are generated from.
+ *
+ * <p>The current rules of each exchange are applied to every year in range, plus the known one-off
+ * closures. Years before {@link #FIRST_YEAR} are left to the weekday fallback.</p>
+ */
+final class ExchangeHolidays {
+
+    static final int FIRST_YEAR = 1990;
+    static final int LAST_YEAR = CalendarTable.LAST_YEAR;
+
+    /** Nasdaq Copenhagen. */
+    static final String XCSE = "xcse";
+    /** New York Stock Exchange. */
+    static final String XNYS = "xnys";
+
+    static final List<String> EXCHANGES = List.of(XCSE, XNYS);
+
+    private static final Set<LocalDate> XNYS_SPECIAL_CLOSURES = Set.of(
+            LocalDate.of(1994, 4, 27),  // Nixon funeral
+            LocalDate.of(2001, 9, 11), LocalDate.of(2001, 9, 12), LocalDate.of(2001, 9, 13), LocalDate.of(2001, 9, 14),
+            LocalDate.of(2004, 6, 11),  // Reagan funeral
+            LocalDate.of(2007, 1, 2),   // Ford funeral
+            LocalDate.of(2012, 10, 29), LocalDate.of(2012, 10, 30), // Hurricane Sandy
+            LocalDate.of(2018, 12, 5),  // G. H. W. Bush funeral
+            LocalDate.of(2025, 1, 9)    // Carter funeral
+    );
+
+    private ExchangeHolidays() {
+    }
+
+    static BitmapTradingCalendar calendar(String exchange) {
+        int first = CalendarTable.epochDayOf(FIRST_YEAR, 1, 1);
+        int end = CalendarTable.epochDayOf(LAST_YEAR + 1, 1, 1);
+        Set<LocalDate> holidays = new HashSet<>();
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            holidays.addAll(switch (exchange) {
+                case XCSE -> xcse(year);
+                case XNYS -> xnys(year);
+                default -> throw new IllegalArgumentException("Unknown exchange " + exchange);
+            });
+        }
+        LocalDate epoch = LocalDate.of(CalendarTable.FIRST_YEAR, 1, 1);
+        return BitmapTradingCalendar.of(exchange, first, end - first, day -> {
+            LocalDate date = epoch.plusDays(day);
+            return date.getDayOfWeek().getValue() <= 5 && !holidays.contains(date);
+        });
+    }
+
+    static Set<LocalDate> xcse(int year) {
+        LocalDate easter = easterSunday(year);
+        Set<LocalDate> days = new HashSet<>(List.of(
+                LocalDate.of(year, 1, 1),
+                easter.minusDays(3),  // Maundy Thursday
+                easter.minusDays(2),  // Good Friday
+                easter.plusDays(1),   // Easter Monday
+                easter.plusDays(39),  // Ascension Day
+                easter.plusDays(50),  // Whit Monday
+                LocalDate.of(year, 6, 5),   // Constitution Day
+                LocalDate.of(year, 12, 24),
+                LocalDate.of(year, 12, 25),
+                LocalDate.of(year, 12, 26),
+                LocalDate.of(year, 12, 31)
+        ));
+        // Great Prayer Day, abolished as a public holiday from 2024
+        if (year < 2024) days.add(easter.plusDays(26));
+        // Bank holiday after Ascension Day
+        if (year >= 2009) days.add(easter.plusDays(40));
+        return days;
+    }
+
+    static Set<LocalDate> xnys(int year) {
+        Set<LocalDate> days = new HashSet<>();
+        LocalDate newYear = LocalDate.of(year, 1, 1);
+        // A Saturday New Year's Day is not observed on the Friday before
+        if (newYear.getDayOfWeek() == DayOfWeek.SUNDAY) days.add(newYear.plusDays(1));
+        else days.add(newYear);
+        if (year >= 1998) days.add(nthWeekday(year, Month.JANUARY, DayOfWeek.MONDAY, 3)); // Martin Luther King Jr. Day
+        days.add(nthWeekday(year, Month.FEBRUARY, DayOfWeek.MONDAY, 3));                 // Washington's Birthday
+        days.add(easterSunday(year).minusDays(2));                                       // Good Friday
+        days.add(LocalDate.of(year, 5, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))); // Memorial Day
+        if (year >= 2022) days.add(observed(LocalDate.of(year, 6, 19)));                 // Juneteenth
+        days.add(observed(LocalDate.of(year, 7, 4)));
+        days.add(nthWeekday(year, Month.SEPTEMBER, DayOfWeek.MONDAY, 1));                // Labor Day
+        days.add(nthWeekday(year, Month.NOVEMBER, DayOfWeek.THURSDAY, 4));               // Thanksgiving
+        days.add(observed(LocalDate.of(year, 12, 25)));
+        for (LocalDate closure : XNYS_SPECIAL_CLOSURES) {
+            if (closure.getYear() == year) days.add(closure);
+        }
+        return days;
+    }
+
+    /** Saturday holidays move to Friday, Sunday holidays to Monday. */
+    private static LocalDate observed(LocalDate date) {
+        return switch (date.getDayOfWeek()) {
+            case SATURDAY -> date.minusDays(1);
+            case SUNDAY -> date.plusDays(1);
+            default -> date;
+        };
+    }
+
+    private static LocalDate nthWeekday(int year, Month month, DayOfWeek dayOfWeek, int n) {
+        return LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(n, dayOfWeek));
+    }
+
+    /** Gregorian Easter Sunday (anonymous Gregorian algorithm). */
+    static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -0,0 +1,38 @@
+package dk.gormkrings.simulation;
+
+import dk.gormkrings.dto.ProgressUpdate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class IProgressCallbackTest {
+
+    @Test
+    public void stringCallbacksGetRunCountsAsJsonAndMessagesAsText() {
+        List<String> received = new ArrayList<>();
+        IProgressCallback callback = received::add;
+
+        callback.update(ProgressUpdate.runs(3, 10));
+        callback.update(ProgressUpdate.message("Phase \"Deposit\"\tyear 2030\u001f"));
+
+        assertEquals(List.of(ProgressUpdate.runsJson(3, 10), "Phase \"Deposit\"\tyear 2030\u001f"), received);
+    }
+
+    @Test
+    public void typedCallbacksGetTheObjectsAndStringsAsMessages() {
+        List<ProgressUpdate> received = new ArrayList<>();
+        IProgressCallback callback = IProgressCallback.typed(received::add);
+        ProgressUpdate runs = ProgressUpdate.runs(3, 10);
+
+        callback.update(runs);
+        callback.update("plain");
+
+        assertSame(runs, received.get(0));
+        assertEquals(ProgressUpdate.Kind.MESSAGE, received.get(1).getKind());
+        assertEquals("plain", received.get(1).getMessage());
+    }
+}
@@ -0,0 +1,60 @@
+package dk.gormkrings.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Minimal growable {@code double[]} used by the aggregation pipeline so per-path values
+ * don't have to be boxed into {@code List<Double>}.
+ */
+public final class DoubleList {
+    private double[] values;
+    private int size;
+
+    public DoubleList() {
+        this(16);
+    }
+
+    public DoubleList(int initialCapacity) {
+        this.values = new double[Math.max(1, initialCapacity)];
+    }
+
+    public void add(double v) {
+        if (size == values.length) grow(size + 1);
+        values[size++] = v;
+    }
+
+    public void addAll(DoubleList other) {
+        if (other == null || other.size == 0) return;
+        if (size + other.size > values.length) grow(size + other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    public double get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Backing array; only the first {@link #size()} elements are valid. */
+    double[] array() {
+        return values;
+    }
+
+    /** Returns a trimmed copy of the contents. */
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, values.length + (values.length >> 1));
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
@@ -0,0 +1,184 @@
+package dk.gormkrings.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps every value in insertion order. Order statistics are found by selection on a scratch copy,
+ * so a handful of percentiles costs a few linear passes instead of a sort.
+ *
+ * <p>Ordering follows {@link Double#compare}, i.e. the same order as sorting a {@code List<Double>},
+ * and means are computed over the insertion order, so results match the list-based statistics exactly.</p>
+ */
+public final class ExactQuantileSummary implements QuantileSummary {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final DoubleList values;
+    // Partially ordered copy of values used for selection; null when values changed since last query.
+    private double[] selection;
+
+    public ExactQuantileSummary() {
+        this(new DoubleList());
+    }
+
+    public ExactQuantileSummary(DoubleList values) {
+        this.values = values;
+    }
+
+    @Override
+    public void add(double value) {
+        values.add(value);
+        selection = null;
+    }
+
+    @Override
+    public void merge(QuantileSummary other) {
+        if (!(other instanceof ExactQuantileSummary o)) {
+            throw new IllegalArgumentException("Cannot merge " + other.getClass().getSimpleName() + " into an exact summary");
+        }
+        values.addAll(o.values);
+        selection = null;
+    }
+
+    @Override
+    public long count() {
+        return values.size();
+    }
+
+    /** Value at {@code index} in insertion order. */
+    public double get(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public double quantile(double q) {
+        int n = values.size();
+        if (n == 0) return 0.0;
+        double pos = (n - 1) * q;
+        int index = (int) Math.floor(pos);
+        double frac = pos - index;
+        if (index + 1 < n) {
+            double lo = orderStatistic(index);
+            double hi = minFrom(selection, index + 1);
+            return lo * (1 - frac) + hi * frac;
+        } else {
+            return orderStatistic(index);
+        }
+    }
+
+    @Override
+    public double median() {
+        int n = values.size();
+        if (n == 0) return 0.0;
+        return orderStatistic((n - 1) / 2);
+    }
+
+    @Override
+    public double min() {
+        int n = values.size();
+        if (n == 0) return 0.0;
+        double[] a = values.array();
+        double min = a[0];
+        for (int i = 1; i < n; i++) {
+            if (Double.compare(a[i], min) < 0) min = a[i];
+        }
+        return min;
+    }
+
+    @Override
+    public double max() {
+        int n = values.size();
+        if (n == 0) return 0.0;
+        double[] a = values.array();
+        double max = a[0];
+        for (int i = 1; i < n; i++) {
+            if (Double.compare(a[i], max) > 0) max = a[i];
+        }
+        return max;
+    }
+
+    @Override
+    public double mean() {
+        return Arrays.stream(values.array(), 0, values.size()).average().orElse(0.0);
+    }
+
+    @Override
+    public double stdDev() {
+        double mean = mean();
+        double variance = Arrays.stream(values.array(), 0, values.size())
+                .map(v -> Math.pow(v - mean, 2))
+                .average().orElse(0.0);
+        return Math.sqrt(variance);
+    }
+
+    @Override
+    public double meanAtOrBelow(double threshold) {
+        return Arrays.stream(values.array(), 0, values.size())
+                .filter(v -> v <= threshold)
+                .average().orElse(0.0);
+    }
+
+    // ---------- selection ----------
+
+    private double orderStatistic(int k) {
+        if (selection == null) selection = values.toArray();
+        return select(selection, k);
+    }
+
+    /**
+     * Rearranges {@code a} so that {@code a[k]} holds the k-th smallest value, everything before it is
+     * not greater and everything after it is not smaller. Falls back to sorting the remaining range
+     * when partitioning stops making progress.
+     */
+    static double select(double[] a, int k) {
+        int lo = 0;
+        int hi = a.length - 1;
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(a.length)) + 4;
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            if (budget-- == 0) break;
+
+            // Median-of-three pivot
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(a[mid], a[lo]) < 0) swap(a, lo, mid);
+            if (Double.compare(a[hi], a[lo]) < 0) swap(a, lo, hi);
+            if (Double.compare(a[hi], a[mid]) < 0) swap(a, mid, hi);
+            double pivot = a[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (Double.compare(a[i], pivot) < 0) i++;
+                while (Double.compare(pivot, a[j]) < 0) j--;
+                if (i <= j) {
+                    swap(a, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // [lo..j] <= pivot, (j..i) == pivot, [i..hi] >= pivot
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return a[k];
+            }
+        }
+        Arrays.sort(a, lo, hi + 1);
+        return a[k];
+    }
+
+    private static double minFrom(double[] a, int from) {
+        double min = a[from];
+        for (int i = from + 1; i < a.length; i++) {
+            if (Double.compare(a[i], min) < 0) min = a[i];
+        }
+        return min;
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
@@ -0,0 +1,66 @@
+package dk.gormkrings.statistics;
+
+import java.util.Locale;
+
+/**
+ * Chooses how percentiles are computed.
+ *
+ * <ul>
+ *   <li>{@code exact}: keeps every value in a primitive array and uses selection instead of a full sort.
+ *       Results are identical to sorting the values and calling {@link StatisticsUtils#quantile}.</li>
+ *   <li>{@code sketch}: a mergeable t-digest with bounded memory. {@code compression} trades memory for
+ *       accuracy; the rank error is roughly {@code 1/compression} in the middle of the distribution and
+ *       much smaller in the tails.</li>
+ * </ul>
+ */
+public final class QuantileEngine {
+
+    public enum Mode {
+        EXACT,
+        SKETCH
+    }
+
+    private final Mode mode;
+    private final double compression;
+
+    private QuantileEngine(Mode mode, double compression) {
+        this.mode = mode;
+        this.compression = compression;
+    }
+
+    public static QuantileEngine exact() {
+        return new QuantileEngine(Mode.EXACT, 0);
+    }
+
+    public static QuantileEngine sketch(double compression) {
+        if (!(compression >= TDigestQuantileSummary.MIN_COMPRESSION)) {
+            throw new IllegalArgumentException("Sketch compression must be >= "
+                    + TDigestQuantileSummary.MIN_COMPRESSION + ": " + compression);
+        }
+        return new QuantileEngine(Mode.SKETCH, compression);
+    }
+
+    /** Resolves a configured mode name ({@code exact} or {@code sketch}). */
+    public static QuantileEngine of(String mode, double compression) {
+        if (mode == null || mode.isBlank()) return exact();
+        return switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "exact" -> exact();
+            case "sketch" -> sketch(compression);
+            default -> throw new IllegalArgumentException("Unknown quantile mode: " + mode);
+        };
+    }
+
+    public QuantileSummary newSummary() {
+        return mode == Mode.EXACT
+                ? new ExactQuantileSummary()
+                : new TDigestQuantileSummary(compression);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isExact() {
+        return mode == Mode.EXACT;
+    }
+}
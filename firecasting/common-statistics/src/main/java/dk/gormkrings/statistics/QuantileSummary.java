@@ -0,0 +1,37 @@
+package dk.gormkrings.statistics;
+
+/**
+ * Accumulates values and answers the distribution questions asked by YearlySummary and MetricSummary.
+ *
+ * <p>Summaries are single-threaded; workers fill their own summary and the results are combined
+ * with {@link #merge}. Only summaries created by the same {@link QuantileEngine} can be merged.</p>
+ *
+ * <p>All accessors return 0.0 for an empty summary, like {@link StatisticsUtils}.</p>
+ */
+public interface QuantileSummary {
+
+    void add(double value);
+
+    /** Adds everything in {@code other} to this summary. {@code other} must not be used afterwards. */
+    void merge(QuantileSummary other);
+
+    long count();
+
+    /** Linearly interpolated quantile, {@code q} in [0, 1]. */
+    double quantile(double q);
+
+    /** Lower median (the middle element, or the lower of the two middle elements). */
+    double median();
+
+    double min();
+
+    double max();
+
+    double mean();
+
+    /** Population standard deviation. */
+    double stdDev();
+
+    /** Mean of the values at or below {@code threshold} (used for CVaR). */
+    double meanAtOrBelow(double threshold);
+}
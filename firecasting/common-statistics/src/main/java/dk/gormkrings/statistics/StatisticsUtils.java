@@ -34,4 +34,18 @@ public class StatisticsUtils {
             return sorted.get(index);
         }
     }
+
+    /** Same interpolation as {@link #quantile(List, double)} for an ascending primitive array. */
+    public static double quantile(double[] sorted, double q) {
+        if (sorted.length == 0) return 0.0;
+        int n = sorted.length;
+        double pos = (n - 1) * q;
+        int index = (int) Math.floor(pos);
+        double frac = pos - index;
+        if (index + 1 < n) {
+            return sorted[index] * (1 - frac) + sorted[index + 1] * frac;
+        } else {
+            return sorted[index];
+        }
+    }
 }
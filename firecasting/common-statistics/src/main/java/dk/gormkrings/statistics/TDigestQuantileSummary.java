@@ -0,0 +1,269 @@
+package dk.gormkrings.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning &amp; Ertl) using the arcsine scale function.
+ *
+ * <p>Values are buffered and periodically merged into at most about {@code compression} centroids, so
+ * memory is bounded regardless of how many values are added. Centroids are small near the tails and
+ * larger in the middle, which keeps p5/p95 accurate. Count, min, max, mean and standard deviation
+ * are tracked exactly.</p>
+ *
+ * <p>Non-finite values are ignored.</p>
+ */
+public final class TDigestQuantileSummary implements QuantileSummary {
+
+    static final double MIN_COMPRESSION = 10;
+
+    private final double compression;
+
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    // Welford running moments
+    private double mean;
+    private double m2;
+
+    public TDigestQuantileSummary(double compression) {
+        if (!(compression >= MIN_COMPRESSION)) {
+            throw new IllegalArgumentException("compression must be >= " + MIN_COMPRESSION + ": " + compression);
+        }
+        this.compression = compression;
+        int maxCentroids = (int) Math.ceil(compression) + 2;
+        this.means = new double[maxCentroids];
+        this.weights = new double[maxCentroids];
+        this.bufferMeans = new double[5 * maxCentroids];
+        this.bufferWeights = new double[5 * maxCentroids];
+    }
+
+    @Override
+    public void add(double value) {
+        if (!Double.isFinite(value)) return;
+        count++;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        double d = value - mean;
+        mean += d / count;
+        m2 += d * (value - mean);
+        buffer(value, 1.0);
+    }
+
+    @Override
+    public void merge(QuantileSummary other) {
+        if (!(other instanceof TDigestQuantileSummary o)) {
+            throw new IllegalArgumentException("Cannot merge " + other.getClass().getSimpleName() + " into a t-digest");
+        }
+        if (o.count == 0) return;
+
+        for (int i = 0; i < o.centroids; i++) buffer(o.means[i], o.weights[i]);
+        for (int i = 0; i < o.buffered; i++) buffer(o.bufferMeans[i], o.bufferWeights[i]);
+
+        // Chan et al. parallel combination of moments
+        long n = count + o.count;
+        double delta = o.mean - mean;
+        mean += delta * o.count / n;
+        m2 += o.m2 + delta * delta * ((double) count * o.count / n);
+        count = n;
+        min = Math.min(min, o.min);
+        max = Math.max(max, o.max);
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public double quantile(double q) {
+        if (count == 0) return 0.0;
+        compress();
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        if (centroids == 1) return means[0];
+
+        double total = count;
+        double target = q * total;
+
+        // Left tail: interpolate between min and the first centroid's center
+        double firstCenter = weights[0] / 2;
+        if (target < firstCenter) {
+            return min + (means[0] - min) * (target / firstCenter);
+        }
+
+        double cumulative = 0;
+        for (int i = 0; i < centroids - 1; i++) {
+            double center = cumulative + weights[i] / 2;
+            double nextCenter = cumulative + weights[i] + weights[i + 1] / 2;
+            if (target <= nextCenter) {
+                double frac = (target - center) / (nextCenter - center);
+                return means[i] + frac * (means[i + 1] - means[i]);
+            }
+            cumulative += weights[i];
+        }
+
+        // Right tail: interpolate between the last centroid's center and max
+        double lastCenter = total - weights[centroids - 1] / 2;
+        double frac = Math.min(1.0, (target - lastCenter) / (total - lastCenter));
+        return means[centroids - 1] + frac * (max - means[centroids - 1]);
+    }
+
+    @Override
+    public double median() {
+        return quantile(0.5);
+    }
+
+    @Override
+    public double min() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    @Override
+    public double max() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    @Override
+    public double mean() {
+        return count == 0 ? 0.0 : mean;
+    }
+
+    @Override
+    public double stdDev() {
+        return count == 0 ? 0.0 : Math.sqrt(Math.max(0.0, m2 / count));
+    }
+
+    /** Approximated from centroid means; exact when every centroid is a single value. */
+    @Override
+    public double meanAtOrBelow(double threshold) {
+        if (count == 0) return 0.0;
+        compress();
+        double sum = 0;
+        double weight = 0;
+        for (int i = 0; i < centroids && means[i] <= threshold; i++) {
+            sum += means[i] * weights[i];
+            weight += weights[i];
+        }
+        if (weight == 0) return min <= threshold ? min : 0.0;
+        return sum / weight;
+    }
+
+    // ---------- digest maintenance ----------
+
+    private void buffer(double value, double weight) {
+        if (buffered == bufferMeans.length) compress();
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+    }
+
+    /** Merges buffered points into the centroids. */
+    private void compress() {
+        if (buffered == 0) return;
+
+        int n = centroids + buffered;
+        double[] m = Arrays.copyOf(means, n);
+        double[] w = Arrays.copyOf(weights, n);
+        System.arraycopy(bufferMeans, 0, m, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, w, centroids, buffered);
+        buffered = 0;
+        sortByMean(m, w, 0, n - 1);
+
+        double total = 0;
+        for (int i = 0; i < n; i++) total += w[i];
+
+        int out = 0;
+        double soFar = 0;
+        double curMean = m[0];
+        double curWeight = w[0];
+        double limit = total * nextQuantileLimit(0);
+        for (int i = 1; i < n; i++) {
+            double proposed = curWeight + w[i];
+            if (soFar + proposed <= limit) {
+                curMean += (m[i] - curMean) * w[i] / proposed;
+                curWeight = proposed;
+            } else {
+                m[out] = curMean;
+                w[out] = curWeight;
+                out++;
+                soFar += curWeight;
+                limit = total * nextQuantileLimit(soFar / total);
+                curMean = m[i];
+                curWeight = w[i];
+            }
+        }
+        m[out] = curMean;
+        w[out] = curWeight;
+        out++;
+
+        if (out > means.length) {
+            means = new double[out];
+            weights = new double[out];
+        }
+        System.arraycopy(m, 0, means, 0, out);
+        System.arraycopy(w, 0, weights, 0, out);
+        centroids = out;
+    }
+
+    /** Quantile one unit further along the scale k(q) = compression / (2 pi) * asin(2q - 1). */
+    private double nextQuantileLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * Math.min(1.0, q) - 1) + 1;
+        double angle = k * 2 * Math.PI / compression;
+        if (angle >= Math.PI / 2) return 1.0;
+        return (Math.sin(angle) + 1) / 2;
+    }
+
+    private static void sortByMean(double[] m, double[] w, int lo, int hi) {
+        while (hi - lo > 16) {
+            double pivot = m[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (m[i] < pivot) i++;
+                while (m[j] > pivot) j--;
+                if (i <= j) {
+                    swap(m, w, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to bound stack depth
+            if (j - lo < hi - i) {
+                sortByMean(m, w, lo, j);
+                lo = i;
+            } else {
+                sortByMean(m, w, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            double mi = m[i];
+            double wi = w[i];
+            int j = i - 1;
+            while (j >= lo && m[j] > mi) {
+                m[j + 1] = m[j];
+                w[j + 1] = w[j];
+                j--;
+            }
+            m[j + 1] = mi;
+            w[j + 1] = wi;
+        }
+    }
+
+    private static void swap(double[] m, double[] w, int i, int j) {
+        double tm = m[i];
+        m[i] = m[j];
+        m[j] = tm;
+        double tw = w[i];
+        w[i] = w[j];
+        w[j] = tw;
+    }
+}
@@ -1,7 +1,6 @@
 package dk.gormkrings.statistics;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public interface YearlySummaryCalculator {
 
@@ -10,25 +9,33 @@ public interface YearlySummaryCalculator {
      * Outliers are excluded by filtering out values below the 5th and above the 95th percentiles.
      */
     static YearlySummary calculateYearlySummary(String phaseName, int year, List<Double> capitals, List<Boolean> negativeFlags) {
-        List<Double> sorted = new ArrayList<>(capitals);
-        Collections.sort(sorted);
-        double robustAvg = StatisticsUtils.average(capitals);
-        double med = StatisticsUtils.median(sorted);
-        double min = capitals.isEmpty() ? 0.0 : Collections.min(capitals);
-        double max = capitals.isEmpty() ? 0.0 : Collections.max(capitals);
-        double sd = StatisticsUtils.stdDev(capitals, robustAvg);
-
-        double q5 = StatisticsUtils.quantile(sorted, 0.05);
-        double q25 = StatisticsUtils.quantile(sorted, 0.25);
-        double q75 = StatisticsUtils.quantile(sorted, 0.75);
-        double q95 = StatisticsUtils.quantile(sorted, 0.95);
+        DoubleList values = new DoubleList(Math.max(1, capitals.size()));
+        for (Double c : capitals) values.add(c);
+        long negatives = negativeFlags.stream().filter(b -> b).count();
+        return calculateYearlySummary(phaseName, year, new ExactQuantileSummary(values), negatives);
+    }
+
+    /**
+     * Same as {@link #calculateYearlySummary(String, int, List, List)} for capitals already collected in a
+     * {@link QuantileSummary}; {@code negativeCount} is the number of those values that belong to failed runs.
+     */
+    static YearlySummary calculateYearlySummary(String phaseName, int year, QuantileSummary capitals, long negativeCount) {
+        double robustAvg = capitals.mean();
+        double med = capitals.median();
+        double min = capitals.min();
+        double max = capitals.max();
+        double sd = capitals.stdDev();
+
+        double q5 = capitals.quantile(0.05);
+        double q25 = capitals.quantile(0.25);
+        double q75 = capitals.quantile(0.75);
+        double q95 = capitals.quantile(0.95);
 
         // VaR is the 5th percentile; CVaR is the average of values below that threshold.
-        List<Double> belowVaR = capitals.stream().filter(v -> v <= q5).collect(Collectors.toList());
-        double cvar = belowVaR.isEmpty() ? 0.0 : StatisticsUtils.average(belowVaR);
+        double cvar = capitals.meanAtOrBelow(q5);
 
-        double negativePercentage = negativeFlags.isEmpty() ? 0.0 :
-                negativeFlags.stream().filter(b -> b).count() * 100.0 / negativeFlags.size();
+        double negativePercentage = capitals.count() == 0 ? 0.0 :
+                negativeCount * 100.0 / capitals.count();
 
         YearlySummary summary = new YearlySummary();
         summary.setPhaseName(phaseName);
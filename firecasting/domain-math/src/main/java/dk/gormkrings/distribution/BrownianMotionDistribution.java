@@ -29,6 +29,22 @@ public class BrownianMotionDistribution implements IDistribution {
         return (drift - 0.5 * volatility * volatility) * dt + volatility * Math.sqrt(dt) * standardNormal;
     }
 
+    @Override
+    public boolean hasClosedFormSum() {
+        return true;
+    }
+
+    /** Increments over disjoint steps are independent normals, so n steps sum to one step of length n*dt. */
+    @Override
+    public double sampleSum(IRandomNumberGenerator rng, int n) {
+        if (n <= 0) return 0.0;
+        double u1 = rng.nextDouble();
+        double u2 = rng.nextDouble();
+        double standardNormal = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        double horizon = n * dt;
+        return (drift - 0.5 * volatility * volatility) * horizon + volatility * Math.sqrt(horizon) * standardNormal;
+    }
+
     @Override
     public IDistribution copy() {
         BrownianMotionDistribution copy = new BrownianMotionDistribution();
@@ -20,9 +20,13 @@ public class NormalDistribution implements IDistribution {
     private double mean = 0.07;
     private double standardDeviation = 0.20;
     private double dt = 0.003968254; // time step
+    private Sampler sampler = Sampler.EXACT;
 
     @Override
     public double sample(IRandomNumberGenerator rng) {
+        if (sampler == Sampler.FAST) {
+            return mean * dt + standardDeviation * Math.sqrt(dt) * ZigguratNormalSampler.next(rng);
+        }
         double u1 = rng.nextDouble();
         double u2 = rng.nextDouble();
         // Box-Muller transform to generate a standard normal variable Z
@@ -31,12 +35,56 @@ public class NormalDistribution implements IDistribution {
         return mean * dt + standardDeviation * Math.sqrt(dt) * standardNormal;
     }
 
+    /**
+     * Bulk variant that keeps both normals of each Box-Muller pair instead of discarding the sine branch,
+     * so it needs half the uniforms of repeated {@link #sample(IRandomNumberGenerator)} calls.
+     */
+    @Override
+    public void sample(IRandomNumberGenerator rng, double[] out, int from, int to) {
+        double drift = mean * dt;
+        double scale = standardDeviation * Math.sqrt(dt);
+        if (sampler == Sampler.FAST) {
+            for (int i = from; i < to; i++) out[i] = drift + scale * ZigguratNormalSampler.next(rng);
+            return;
+        }
+        int i = from;
+        while (i < to) {
+            double u1 = rng.nextDouble();
+            double u2 = rng.nextDouble();
+            double radius = Math.sqrt(-2 * Math.log(u1));
+            double angle = 2 * Math.PI * u2;
+            out[i++] = drift + scale * radius * Math.cos(angle);
+            if (i < to) out[i++] = drift + scale * radius * Math.sin(angle);
+        }
+    }
+
+    @Override
+    public boolean hasClosedFormSum() {
+        return true;
+    }
+
+    /** The sum of n i.i.d. N(mean*dt, sd^2*dt) samples is N(n*mean*dt, n*sd^2*dt): one variate, two uniforms. */
+    @Override
+    public double sampleSum(IRandomNumberGenerator rng, int n) {
+        if (n <= 0) return 0.0;
+        double standardNormal;
+        if (sampler == Sampler.FAST) {
+            standardNormal = ZigguratNormalSampler.next(rng);
+        } else {
+            double u1 = rng.nextDouble();
+            double u2 = rng.nextDouble();
+            standardNormal = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        }
+        return n * mean * dt + standardDeviation * Math.sqrt(n * dt) * standardNormal;
+    }
+
     @Override
     public IDistribution copy() {
         NormalDistribution copy = new NormalDistribution();
         copy.setMean(mean);
         copy.setStandardDeviation(standardDeviation);
         copy.setDt(dt);
+        copy.setSampler(sampler);
         return copy;
     }
 
@@ -46,6 +94,7 @@ public class NormalDistribution implements IDistribution {
                 "mean=" + mean +
                 ", standardDeviation=" + standardDeviation +
                 ", dt=" + dt +
+                ", sampler=" + sampler +
                 '}';
     }
 }
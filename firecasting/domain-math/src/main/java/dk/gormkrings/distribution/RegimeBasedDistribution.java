@@ -63,6 +63,15 @@ public class RegimeBasedDistribution implements IDistribution {
         return new RegimeBasedDistribution(newRegimes, regimeProvider.copy());
     }
 
+    @Override
+    public IDistribution copyForPath(long pathIndex) {
+        IDistribution[] newRegimes = new IDistribution[regimeDistributions.length];
+        for (int i = 0; i < regimeDistributions.length; i++) {
+            newRegimes[i] = regimeDistributions[i].copyForPath(pathIndex);
+        }
+        return new RegimeBasedDistribution(newRegimes, regimeProvider.copyForPath(pathIndex));
+    }
+
     @Override
     public String toString() {
         return "RegimeBasedDistribution{" +
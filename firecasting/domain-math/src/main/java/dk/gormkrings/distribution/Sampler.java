@@ -0,0 +1,28 @@
+package dk.gormkrings.distribution;
+
+import java.util.Locale;
+
+/**
+ * How {@link NormalDistribution} and {@link TDistributionImpl} turn uniforms into variates.
+ *
+ * <p>EXACT: Box-Muller for the normal and commons-math's inverse CDF for Student-t; seeded runs
+ * reproduce the results of earlier versions.
+ * FAST: {@link ZigguratNormalSampler} and {@link StudentTQuantileTable}, which consume the uniforms
+ * differently and so give other (equally distributed) paths for the same seed.</p>
+ */
+public enum Sampler {
+    EXACT,
+    FAST;
+
+    public static Sampler fromProperty(String value) {
+        if (value == null) return EXACT;
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "exact" -> EXACT;
+            case "fast" -> FAST;
+            default -> throw new IllegalArgumentException(
+                    "Unsupported simulation.return.sampler: '" + value + "' (expected 'exact' or 'fast')"
+            );
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package dk.gormkrings.distribution;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed inverse CDF of Student's t with {@code nu} degrees of freedom, interpolated by cubic
+ * Hermite polynomials.
+ *
+ * <p>By symmetry only {@code p <= 0.5} is stored. That half is split into binary octaves
+ * {@code [2^-(k+2), 2^-(k+1))} for {@code k < }{@value #OCTAVES}, each with {@value #STEPS} equal
+ * steps; every node holds the quantile and its slope {@code 1 / density}. The octave of {@code p} is
+ * read from its exponent bits, so a lookup costs no logarithm or root finding.</p>
+ *
+ * <p>Probabilities beyond {@code 2^-20} from either end (two draws in a million) go to commons-math.
+ * Further out the heavy tails of small {@code nu} would need ever finer steps, and commons-math
+ * computes upper-tail probabilities as {@code 1 - cdf}, so its quantiles there carry a relative error
+ * of about {@code 1e-16 / p} that a table built from the lower tail would not reproduce.</p>
+ *
+ * <p>Accuracy: within an octave the quantile's derivatives are bounded relative to its value, so the
+ * interpolation error is below {@link #RELATIVE_ERROR_BOUND} of {@code max(1, |t|)} for every
+ * {@code nu >= 1} (about 5e-9 at {@code nu = 1}, shrinking as {@code nu} grows). For comparison,
+ * commons-math solves each quantile, the nodes included, to an absolute accuracy of 1e-9.</p>
+ *
+ * <p>Tables are immutable and cached per {@code nu}, so distribution copies share them.</p>
+ */
+public final class StudentTQuantileTable {
+
+    public static final double RELATIVE_ERROR_BOUND = 1e-8;
+
+    private static final int OCTAVES = 19;
+    private static final int STEPS = 64;
+    private static final int NODES = STEPS + 1;
+
+    private static final Map<Double, StudentTQuantileTable> CACHE = new ConcurrentHashMap<>();
+
+    private final double nu;
+    private final TDistribution exact;
+    /** Quantile at node {@code j} of octave {@code k}, at index {@code k * NODES + j}. */
+    private final double[] quantiles;
+    /** Quantile slope at each node, scaled to the octave's step. */
+    private final double[] slopes;
+
+    private StudentTQuantileTable(double nu) {
+        this.nu = nu;
+        this.exact = new TDistribution(nu);
+        this.quantiles = new double[OCTAVES * NODES];
+        this.slopes = new double[OCTAVES * NODES];
+        for (int k = 0; k < OCTAVES; k++) {
+            double low = Math.scalb(1.0, -(k + 2));
+            double step = low / STEPS;
+            for (int j = 0; j < NODES; j++) {
+                double p = low + j * step;
+                // The top node of the first octave is the median
+                double q = (k == 0 && j == STEPS) ? 0.0 : exact.inverseCumulativeProbability(p);
+                quantiles[k * NODES + j] = q;
+                slopes[k * NODES + j] = step / exact.density(q);
+            }
+        }
+    }
+
+    public static StudentTQuantileTable forNu(double nu) {
+        return CACHE.computeIfAbsent(nu, StudentTQuantileTable::new);
+    }
+
+    public double getNu() {
+        return nu;
+    }
+
+    /** The t quantile of {@code u} in (0, 1). */
+    public double inverseCumulativeProbability(double u) {
+        boolean upper = u > 0.5;
+        double p = upper ? 1.0 - u : u;
+        // Octave k holds p in [2^-(k+2), 2^-(k+1))
+        int k = -2 - Math.getExponent(p);
+        if (k < 0) return 0.0;
+        if (k >= OCTAVES) return exact.inverseCumulativeProbability(u);
+
+        double position = (Math.scalb(p, k + 2) - 1.0) * STEPS;
+        int j = (int) position;
+        double s = position - j;
+        int n = k * NODES + j;
+
+        double q0 = quantiles[n];
+        double q1 = quantiles[n + 1];
+        double m0 = slopes[n];
+        double m1 = slopes[n + 1];
+        double s2 = s * s;
+        double s3 = s2 * s;
+        double q = (2 * s3 - 3 * s2 + 1) * q0 + (s3 - 2 * s2 + s) * m0 + (-2 * s3 + 3 * s2) * q1 + (s3 - s2) * m1;
+        return upper ? -q : q;
+    }
+}
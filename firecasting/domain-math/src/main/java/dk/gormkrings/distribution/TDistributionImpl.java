@@ -3,6 +3,7 @@ package dk.gormkrings.distribution;
 import dk.gormkrings.math.distribution.IDistribution;
 import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
 import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.math3.distribution.TDistribution;
@@ -18,6 +19,11 @@ public class TDistributionImpl implements IDistribution {
     private double sigma = 0.609;
     private double nu = 3.6;
     private double dt = 0.003968254;
+    private Sampler sampler = Sampler.EXACT;
+    // Looked up on FAST draws whenever nu differs from the table's, so it follows nu and sampler set after init()
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private StudentTQuantileTable quantileTable;
 
     @PostConstruct
     public void init() {
@@ -27,7 +33,13 @@ public class TDistributionImpl implements IDistribution {
     @Override
     public double sample(IRandomNumberGenerator rng) {
         double u = rng.nextDouble();
-        double tValue = tDistribution.inverseCumulativeProbability(u);
+        double tValue;
+        if (sampler == Sampler.FAST) {
+            if (quantileTable == null || quantileTable.getNu() != nu) quantileTable = StudentTQuantileTable.forNu(nu);
+            tValue = quantileTable.inverseCumulativeProbability(u);
+        } else {
+            tValue = tDistribution.inverseCumulativeProbability(u);
+        }
         // Scale the sample to a daily return:
         return mu * dt + sigma * Math.sqrt(dt) * tValue;
     }
@@ -40,6 +52,7 @@ public class TDistributionImpl implements IDistribution {
         copy.sigma = this.sigma;
         copy.nu = this.nu;
         copy.dt = this.dt;
+        copy.sampler = this.sampler;
         copy.tDistribution = new TDistribution(copy.nu);
         return copy;
     }
@@ -51,6 +64,7 @@ public class TDistributionImpl implements IDistribution {
                 ", sigma=" + sigma +
                 ", nu=" + nu +
                 ", dt=" + dt +
+                ", sampler=" + sampler +
                 '}';
     }
 }
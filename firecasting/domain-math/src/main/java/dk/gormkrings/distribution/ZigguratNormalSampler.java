@@ -0,0 +1,75 @@
+package dk.gormkrings.distribution;
+
+import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
+
+/**
+ * Standard normal variates by the Ziggurat method (Marsaglia and Tsang, 2000), in Doornik's
+ * formulation with {@value #LAYERS} layers over uniform doubles.
+ *
+ * <p>One {@code nextDouble()} supplies both the layer (its lowest 7 bits) and the signed position in
+ * it (the other 46). About 98.8% of draws end inside the layer's rectangle and cost that one uniform,
+ * a multiplication and a comparison; the rest take the wedge test or the tail and a few more uniforms.</p>
+ *
+ * <p>Accuracy: the method is exact, the variates follow N(0,1) without approximation. The only limit is
+ * the 46-bit position, which puts variates from the rectangles on a grid of spacing below
+ * {@code 3.71 * 2^-45 ~ 1.1e-13}.</p>
+ */
+public final class ZigguratNormalSampler {
+
+    private static final int LAYERS = 128;
+    /** Start of the tail, the rightmost layer edge. */
+    private static final double R = 3.442619855899;
+    /** Area of each layer, and of the base layer including the tail. */
+    private static final double V = 9.91256303526217e-3;
+
+    private static final double TWO_POW_53 = 0x1.0p53;
+    private static final double TWO_POW_MINUS_45 = 0x1.0p-45;
+
+    /** Right edge of each layer; {@code X[0]} is the width of a rectangle with the base layer's area. */
+    private static final double[] X = new double[LAYERS + 1];
+    /** {@code X[i + 1] / X[i]}: positions below it are inside the layer above's shadow, hence accepted. */
+    private static final double[] RATIO = new double[LAYERS];
+
+    static {
+        double f = Math.exp(-0.5 * R * R);
+        X[0] = V / f;
+        X[1] = R;
+        X[LAYERS] = 0.0;
+        for (int i = 2; i < LAYERS; i++) {
+            X[i] = Math.sqrt(-2 * Math.log(V / X[i - 1] + f));
+            f = Math.exp(-0.5 * X[i] * X[i]);
+        }
+        for (int i = 0; i < LAYERS; i++) RATIO[i] = X[i + 1] / X[i];
+    }
+
+    private ZigguratNormalSampler() {
+    }
+
+    public static double next(IRandomNumberGenerator rng) {
+        while (true) {
+            long bits = (long) (rng.nextDouble() * TWO_POW_53);
+            int i = (int) (bits & (LAYERS - 1));
+            double u = (bits >>> 7) * TWO_POW_MINUS_45 - 1.0;
+
+            if (Math.abs(u) < RATIO[i]) return u * X[i];
+            if (i == 0) return tail(rng, u < 0);
+
+            double x = u * X[i];
+            double f0 = Math.exp(-0.5 * (X[i] * X[i] - x * x));
+            double f1 = Math.exp(-0.5 * (X[i + 1] * X[i + 1] - x * x));
+            if (f1 + rng.nextDouble() * (f0 - f1) < 1.0) return x;
+        }
+    }
+
+    /** Marsaglia's tail method for |Z| > R. */
+    private static double tail(IRandomNumberGenerator rng, boolean negative) {
+        double x;
+        double y;
+        do {
+            // 1 - u keeps the logarithms finite
+            x = Math.log(1.0 - rng.nextDouble()) / R;
+            y = Math.log(1.0 - rng.nextDouble());
+        } while (-2 * y < x * x);
+        return negative ? x - R : R - x;
+    }
+}
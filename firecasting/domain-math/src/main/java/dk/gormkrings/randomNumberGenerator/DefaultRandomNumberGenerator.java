@@ -1,52 +1,89 @@
 package dk.gormkrings.randomNumberGenerator;
 
+import dk.gormkrings.math.random.SeedDerivation;
 import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Counter-based generator: draw {@code n} of a stream is {@code mix64(key + GOLDEN_GAMMA * n)}.
+ *
+ * <p>A stream is fully described by its 64-bit key and a draw counter, so any path's stream can be
+ * addressed in O(1) from {@code (masterSeed, label, pathIndex)} on any thread or node, and any draw of it
+ * can be replayed with {@link #seek}. For a seeded stream the sequence is bit-identical to
+ * {@code new SplittableRandom(seed)}, which this class used before.</p>
+ */
 @Component
 @Scope("prototype")
 public class DefaultRandomNumberGenerator implements IRandomNumberGenerator {
-    private final SplittableRandom random;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private final long key;
+    private long counter;
     private long seed = 1; // Negative values makes it stochastic
+    private long copies;
 
     public DefaultRandomNumberGenerator() {
         this.seed = -1;
-        this.random = new SplittableRandom();
-    }
-
-    private DefaultRandomNumberGenerator(SplittableRandom random) {
-        this.seed = -1;
-        this.random = random.split();
+        this.key = ThreadLocalRandom.current().nextLong();
     }
 
     public DefaultRandomNumberGenerator(long seed) {
         if (seed < 0) {
             // Negative seed means: stochastic/unseeded (even if repeated).
             this.seed = -1;
-            this.random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+            this.key = ThreadLocalRandom.current().nextLong();
         } else {
             this.seed = seed;
-            this.random = new SplittableRandom(seed);
+            this.key = seed;
         }
     }
 
+    private DefaultRandomNumberGenerator(long seed, long key) {
+        this.seed = seed;
+        this.key = key;
+    }
+
+    /**
+     * Stream of path {@code pathIndex} under {@code label} of {@code masterSeed}. Hashes the label once;
+     * for many paths create the label's stream once and use {@link #copyForPath}.
+     */
+    public static DefaultRandomNumberGenerator forStream(long masterSeed, String label, long pathIndex) {
+        return forStream(masterSeed, label).copyForPath(pathIndex);
+    }
+
+    /** Root stream of {@code label} under {@code masterSeed}. */
+    public static DefaultRandomNumberGenerator forStream(long masterSeed, String label) {
+        return new DefaultRandomNumberGenerator(masterSeed, SeedDerivation.derive64(masterSeed, label));
+    }
+
     @Override
     public double nextDouble() {
-        return random.nextDouble();
+        return (SeedDerivation.mix64(key + SeedDerivation.GOLDEN_GAMMA * ++counter) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /** Number of draws taken so far. */
+    public long position() {
+        return counter;
+    }
+
+    /** Continues the stream after {@code position} draws, e.g. to recompute part of a path. */
+    public void seek(long position) {
+        this.counter = position;
     }
 
     @Override
     public IRandomNumberGenerator copy() {
-        if (seed < 0) {
-            return new DefaultRandomNumberGenerator(random);
-        }
-        // Deterministically split a new independent stream.
-        // This avoids seed++ coupling that makes results depend on copy order.
-        return new DefaultRandomNumberGenerator(random);
+        // Copies take keys from the negative index range so they never coincide with a path's stream.
+        // Deterministic given the number of earlier copies; avoids seed++ coupling between streams.
+        return new DefaultRandomNumberGenerator(seed, SeedDerivation.forPath(key, ~copies++));
+    }
+
+    @Override
+    public DefaultRandomNumberGenerator copyForPath(long pathIndex) {
+        return new DefaultRandomNumberGenerator(seed, SeedDerivation.forPath(key, pathIndex));
     }
 }
@@ -33,6 +33,21 @@ public class DefaultRandomVariable implements IRandomVariable {
         return distribution.sample(randomNumberGenerator);
     }
 
+    @Override
+    public void sample(double[] out, int from, int to) {
+        distribution.sample(randomNumberGenerator, out, from, to);
+    }
+
+    @Override
+    public boolean hasClosedFormSum() {
+        return distribution.hasClosedFormSum();
+    }
+
+    @Override
+    public double sampleSum(int n) {
+        return distribution.sampleSum(randomNumberGenerator, n);
+    }
+
     @Override
     public IRandomVariable copy() {
         return new DefaultRandomVariable(
@@ -40,5 +55,13 @@ public class DefaultRandomVariable implements IRandomVariable {
                 randomNumberGenerator.copy()
         );
     }
+
+    @Override
+    public IRandomVariable copyForPath(long pathIndex) {
+        return new DefaultRandomVariable(
+                distribution.copyForPath(pathIndex),
+                randomNumberGenerator.copyForPath(pathIndex)
+        );
+    }
 }
 
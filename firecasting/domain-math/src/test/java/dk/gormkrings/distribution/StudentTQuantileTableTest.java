@@ -0,0 +1,81 @@
+package dk.gormkrings.distribution;
+
+import dk.gormkrings.randomNumberGenerator.DefaultRandomNumberGenerator;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudentTQuantileTableTest {
+
+    @Test
+    void staysWithinTheDocumentedErrorBound() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (double nu : new double[]{1.0, 2.0, 3.6, 10.0, 100.0}) {
+            StudentTQuantileTable table = StudentTQuantileTable.forNu(nu);
+            TDistribution exact = new TDistribution(nu);
+            for (int i = 0; i < 5_000; i++) {
+                // Half uniform, half spread over the tail octaves
+                double u = (i % 2 == 0) ? random.nextDouble() : Math.scalb(random.nextDouble(), -random.nextInt(44));
+                if (i % 4 == 1) u = 1.0 - u;
+                if (u == 0.0 || u == 1.0) continue;
+                double expected = exact.inverseCumulativeProbability(u);
+                double actual = table.inverseCumulativeProbability(u);
+                double error = Math.abs(actual - expected) / Math.max(1.0, Math.abs(expected));
+                assertTrue(error <= StudentTQuantileTable.RELATIVE_ERROR_BOUND,
+                        "nu=" + nu + " u=" + u + ": " + actual + " vs " + expected);
+            }
+        }
+    }
+
+    @Test
+    void isSymmetricAndZeroAtTheMedian() {
+        StudentTQuantileTable table = StudentTQuantileTable.forNu(3.6);
+        assertEquals(0.0, table.inverseCumulativeProbability(0.5));
+        // Dyadic, so 1 - u is exact
+        for (double u : new double[]{0x1.0p-19, 0x1.0p-7, 0.125, 0.3125, 0.46875}) {
+            assertEquals(-table.inverseCumulativeProbability(u), table.inverseCumulativeProbability(1.0 - u));
+        }
+    }
+
+    @Test
+    void fastStudentTSharesTheTableAndTracksTheExactSampler() {
+        assertSame(StudentTQuantileTable.forNu(3.6), StudentTQuantileTable.forNu(3.6));
+
+        TDistributionImpl exact = new TDistributionImpl();
+        exact.init();
+        TDistributionImpl fast = (TDistributionImpl) exact.copy();
+        fast.setSampler(Sampler.FAST);
+
+        // Both invert the same uniform, so the draws agree to the table's accuracy
+        DefaultRandomNumberGenerator a = new DefaultRandomNumberGenerator(23);
+        DefaultRandomNumberGenerator b = new DefaultRandomNumberGenerator(23);
+        double scale = exact.getSigma() * Math.sqrt(exact.getDt());
+        for (int i = 0; i < 1_000; i++) {
+            double x = exact.sample(a);
+            double y = fast.sample(b);
+            double t = (x - exact.getMu() * exact.getDt()) / scale;
+            assertEquals(x, y, scale * StudentTQuantileTable.RELATIVE_ERROR_BOUND * Math.max(1.0, Math.abs(t)) + 1e-15);
+        }
+        assertEquals(Sampler.FAST, ((TDistributionImpl) fast.copy()).getSampler());
+    }
+
+    @Test
+    void fastStudentTFollowsNuChangedAfterSampling() {
+        TDistributionImpl fast = new TDistributionImpl();
+        fast.setSampler(Sampler.FAST);
+        fast.sample(new DefaultRandomNumberGenerator(29));
+        fast.setNu(10.0);
+
+        DefaultRandomNumberGenerator uniforms = new DefaultRandomNumberGenerator(31);
+        double t = new TDistribution(10.0).inverseCumulativeProbability(uniforms.nextDouble());
+        double expected = fast.getMu() * fast.getDt() + fast.getSigma() * Math.sqrt(fast.getDt()) * t;
+        double scale = fast.getSigma() * Math.sqrt(fast.getDt());
+        assertEquals(expected, fast.sample(new DefaultRandomNumberGenerator(31)),
+                scale * StudentTQuantileTable.RELATIVE_ERROR_BOUND * Math.max(1.0, Math.abs(t)) + 1e-15);
+    }
+}
@@ -0,0 +1,83 @@
+package dk.gormkrings.distribution;
+
+import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
+import dk.gormkrings.randomNumberGenerator.DefaultRandomNumberGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ZigguratNormalSamplerTest {
+
+    private static final int DRAWS = 2_000_000;
+
+    @Test
+    void matchesTheStandardNormal() {
+        org.apache.commons.math3.distribution.NormalDistribution normal =
+                new org.apache.commons.math3.distribution.NormalDistribution();
+        double[] edges = {-3.5, -2.5, -1.5, -0.5, 0.0, 0.5, 1.5, 2.5, 3.5};
+        long[] below = new long[edges.length];
+        double sum = 0;
+        double sumSquares = 0;
+        double sumFourth = 0;
+
+        IRandomNumberGenerator rng = new DefaultRandomNumberGenerator(11);
+        for (int n = 0; n < DRAWS; n++) {
+            double z = ZigguratNormalSampler.next(rng);
+            sum += z;
+            sumSquares += z * z;
+            sumFourth += z * z * z * z;
+            for (int e = 0; e < edges.length; e++) {
+                if (z < edges[e]) below[e]++;
+            }
+        }
+
+        assertEquals(0.0, sum / DRAWS, 0.003);
+        assertEquals(1.0, sumSquares / DRAWS, 0.005);
+        assertEquals(3.0, sumFourth / DRAWS, 0.03);
+        for (int e = 0; e < edges.length; e++) {
+            double expected = normal.cumulativeProbability(edges[e]);
+            // Five binomial standard errors
+            double tolerance = 5 * Math.sqrt(expected * (1 - expected) / DRAWS);
+            assertEquals(expected, (double) below[e] / DRAWS, tolerance, "P(Z < " + edges[e] + ")");
+        }
+    }
+
+    @Test
+    void fastNormalKeepsMeanAndVarianceAndCopiesTheSampler() {
+        NormalDistribution distribution = new NormalDistribution();
+        distribution.setSampler(Sampler.FAST);
+        NormalDistribution copy = (NormalDistribution) distribution.copy();
+        assertEquals(Sampler.FAST, copy.getSampler());
+
+        double[] out = new double[DRAWS];
+        copy.sample(new DefaultRandomNumberGenerator(5), out, 0, DRAWS);
+        double mean = 0;
+        for (double x : out) mean += x / DRAWS;
+        double variance = 0;
+        for (double x : out) variance += (x - mean) * (x - mean) / DRAWS;
+
+        double dt = distribution.getDt();
+        double sd = distribution.getStandardDeviation() * Math.sqrt(dt);
+        assertEquals(distribution.getMean() * dt, mean, 4 * sd / Math.sqrt(DRAWS));
+        assertEquals(sd * sd, variance, 0.005 * sd * sd);
+    }
+
+    @Test
+    void exactSamplerIsTheDefault() {
+        NormalDistribution exact = new NormalDistribution();
+        NormalDistribution fast = new NormalDistribution();
+        fast.setSampler(Sampler.FAST);
+        assertEquals(Sampler.EXACT, exact.getSampler());
+
+        // Box-Muller with the first two uniforms of the stream
+        IRandomNumberGenerator uniforms = new DefaultRandomNumberGenerator(3);
+        double u1 = uniforms.nextDouble();
+        double u2 = uniforms.nextDouble();
+        double z = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        double expected = exact.getMean() * exact.getDt() + exact.getStandardDeviation() * Math.sqrt(exact.getDt()) * z;
+
+        assertEquals(expected, exact.sample(new DefaultRandomNumberGenerator(3)));
+        assertNotEquals(expected, fast.sample(new DefaultRandomNumberGenerator(3)));
+    }
+}
@@ -1,7 +1,10 @@
 package dk.gormkrings.randomNumberGenerator;
 
+import dk.gormkrings.math.randomNumberGenerator.IRandomNumberGenerator;
 import org.junit.jupiter.api.Test;
 
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class DefaultRandomNumberGeneratorSeedTest {
@@ -45,4 +48,45 @@ class DefaultRandomNumberGeneratorSeedTest {
         // It's astronomically unlikely that both sequences match exactly.
         assertNotEquals(a.nextDouble(), b.nextDouble());
     }
+
+    @Test
+    void seededSequenceMatchesSplittableRandom() {
+        DefaultRandomNumberGenerator rng = new DefaultRandomNumberGenerator(42L);
+        SplittableRandom reference = new SplittableRandom(42L);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(reference.nextDouble(), rng.nextDouble(), "Mismatch at index " + i);
+        }
+    }
+
+    @Test
+    void pathStreamsDependOnlyOnSeedLabelAndIndex() {
+        DefaultRandomNumberGenerator root = DefaultRandomNumberGenerator.forStream(7L, "return:sample");
+        // Deriving other paths (or drawing from the root) first must not change path 5's stream.
+        root.copyForPath(3).nextDouble();
+        root.nextDouble();
+        IRandomNumberGenerator a = root.copyForPath(5);
+        IRandomNumberGenerator b = DefaultRandomNumberGenerator.forStream(7L, "return:sample", 5);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(a.nextDouble(), b.nextDouble(), "Mismatch at index " + i);
+        }
+        assertNotEquals(root.copyForPath(5).nextDouble(), root.copyForPath(6).nextDouble());
+        assertNotEquals(root.copyForPath(5).nextDouble(),
+                DefaultRandomNumberGenerator.forStream(7L, "return:regime", 5).nextDouble());
+    }
+
+    @Test
+    void seekReplaysFromAnyPosition() {
+        DefaultRandomNumberGenerator rng = new DefaultRandomNumberGenerator(11L);
+        double[] draws = new double[20];
+        for (int i = 0; i < draws.length; i++) draws[i] = rng.nextDouble();
+        assertEquals(20, rng.position());
+
+        DefaultRandomNumberGenerator replay = new DefaultRandomNumberGenerator(11L);
+        replay.seek(12);
+        for (int i = 12; i < draws.length; i++) {
+            assertEquals(draws[i], replay.nextDouble(), "Mismatch at index " + i);
+        }
+    }
 }
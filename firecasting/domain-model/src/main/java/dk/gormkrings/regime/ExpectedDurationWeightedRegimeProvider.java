@@ -1,5 +1,7 @@
 package dk.gormkrings.regime;
 
+import dk.gormkrings.math.random.SeedDerivation;
+
 import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -19,6 +21,9 @@ public final class ExpectedDurationWeightedRegimeProvider implements IRegimeProv
     private final double[] expectedDurationMonths;
     private final double[][] switchWeights;
     private final SplittableRandom random;
+    // Per-path streams derive from this key, never from the evolving random state
+    private final long streamKey;
+    private long copies;
 
     private int currentRegime;
 
@@ -51,22 +56,25 @@ public final class ExpectedDurationWeightedRegimeProvider implements IRegimeProv
 
         this.currentRegime = clampIndex(initialRegime, n);
         if (seed == null || seed < 0) {
-            this.random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+            this.streamKey = ThreadLocalRandom.current().nextLong();
         } else {
-            this.random = new SplittableRandom(seed);
+            this.streamKey = seed;
         }
+        this.random = new SplittableRandom(streamKey);
     }
 
     private ExpectedDurationWeightedRegimeProvider(
             int currentRegime,
             double[] expectedDurationMonths,
             double[][] switchWeights,
-            SplittableRandom random
+            SplittableRandom random,
+            long streamKey
     ) {
         this.currentRegime = currentRegime;
         this.expectedDurationMonths = expectedDurationMonths;
         this.switchWeights = switchWeights;
         this.random = random;
+        this.streamKey = streamKey;
     }
 
     @Override
@@ -126,15 +134,28 @@ public final class ExpectedDurationWeightedRegimeProvider implements IRegimeProv
 
     @Override
     public IRegimeProvider copy() {
-        int n = expectedDurationMonths.length;
+        long copyKey = SeedDerivation.forPath(streamKey, ~copies++);
+        return new ExpectedDurationWeightedRegimeProvider(currentRegime, durationsCopy(), weightsCopy(), random.split(), copyKey);
+    }
+
+    @Override
+    public IRegimeProvider copyForPath(long pathIndex) {
+        long pathKey = SeedDerivation.forPath(streamKey, pathIndex);
+        return new ExpectedDurationWeightedRegimeProvider(
+                currentRegime, durationsCopy(), weightsCopy(), new SplittableRandom(pathKey), pathKey);
+    }
+
+    private double[] durationsCopy() {
+        return expectedDurationMonths.clone();
+    }
 
-        double[] durationsCopy = expectedDurationMonths.clone();
+    private double[][] weightsCopy() {
+        int n = expectedDurationMonths.length;
         double[][] weightsCopy = new double[n][n];
         for (int i = 0; i < n; i++) {
             System.arraycopy(switchWeights[i], 0, weightsCopy[i], 0, n);
         }
-
-        return new ExpectedDurationWeightedRegimeProvider(currentRegime, durationsCopy, weightsCopy, random.split());
+        return weightsCopy;
     }
 
     private static int clampIndex(int idx, int n) {
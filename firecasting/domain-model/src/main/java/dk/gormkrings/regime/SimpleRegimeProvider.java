@@ -1,11 +1,14 @@
 package dk.gormkrings.regime;
 
+import dk.gormkrings.math.random.SeedDerivation;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Setter
 @Getter
@@ -24,6 +27,13 @@ public class SimpleRegimeProvider implements IRegimeProvider {
             {0.15, 0.85}
     };
     private SplittableRandom random = new SplittableRandom();
+    // Per-path streams derive from this key, never from the evolving random state
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long streamKey = ThreadLocalRandom.current().nextLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long copies;
 
     @Override
     public int getCurrentRegime() {
@@ -47,6 +57,17 @@ public class SimpleRegimeProvider implements IRegimeProvider {
         copy.currentRegime = currentRegime;
         copy.transitionMatrix = transitionMatrix;
         copy.random = random.split();
+        copy.streamKey = SeedDerivation.forPath(streamKey, ~copies++);
+        return copy;
+    }
+
+    @Override
+    public IRegimeProvider copyForPath(long pathIndex) {
+        SimpleRegimeProvider copy = new SimpleRegimeProvider();
+        copy.currentRegime = currentRegime;
+        copy.transitionMatrix = transitionMatrix;
+        copy.streamKey = SeedDerivation.forPath(streamKey, pathIndex);
+        copy.random = new SplittableRandom(copy.streamKey);
         return copy;
     }
 
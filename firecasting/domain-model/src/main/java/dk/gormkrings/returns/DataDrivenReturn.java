@@ -102,4 +102,11 @@ public class DataDrivenReturn implements IReturner {
         copy.randomVariable = this.randomVariable.copy();
         return copy;
     }
+
+    @Override
+    public IReturner copyForPath(long pathIndex) {
+        DataDrivenReturn copy = new DataDrivenReturn();
+        copy.randomVariable = this.randomVariable.copyForPath(pathIndex);
+        return copy;
+    }
 }
@@ -3,6 +3,7 @@ package dk.gormkrings.returns;
 import dk.gormkrings.distribution.BrownianMotionDistribution;
 import dk.gormkrings.distribution.NormalDistribution;
 import dk.gormkrings.distribution.RegimeBasedDistribution;
+import dk.gormkrings.distribution.Sampler;
 import dk.gormkrings.distribution.TDistributionImpl;
 import dk.gormkrings.distribution.factory.DistributionFactory;
 import dk.gormkrings.math.distribution.IDistribution;
@@ -15,6 +16,7 @@ import dk.gormkrings.randomVariable.DefaultRandomVariable;
 import dk.gormkrings.simulation.ReturnStep;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
@@ -25,6 +27,12 @@ public class DefaultReturnFactory implements IReturnFactory {
     private final DistributionFactory distributionFactory;
     private final ReturnStep returnStep;
 
+    @Value("${simulation.return.exact-aggregation:false}")
+    private boolean exactAggregation;
+
+    @Value("${simulation.return.sampler:exact}")
+    private String sampler;
+
     @Autowired
     public DefaultReturnFactory(
             ApplicationContext context,
@@ -40,6 +48,10 @@ public class DefaultReturnFactory implements IReturnFactory {
         return returnStep.toDt();
     }
 
+    private Sampler resolveSampler() {
+        return Sampler.fromProperty(sampler);
+    }
+
     /**
      * DefaultRandomNumberGenerator treats negative seeds as stochastic/unseeded.
      * Seed derivation can yield negative longs, so force deterministic derived seeds to be non-negative.
@@ -56,6 +68,9 @@ public class DefaultReturnFactory implements IReturnFactory {
             default -> context.getBean(SimpleDailyReturn.class);
         };
 
+        if (returnerClass instanceof DistributionReturn distributionReturn) {
+            distributionReturn.setExactAggregation(exactAggregation);
+        }
         log.info("Creating new {} returner", returner.toUpperCase());
         return returnerClass;
     }
@@ -105,7 +120,9 @@ public class DefaultReturnFactory implements IReturnFactory {
                 : new DefaultRandomNumberGenerator((derived != null) ? derived : masterSeed);
 
         DefaultRandomVariable rv = new DefaultRandomVariable(distribution, rng);
-        return new DistributionReturn(rv);
+        DistributionReturn distributionReturn = new DistributionReturn(rv);
+        distributionReturn.setExactAggregation(exactAggregation);
+        return distributionReturn;
     }
 
     private IDistribution createConfiguredDistribution(ReturnerConfig returnerConfig) {
@@ -132,14 +149,17 @@ public class DefaultReturnFactory implements IReturnFactory {
 
         // Apply configured dt so that annualized parameters scale to the chosen return step.
         double dt = resolveDt();
+        Sampler sampler = resolveSampler();
         if (dist instanceof NormalDistribution normal) {
             normal.setDt(dt);
+            normal.setSampler(sampler);
         }
         if (dist instanceof BrownianMotionDistribution brownian) {
             brownian.setDt(dt);
         }
         if (dist instanceof TDistributionImpl tDist) {
             tDist.setDt(dt);
+            tDist.setSampler(sampler);
         }
 
         if (dist instanceof NormalDistribution normal && config.getNormal() != null) {
@@ -172,6 +192,7 @@ public class DefaultReturnFactory implements IReturnFactory {
         // Defaults: 3 regimes, monthly tick.
         final int expectedRegimes = 3;
         final double dt = resolveDt();
+        final Sampler sampler = resolveSampler();
 
         if (regimeBased == null || regimeBased.getRegimes() == null || regimeBased.getRegimes().size() < expectedRegimes) {
             throw new IllegalArgumentException("regimeBased.regimes must contain at least 3 regimes (0..2)");
@@ -207,6 +228,7 @@ public class DefaultReturnFactory implements IReturnFactory {
 
             if (dist instanceof NormalDistribution normal) {
                 normal.setDt(dt);
+                normal.setSampler(sampler);
                 if (r.getNormal() != null) {
                     if (r.getNormal().getMean() != null) normal.setMean(r.getNormal().getMean());
                     if (r.getNormal().getStandardDeviation() != null) {
@@ -217,6 +239,7 @@ public class DefaultReturnFactory implements IReturnFactory {
 
             if (dist instanceof TDistributionImpl tDist) {
                 tDist.setDt(dt);
+                tDist.setSampler(sampler);
                 if (r.getStudentT() != null) {
                     if (r.getStudentT().getMu() != null) tDist.setMu(r.getStudentT().getMu());
                     if (r.getStudentT().getSigma() != null) tDist.setSigma(r.getStudentT().getSigma());
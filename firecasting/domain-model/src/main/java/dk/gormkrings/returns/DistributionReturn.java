@@ -2,6 +2,8 @@ package dk.gormkrings.returns;
 
 import dk.gormkrings.distribution.RegimeBasedDistribution;
 import dk.gormkrings.math.randomVariable.IRandomVariable;
+import lombok.Getter;
+import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
@@ -10,6 +12,10 @@ import org.springframework.stereotype.Component;
 @Scope("prototype")
 public class DistributionReturn implements IReturner {
     private final IRandomVariable randomVariable;
+    /** Opt-in: draw the return of a run of trading days from one variate when the distribution allows it. */
+    @Getter
+    @Setter
+    private boolean exactAggregation;
 
     @Autowired
     public DistributionReturn(IRandomVariable randomVariable) {
@@ -22,6 +28,24 @@ public class DistributionReturn implements IReturner {
         return amount * Math.exp(sample) - amount;
     }
 
+    @Override
+    public boolean hasExactAggregation() {
+        return exactAggregation && randomVariable.hasClosedFormSum();
+    }
+
+    @Override
+    public double calculateReturn(double amount, int steps) {
+        if (!hasExactAggregation()) return IReturner.super.calculateReturn(amount, steps);
+        double sample = randomVariable.sampleSum(steps);
+        return amount * Math.exp(sample) - amount;
+    }
+
+    @Override
+    public boolean sampleLogReturns(double[] out, int count) {
+        randomVariable.sample(out, 0, count);
+        return true;
+    }
+
     @Override
     public void onMonthEnd() {
         if (randomVariable.getDistribution() instanceof RegimeBasedDistribution regimeBased) {
@@ -31,6 +55,15 @@ public class DistributionReturn implements IReturner {
 
     @Override
     public IReturner copy() {
-        return new DistributionReturn(randomVariable.copy());
+        DistributionReturn copy = new DistributionReturn(randomVariable.copy());
+        copy.setExactAggregation(exactAggregation);
+        return copy;
+    }
+
+    @Override
+    public IReturner copyForPath(long pathIndex) {
+        DistributionReturn copy = new DistributionReturn(randomVariable.copyForPath(pathIndex));
+        copy.setExactAggregation(exactAggregation);
+        return copy;
     }
 }
\ No newline at end of file
@@ -44,6 +44,25 @@ public class StockExemptionTax implements ITaxExemption {
         }
     }
 
+    /** Amount that is still taxed at {@link #getTaxRate} this year. */
+    public double remainingExemption() {
+        return currentExemption >= limit ? 0 : limit - currentExemption;
+    }
+
+    /** The tax {@link #calculateTax} would return for {@code amount}, without using up the exemption. */
+    public double taxOn(double amount) {
+        if (currentExemption >= limit) return 0;
+        double exemptLeft = limit - currentExemption;
+        return (amount <= exemptLeft ? amount : exemptLeft) * taxRate / 100.0;
+    }
+
+    /** The {@code currentExemption} that {@link #calculateTax} would leave for {@code amount}, without changing it. */
+    public float exemptionAfter(double amount) {
+        if (currentExemption >= limit) return currentExemption;
+        double exemptLeft = limit - currentExemption;
+        return amount <= exemptLeft ? currentExemption + (float) amount : limit;
+    }
+
     @Override
     public void yearlyUpdate() {
         this.limit += this.yearlyLimitIncrease;
@@ -42,6 +42,18 @@ public class TaxExemptionCard implements ITaxExemption {
         }
     }
 
+    /** Amount {@link #calculateTax} could still exempt this year. */
+    public double remainingExemption() {
+        return currentExemption >= limit ? 0 : limit - currentExemption;
+    }
+
+    /** The {@code currentExemption} that {@link #calculateTax} would leave for {@code amount}, without changing it. */
+    public float exemptionAfter(double amount) {
+        if (currentExemption >= limit) return currentExemption;
+        double exemptLeft = limit - currentExemption;
+        return amount <= exemptLeft ? currentExemption + (float) amount : currentExemption + (float) exemptLeft;
+    }
+
     @Override
     public void yearlyUpdate() {
         this.limit += this.yearlyLimitIncrease;
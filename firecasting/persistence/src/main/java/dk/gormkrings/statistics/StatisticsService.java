@@ -10,6 +10,7 @@ import dk.gormkrings.statistics.mapper.MetricSummaryMapper;
 import dk.gormkrings.statistics.persistence.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringBootVersion;
@@ -23,6 +24,8 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
@@ -35,12 +38,18 @@ public class StatisticsService {
     private final SimulationRunRepository runRepo;
     private final YearlySummaryRepository summaryRepo;
     private final MetricSummaryRepository metricSummaryRepo;
+    private final SummaryBulkWriter bulkWriter;
+    private final RunSummaryBlobRepository blobRepo;
     private final @Qualifier("canonicalObjectMapper") ObjectMapper canonicalObjectMapper;
     private final ObjectProvider<BuildProperties> buildPropertiesProvider;
 
     @PersistenceContext
     private EntityManager em;
 
+    /** "rows": one yearly_summary/metric_summary row each; "blob": one compressed run_summary_blob row per run. */
+    @Value("${statistics.summary-storage:rows}")
+    private String summaryStorage = "rows";
+
     /** lookup an existing runId by input params (dedup) */
     @Transactional(readOnly = true)
     public Optional<String> findExistingRunIdForInput(Object inputParams) {
@@ -58,9 +67,12 @@ public class StatisticsService {
      */
     @Transactional(readOnly = true)
     public Optional<String> findExistingRunIdForSignature(Object signatureParams) {
-        String signatureJson = toCanonicalJson(signatureParams);
-        String inputHash = sha256Hex(signatureJson);
-        return runRepo.findFirstByInputHashOrderByCreatedAtDesc(inputHash).map(SimulationRunEntity::getId);
+        return runRepo.findFirstByInputHashOrderByCreatedAtDesc(signatureHash(signatureParams)).map(SimulationRunEntity::getId);
+    }
+
+    /** The input_hash a run started with this signature payload is (or will be) persisted under. */
+    public String signatureHash(Object signatureParams) {
+        return sha256Hex(toCanonicalJson(signatureParams));
     }
 
     // NEW: insert-only path for append-only storage
@@ -96,27 +108,21 @@ public class StatisticsService {
 
         runRepo.save(run);
 
-        // IMPORTANT: flush so the row exists; then use a managed reference for children
+        // IMPORTANT: flush so the row exists before the children reference it
         em.flush();
-        final SimulationRunEntity runRef = em.getReference(SimulationRunEntity.class, simulationId);
-
-        // 2) Insert children, always setting the managed runRef
-        for (int i = 0; i < summaries.size(); i++) {
-            var dto  = summaries.get(i);
-            var ent = YearlySummaryMapper.toEntity(dto, runRef); // <-- pass runRef
-            // If your mapper does NOT use the given run instance, set it explicitly:
-            // ent.setRun(runRef);
-
-            summaryRepo.save(ent);
-
-            // optional batching relief
-            // if ((i + 1) % 500 == 0) { em.flush(); em.clear(); }
-        }
 
-        if (metricSummaries != null && !metricSummaries.isEmpty()) {
-            for (var ms : metricSummaries) {
-                metricSummaryRepo.save(MetricSummaryMapper.toEntity(ms, runRef));
-            }
+        // 2) Children: a single blob row, or bulk inserts over JDBC; thousands of rows per run would
+        //    otherwise go through one save() and one generated id each
+        if (usesBlobStorage()) {
+            var blob = new RunSummaryBlobEntity();
+            blob.setRunId(simulationId);
+            blob.setFormat(SummaryBlobCodec.FORMAT);
+            blob.setYearly(SummaryBlobCodec.encodeYearly(summaries));
+            blob.setMetrics(SummaryBlobCodec.encodeMetrics(metricSummaries));
+            blobRepo.save(blob);
+        } else {
+            bulkWriter.insertYearlySummaries(simulationId, summaries);
+            bulkWriter.insertMetricSummaries(simulationId, metricSummaries);
         }
         return simulationId;
     }
@@ -161,16 +167,20 @@ public class StatisticsService {
         return insertNewRunWithSummaries(simulationId, inputParams, signatureParams, resolvedAdvanced, summaries, metricSummaries, rngSeed);
     }
 
+    // Runs can be stored either way (the setting may change between runs), so reads check the blob first.
+
     public boolean hasCompletedSummaries(String runId) {
-        return summaryRepo.existsByRunId(runId);
+        return blobRepo.existsById(runId) || summaryRepo.existsByRunId(runId);
     }
 
     public boolean hasCompletedMetricSummaries(String runId) {
-        return metricSummaryRepo.existsByRunId(runId);
+        return blobRepo.existsById(runId) || metricSummaryRepo.existsByRunId(runId);
     }
 
     @Transactional(readOnly = true)
     public List<YearlySummary> getSummariesForRun(String simulationId) {
+        Optional<RunSummaryBlobEntity> blob = blobRepo.findById(simulationId);
+        if (blob.isPresent()) return decodeYearly(blob.get());
         return summaryRepo.findByRunIdOrderByPhaseNameAscYearAsc(simulationId)
                 .stream()
                 .map(YearlySummaryMapper::toDto)
@@ -179,6 +189,12 @@ public class StatisticsService {
 
     @Transactional(readOnly = true)
     public List<dk.gormkrings.statistics.MetricSummary> getMetricSummariesForRun(String simulationId) {
+        Optional<RunSummaryBlobEntity> blob = blobRepo.findById(simulationId);
+        if (blob.isPresent()) {
+            List<dk.gormkrings.statistics.MetricSummary> out = new ArrayList<>(SummaryBlobCodec.decodeMetrics(blob.get().getMetrics()));
+            out.sort(METRIC_ORDER);
+            return out;
+        }
         return metricSummaryRepo.findByRunIdOrderByScopeAscPhaseNameAscYearAscMetricAsc(simulationId)
             .stream()
             .map(MetricSummaryMapper::toDto)
@@ -187,9 +203,27 @@ public class StatisticsService {
 
     @Transactional(readOnly = true)
     public List<YearlySummaryEntity> getSummaryEntitiesForRun(String simulationId) {
+        Optional<RunSummaryBlobEntity> blob = blobRepo.findById(simulationId);
+        if (blob.isPresent()) {
+            // Detached entities with the stored values; callers only read their fields.
+            return decodeYearly(blob.get()).stream()
+                    .map(dto -> YearlySummaryMapper.toEntity(dto, null))
+                    .toList();
+        }
         return summaryRepo.findByRunIdOrderByPhaseNameAscYearAsc(simulationId);
     }
 
+    private boolean usesBlobStorage() {
+        return "blob".equalsIgnoreCase(summaryStorage);
+    }
+
+    /** Same order as {@code findByRunIdOrderByPhaseNameAscYearAsc}. */
+    private static List<YearlySummary> decodeYearly(RunSummaryBlobEntity blob) {
+        List<YearlySummary> out = new ArrayList<>(SummaryBlobCodec.decodeYearly(blob.getYearly()));
+        out.sort(YEARLY_ORDER);
+        return out;
+    }
+
     @Transactional(readOnly = true)
     public SimulationRunEntity getRun(String simulationId) {
         return runRepo.findById(simulationId).orElse(null);
@@ -230,6 +264,17 @@ public class StatisticsService {
                 .getContent();
     }
 
+    // Row order of the repository queries; the database sorts NULLs last in ascending order.
+    private static final Comparator<YearlySummary> YEARLY_ORDER = Comparator
+            .comparing(YearlySummary::getPhaseName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparingInt(YearlySummary::getYear);
+
+    private static final Comparator<dk.gormkrings.statistics.MetricSummary> METRIC_ORDER = Comparator
+            .comparing((dk.gormkrings.statistics.MetricSummary m) -> m.getScope().name())
+            .thenComparing(dk.gormkrings.statistics.MetricSummary::getPhaseName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(dk.gormkrings.statistics.MetricSummary::getYear, Comparator.nullsLast(Comparator.<Integer>naturalOrder()))
+            .thenComparing(dk.gormkrings.statistics.MetricSummary::getMetric);
+
     private String toCanonicalJson(Object input) {
         try {
             ObjectMapper m = (canonicalObjectMapper != null)
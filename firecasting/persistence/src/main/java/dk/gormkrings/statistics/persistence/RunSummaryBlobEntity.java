@@ -0,0 +1,34 @@
+package dk.gormkrings.statistics.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * All summaries of one run in a single row, encoded by {@link SummaryBlobCodec}.
+ * Alternative to one {@code yearly_summary}/{@code metric_summary} row per (phase, year, metric).
+ */
+@Entity
+@Table(name = "run_summary_blob")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RunSummaryBlobEntity {
+
+    @Id
+    @Column(name = "run_id", nullable = false, updatable = false, length = 36)
+    private String runId;
+
+    @Column(name = "format", nullable = false)
+    private short format;
+
+    @Column(name = "yearly", nullable = false)
+    private byte[] yearly;
+
+    @Column(name = "metrics", nullable = false)
+    private byte[] metrics;
+}
@@ -0,0 +1,6 @@
+package dk.gormkrings.statistics.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RunSummaryBlobRepository extends JpaRepository<RunSummaryBlobEntity, String> {
+}
@@ -0,0 +1,254 @@
+package dk.gormkrings.statistics.persistence;
+
+import dk.gormkrings.statistics.MetricSummary;
+import dk.gormkrings.statistics.YearlySummary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the summaries of one run as a compressed columnar blob for {@link RunSummaryBlobEntity}.
+ *
+ * <p>Layout (version {@link #FORMAT}, deflated as a whole): a row count, a string table for phase and
+ * metric names, the key columns (string indexes, scope ordinals, delta-coded years) and then one
+ * column per value field. Each value column stores the raw float64 bits XOR-ed with the previous row's
+ * bits, so neighbouring years with similar values turn into long runs of zero bytes that deflate well.
+ * Values round-trip bit for bit, NaN included.</p>
+ */
+public final class SummaryBlobCodec {
+
+    public static final short FORMAT = 1;
+
+    private static final int NO_STRING = -1;
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final MetricSummary.Scope[] SCOPES = MetricSummary.Scope.values();
+
+    private static final List<ToDoubleFunction<YearlySummary>> YEARLY_VALUES = List.of(
+            YearlySummary::getAverageCapital,
+            YearlySummary::getMedianCapital,
+            YearlySummary::getMinCapital,
+            YearlySummary::getMaxCapital,
+            YearlySummary::getStdDevCapital,
+            YearlySummary::getCumulativeGrowthRate,
+            YearlySummary::getQuantile5,
+            YearlySummary::getQuantile25,
+            YearlySummary::getQuantile75,
+            YearlySummary::getQuantile95,
+            YearlySummary::getVar,
+            YearlySummary::getCvar,
+            YearlySummary::getNegativeCapitalPercentage);
+
+    private static final List<ValueSetter<YearlySummary>> YEARLY_SETTERS = List.of(
+            YearlySummary::setAverageCapital,
+            YearlySummary::setMedianCapital,
+            YearlySummary::setMinCapital,
+            YearlySummary::setMaxCapital,
+            YearlySummary::setStdDevCapital,
+            YearlySummary::setCumulativeGrowthRate,
+            YearlySummary::setQuantile5,
+            YearlySummary::setQuantile25,
+            YearlySummary::setQuantile75,
+            YearlySummary::setQuantile95,
+            YearlySummary::setVar,
+            YearlySummary::setCvar,
+            YearlySummary::setNegativeCapitalPercentage);
+
+    private static final List<ToDoubleFunction<MetricSummary>> METRIC_VALUES = List.of(
+            MetricSummary::getP5,
+            MetricSummary::getP10,
+            MetricSummary::getP25,
+            MetricSummary::getP50,
+            MetricSummary::getP75,
+            MetricSummary::getP90,
+            MetricSummary::getP95);
+
+    private static final List<ValueSetter<MetricSummary>> METRIC_SETTERS = List.of(
+            MetricSummary::setP5,
+            MetricSummary::setP10,
+            MetricSummary::setP25,
+            MetricSummary::setP50,
+            MetricSummary::setP75,
+            MetricSummary::setP90,
+            MetricSummary::setP95);
+
+    @FunctionalInterface
+    private interface ValueSetter<T> {
+        void set(T target, double value);
+    }
+
+    private SummaryBlobCodec() {
+    }
+
+    public static byte[] encodeYearly(List<YearlySummary> summaries) {
+        List<YearlySummary> rows = summaries == null ? List.of() : summaries;
+        return write(out -> {
+            out.writeInt(rows.size());
+            writeStrings(out, rows, YearlySummary::getPhaseName);
+            int previousYear = 0;
+            for (YearlySummary s : rows) {
+                out.writeInt(s.getYear() - previousYear);
+                previousYear = s.getYear();
+            }
+            writeValues(out, rows, YEARLY_VALUES);
+        });
+    }
+
+    public static List<YearlySummary> decodeYearly(byte[] blob) {
+        return read(blob, in -> {
+            int n = in.readInt();
+            List<YearlySummary> rows = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) rows.add(new YearlySummary());
+            readStrings(in, rows, YearlySummary::setPhaseName);
+            int year = 0;
+            for (YearlySummary s : rows) {
+                year += in.readInt();
+                s.setYear(year);
+            }
+            readValues(in, rows, YEARLY_SETTERS);
+            return rows;
+        });
+    }
+
+    public static byte[] encodeMetrics(List<MetricSummary> summaries) {
+        List<MetricSummary> rows = summaries == null ? List.of() : summaries;
+        return write(out -> {
+            out.writeInt(rows.size());
+            writeStrings(out, rows, MetricSummary::getPhaseName);
+            writeStrings(out, rows, MetricSummary::getMetric);
+            for (MetricSummary s : rows) out.writeByte(s.getScope() == null ? -1 : s.getScope().ordinal());
+            int previousYear = 0;
+            for (MetricSummary s : rows) {
+                if (s.getYear() == null) {
+                    out.writeInt(NO_YEAR);
+                    continue;
+                }
+                out.writeInt(s.getYear() - previousYear);
+                previousYear = s.getYear();
+            }
+            writeValues(out, rows, METRIC_VALUES);
+        });
+    }
+
+    public static List<MetricSummary> decodeMetrics(byte[] blob) {
+        return read(blob, in -> {
+            int n = in.readInt();
+            List<MetricSummary> rows = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) rows.add(new MetricSummary());
+            readStrings(in, rows, MetricSummary::setPhaseName);
+            readStrings(in, rows, MetricSummary::setMetric);
+            for (MetricSummary s : rows) {
+                byte scope = in.readByte();
+                s.setScope(scope < 0 ? null : SCOPES[scope]);
+            }
+            int year = 0;
+            for (MetricSummary s : rows) {
+                int delta = in.readInt();
+                if (delta == NO_YEAR) continue;
+                year += delta;
+                s.setYear(year);
+            }
+            readValues(in, rows, METRIC_SETTERS);
+            return rows;
+        });
+    }
+
+    // ---------- columns ----------
+
+    /** A string table followed by one table index per row ({@link #NO_STRING} for null). */
+    private static <T> void writeStrings(DataOutputStream out, List<T> rows, Function<T, String> getter) throws IOException {
+        Map<String, Integer> table = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String s = getter.apply(rows.get(i));
+            if (s == null) {
+                indexes[i] = NO_STRING;
+                continue;
+            }
+            Integer index = table.get(s);
+            if (index == null) {
+                index = strings.size();
+                table.put(s, index);
+                strings.add(s);
+            }
+            indexes[i] = index;
+        }
+        out.writeInt(strings.size());
+        for (String s : strings) out.writeUTF(s);
+        for (int index : indexes) out.writeInt(index);
+    }
+
+    private static <T> void readStrings(DataInputStream in, List<T> rows, BiConsumer<T, String> setter) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+        for (T row : rows) {
+            int index = in.readInt();
+            setter.accept(row, index == NO_STRING ? null : strings[index]);
+        }
+    }
+
+    private static <T> void writeValues(DataOutputStream out, List<T> rows, List<ToDoubleFunction<T>> columns) throws IOException {
+        for (ToDoubleFunction<T> column : columns) {
+            long previous = 0L;
+            for (T row : rows) {
+                long bits = Double.doubleToRawLongBits(column.applyAsDouble(row));
+                out.writeLong(bits ^ previous);
+                previous = bits;
+            }
+        }
+    }
+
+    private static <T> void readValues(DataInputStream in, List<T> rows, List<ValueSetter<T>> columns) throws IOException {
+        for (ValueSetter<T> column : columns) {
+            long previous = 0L;
+            for (T row : rows) {
+                long bits = in.readLong() ^ previous;
+                column.set(row, Double.longBitsToDouble(bits));
+                previous = bits;
+            }
+        }
+    }
+
+    // ---------- framing ----------
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<R> {
+        R read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] write(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode summaries", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <R> R read(byte[] blob, Reader<R> reader) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(blob)))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode summaries", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dk.gormkrings.statistics.persistence;
+
+import dk.gormkrings.statistics.MetricSummary;
+import dk.gormkrings.statistics.YearlySummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk insert path for the child rows of a run ({@code yearly_summary} and {@code metric_summary}).
+ *
+ * <p>Rows go straight to JDBC batches instead of one {@code repository.save} per row, so no entity
+ * is created, id-generated or tracked by the persistence context. Ids are assigned up front. The
+ * PostgreSQL URL sets {@code reWriteBatchedInserts=true}, so the driver sends each batch as multi-row
+ * INSERTs. The writes join the caller's transaction.</p>
+ */
+@Repository
+@Profile("!local")
+public class SummaryBulkWriter {
+
+    private static final String INSERT_YEARLY = """
+            INSERT INTO yearly_summary (id, run_id, phase_name, year,
+                average_capital, median_capital, min_capital, max_capital, stddev_capital,
+                cumulative_growth_rate, quantile5, quantile25, quantile75, quantile95,
+                var_value, cvar_value, neg_capital_pct)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String INSERT_METRIC = """
+            INSERT INTO metric_summary (id, run_id, scope, phase_name, year, metric,
+                p5, p10, p25, p50, p75, p90, p95)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbc;
+    private final int batchSize;
+
+    public SummaryBulkWriter(JdbcTemplate jdbc,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void insertYearlySummaries(String runId, List<YearlySummary> summaries) {
+        if (summaries == null || summaries.isEmpty()) return;
+        jdbc.batchUpdate(INSERT_YEARLY, summaries, batchSize, (ps, s) -> {
+            ps.setString(1, newId());
+            ps.setString(2, runId);
+            ps.setString(3, s.getPhaseName());
+            ps.setInt(4, s.getYear());
+            ps.setDouble(5, s.getAverageCapital());
+            ps.setDouble(6, s.getMedianCapital());
+            ps.setDouble(7, s.getMinCapital());
+            ps.setDouble(8, s.getMaxCapital());
+            ps.setDouble(9, s.getStdDevCapital());
+            ps.setDouble(10, s.getCumulativeGrowthRate());
+            ps.setDouble(11, s.getQuantile5());
+            ps.setDouble(12, s.getQuantile25());
+            ps.setDouble(13, s.getQuantile75());
+            ps.setDouble(14, s.getQuantile95());
+            ps.setDouble(15, s.getVar());
+            ps.setDouble(16, s.getCvar());
+            ps.setDouble(17, s.getNegativeCapitalPercentage());
+        });
+    }
+
+    public void insertMetricSummaries(String runId, List<MetricSummary> summaries) {
+        if (summaries == null || summaries.isEmpty()) return;
+        jdbc.batchUpdate(INSERT_METRIC, summaries, batchSize, (ps, s) -> {
+            ps.setString(1, newId());
+            ps.setString(2, runId);
+            ps.setString(3, s.getScope().name());
+            ps.setString(4, s.getPhaseName());
+            setNullableInt(ps, 5, s.getYear());
+            ps.setString(6, s.getMetric());
+            ps.setDouble(7, s.getP5());
+            ps.setDouble(8, s.getP10());
+            ps.setDouble(9, s.getP25());
+            ps.setDouble(10, s.getP50());
+            ps.setDouble(11, s.getP75());
+            ps.setDouble(12, s.getP90());
+            ps.setDouble(13, s.getP95());
+        });
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) ps.setNull(index, Types.INTEGER);
+        else ps.setInt(index, value);
+    }
+}
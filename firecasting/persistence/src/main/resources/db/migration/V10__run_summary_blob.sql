@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS run_summary_blob (
+    run_id   varchar(36) PRIMARY KEY,
+    format   smallint NOT NULL,
+    yearly   bytea NOT NULL,
+    metrics  bytea NOT NULL,
+    CONSTRAINT fk_run_summary_blob_run FOREIGN KEY (run_id) REFERENCES simulation_run(id) ON DELETE CASCADE
+);
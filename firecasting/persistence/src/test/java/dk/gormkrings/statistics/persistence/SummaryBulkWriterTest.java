@@ -0,0 +1,123 @@
+package dk.gormkrings.statistics.persistence;
+
+import dk.gormkrings.statistics.MetricSummary;
+import dk.gormkrings.statistics.YearlySummary;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SummaryBulkWriterTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final SummaryBulkWriter writer = new SummaryBulkWriter(jdbc, 250);
+    private final PreparedStatement ps = mock(PreparedStatement.class);
+
+    /** Column list of the captured INSERT, whitespace collapsed; checks one placeholder per column. */
+    private static String columns(String sql) {
+        String flat = sql.replaceAll("\\s+", " ");
+        String columns = flat.substring(flat.indexOf('(') + 1, flat.indexOf(')'));
+        long placeholders = flat.substring(flat.indexOf("VALUES")).chars().filter(c -> c == '?').count();
+        assertEquals(columns.split(",").length, placeholders, flat);
+        return columns;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void yearlyRowBindsEveryColumnOfTheV1TableInOrder() throws Exception {
+        YearlySummary s = new YearlySummary();
+        s.setPhaseName("Deposit");
+        s.setYear(2031);
+        s.setAverageCapital(1);
+        s.setMedianCapital(2);
+        s.setMinCapital(3);
+        s.setMaxCapital(4);
+        s.setStdDevCapital(5);
+        s.setCumulativeGrowthRate(6);
+        s.setQuantile5(7);
+        s.setQuantile25(8);
+        s.setQuantile75(9);
+        s.setQuantile95(10);
+        s.setVar(11);
+        s.setCvar(12);
+        s.setNegativeCapitalPercentage(13);
+
+        writer.insertYearlySummaries("run-1", List.of(s));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<YearlySummary>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbc).batchUpdate(sql.capture(), eq(List.of(s)), eq(250), setter.capture());
+        assertTrue(sql.getValue().startsWith("INSERT INTO yearly_summary "));
+        assertEquals("id, run_id, phase_name, year, average_capital, median_capital, min_capital, max_capital, "
+                + "stddev_capital, cumulative_growth_rate, quantile5, quantile25, quantile75, quantile95, "
+                + "var_value, cvar_value, neg_capital_pct", columns(sql.getValue()));
+
+        setter.getValue().setValues(ps, s);
+
+        InOrder order = inOrder(ps);
+        order.verify(ps).setString(eq(1), anyString());
+        order.verify(ps).setString(2, "run-1");
+        order.verify(ps).setString(3, "Deposit");
+        order.verify(ps).setInt(4, 2031);
+        for (int column = 5; column <= 17; column++) order.verify(ps).setDouble(column, column - 4);
+        verifyNoMoreInteractions(ps);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void metricRowBindsEveryColumnOfTheV7TableInOrder() throws Exception {
+        MetricSummary s = new MetricSummary();
+        s.setScope(MetricSummary.Scope.PHASE_TOTAL);
+        s.setPhaseName("Withdraw");
+        s.setMetric("tax");
+        s.setP5(1);
+        s.setP10(2);
+        s.setP25(3);
+        s.setP50(4);
+        s.setP75(5);
+        s.setP90(6);
+        s.setP95(7);
+
+        writer.insertMetricSummaries("run-2", List.of(s));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<MetricSummary>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbc).batchUpdate(sql.capture(), eq(List.of(s)), eq(250), setter.capture());
+        assertTrue(sql.getValue().startsWith("INSERT INTO metric_summary "));
+        assertEquals("id, run_id, scope, phase_name, year, metric, p5, p10, p25, p50, p75, p90, p95",
+                columns(sql.getValue()));
+
+        setter.getValue().setValues(ps, s);
+
+        InOrder order = inOrder(ps);
+        order.verify(ps).setString(eq(1), anyString());
+        order.verify(ps).setString(2, "run-2");
+        order.verify(ps).setString(3, "PHASE_TOTAL");
+        order.verify(ps).setString(4, "Withdraw");
+        // Phase totals have no year
+        order.verify(ps).setNull(5, Types.INTEGER);
+        order.verify(ps).setString(6, "tax");
+        for (int column = 7; column <= 13; column++) order.verify(ps).setDouble(column, column - 6);
+        verifyNoMoreInteractions(ps);
+    }
+
+    @Test
+    void emptyListsIssueNoStatements() {
+        writer.insertYearlySummaries("run-3", List.of());
+        writer.insertMetricSummaries("run-3", null);
+
+        verifyNoInteractions(jdbc);
+    }
+}
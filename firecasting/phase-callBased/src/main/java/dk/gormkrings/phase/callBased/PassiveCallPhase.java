@@ -45,6 +45,11 @@ public class PassiveCallPhase extends SimulationCallPhase implements IPassivePha
         calculatePassive();
     }
 
+    @Override
+    public boolean dayEndOnlyAppliesReturn() {
+        return false;
+    }
+
     @Override
     public void onMonthEnd() {
         super.onMonthEnd();
@@ -1,6 +1,7 @@
 package dk.gormkrings.phase.callBased;
 
 import dk.gormkrings.phase.ISimulationPhase;
+import dk.gormkrings.phase.TaxPipeline;
 import dk.gormkrings.data.IDate;
 import dk.gormkrings.data.ILiveData;
 import dk.gormkrings.event.EventType;
@@ -10,6 +11,7 @@ import dk.gormkrings.simulation.ReturnStep;
 import dk.gormkrings.calendar.TradingCalendar;
 import dk.gormkrings.calendar.WeekdayTradingCalendar;
 import dk.gormkrings.tax.ITaxExemption;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +29,13 @@ public abstract class SimulationCallPhase implements ICallPhase, ISimulationPhas
     private long duration;
     private ISpecification specification;
     private List<ITaxExemption> taxExemptions;
+    @Setter(AccessLevel.NONE)
+    private TaxPipeline taxPipeline;
     private String name;
+    // Session days whose return is deferred until the next flow (exact aggregation only): those after
+    // settledReturnDay up to and including endedDay.
+    private long settledReturnDay;
+    private long endedDay;
 
     public SimulationCallPhase(ISpecification specification, IDate startDate, List<ITaxExemption> taxExemptions, long duration, String name) {
         this(specification, startDate, taxExemptions, duration, name, ReturnStep.DAILY, new WeekdayTradingCalendar());
@@ -46,12 +54,18 @@ public abstract class SimulationCallPhase implements ICallPhase, ISimulationPhas
         this.duration = duration;
         this.specification = specification;
         this.taxExemptions = taxExemptions;
+        this.taxPipeline = TaxPipeline.of(taxExemptions);
         this.name = name;
 
         this.returnStep = (returnStep == null) ? ReturnStep.DAILY : returnStep;
         this.tradingCalendar = (tradingCalendar == null) ? new WeekdayTradingCalendar() : tradingCalendar;
     }
 
+    public void setTaxExemptions(List<ITaxExemption> taxExemptions) {
+        this.taxExemptions = taxExemptions;
+        this.taxPipeline = TaxPipeline.of(taxExemptions);
+    }
+
     @Override
     public boolean supportsEvent(EventType eventType) {
         return eventType.equals(EventType.DAY_END)
@@ -68,14 +82,52 @@ public abstract class SimulationCallPhase implements ICallPhase, ISimulationPhas
     @Override
     public void onDayEnd() {
         if (returnStep == ReturnStep.MONTHLY) return;
+        if (aggregatesReturns()) {
+            // The trading days are counted in one range query when the returns are settled
+            endedDay = specification.getLiveData().getSessionDuration();
+            return;
+        }
         if (getLiveData().getCapital() <= 0) return;
 
-        IDate currentDate = startDate.plusDays(specification.getLiveData().getSessionDuration());
-        if (tradingCalendar.isTradingDay(currentDate)) {
+        if (isReturnDay(specification.getLiveData().getSessionDuration())) {
             addReturn();
         }
     }
 
+    @Override
+    public boolean dayEndOnlyAppliesReturn() {
+        return !aggregatesReturns();
+    }
+
+    /**
+     * With exact aggregation, daily returns are deferred and applied as one draw right before the next
+     * hook that reads or changes capital. Capital is untouched in between, so its distribution at every
+     * flow and snapshot is the same as compounding day by day, and a day with no capital stays so until
+     * the next flow.
+     */
+    private boolean aggregatesReturns() {
+        return specification != null
+                && specification.getReturner() != null
+                && specification.getReturner().hasExactAggregation();
+    }
+
+    /** Applies any deferred trading-day returns; a no-op unless exact aggregation is active. */
+    protected void settlePendingReturns() {
+        if (endedDay <= settledReturnDay) return;
+        int firstEpochDay = startDate.getEpochDay() + (int) settledReturnDay + 1;
+        int endEpochDay = startDate.getEpochDay() + (int) endedDay + 1;
+        settledReturnDay = endedDay;
+        if (getLiveData().getCapital() <= 0) return;
+        int days = tradingCalendar.tradingDaysBetween(firstEpochDay, endEpochDay);
+        if (days > 0) addReturn(days);
+    }
+
+    @Override
+    public boolean isReturnDay(long sessionDuration) {
+        if (returnStep == ReturnStep.MONTHLY) return false;
+        return tradingCalendar.isTradingDay(startDate.getEpochDay() + (int) sessionDuration);
+    }
+
     @Override
     public void onWeekStart() {
 
@@ -93,6 +145,7 @@ public abstract class SimulationCallPhase implements ICallPhase, ISimulationPhas
 
     @Override
     public void onMonthEnd() {
+        settlePendingReturns();
         if (returnStep == ReturnStep.MONTHLY) {
             if (getLiveData().getCapital() > 0) {
                 // Apply the month's return using the regime/distribution for the month that just ended.
@@ -115,6 +168,7 @@ public abstract class SimulationCallPhase implements ICallPhase, ISimulationPhas
 
     @Override
     public void onYearEnd() {
+        settlePendingReturns();
         addNotionalTax();
         compoundInflation();
         applyYearlyFee();
@@ -122,11 +176,13 @@ public abstract class SimulationCallPhase implements ICallPhase, ISimulationPhas
 
     @Override
     public void onPhaseEnd() {
-
+        settlePendingReturns();
     }
 
     @Override
     public void onPhaseStart() {
+        settledReturnDay = 0;
+        endedDay = 0;
         getLiveData().setPhaseName(name);
     }
 
@@ -44,6 +44,7 @@ public class WithdrawCallPhase extends SimulationCallPhase implements IWithdrawP
 
     @Override
     public void onMonthEnd() {
+        settlePendingReturns();
         if (getLiveData().getCapital() <= 0.0001) return;
         super.onMonthEnd();
         setDynamicWithdraw();
@@ -22,7 +22,6 @@ public class SimulationCallPhaseTest {
     @Test
     public void testOnDayEnd_Weekday() {
         IDate startDate = mock(IDate.class);
-        IDate plusDate = mock(IDate.class);
         ISpecification specification = mock(ISpecification.class);
         ILiveData liveData = mock(ILiveData.class);
         IReturner returner = mock(IReturner.class);
@@ -31,8 +30,8 @@ public class SimulationCallPhaseTest {
         when(liveData.getSessionDuration()).thenReturn(1L);
         when(specification.getLiveData()).thenReturn(liveData);
         when(specification.getReturner()).thenReturn(returner);
-        when(startDate.plusDays(1L)).thenReturn(plusDate);
-        when(plusDate.getDayOfWeek()).thenReturn(3);
+        // Day 1 of the session is epoch day 3: a Thursday
+        when(startDate.getEpochDay()).thenReturn(2);
 
         SimulationCallPhase phase = spy(new SimulationCallPhase(
                 specification,
@@ -56,14 +55,13 @@ public class SimulationCallPhaseTest {
     @Test
     public void testOnDayEnd_Weekend() {
         IDate startDate = mock(IDate.class);
-        IDate plusDate = mock(IDate.class);
         ISpecification specification = mock(ISpecification.class);
         ILiveData liveData = mock(ILiveData.class);
 
         when(liveData.getSessionDuration()).thenReturn(1L);
         when(specification.getLiveData()).thenReturn(liveData);
-        when(startDate.plusDays(1L)).thenReturn(plusDate);
-        when(plusDate.getDayOfWeek()).thenReturn(5);
+        // Day 1 of the session is epoch day 5: a Saturday
+        when(startDate.getEpochDay()).thenReturn(4);
 
         SimulationCallPhase phase = spy(new SimulationCallPhase(
                 specification,
@@ -87,15 +85,14 @@ public class SimulationCallPhaseTest {
     @Test
     public void testOnDayEnd_MonthlyStep_DoesNotAddReturn() {
         IDate startDate = mock(IDate.class);
-        IDate plusDate = mock(IDate.class);
         ISpecification specification = mock(ISpecification.class);
         ILiveData liveData = mock(ILiveData.class);
 
         when(liveData.getCapital()).thenReturn(100.0);
         when(liveData.getSessionDuration()).thenReturn(1L);
         when(specification.getLiveData()).thenReturn(liveData);
-        when(startDate.plusDays(1L)).thenReturn(plusDate);
-        when(plusDate.getDayOfWeek()).thenReturn(3);
+        // Day 1 of the session is epoch day 3: a Thursday
+        when(startDate.getEpochDay()).thenReturn(2);
 
         SimulationCallPhase phase = spy(new SimulationCallPhase(
                 specification,
@@ -116,6 +113,48 @@ public class SimulationCallPhaseTest {
         verify(phase, never()).addReturn();
     }
 
+    @Test
+    public void testOnMonthEnd_ExactAggregation_AppliesTradingDaysSinceLastFlowAsOneStep() {
+        IDate startDate = mock(IDate.class);
+        ISpecification specification = mock(ISpecification.class);
+        ILiveData liveData = mock(ILiveData.class);
+        IReturner returner = mock(IReturner.class);
+        WeekdayTradingCalendar calendar = spy(new WeekdayTradingCalendar());
+
+        when(liveData.getCapital()).thenReturn(100.0);
+        when(specification.getLiveData()).thenReturn(liveData);
+        when(specification.getReturner()).thenReturn(returner);
+        when(returner.hasExactAggregation()).thenReturn(true);
+        // Days 1-7 of the session are epoch days 3-9: Thursday to Wednesday
+        when(startDate.getEpochDay()).thenReturn(2);
+
+        SimulationCallPhase phase = spy(new SimulationCallPhase(
+                specification,
+                startDate,
+                List.of(mock(ITaxExemption.class)),
+                10,
+                "TestPhase",
+                ReturnStep.DAILY,
+                calendar
+        ) {
+            @Override
+            public IPhase copy(ISpecification specificationCopy) {
+                return null;
+            }
+        });
+        doNothing().when(phase).addReturn(anyInt());
+
+        for (long day = 1; day <= 7; day++) {
+            when(liveData.getSessionDuration()).thenReturn(day);
+            phase.onDayEnd();
+        }
+        phase.onMonthEnd();
+
+        verify(phase).addReturn(5);
+        verify(calendar).tradingDaysBetween(3, 10);
+        verify(calendar, never()).isTradingDay(anyInt());
+    }
+
     @Test
     public void testOnMonthEnd_DailyStep_DoesNotAddReturn_ButCallsReturnerHook() {
         IDate startDate = mock(IDate.class);
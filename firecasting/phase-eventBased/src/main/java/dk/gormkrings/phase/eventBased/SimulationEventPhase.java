@@ -3,6 +3,7 @@ package dk.gormkrings.phase.eventBased;
 import dk.gormkrings.calendar.TradingCalendar;
 import dk.gormkrings.calendar.WeekdayTradingCalendar;
 import dk.gormkrings.phase.ISimulationPhase;
+import dk.gormkrings.phase.TaxPipeline;
 import dk.gormkrings.data.IDate;
 import dk.gormkrings.data.ILiveData;
 import dk.gormkrings.event.Type;
@@ -13,6 +14,7 @@ import dk.gormkrings.phase.IEventPhase;
 import dk.gormkrings.specification.ISpecification;
 import dk.gormkrings.simulation.ReturnStep;
 import dk.gormkrings.tax.ITaxExemption;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -32,6 +34,8 @@ public abstract class SimulationEventPhase implements IEventPhase, ISimulationPh
     private long duration;
     private ISpecification specification;
     private List<ITaxExemption> taxExemptions;
+    @Setter(AccessLevel.NONE)
+    private TaxPipeline taxPipeline;
     private String name;
 
     public SimulationEventPhase(ISpecification specification, IDate startDate, List<ITaxExemption> taxExemptions, long duration, String name) {
@@ -51,19 +55,25 @@ public abstract class SimulationEventPhase implements IEventPhase, ISimulationPh
         this.duration = duration;
         this.specification = specification;
         this.taxExemptions = taxExemptions;
+        this.taxPipeline = TaxPipeline.of(taxExemptions);
         this.name = name;
 
         this.returnStep = (returnStep == null) ? ReturnStep.DAILY : returnStep;
         this.tradingCalendar = (tradingCalendar == null) ? new WeekdayTradingCalendar() : tradingCalendar;
     }
 
+    public void setTaxExemptions(List<ITaxExemption> taxExemptions) {
+        this.taxExemptions = taxExemptions;
+        this.taxPipeline = TaxPipeline.of(taxExemptions);
+    }
+
     @Override
     public void onApplicationEvent(@NonNull ApplicationEvent event) {
         if (event instanceof DayEvent) {
             // Treat DayEvent as day-end. Apply returns only on trading days when configured for DAILY.
             if (returnStep == ReturnStep.DAILY && getLiveData().getCapital() > 0) {
-                IDate currentDate = startDate.plusDays(specification.getLiveData().getSessionDuration());
-                if (tradingCalendar.isTradingDay(currentDate)) {
+                int currentEpochDay = startDate.getEpochDay() + (int) specification.getLiveData().getSessionDuration();
+                if (tradingCalendar.isTradingDay(currentEpochDay)) {
                     addReturn();
                 }
             }
@@ -2,6 +2,7 @@ package dk.gormkrings.simulation.data;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.databind.JsonNode;
+import dk.gormkrings.calendar.CalendarTable;
 import dk.gormkrings.data.IDate;
 import lombok.Getter;
 
@@ -102,10 +103,9 @@ public final class Date implements IDate {
     }
 
     public Date plusMonths(int months) {
-        int[] ymd = toYMD();
-        int year = ymd[0];
-        int month = ymd[1];
-        int day = ymd[2];
+        int year = getYear();
+        int month = getMonth();
+        int day = getDayOfMonth();
 
         int totalMonths = (month - 1) + months;
         int targetYear = year + totalMonths / 12;
@@ -117,66 +117,34 @@ public final class Date implements IDate {
 
     private static int getLengthOfMonth(int year, int month) {
         return switch (month) {
-            case 2 -> isLeapYearStatic(year) ? 29 : 28;
+            case 2 -> CalendarTable.isLeapYear(year) ? 29 : 28;
             case 4, 6, 9, 11 -> 30;
             default -> 31;
         };
     }
 
-    private static boolean isLeapYearStatic(int year) {
-        return ((year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0)));
-    }
-
     public int getDayOfMonth() {
-        int[] ymd = toYMD();
-        return ymd[2];
+        return CalendarTable.dayOfMonth(epochDay);
     }
 
     public int getMonth() {
-        int[] ymd = toYMD();
-        return ymd[1];
+        return CalendarTable.monthOf(epochDay);
     }
 
     public int getYear() {
-        int[] ymd = toYMD();
-        return ymd[0];
+        return CalendarTable.yearOf(epochDay);
     }
 
     public int getDayOfYear() {
-        Date firstDay = new Date(getYear(), 1, 1);
-        return this.epochDay - firstDay.epochDay + 1;
+        return CalendarTable.dayOfYear(epochDay);
     }
 
     public int lengthOfMonth() {
-        int month = getMonth();
-        int year = getYear();
-        return switch (month) {
-            case 2 -> isLeapYear(year) ? 29 : 28;
-            case 4, 6, 9, 11 -> 30;
-            default -> 31;
-        };
+        return CalendarTable.lengthOfMonth(epochDay);
     }
 
     public int lengthOfYear() {
-        return isLeapYear(getYear()) ? 366 : 365;
-    }
-
-    private boolean isLeapYear(int year) {
-        return ((year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0)));
-    }
-
-    private int[] toYMD() {
-        int j = epochDay + 2415021;
-        int a = j + 32044;
-        int b = (4 * a + 3) / 146097;
-        int c = a - (146097 * b) / 4;
-        int d = (4 * c + 3) / 1461;
-        int e = c - (1461 * d) / 4;
-        int m = (5 * e + 2) / 153;
-        int day = e - (153 * m + 2) / 5 + 1;
-        int month = m + 3 - 12 * (m / 10);
-        int year = 100 * b + d - 4800 + (m / 10);
-        return new int[]{year, month, day};
+        return CalendarTable.lengthOfYear(epochDay);
     }
 
     @Override
@@ -205,69 +173,43 @@ public final class Date implements IDate {
 
     public int getDayOfWeek() {
         // 0 = Monday, 1 = Tuesday, …, 6 = Sunday.
-        return epochDay % 7;
+        return CalendarTable.dayOfWeek(epochDay);
     }
 
     public int computeNextWeekStart() {
-        int dayOfWeek = getDayOfWeek();
-        int daysToAdd = (dayOfWeek == 0 ? 7 : (7 - dayOfWeek));
-        return plusDays(daysToAdd).getEpochDay();
+        return CalendarTable.nextWeekStart(epochDay);
     }
 
     public int computeWeekEnd() {
-        int dayOfWeek = getDayOfWeek();
-        int daysToAdd = (dayOfWeek == 6 ? 7 : (6 - dayOfWeek));
-        return plusDays(daysToAdd).getEpochDay();
+        return CalendarTable.nextWeekEnd(epochDay);
     }
 
     public int computeNextMonthStart() {
-        int year = this.getYear();
-        int month = this.getMonth();
-        if (month == 12) {
-            return new Date(year + 1, 1, 1).getEpochDay();
-        } else {
-            return new Date(year, month + 1, 1).getEpochDay();
-        }
+        return CalendarTable.nextMonthStart(epochDay);
     }
 
     public int computeMonthEnd() {
-        int year = this.getYear();
-        int month = this.getMonth();
-        int day = this.lengthOfMonth();
-        return new Date(year, month, day).getEpochDay();
+        return CalendarTable.nextMonthStart(epochDay) - 1;
     }
 
     public int computeNextYearStart() {
-        int year = this.getYear();
-        return new Date(year + 1, 1, 1).getEpochDay();
+        return CalendarTable.nextYearStart(epochDay);
     }
 
     public int computeYearEnd() {
-        int year = this.getYear();
-        return new Date(year, 12, 31).getEpochDay();
+        return CalendarTable.nextYearStart(epochDay) - 1;
     }
 
     public int computeNextWeekEnd() {
-        int dayOfWeek = getDayOfWeek();
-        int daysToAdd = (dayOfWeek == 6 ? 7 : (6 - dayOfWeek));
-        return plusDays(daysToAdd).getEpochDay();
+        return CalendarTable.nextWeekEnd(epochDay);
     }
 
     public int computeNextYearEnd() {
-        if (getMonth() == 12 && getDayOfMonth() == 31) {
-            return new Date(getYear() + 1, 12, 31).getEpochDay();
-        } else {
-            return new Date(getYear(), 12, 31).getEpochDay();
-        }
+        return CalendarTable.nextYearEnd(epochDay);
     }
 
     public int computeNextMonthEnd() {
-        if (getDayOfMonth() == lengthOfMonth()) {
-            Date nextMonth = plusDays(1);
-            return nextMonth.computeMonthEnd();
-        } else {
-            return computeMonthEnd();
-        }
+        return CalendarTable.nextMonthEnd(epochDay);
     }
 
 }
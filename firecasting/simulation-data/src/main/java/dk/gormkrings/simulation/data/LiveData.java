@@ -2,6 +2,7 @@ package dk.gormkrings.simulation.data;
 
 import com.fasterxml.jackson.annotation.JsonValue;
 import dk.gormkrings.data.ILiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
 import dk.gormkrings.simulation.util.Formatter;
 import lombok.Getter;
 import lombok.Setter;
@@ -68,6 +69,31 @@ public class LiveData implements ILiveData {
         this.currentNet = liveData.currentNet;
     }
 
+    /** Rebuilds the state recorded at {@code row} of a columnar run result. */
+    public static LiveData of(ColumnarRunResult run, int row) {
+        LiveData liveData = new LiveData(run.startTime(row));
+        liveData.totalDurationAlive = run.totalDurationAlive(row);
+        liveData.sessionDuration = run.sessionDuration(row);
+        liveData.phaseName = run.phaseName(row);
+        liveData.deposit = run.deposit(row);
+        liveData.deposited = run.deposited(row);
+        liveData.passiveReturn = run.passiveReturn(row);
+        liveData.passiveReturned = run.passiveReturned(row);
+        liveData.capital = run.capital(row);
+        liveData.inflation = run.inflation(row);
+        liveData.currentReturn = run.currentReturn(row);
+        liveData.returned = run.returned(row);
+        liveData.withdraw = run.withdraw(row);
+        liveData.withdrawn = run.withdrawn(row);
+        liveData.currentTax = run.currentTax(row);
+        liveData.tax = run.tax(row);
+        liveData.currentFee = run.currentFee(row);
+        liveData.fee = run.fee(row);
+        liveData.currentNet = run.currentNet(row);
+        liveData.net = run.net(row);
+        return liveData;
+    }
+
     @Override
     public void incrementTime() {
         sessionDuration++;
@@ -165,6 +191,12 @@ public class LiveData implements ILiveData {
         this.inflation *= inflation;
     }
 
+    public void setMarketState(double capital, double returned, double currentReturn) {
+        this.capital = capital;
+        this.returned = returned;
+        this.currentReturn = currentReturn;
+    }
+
     public void addToNetEarnings(double netEarnings) {
         this.net += netEarnings;
     }
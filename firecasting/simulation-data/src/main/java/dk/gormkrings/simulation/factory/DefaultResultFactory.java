@@ -2,13 +2,18 @@ package dk.gormkrings.simulation.factory;
 
 import dk.gormkrings.factory.IResultFactory;
 import dk.gormkrings.result.IRunResult;
-import dk.gormkrings.simulation.result.RunResult;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DefaultResultFactory implements IResultFactory {
     @Override
     public IRunResult newResult() {
-        return new RunResult();
+        return new ColumnarRunResult();
+    }
+
+    @Override
+    public IRunResult newResult(int expectedSnapshots) {
+        return new ColumnarRunResult(expectedSnapshots);
     }
 }
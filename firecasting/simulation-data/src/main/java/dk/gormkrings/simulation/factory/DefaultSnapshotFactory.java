@@ -2,7 +2,9 @@ package dk.gormkrings.simulation.factory;
 
 import dk.gormkrings.data.ILiveData;
 import dk.gormkrings.factory.ISnapshotFactory;
+import dk.gormkrings.result.IRunResult;
 import dk.gormkrings.result.ISnapshot;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
 import dk.gormkrings.simulation.result.Snapshot;
 import org.springframework.stereotype.Component;
 
@@ -13,4 +15,13 @@ public class DefaultSnapshotFactory implements ISnapshotFactory {
     public ISnapshot snapshot(ILiveData liveData) {
         return new Snapshot(liveData);
     }
+
+    @Override
+    public void record(IRunResult result, ILiveData liveData) {
+        if (result instanceof ColumnarRunResult columnar) {
+            columnar.append(liveData);
+        } else {
+            result.addSnapshot(snapshot(liveData));
+        }
+    }
 }
@@ -0,0 +1,264 @@
+package dk.gormkrings.simulation.result;
+
+import dk.gormkrings.data.ILiveData;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.result.ISnapshot;
+import dk.gormkrings.simulation.data.LiveData;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Run result that stores every snapshot as one row in primitive columns (one array per field and a
+ * {@code short} index into the run's phase names) instead of one {@link LiveData} copy per snapshot.
+ *
+ * <p>Engines append rows through {@link dk.gormkrings.factory.ISnapshotFactory#record}; aggregation and
+ * CSV export read the columns directly. {@link #getSnapshots()} is a read-only view whose snapshots
+ * rebuild a {@link LiveData} on demand, for callers that still work on {@link ISnapshot}.</p>
+ */
+public final class ColumnarRunResult implements IRunResult {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Double column indices
+    private static final int DEPOSIT = 0;
+    private static final int DEPOSITED = 1;
+    private static final int PASSIVE_RETURN = 2;
+    private static final int PASSIVE_RETURNED = 3;
+    private static final int CAPITAL = 4;
+    private static final int INFLATION = 5;
+    private static final int CURRENT_RETURN = 6;
+    private static final int RETURNED = 7;
+    private static final int WITHDRAW = 8;
+    private static final int WITHDRAWN = 9;
+    private static final int CURRENT_TAX = 10;
+    private static final int TAX = 11;
+    private static final int CURRENT_FEE = 12;
+    private static final int FEE = 13;
+    private static final int CURRENT_NET = 14;
+    private static final int NET = 15;
+    private static final int DOUBLE_COLUMNS = 16;
+
+    // Long column indices
+    private static final int START_TIME = 0;
+    private static final int TOTAL_DURATION_ALIVE = 1;
+    private static final int SESSION_DURATION = 2;
+    private static final int LONG_COLUMNS = 3;
+
+    private final double[][] doubles;
+    private final long[][] longs;
+    private short[] phases;
+    private final List<String> phaseNames = new ArrayList<>(4);
+    private int size;
+
+    public ColumnarRunResult() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param expectedSnapshots capacity hint; the columns grow if it is exceeded */
+    public ColumnarRunResult(int expectedSnapshots) {
+        int capacity = Math.max(1, expectedSnapshots);
+        this.doubles = new double[DOUBLE_COLUMNS][capacity];
+        this.longs = new long[LONG_COLUMNS][capacity];
+        this.phases = new short[capacity];
+    }
+
+    /** Wraps decoded columns without copying; see {@link RunResultsFile}. */
+    ColumnarRunResult(double[][] doubles, long[][] longs, short[] phases, List<String> phaseNames, int size) {
+        this.doubles = doubles;
+        this.longs = longs;
+        this.phases = phases;
+        this.phaseNames.addAll(phaseNames);
+        this.size = size;
+    }
+
+    /** Returns {@code result} itself if it is columnar, otherwise a columnar copy of its snapshots. */
+    public static ColumnarRunResult of(IRunResult result) {
+        if (result instanceof ColumnarRunResult c) return c;
+        List<ISnapshot> snapshots = result.getSnapshots();
+        ColumnarRunResult out = new ColumnarRunResult(snapshots == null ? 0 : snapshots.size());
+        if (snapshots != null) {
+            for (ISnapshot snapshot : snapshots) {
+                if (snapshot != null) out.append(snapshot.getState());
+            }
+        }
+        return out;
+    }
+
+    /** Appends the current values of {@code state} as a new row. */
+    public void append(ILiveData state) {
+        ensureCapacity(size + 1);
+        int row = size;
+        doubles[DEPOSIT][row] = state.getDeposit();
+        doubles[DEPOSITED][row] = state.getDeposited();
+        doubles[PASSIVE_RETURN][row] = state.getPassiveReturn();
+        doubles[PASSIVE_RETURNED][row] = state.getPassiveReturned();
+        doubles[CAPITAL][row] = state.getCapital();
+        doubles[INFLATION][row] = state.getInflation();
+        doubles[CURRENT_RETURN][row] = state.getCurrentReturn();
+        doubles[RETURNED][row] = state.getReturned();
+        doubles[WITHDRAW][row] = state.getWithdraw();
+        doubles[WITHDRAWN][row] = state.getWithdrawn();
+        doubles[CURRENT_TAX][row] = state.getCurrentTax();
+        doubles[TAX][row] = state.getTax();
+        doubles[CURRENT_FEE][row] = state.getCurrentFee();
+        doubles[FEE][row] = state.getFee();
+        doubles[CURRENT_NET][row] = state.getCurrentNet();
+        doubles[NET][row] = state.getNet();
+        longs[START_TIME][row] = state.getStartTime();
+        longs[TOTAL_DURATION_ALIVE][row] = state.getTotalDurationAlive();
+        longs[SESSION_DURATION][row] = state.getSessionDuration();
+        phases[row] = internPhase(state.getPhaseName());
+        size++;
+    }
+
+    @Override
+    public void addSnapshot(ISnapshot snapshot) {
+        append(snapshot.getState());
+    }
+
+    @Override
+    public void addResult(IRunResult result) {
+        if (!(result instanceof ColumnarRunResult other)) {
+            for (ISnapshot snapshot : result.getSnapshots()) addSnapshot(snapshot);
+            return;
+        }
+        if (other.size == 0) return;
+        ensureCapacity(size + other.size);
+        for (int c = 0; c < DOUBLE_COLUMNS; c++) {
+            System.arraycopy(other.doubles[c], 0, doubles[c], size, other.size);
+        }
+        for (int c = 0; c < LONG_COLUMNS; c++) {
+            System.arraycopy(other.longs[c], 0, longs[c], size, other.size);
+        }
+        for (int i = 0; i < other.size; i++) {
+            phases[size + i] = internPhase(other.phaseName(i));
+        }
+        size += other.size;
+    }
+
+    @Override
+    public List<ISnapshot> getSnapshots() {
+        return new AbstractList<>() {
+            @Override
+            public ISnapshot get(int index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+                return new RowSnapshot(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Approximate heap footprint of the columns, for byte-budgeted caches. */
+    public long estimatedBytes() {
+        long capacity = phases.length;
+        return 64 + capacity * (DOUBLE_COLUMNS * 8L + LONG_COLUMNS * 8L + 2L) + 48L * phaseNames.size();
+    }
+
+    /** Rebuilds the state recorded at {@code row}. */
+    public LiveData state(int row) {
+        return LiveData.of(this, row);
+    }
+
+    public String toCsvRow(int row) {
+        return state(row).toCsvRow();
+    }
+
+    // ---------- column accessors ----------
+
+    public String phaseName(int row) { return phaseNames.get(phases[row]); }
+    /** Index of the row's phase in {@link #phaseNames()}. */
+    public int phaseIndex(int row) { return phases[row]; }
+    /** Distinct phase names of this run, in order of first appearance. */
+    public List<String> phaseNames() { return Collections.unmodifiableList(phaseNames); }
+    public long startTime(int row) { return longs[START_TIME][row]; }
+    public long totalDurationAlive(int row) { return longs[TOTAL_DURATION_ALIVE][row]; }
+    public long sessionDuration(int row) { return longs[SESSION_DURATION][row]; }
+    public double deposit(int row) { return doubles[DEPOSIT][row]; }
+    public double deposited(int row) { return doubles[DEPOSITED][row]; }
+    public double passiveReturn(int row) { return doubles[PASSIVE_RETURN][row]; }
+    public double passiveReturned(int row) { return doubles[PASSIVE_RETURNED][row]; }
+    public double capital(int row) { return doubles[CAPITAL][row]; }
+    public double inflation(int row) { return doubles[INFLATION][row]; }
+    public double currentReturn(int row) { return doubles[CURRENT_RETURN][row]; }
+    public double returned(int row) { return doubles[RETURNED][row]; }
+    public double withdraw(int row) { return doubles[WITHDRAW][row]; }
+    public double withdrawn(int row) { return doubles[WITHDRAWN][row]; }
+    public double currentTax(int row) { return doubles[CURRENT_TAX][row]; }
+    public double tax(int row) { return doubles[TAX][row]; }
+    public double currentFee(int row) { return doubles[CURRENT_FEE][row]; }
+    public double fee(int row) { return doubles[FEE][row]; }
+    public double currentNet(int row) { return doubles[CURRENT_NET][row]; }
+    public double net(int row) { return doubles[NET][row]; }
+
+    // ---------- internals ----------
+
+    static int doubleColumns() { return DOUBLE_COLUMNS; }
+    static int longColumns() { return LONG_COLUMNS; }
+    double[] doubleColumn(int column) { return doubles[column]; }
+    long[] longColumn(int column) { return longs[column]; }
+    short[] phaseColumn() { return phases; }
+
+    private short internPhase(String phaseName) {
+        for (int i = 0; i < phaseNames.size(); i++) {
+            String name = phaseNames.get(i);
+            if (name == phaseName || (name != null && name.equals(phaseName))) return (short) i;
+        }
+        if (phaseNames.size() == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct phase names in one run");
+        }
+        phaseNames.add(phaseName);
+        return (short) (phaseNames.size() - 1);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        int capacity = phases.length;
+        if (minCapacity <= capacity) return;
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        for (int c = 0; c < DOUBLE_COLUMNS; c++) doubles[c] = Arrays.copyOf(doubles[c], newCapacity);
+        for (int c = 0; c < LONG_COLUMNS; c++) longs[c] = Arrays.copyOf(longs[c], newCapacity);
+        phases = Arrays.copyOf(phases, newCapacity);
+    }
+
+    @Override
+    public String toString() {
+        return getSnapshots().toString();
+    }
+
+    /** Read-only view of one row. */
+    private final class RowSnapshot implements ISnapshot {
+        private final int row;
+        private LiveData state;
+
+        private RowSnapshot(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public ILiveData getState() {
+            if (state == null) state = ColumnarRunResult.this.state(row);
+            return state;
+        }
+
+        @Override
+        public String toCsvRow() {
+            return getState().toCsvRow();
+        }
+
+        @Override
+        public String toString() {
+            return getState().toString();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package dk.gormkrings.simulation.result;
+
+import dk.gormkrings.result.IRunResult;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a list of runs as one binary file of raw {@link ColumnarRunResult} columns, read back through
+ * memory-mapped I/O.
+ *
+ * <p>Layout (big-endian): {@link #MAGIC}, {@code i32} {@link #VERSION}, {@code i32} run count, then per run
+ * an {@code i32} byte length of the rest of the run, {@code i32} row count n, {@code i32} phase-name count
+ * with each name as {@code i32} length plus UTF-8 bytes, the double columns (n values each), the long
+ * columns and finally n {@code i16} phase indexes. Runs are read with bulk copies from a mapped window of
+ * the file; a window covers as many whole runs as fit in {@link #WINDOW_BYTES}, so files larger than a
+ * single mapping are fine.</p>
+ */
+public final class RunResultsFile {
+
+    public static final int MAGIC = 0x46435252; // "FCRR"
+    public static final int VERSION = 1;
+
+    static final int WINDOW_BYTES = 256 << 20;
+
+    private RunResultsFile() {
+    }
+
+    /** Writes {@code results} to {@code file} (replacing it) and returns the file size. */
+    public static long write(List<IRunResult> results, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 20))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(results.size());
+            for (IRunResult result : results) writeRun(out, ColumnarRunResult.of(result));
+        }
+        return Files.size(file);
+    }
+
+    private static void writeRun(DataOutputStream out, ColumnarRunResult run) throws IOException {
+        int n = run.size();
+        List<byte[]> names = new ArrayList<>();
+        long bytes = 8;
+        for (String name : run.phaseNames()) {
+            byte[] utf8 = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            names.add(utf8);
+            bytes += 4 + (utf8 == null ? 0 : utf8.length);
+        }
+        bytes += (long) n * (ColumnarRunResult.doubleColumns() * 8L + ColumnarRunResult.longColumns() * 8L + 2L);
+        if (bytes > Integer.MAX_VALUE - 8) throw new IOException("Run with " + n + " rows is too large to store");
+
+        out.writeInt((int) bytes);
+        out.writeInt(n);
+        out.writeInt(names.size());
+        for (byte[] name : names) {
+            // -1 marks a null phase name
+            out.writeInt(name == null ? -1 : name.length);
+            if (name != null) out.write(name);
+        }
+        for (int c = 0; c < ColumnarRunResult.doubleColumns(); c++) {
+            double[] column = run.doubleColumn(c);
+            for (int i = 0; i < n; i++) out.writeDouble(column[i]);
+        }
+        for (int c = 0; c < ColumnarRunResult.longColumns(); c++) {
+            long[] column = run.longColumn(c);
+            for (int i = 0; i < n; i++) out.writeLong(column[i]);
+        }
+        short[] phases = run.phaseColumn();
+        for (int i = 0; i < n; i++) out.writeShort(phases[i]);
+    }
+
+    public static List<IRunResult> read(Path file) throws IOException {
+        return read(file, WINDOW_BYTES);
+    }
+
+    static List<IRunResult> read(Path file, int windowBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, 12));
+            if (header.remaining() < 12 || header.getInt() != MAGIC) throw new IOException("Not a run results file: " + file);
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported run results file version " + version);
+            int runs = header.getInt();
+
+            List<IRunResult> results = new ArrayList<>(runs);
+            long position = 12;
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+            for (int r = 0; r < runs; r++) {
+                if (window == null || !fits(window, windowStart, position, 4)) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(fileSize - position, Math.max(4, windowBytes)));
+                }
+                int runBytes = window.getInt((int) (position - windowStart));
+                if (!fits(window, windowStart, position, 4L + runBytes)) {
+                    // Remap from this run on; a run larger than the window gets a mapping of its own
+                    windowStart = position;
+                    long length = Math.min(fileSize - position, Math.max(windowBytes, 4L + runBytes));
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    if (window.limit() < 4L + runBytes) throw new IOException("Truncated run results file: " + file);
+                }
+                ByteBuffer run = window.duplicate();
+                run.position((int) (position - windowStart) + 4);
+                results.add(readRun(run));
+                position += 4L + runBytes;
+            }
+            return results;
+        }
+    }
+
+    private static boolean fits(ByteBuffer window, long windowStart, long position, long bytes) {
+        return position - windowStart + bytes <= window.limit();
+    }
+
+    private static ColumnarRunResult readRun(ByteBuffer in) {
+        int n = in.getInt();
+        int nameCount = in.getInt();
+        List<String> names = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            int length = in.getInt();
+            if (length < 0) {
+                names.add(null);
+                continue;
+            }
+            byte[] utf8 = new byte[length];
+            in.get(utf8);
+            names.add(new String(utf8, StandardCharsets.UTF_8));
+        }
+
+        double[][] doubles = new double[ColumnarRunResult.doubleColumns()][n];
+        for (double[] column : doubles) {
+            in.asDoubleBuffer().get(column);
+            in.position(in.position() + n * 8);
+        }
+        long[][] longs = new long[ColumnarRunResult.longColumns()][n];
+        for (long[] column : longs) {
+            in.asLongBuffer().get(column);
+            in.position(in.position() + n * 8);
+        }
+        short[] phases = new short[n];
+        in.asShortBuffer().get(phases);
+        in.position(in.position() + n * 2);
+        return new ColumnarRunResult(doubles, longs, phases, names, n);
+    }
+}
@@ -57,4 +57,14 @@ public class Specification implements ISpecification {
                 Inflation.copy(),
                 yearlyFee.copy());
     }
+
+    @Override
+    public Specification copyForPath(long pathIndex) {
+        return new Specification(
+                liveData.copy(),
+                taxRule.copy(),
+                returner.copyForPath(pathIndex),
+                Inflation.copy(),
+                yearlyFee.copy());
+    }
 }
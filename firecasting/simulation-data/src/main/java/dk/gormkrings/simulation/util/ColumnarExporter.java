@@ -0,0 +1,143 @@
+package dk.gormkrings.simulation.util;
+
+import dk.gormkrings.calendar.CalendarTable;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes an export in a compact columnar binary format with the same columns as the CSV export.
+ *
+ * <p>All numbers are big-endian (as {@link DataOutputStream} writes them). The stream starts with the
+ * {@link #MAGIC} bytes, a {@code u16} {@link #VERSION} and a {@code u16} column count followed by one
+ * {@code u8} type and one {@code writeUTF} name per column. Then comes one block per selected path:
+ * {@code i32} path index, {@code i32} row count n, and for each column its n values. {@link #END} as the
+ * path index terminates the stream.</p>
+ *
+ * <p>Column types: {@link #STRING} is a block-local dictionary ({@code u16} size, {@code writeUTF} entries)
+ * followed by n {@code u16} codes; {@link #INT32} and {@link #DATE32} (days since 1970-01-01) are n
+ * {@code i32}; {@link #FLOAT64} is n {@code f64}. Values are the unrounded doubles, unlike the CSV.</p>
+ */
+public final class ColumnarExporter {
+
+    public static final String MEDIA_TYPE = "application/vnd.firecasting.columnar";
+    public static final byte[] MAGIC = {'F', 'C', 'O', 'L'};
+    public static final int VERSION = 1;
+    public static final int END = -1;
+
+    public static final byte STRING = 1;
+    public static final byte INT32 = 2;
+    public static final byte DATE32 = 3;
+    public static final byte FLOAT64 = 4;
+
+    /** Days from 1970-01-01 back to the simulation epoch, 1900-01-01. */
+    private static final int EPOCH_1970 = 25_567;
+
+    private static final int FLOAT_COLUMNS = 19;
+
+    private ColumnarExporter() {
+    }
+
+    /** Writes the selected paths and years to {@code out}. Does not close {@code out}. */
+    public static void write(List<IRunResult> results, OutputStream out, ExportSlice slice) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        List<String> headers = CsvExporter.headers();
+        data.write(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(headers.size());
+        for (int c = 0; c < headers.size(); c++) {
+            data.writeByte(typeOf(c));
+            data.writeUTF(headers.get(c));
+        }
+
+        boolean allYears = slice.allYears();
+        int[] rows = new int[0];
+        int end = slice.pathEnd(results.size());
+        for (int path = slice.firstPath(); path < end; path++) {
+            ColumnarRunResult run = ColumnarRunResult.of(results.get(path));
+
+            if (rows.length < run.size()) rows = new int[run.size()];
+            int n = 0;
+            for (int i = 0; i < run.size(); i++) {
+                if (allYears || slice.includesYear(CsvRowEncoder.yearsSinceStart(run, i))) rows[n++] = i;
+            }
+            if (n == 0) continue;
+
+            data.writeInt(path);
+            data.writeInt(n);
+            writePhases(data, run, rows, n);
+            writeTimeColumns(data, run, rows, n);
+
+            for (int c = 0; c < FLOAT_COLUMNS; c++) {
+                for (int k = 0; k < n; k++) data.writeDouble(value(run, rows[k], c));
+            }
+        }
+        data.writeInt(END);
+        data.flush();
+    }
+
+    private static byte typeOf(int column) {
+        return switch (column) {
+            case 0 -> STRING;
+            case 1, 2, 3 -> INT32;
+            case 4 -> DATE32;
+            default -> FLOAT64;
+        };
+    }
+
+    private static void writePhases(DataOutputStream data, ColumnarRunResult run, int[] rows, int n) throws IOException {
+        List<String> names = run.phaseNames();
+        data.writeShort(names.size());
+        for (String name : names) data.writeUTF(String.valueOf(name));
+        for (int k = 0; k < n; k++) data.writeShort(run.phaseIndex(rows[k]));
+    }
+
+    /** The day, month, year and date columns, computed as {@link CsvRowEncoder#appendRow} does. */
+    private static void writeTimeColumns(DataOutputStream data, ColumnarRunResult run, int[] rows, int n) throws IOException {
+        for (int k = 0; k < n; k++) data.writeInt((int) run.totalDurationAlive(rows[k]));
+        for (int k = 0; k < n; k++) {
+            int row = rows[k];
+            int year = CsvRowEncoder.yearsSinceStart(run, row);
+            int dateDay = (int) (run.startTime(row) + run.totalDurationAlive(row));
+            data.writeInt(CalendarTable.monthOf(dateDay) + 12 * year - 1);
+        }
+        for (int k = 0; k < n; k++) data.writeInt(CsvRowEncoder.yearsSinceStart(run, rows[k]));
+        for (int k = 0; k < n; k++) {
+            int row = rows[k];
+            data.writeInt((int) (run.startTime(row) + run.totalDurationAlive(row)) - EPOCH_1970);
+        }
+    }
+
+    /** Float column {@code c} in CSV order, starting at {@code capital}. */
+    private static double value(ColumnarRunResult run, int row, int c) {
+        // The first snapshot of a run is compared with itself
+        int previous = Math.max(0, row - 1);
+        return switch (c) {
+            case 0 -> run.capital(row);
+            case 1 -> run.deposited(row);
+            case 2 -> run.deposit(row);
+            case 3 -> run.passiveReturned(row);
+            case 4 -> run.returned(row);
+            case 5 -> run.currentReturn(row);
+            case 6 -> run.withdrawn(row);
+            case 7 -> run.withdraw(row);
+            case 8 -> run.tax(row);
+            case 9 -> run.currentTax(row);
+            case 10 -> run.fee(row);
+            case 11 -> run.currentFee(row);
+            case 12 -> run.inflation(row);
+            case 13 -> run.net(row);
+            case 14 -> run.currentNet(row);
+            case 15 -> run.returned(row) - run.returned(previous);
+            case 16 -> run.withdrawn(row) - run.withdrawn(previous);
+            case 17 -> run.tax(row) - run.tax(previous);
+            case 18 -> run.net(row) - run.net(previous);
+            default -> throw new IllegalArgumentException("column " + c);
+        };
+    }
+}
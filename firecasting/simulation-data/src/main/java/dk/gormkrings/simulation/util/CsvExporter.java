@@ -1,14 +1,13 @@
 package dk.gormkrings.simulation.util;
 
 import dk.gormkrings.result.IRunResult;
-import dk.gormkrings.result.ISnapshot;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
-import java.util.Objects;
 
 public class CsvExporter {
 
@@ -29,25 +28,28 @@ public class CsvExporter {
         writer.write(HEADER);
             writer.newLine();
 
-            ISnapshot previousSnapshot = null;
             for (IRunResult result : results) {
-                for (ISnapshot snapshot : result.getSnapshots()) {
-                    writer.write(snapshot.toCsvRow());
-                    writer.write(addYearlyValues(snapshot, Objects.requireNonNullElse(previousSnapshot, snapshot)));
+                ColumnarRunResult run = ColumnarRunResult.of(result);
+                for (int i = 0; i < run.size(); i++) {
+                    writer.write(toCsvRow(run, i));
                     writer.newLine();
-                    previousSnapshot = snapshot;
                 }
-                previousSnapshot = null;
             }
         }
         return csvFile;
     }
 
-    private static String addYearlyValues(ISnapshot snapshot, ISnapshot previousSnapshot) {
-        double yearReturn = snapshot.getState().getReturned() - previousSnapshot.getState().getReturned();
-        double yearWithdraw = snapshot.getState().getWithdrawn() - previousSnapshot.getState().getWithdrawn();
-        double yearTax = snapshot.getState().getTax() - previousSnapshot.getState().getTax();
-        double yearNet = snapshot.getState().getNet() - previousSnapshot.getState().getNet();
+    /** One CSV row without line separator: the snapshot's columns followed by the yearly deltas. */
+    public static String toCsvRow(ColumnarRunResult run, int row) {
+        // The first snapshot of a run is compared with itself
+        return run.toCsvRow(row) + addYearlyValues(run, row, Math.max(0, row - 1));
+    }
+
+    private static String addYearlyValues(ColumnarRunResult run, int row, int previousRow) {
+        double yearReturn = run.returned(row) - run.returned(previousRow);
+        double yearWithdraw = run.withdrawn(row) - run.withdrawn(previousRow);
+        double yearTax = run.tax(row) - run.tax(previousRow);
+        double yearNet = run.net(row) - run.net(previousRow);
 
         return  "," +
                 Formatter.numberToString(yearReturn) + "," +
@@ -0,0 +1,244 @@
+package dk.gormkrings.simulation.util;
+
+import dk.gormkrings.calendar.CalendarTable;
+import dk.gormkrings.simulation.data.Date;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes CSV export rows straight into a reusable byte buffer.
+ *
+ * <p>The bytes are identical to {@link CsvExporter#toCsvRow} (that is {@code LiveData.toCsvRow()} plus the
+ * yearly deltas), but the columns are read from the {@link ColumnarRunResult} directly: no {@code LiveData},
+ * {@code Date} or {@code String} per row.</p>
+ *
+ * <p>Numbers follow {@link Formatter#numberToString}: {@code %.0f}, {@code %.2f} or {@code %.4f} depending on
+ * magnitude. {@code String.format} rounds the shortest decimal representation of the double half-up, which
+ * agrees with rounding the scaled binary value unless that value lies within an ulp of a rounding tie. The
+ * fast path therefore scales, checks the distance to the tie and prints the rounded long with a digit-pair
+ * table; the rare near-tie, non-finite or very large values ({@code >= 1e13} after scaling) go through
+ * {@link Formatter#numberToString} itself. Dates between 1900 and 2200 come from {@link CalendarTable};
+ * others fall back to {@link Date#toString()}.</p>
+ *
+ * <p>Not thread-safe; use one encoder per thread or chunk.</p>
+ */
+public final class CsvRowEncoder {
+
+    private static final double[] SCALE = {1, 10, 100, 1_000, 10_000};
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000};
+    private static final double MAX_FAST = 1e13;
+    /** Bound on how far the shortest decimal of a double can lie from the scaled value, relative to it. */
+    private static final double TIE_MARGIN = 0x1p-50;
+
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private byte[] buf;
+    private int count;
+
+    public CsvRowEncoder() {
+        this(64 * 1024);
+    }
+
+    public CsvRowEncoder(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Empties the buffer but keeps its capacity. */
+    public void reset() {
+        count = 0;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    /** Appends the export row for {@code row} of {@code run}, without line separator. */
+    public CsvRowEncoder appendRow(ColumnarRunResult run, int row) {
+        long startTime = run.startTime(row);
+        long day = run.totalDurationAlive(row);
+        int startDay = (int) startTime;
+        int dateDay = (int) (startTime + day);
+
+        int startYear = CalendarTable.yearOf(startDay);
+        int dateYear = CalendarTable.yearOf(dateDay);
+        long year = dateYear - startYear;
+        long month = CalendarTable.monthOf(dateDay) + 12 * year - 1;
+
+        append(String.valueOf(run.phaseName(row))).comma();
+        appendLong(day).comma();
+        appendLong(month).comma();
+        appendLong(year).comma();
+        appendDate(dateDay, dateYear).comma();
+        appendNumber(run.capital(row)).comma();
+        appendNumber(run.deposited(row)).comma();
+        appendNumber(run.deposit(row)).comma();
+        appendNumber(run.passiveReturned(row)).comma();
+        appendNumber(run.returned(row)).comma();
+        appendNumber(run.currentReturn(row)).comma();
+        appendNumber(run.withdrawn(row)).comma();
+        appendNumber(run.withdraw(row)).comma();
+        appendNumber(run.tax(row)).comma();
+        appendNumber(run.currentTax(row)).comma();
+        appendNumber(run.fee(row)).comma();
+        appendNumber(run.currentFee(row)).comma();
+        appendNumber(run.inflation(row)).comma();
+        appendNumber(run.net(row)).comma();
+        appendNumber(run.currentNet(row));
+
+        // Yearly deltas; the first snapshot of a run is compared with itself
+        int previous = Math.max(0, row - 1);
+        comma().appendNumber(run.returned(row) - run.returned(previous));
+        comma().appendNumber(run.withdrawn(row) - run.withdrawn(previous));
+        comma().appendNumber(run.tax(row) - run.tax(previous));
+        comma().appendNumber(run.net(row) - run.net(previous));
+        return this;
+    }
+
+    /** Appends the platform line separator, as {@code BufferedWriter.newLine()} writes it. */
+    public CsvRowEncoder newLine() {
+        return append(System.lineSeparator());
+    }
+
+    /** Appends {@code s}; ASCII byte by byte, anything else (e.g. a non-ASCII phase name) as UTF-8. */
+    public CsvRowEncoder append(String s) {
+        int n = s.length();
+        ensureCapacity(count + n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                byte[] rest = s.substring(i).getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(count + rest.length);
+                System.arraycopy(rest, 0, buf, count, rest.length);
+                count += rest.length;
+                return this;
+            }
+            buf[count++] = (byte) c;
+        }
+        return this;
+    }
+
+    /** Appends {@code value} exactly as {@link Formatter#numberToString} formats it. */
+    public CsvRowEncoder appendNumber(double value) {
+        int decimals;
+        if (value > 100 || value < -100) {
+            decimals = 0;
+        } else if ((value <= 100 && value >= 0.1) || (value >= -100 && value <= -0.1)) {
+            decimals = 2;
+        } else {
+            decimals = 4;
+        }
+        if (!appendFixed(value, decimals)) append(Formatter.numberToString(value));
+        return this;
+    }
+
+    private boolean appendFixed(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return false;
+        double scaled = Math.abs(value) * SCALE[decimals];
+        if (!(scaled < MAX_FAST)) return false;
+
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (Math.abs(fraction - 0.5) <= scaled * TIE_MARGIN) return false;
+
+        long rounded = (long) floor + (fraction > 0.5 ? 1 : 0);
+        ensureCapacity(count + 24);
+        // String.format keeps the sign of negative values that round to zero, -0.0 included
+        if (Double.compare(value, 0.0) < 0) buf[count++] = '-';
+        if (decimals == 0) {
+            writeDigits(rounded);
+            return true;
+        }
+        writeDigits(rounded / POW10[decimals]);
+        buf[count++] = '.';
+        long fractionDigits = rounded % POW10[decimals];
+        for (int i = decimals - 2; i >= 0; i -= 2) {
+            int pair = (int) (fractionDigits / POW10[i] % 100);
+            buf[count++] = DIGIT_PAIRS[2 * pair];
+            buf[count++] = DIGIT_PAIRS[2 * pair + 1];
+        }
+        return true;
+    }
+
+    /** Appends a signed decimal long, as {@code String.valueOf(long)}. */
+    public CsvRowEncoder appendLong(long value) {
+        if (value == Long.MIN_VALUE) return append(Long.toString(value));
+        ensureCapacity(count + 20);
+        if (value < 0) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        writeDigits(value);
+        return this;
+    }
+
+    /** Digits of a non-negative long, written back to front in pairs. */
+    private void writeDigits(long value) {
+        int length = 1;
+        for (long v = value; v >= 10; v /= 10) length++;
+        int pos = count + length;
+        count = pos;
+        while (value >= 100) {
+            int pair = (int) (value % 100);
+            value /= 100;
+            buf[--pos] = DIGIT_PAIRS[2 * pair + 1];
+            buf[--pos] = DIGIT_PAIRS[2 * pair];
+        }
+        if (value >= 10) {
+            buf[--pos] = DIGIT_PAIRS[2 * (int) value + 1];
+            buf[--pos] = DIGIT_PAIRS[2 * (int) value];
+        } else {
+            buf[--pos] = (byte) ('0' + value);
+        }
+    }
+
+    private CsvRowEncoder appendDate(int epochDay, int year) {
+        if (!CalendarTable.covers(epochDay)) return append(new Date(epochDay).toString());
+        int month = CalendarTable.monthOf(epochDay);
+        int dayOfMonth = CalendarTable.dayOfMonth(epochDay);
+
+        ensureCapacity(count + 10);
+        writeDigits(year);
+        buf[count++] = '-';
+        buf[count++] = DIGIT_PAIRS[2 * month];
+        buf[count++] = DIGIT_PAIRS[2 * month + 1];
+        buf[count++] = '-';
+        buf[count++] = DIGIT_PAIRS[2 * dayOfMonth];
+        buf[count++] = DIGIT_PAIRS[2 * dayOfMonth + 1];
+        return this;
+    }
+
+    /** The CSV {@code year} of a row: calendar years between the run start and the snapshot date. */
+    public static int yearsSinceStart(ColumnarRunResult run, int row) {
+        long startTime = run.startTime(row);
+        return CalendarTable.yearOf((int) (startTime + run.totalDurationAlive(row))) - CalendarTable.yearOf((int) startTime);
+    }
+
+    private CsvRowEncoder comma() {
+        ensureCapacity(count + 1);
+        buf[count++] = ',';
+        return this;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buf.length) buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+    }
+}
@@ -0,0 +1,58 @@
+package dk.gormkrings.simulation.util;
+
+/**
+ * Inclusive path and year ranges selecting part of an export.
+ *
+ * <p>Paths are 0-based indexes into the run list; years are the CSV {@code year} column (years since the
+ * simulation start). Ranges are written {@code "from-to"} or as a single number, e.g. {@code paths=0-99} or
+ * {@code years=10}; an open end ({@code "5-"} or {@code "-5"}) runs to the last or from the first.</p>
+ */
+public record ExportSlice(int firstPath, int lastPath, int firstYear, int lastYear) {
+
+    public static final ExportSlice ALL = new ExportSlice(0, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    /** Parses the {@code paths=} and {@code years=} selectors; null or blank selects everything. */
+    public static ExportSlice parse(String paths, String years) {
+        int[] p = range("paths", paths, 0);
+        int[] y = range("years", years, Integer.MIN_VALUE);
+        if (p[0] < 0) throw new IllegalArgumentException("paths: must not be negative");
+        return new ExportSlice(p[0], p[1], y[0], y[1]);
+    }
+
+    public boolean allYears() {
+        return firstYear == Integer.MIN_VALUE && lastYear == Integer.MAX_VALUE;
+    }
+
+    public boolean includesYear(long year) {
+        return year >= firstYear && year <= lastYear;
+    }
+
+    /** Index after the last selected path of a list of {@code size} runs. */
+    public int pathEnd(int size) {
+        return (int) Math.min(size, (long) lastPath + 1);
+    }
+
+    private static int[] range(String name, String text, int openStart) {
+        if (text == null || text.isBlank()) return new int[]{openStart, Integer.MAX_VALUE};
+        String s = text.trim();
+        // Skip a leading minus so "-5" reads as an open start rather than a negative number
+        int dash = s.indexOf('-', 1);
+        try {
+            if (s.startsWith("-")) return checked(name, openStart, Integer.parseInt(s.substring(1).trim()));
+            if (dash < 0) {
+                int value = Integer.parseInt(s);
+                return checked(name, value, value);
+            }
+            int from = Integer.parseInt(s.substring(0, dash).trim());
+            String to = s.substring(dash + 1).trim();
+            return checked(name, from, to.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(to));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + ": expected a number or a range like 0-99, got '" + text + "'");
+        }
+    }
+
+    private static int[] checked(String name, int from, int to) {
+        if (from > to) throw new IllegalArgumentException(name + ": range start " + from + " is after its end " + to);
+        return new int[]{from, to};
+    }
+}
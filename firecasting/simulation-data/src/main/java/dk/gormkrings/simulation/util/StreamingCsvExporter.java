@@ -0,0 +1,99 @@
+package dk.gormkrings.simulation.util;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes the CSV export of a list of runs straight to an output stream.
+ *
+ * <p>Runs are formatted in chunks of {@link #RUNS_PER_CHUNK} on a shared executor, each chunk into its
+ * own {@link CsvRowEncoder}. The calling thread writes finished chunks in order, and at most
+ * {@code maxInFlight} chunks are formatted or waiting at once. Encoders are recycled between chunks,
+ * so memory stays bounded by the window regardless of the number of runs, and the first bytes reach
+ * the stream as soon as the first chunk is done.</p>
+ *
+ * <p>The output is identical to {@link CsvExporter#exportResultsToCsv}.</p>
+ */
+public final class StreamingCsvExporter {
+
+    static final int RUNS_PER_CHUNK = 8;
+
+    private StreamingCsvExporter() {
+    }
+
+    /** Writes header and rows to {@code out} using the common fork/join pool. Does not close {@code out}. */
+    public static void write(List<IRunResult> results, OutputStream out) throws IOException {
+        write(results, out, ExportSlice.ALL);
+    }
+
+    /** As {@link #write(List, OutputStream)}, limited to the paths and years in {@code slice}. */
+    public static void write(List<IRunResult> results, OutputStream out, ExportSlice slice) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        write(results, out, slice, pool, 2 * Math.max(1, pool.getParallelism()));
+    }
+
+    public static void write(List<IRunResult> results, OutputStream out, ExportSlice slice,
+                             Executor executor, int maxInFlight) throws IOException {
+        CsvRowEncoder header = new CsvRowEncoder(1024);
+        header.append(CsvExporter.HEADER).newLine();
+        header.writeTo(out);
+
+        int window = Math.max(1, maxInFlight);
+        Deque<CompletableFuture<CsvRowEncoder>> pending = new ArrayDeque<>(window);
+        Deque<CsvRowEncoder> free = new ArrayDeque<>(window);
+        free.push(header);
+
+        try {
+            int end = slice.pathEnd(results.size());
+            for (int from = slice.firstPath(); from < end; from += RUNS_PER_CHUNK) {
+                if (pending.size() >= window) free.push(drain(pending.poll(), out));
+
+                List<IRunResult> chunk = results.subList(from, Math.min(end, from + RUNS_PER_CHUNK));
+                CsvRowEncoder buffer = free.isEmpty() ? new CsvRowEncoder() : free.pop();
+                buffer.reset();
+                pending.add(CompletableFuture.supplyAsync(() -> format(chunk, slice, buffer), executor));
+            }
+            while (!pending.isEmpty()) drain(pending.poll(), out);
+        } finally {
+            pending.forEach(f -> f.cancel(false));
+        }
+        out.flush();
+    }
+
+    private static CsvRowEncoder format(List<IRunResult> chunk, ExportSlice slice, CsvRowEncoder buffer) {
+        boolean allYears = slice.allYears();
+        for (IRunResult result : chunk) {
+            ColumnarRunResult run = ColumnarRunResult.of(result);
+            for (int i = 0; i < run.size(); i++) {
+                if (allYears || slice.includesYear(CsvRowEncoder.yearsSinceStart(run, i))) buffer.appendRow(run, i).newLine();
+            }
+        }
+        return buffer;
+    }
+
+    private static CsvRowEncoder drain(CompletableFuture<CsvRowEncoder> next, OutputStream out) throws IOException {
+        CsvRowEncoder buffer;
+        try {
+            buffer = next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException("CSV export failed", e.getCause());
+        }
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("CSV export interrupted");
+        buffer.writeTo(out);
+        return buffer;
+    }
+}
@@ -0,0 +1,76 @@
+package dk.gormkrings.simulation.result;
+
+import dk.gormkrings.result.ISnapshot;
+import dk.gormkrings.simulation.data.LiveData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ColumnarRunResultTest {
+
+    private static LiveData state(String phase, long days, double capital) {
+        LiveData data = new LiveData(45_000);
+        data.setPhaseName(phase);
+        data.incrementTime(days);
+        data.addToCapital(capital);
+        data.addToDeposited(capital / 2);
+        data.setDeposit(12.5);
+        data.addToReturned(3.25);
+        data.setCurrentReturn(-0.0);
+        data.addToWithdrawn(7);
+        data.addToTax(1.5);
+        data.addToFee(0.75);
+        data.compoundInflation(1.02);
+        data.addToNetEarnings(99);
+        return data;
+    }
+
+    @Test
+    public void rowsRebuildTheRecordedState() {
+        ColumnarRunResult result = new ColumnarRunResult(1);
+        LiveData first = state("Deposit", 365, 1_000);
+        LiveData second = state("Withdraw", 730, 2_000.125);
+        result.append(first);
+        result.append(second);
+
+        assertEquals(2, result.size());
+        assertEquals("Withdraw", result.phaseName(1));
+        assertEquals(2_000.125, result.capital(1));
+        assertEquals(first.toCsvRow(), result.toCsvRow(0));
+        assertEquals(second.toCsvRow(), result.getSnapshots().get(1).toCsvRow());
+        assertEquals(second.getSessionDuration(), result.getSnapshots().get(1).getState().getSessionDuration());
+    }
+
+    @Test
+    public void addResultAppendsRowsAndRemapsPhases() {
+        ColumnarRunResult deposit = new ColumnarRunResult();
+        deposit.append(state("Deposit", 365, 1));
+        ColumnarRunResult withdraw = new ColumnarRunResult();
+        withdraw.append(state("Withdraw", 730, 2));
+        withdraw.append(state("Deposit", 1_095, 3));
+
+        ColumnarRunResult run = new ColumnarRunResult(0);
+        run.addResult(deposit);
+        run.addResult(withdraw);
+
+        List<ISnapshot> snapshots = run.getSnapshots();
+        assertEquals(3, snapshots.size());
+        assertEquals("Deposit", run.phaseName(0));
+        assertEquals("Withdraw", run.phaseName(1));
+        assertEquals("Deposit", run.phaseName(2));
+        assertEquals(3.0, snapshots.get(2).getState().getCapital());
+    }
+
+    @Test
+    public void ofCopiesSnapshotBasedResults() {
+        RunResult legacy = new RunResult();
+        LiveData data = state("Passive", 10, 42);
+        legacy.addSnapshot(new Snapshot(data));
+
+        ColumnarRunResult columnar = ColumnarRunResult.of(legacy);
+        assertEquals(1, columnar.size());
+        assertEquals(data.toCsvRow(), columnar.toCsvRow(0));
+    }
+}
@@ -0,0 +1,57 @@
+package dk.gormkrings.simulation.result;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.data.LiveData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RunResultsFileTest {
+
+    private static List<IRunResult> results(int runs) {
+        List<IRunResult> results = new ArrayList<>();
+        for (int r = 0; r < runs; r++) {
+            ColumnarRunResult run = new ColumnarRunResult(3);
+            LiveData data = new LiveData(45_000 + r);
+            for (int i = 0; i < 5 + r % 3; i++) {
+                data.setPhaseName(i == 0 && r == 0 ? null : (i < 3 ? "Deposit" : "Withdraw"));
+                data.incrementTime(30);
+                data.addToCapital(r * 1_000.5 + i);
+                data.addToTax(i / 7.0);
+                data.setCurrentNet(Double.NaN);
+                run.append(data);
+            }
+            results.add(run);
+        }
+        return results;
+    }
+
+    @Test
+    public void roundTripsColumnsAcrossMappedWindows(@TempDir Path dir) throws Exception {
+        List<IRunResult> results = results(25);
+        Path file = dir.resolve("results.fcr");
+        RunResultsFile.write(results, file);
+
+        // A window smaller than one run forces a remap for every run
+        for (int window : new int[]{RunResultsFile.WINDOW_BYTES, 4_096, 64}) {
+            List<IRunResult> read = RunResultsFile.read(file, window);
+            assertEquals(results.size(), read.size());
+            for (int r = 0; r < results.size(); r++) {
+                ColumnarRunResult expected = (ColumnarRunResult) results.get(r);
+                ColumnarRunResult actual = (ColumnarRunResult) read.get(r);
+                assertEquals(expected.size(), actual.size());
+                for (int row = 0; row < expected.size(); row++) {
+                    assertEquals(expected.phaseName(row), actual.phaseName(row));
+                    assertEquals(expected.toCsvRow(row), actual.toCsvRow(row));
+                    assertEquals(expected.sessionDuration(row), actual.sessionDuration(row));
+                    assertEquals(expected.currentNet(row), actual.currentNet(row));
+                }
+            }
+        }
+    }
+}
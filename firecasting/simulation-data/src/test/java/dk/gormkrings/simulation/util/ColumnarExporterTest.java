@@ -0,0 +1,100 @@
+package dk.gormkrings.simulation.util;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.data.LiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColumnarExporterTest {
+
+    private static List<IRunResult> results(int runs) {
+        List<IRunResult> results = new ArrayList<>();
+        for (int r = 0; r < runs; r++) {
+            ColumnarRunResult run = new ColumnarRunResult(6);
+            LiveData data = new LiveData(45_000);
+            for (int year = 0; year < 6; year++) {
+                data.setPhaseName(year < 3 ? "Deposit" : "Withdraw");
+                data.incrementTime(365);
+                data.addToCapital(1_000.0 * (r + 1));
+                data.addToReturned(year * 0.1);
+                data.addToNetEarnings(r);
+                run.append(data);
+            }
+            results.add(run);
+        }
+        return results;
+    }
+
+    @Test
+    public void writesSelectedBlocksColumnByColumn() throws Exception {
+        List<IRunResult> results = results(5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarExporter.write(results, out, ExportSlice.parse("3-", "2-3"));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        byte[] magic = new byte[4];
+        in.readFully(magic);
+        assertArrayEquals(ColumnarExporter.MAGIC, magic);
+        assertEquals(ColumnarExporter.VERSION, in.readUnsignedShort());
+        List<String> headers = CsvExporter.headers();
+        assertEquals(headers.size(), in.readUnsignedShort());
+        for (String header : headers) {
+            in.readByte();
+            assertEquals(header, in.readUTF());
+        }
+
+        for (int path = 3; path <= 4; path++) {
+            ColumnarRunResult run = (ColumnarRunResult) results.get(path);
+            List<Integer> rows = new ArrayList<>();
+            for (int row = 0; row < run.size(); row++) {
+                int year = CsvRowEncoder.yearsSinceStart(run, row);
+                if (year >= 2 && year <= 3) rows.add(row);
+            }
+            int n = rows.size();
+            assertEquals(path, in.readInt());
+            assertEquals(2, n);
+            assertEquals(n, in.readInt());
+
+            String[] phases = new String[in.readUnsignedShort()];
+            for (int i = 0; i < phases.length; i++) phases[i] = in.readUTF();
+            for (int row : rows) assertEquals(run.phaseName(row), phases[in.readUnsignedShort()]);
+
+            // day, month, year and date against the CSV row
+            int[][] ints = new int[4][n];
+            for (int[] column : ints) {
+                for (int k = 0; k < n; k++) column[k] = in.readInt();
+            }
+            for (int k = 0; k < n; k++) {
+                String[] csv = CsvExporter.toCsvRow(run, rows.get(k)).split(",");
+                assertEquals(Integer.parseInt(csv[1]), ints[0][k]);
+                assertEquals(Integer.parseInt(csv[2]), ints[1][k]);
+                assertEquals(Integer.parseInt(csv[3]), ints[2][k]);
+                assertEquals(LocalDate.parse(csv[4]), LocalDate.ofEpochDay(ints[3][k]));
+            }
+
+            for (int row : rows) assertEquals(run.capital(row), in.readDouble());
+            in.skipBytes(8 * n * 17);
+            for (int row : rows) assertEquals(run.net(row) - run.net(row - 1), in.readDouble());
+        }
+        assertEquals(ColumnarExporter.END, in.readInt());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void rejectsMalformedSelectors() {
+        assertThrows(IllegalArgumentException.class, () -> ExportSlice.parse("5-2", null));
+        assertThrows(IllegalArgumentException.class, () -> ExportSlice.parse(null, "ten"));
+        assertEquals(new ExportSlice(0, 9, Integer.MIN_VALUE, Integer.MAX_VALUE), ExportSlice.parse("-9", " "));
+    }
+}
@@ -0,0 +1,70 @@
+package dk.gormkrings.simulation.util;
+
+import dk.gormkrings.simulation.data.LiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvRowEncoderTest {
+
+    @Test
+    public void numbersMatchFormatter() {
+        double[] edges = {0.0, -0.0, 0.5, -0.5, 1.005, 0.125, 0.00005, -0.00005, 99.995, 100, -100, 100.000001,
+                0.1, -0.1, 0.099995, 9.995, 12345.5, -12345.5, 1e13, 1e23, -1e-300, Double.MIN_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        CsvRowEncoder encoder = new CsvRowEncoder(16);
+        for (double value : edges) assertNumber(encoder, value);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            double value = switch (i % 4) {
+                case 0 -> random.nextGaussian() * 1e6;
+                case 1 -> random.nextDouble() * 200 - 100;
+                // Values on or next to a rounding tie of %.2f / %.4f
+                case 2 -> Math.round(random.nextDouble() * 1e6) / 100.0 + 0.005;
+                default -> Math.round(random.nextDouble() * 1e3) / 10_000.0 + 0.00005;
+            };
+            assertNumber(encoder, value);
+        }
+    }
+
+    @Test
+    public void rowsMatchCsvExporter() {
+        Random random = new Random(11);
+        // Starts before, inside and after the date table (1900-2200)
+        for (long start : new long[]{-400, 0, 45_000, 109_000, 115_000}) {
+            ColumnarRunResult run = new ColumnarRunResult(40);
+            LiveData data = new LiveData(start);
+            data.setPhaseName(start < 0 ? "D\u00e9p\u00f4t" : "Deposit");
+            for (int month = 0; month < 40; month++) {
+                data.incrementTime(30 + random.nextInt(2));
+                data.addToCapital(random.nextGaussian() * 1e5);
+                data.addToReturned(random.nextGaussian() * 10);
+                data.addToWithdrawn(random.nextDouble());
+                data.addToTax(random.nextDouble() / 100);
+                data.addToFee(0.005);
+                data.compoundInflation(1.0 + random.nextDouble() / 50);
+                data.addToNetEarnings(random.nextGaussian() * 1e3);
+                data.setCurrentReturn(-random.nextDouble() / 10);
+                run.append(data);
+            }
+
+            CsvRowEncoder encoder = new CsvRowEncoder(16);
+            for (int row = 0; row < run.size(); row++) {
+                encoder.reset();
+                encoder.appendRow(run, row);
+                assertEquals(CsvExporter.toCsvRow(run, row), new String(encoder.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void assertNumber(CsvRowEncoder encoder, double value) {
+        encoder.reset();
+        encoder.appendNumber(value);
+        assertEquals(Formatter.numberToString(value), new String(encoder.toByteArray(), StandardCharsets.US_ASCII), "value " + value);
+    }
+}
@@ -0,0 +1,84 @@
+package dk.gormkrings.simulation.util;
+
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.data.LiveData;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingCsvExporterTest {
+
+    private static List<IRunResult> results(int runs) {
+        List<IRunResult> results = new ArrayList<>();
+        for (int r = 0; r < runs; r++) {
+            ColumnarRunResult run = new ColumnarRunResult(13);
+            LiveData data = new LiveData(45_000);
+            data.setPhaseName(r % 2 == 0 ? "Deposit" : "Withdraw");
+            for (int month = 0; month < 13; month++) {
+                data.incrementTime(30);
+                data.addToCapital(1_000.0 * r + month * 0.37);
+                data.addToReturned(month * 1.5 - r);
+                data.addToWithdrawn(0.05 * month);
+                data.addToTax(0.125);
+                data.addToNetEarnings(150.75);
+                run.append(data);
+            }
+            results.add(run);
+        }
+        return results;
+    }
+
+    @Test
+    public void streamedOutputMatchesTheFileExport(@TempDir Path dir) throws Exception {
+        // Enough runs for several chunks, with a window smaller than the chunk count
+        List<IRunResult> results = results(3 * StreamingCsvExporter.RUNS_PER_CHUNK + 5);
+        Path file = dir.resolve("expected.csv");
+        CsvExporter.exportResultsToCsv(results, file.toString());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StreamingCsvExporter.write(results, out, ExportSlice.ALL, executor, 2);
+            assertArrayEquals(Files.readAllBytes(file), out.toByteArray());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sliceKeepsSelectedPathsAndYears() throws Exception {
+        List<IRunResult> results = results(20);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingCsvExporter.write(results, out, ExportSlice.parse("3-4", "1"));
+
+        List<String> expected = new ArrayList<>();
+        expected.add(CsvExporter.HEADER);
+        for (int path = 3; path <= 4; path++) {
+            ColumnarRunResult run = (ColumnarRunResult) results.get(path);
+            for (int row = 0; row < run.size(); row++) {
+                if (CsvRowEncoder.yearsSinceStart(run, row) == 1) expected.add(CsvExporter.toCsvRow(run, row));
+            }
+        }
+        assertEquals(expected, out.toString().lines().toList());
+        assertTrue(expected.size() > 3);
+    }
+
+    @Test
+    public void emptyResultsWriteOnlyTheHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingCsvExporter.write(List.of(), out);
+        assertArrayEquals((CsvExporter.HEADER + System.lineSeparator()).getBytes(), out.toByteArray());
+    }
+}
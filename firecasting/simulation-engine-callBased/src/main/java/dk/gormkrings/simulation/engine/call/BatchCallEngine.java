@@ -0,0 +1,279 @@
+package dk.gormkrings.simulation.engine.call;
+
+import dk.gormkrings.calendar.CalendarTable;
+import dk.gormkrings.data.IDate;
+import dk.gormkrings.data.ILiveData;
+import dk.gormkrings.engine.IBatchEngine;
+import dk.gormkrings.factory.IDateFactory;
+import dk.gormkrings.factory.IResultFactory;
+import dk.gormkrings.factory.ISnapshotFactory;
+import dk.gormkrings.phase.ICallPhase;
+import dk.gormkrings.phase.IPhase;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.returns.IReturner;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Call-based engine that advances a block of paths in lock-step.
+ *
+ * <p>The calendar is walked once per block. Month and year boundaries are dispatched to every path's
+ * phase exactly as {@link CallEngine} does. The ordinary days between two boundaries are applied in
+ * bulk: capital, returns and the last day's return are gathered into {@code double[]} lanes, each
+ * path's log-returns for the whole run are drawn into a reusable buffer via
+ * {@link IReturner#sampleLogReturns}, and compounding runs as a tight loop before the lanes are
+ * written back. Phases whose day hooks do more than apply the return fall back to per-day calls.</p>
+ *
+ * <p>Each path keeps its own random streams, so results are deterministic for a fixed seed. Bulk
+ * normal sampling uses both Box-Muller outputs, so seeded results differ from {@code callEngine}.</p>
+ */
+@Setter
+@Getter
+@Slf4j
+@Service("batchEngine")
+@Scope("prototype")
+public class BatchCallEngine implements IBatchEngine {
+
+    private IDateFactory dateFactory;
+    private IResultFactory resultFactory;
+    private ISnapshotFactory snapshotFactory;
+    private int lanes;
+
+    public BatchCallEngine(
+            IDateFactory dateFactory,
+            IResultFactory resultFactory,
+            ISnapshotFactory snapshotFactory,
+            @Value("${simulation.engine.batch.lanes:256}") int lanes
+    ) {
+        this.dateFactory = dateFactory;
+        this.resultFactory = resultFactory;
+        this.snapshotFactory = snapshotFactory;
+        this.lanes = Math.max(1, lanes);
+    }
+
+    @Override
+    public IRunResult simulatePhases(List<IPhase> phaseCopies) {
+        return simulateBatch(List.of(phaseCopies)).getFirst();
+    }
+
+    @Override
+    public List<IRunResult> simulateBatch(List<List<IPhase>> paths) {
+        int n = paths.size();
+        List<IRunResult> results = new ArrayList<>(n);
+        if (n == 0) return results;
+
+        int phaseCount = paths.getFirst().size();
+        for (List<IPhase> path : paths) {
+            if (path.size() != phaseCount) {
+                throw new IllegalArgumentException("All paths in a batch must have the same phases");
+            }
+            results.add(resultFactory.newResult(CallEngine.expectedSnapshots(path)));
+        }
+
+        Lanes state = new Lanes(n);
+        ICallPhase[] phases = new ICallPhase[n];
+        for (int p = 0; p < phaseCount; p++) {
+            for (int l = 0; l < n; l++) phases[l] = (ICallPhase) paths.get(l).get(p);
+            simulatePhase(phases, results, state);
+        }
+        return results;
+    }
+
+    private void simulatePhase(ICallPhase[] phases, List<IRunResult> results, Lanes state) {
+        ICallPhase lead = phases[0];
+        log.debug("Batch of {} paths running for {} days", phases.length, lead.getDuration());
+        IDate startDate = lead.getStartDate();
+
+        int currentEpochDay = startDate.getEpochDay() - 1;
+        final int startEpochDay = currentEpochDay;
+        int finalEpochDay = (int) (startEpochDay + lead.getDuration());
+
+        int nextMonthStartEpochDay = CalendarTable.nextMonthStart(startDate.getEpochDay());
+        int currentMonthEndEpochDay = CalendarTable.nextMonthEnd(startDate.getEpochDay());
+        int nextYearStartEpochDay = CalendarTable.nextYearStart(startDate.getEpochDay());
+        int currentYearEndEpochDay = CalendarTable.nextYearEnd(startDate.getEpochDay());
+
+        for (ICallPhase phase : phases) phase.onPhaseStart();
+
+        while (currentEpochDay < finalEpochDay) {
+            // Days before the next boundary only see onDayStart/onDayEnd, so they can run in bulk.
+            int boundary = finalEpochDay + 1;
+            boundary = nextBoundary(boundary, currentEpochDay, nextMonthStartEpochDay);
+            boundary = nextBoundary(boundary, currentEpochDay, currentMonthEndEpochDay);
+            boundary = nextBoundary(boundary, currentEpochDay, nextYearStartEpochDay);
+            boundary = nextBoundary(boundary, currentEpochDay, currentYearEndEpochDay);
+            int ordinaryDays = Math.min(boundary - 1, finalEpochDay) - currentEpochDay;
+            if (ordinaryDays > 0) {
+                runOrdinaryDays(phases, ordinaryDays, state);
+                currentEpochDay += ordinaryDays;
+                if (currentEpochDay >= finalEpochDay) break;
+            }
+
+            currentEpochDay++;
+            boolean monthStart = currentEpochDay == nextMonthStartEpochDay && currentEpochDay != startEpochDay;
+            boolean monthEnd = currentEpochDay == currentMonthEndEpochDay;
+            boolean yearStart = currentEpochDay == nextYearStartEpochDay && currentEpochDay != startEpochDay;
+            boolean yearEnd = currentEpochDay == currentYearEndEpochDay;
+
+            for (int l = 0; l < phases.length; l++) {
+                ICallPhase phase = phases[l];
+                phase.getLiveData().incrementTime();
+                phase.onDayStart();
+                if (monthStart) phase.onMonthStart();
+                if (monthEnd) phase.onMonthEnd();
+                if (yearStart) phase.onYearStart();
+                if (yearEnd) {
+                    phase.onYearEnd();
+                    snapshotFactory.record(results.get(l), (ILiveData) phase.getLiveData());
+                }
+                phase.onDayEnd();
+            }
+
+            // Boundaries are shared by every path, so they are advanced once per batch.
+            if (monthStart) nextMonthStartEpochDay = CalendarTable.nextMonthStart(currentEpochDay);
+            if (monthEnd) currentMonthEndEpochDay = CalendarTable.nextMonthEnd(currentEpochDay);
+            if (yearStart) nextYearStartEpochDay = CalendarTable.nextYearStart(currentEpochDay);
+            if (yearEnd) currentYearEndEpochDay = CalendarTable.nextYearEnd(currentEpochDay);
+        }
+
+        for (int l = 0; l < phases.length; l++) {
+            ICallPhase phase = phases[l];
+            phase.onPhaseEnd();
+            snapshotFactory.record(results.get(l), (ILiveData) phase.getLiveData());
+            phase.getLiveData().resetSession();
+        }
+    }
+
+    private static int nextBoundary(int boundary, int currentEpochDay, int candidate) {
+        return candidate > currentEpochDay && candidate < boundary ? candidate : boundary;
+    }
+
+    private void runOrdinaryDays(ICallPhase[] phases, int days, Lanes state) {
+        int n = phases.length;
+        ICallPhase lead = phases[0];
+
+        // Every path is a copy of the same phase, so return days are shared.
+        boolean[] returnDays = state.returnDays(days);
+        int returnDayCount = 0;
+        long session = lead.getLiveData().getSessionDuration();
+        for (int d = 0; d < days; d++) {
+            returnDays[d] = lead.isReturnDay(session + d + 1);
+            if (returnDays[d]) returnDayCount++;
+        }
+
+        // Gather
+        for (int l = 0; l < n; l++) {
+            ICallPhase phase = phases[l];
+            state.bulk[l] = phase.dayEndOnlyAppliesReturn();
+            if (!state.bulk[l]) {
+                for (int d = 0; d < days; d++) {
+                    phase.getLiveData().incrementTime();
+                    phase.onDayStart();
+                    phase.onDayEnd();
+                }
+                continue;
+            }
+            ILiveData data = (ILiveData) phase.getLiveData();
+            state.capital[l] = data.getCapital();
+            state.returned[l] = data.getReturned();
+            state.currentReturn[l] = data.getCurrentReturn();
+            data.incrementTime(days);
+        }
+
+        if (returnDayCount > 0) {
+            double[] draws = state.draws(returnDayCount);
+            for (int l = 0; l < n; l++) {
+                if (!state.bulk[l] || state.capital[l] <= 0) continue;
+                IReturner returner = phases[l].getSpecification().getReturner();
+                if (returner.sampleLogReturns(draws, returnDayCount)) {
+                    compound(state, l, returnDays, days, draws);
+                } else {
+                    compound(state, l, returnDays, days, returner);
+                }
+            }
+        }
+
+        // Scatter
+        for (int l = 0; l < n; l++) {
+            if (!state.bulk[l]) continue;
+            ((ILiveData) phases[l].getLiveData())
+                    .setMarketState(state.capital[l], state.returned[l], state.currentReturn[l]);
+        }
+    }
+
+    // Same arithmetic as ISimulationPhase.addReturn with a log-return based returner.
+    private static void compound(Lanes state, int lane, boolean[] returnDays, int days, double[] draws) {
+        double capital = state.capital[lane];
+        double returned = state.returned[lane];
+        double current = state.currentReturn[lane];
+        int k = 0;
+        for (int d = 0; d < days; d++) {
+            if (!returnDays[d]) continue;
+            if (capital <= 0) break;
+            double r = capital * Math.exp(draws[k++]) - capital;
+            current = r;
+            returned += r;
+            capital += r;
+        }
+        state.capital[lane] = capital;
+        state.returned[lane] = returned;
+        state.currentReturn[lane] = current;
+    }
+
+    private static void compound(Lanes state, int lane, boolean[] returnDays, int days, IReturner returner) {
+        double capital = state.capital[lane];
+        double returned = state.returned[lane];
+        double current = state.currentReturn[lane];
+        for (int d = 0; d < days; d++) {
+            if (!returnDays[d]) continue;
+            if (capital <= 0) break;
+            double r = returner.calculateReturn(capital);
+            current = r;
+            returned += r;
+            capital += r;
+        }
+        state.capital[lane] = capital;
+        state.returned[lane] = returned;
+        state.currentReturn[lane] = current;
+    }
+
+    @Override
+    public void init(List<IPhase> phases) {
+
+    }
+
+    /** Per-batch lane arrays and scratch buffers; never shared between threads. */
+    private static final class Lanes {
+        final double[] capital;
+        final double[] returned;
+        final double[] currentReturn;
+        final boolean[] bulk;
+        private boolean[] returnDays = new boolean[32];
+        private double[] draws = new double[32];
+
+        Lanes(int n) {
+            capital = new double[n];
+            returned = new double[n];
+            currentReturn = new double[n];
+            bulk = new boolean[n];
+        }
+
+        boolean[] returnDays(int days) {
+            if (returnDays.length < days) returnDays = new boolean[days];
+            return returnDays;
+        }
+
+        double[] draws(int count) {
+            if (draws.length < count) draws = Arrays.copyOf(draws, count);
+            return draws;
+        }
+    }
+}
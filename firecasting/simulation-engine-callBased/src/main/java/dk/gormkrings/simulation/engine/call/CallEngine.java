@@ -1,5 +1,6 @@
 package dk.gormkrings.simulation.engine.call;
 
+import dk.gormkrings.calendar.CalendarTable;
 import dk.gormkrings.data.IDate;
 import dk.gormkrings.data.ILiveData;
 import dk.gormkrings.engine.IEngine;
@@ -35,16 +36,24 @@ public class CallEngine implements IEngine {
     }
 
     public IRunResult simulatePhases(List<IPhase> phaseCopies) {
-        IRunResult result = resultFactory.newResult();
+        IRunResult result = resultFactory.newResult(expectedSnapshots(phaseCopies));
         for (IPhase phase : phaseCopies) {
-            result.addResult(simulatePhase((ICallPhase) phase));
+            simulatePhase((ICallPhase) phase, result);
         }
         return result;
     }
 
-    private IRunResult simulatePhase(ICallPhase phase) {
+    // One snapshot per year end plus one at each phase end, so results can be sized up front.
+    static int expectedSnapshots(List<IPhase> phases) {
+        long expected = 0;
+        for (IPhase phase : phases) {
+            expected += phase.getDuration() / 365 + 2;
+        }
+        return (int) Math.min(expected, Integer.MAX_VALUE);
+    }
+
+    private void simulatePhase(ICallPhase phase, IRunResult result) {
         log.debug("Simulation running for {} days", phase.getDuration());
-        IRunResult result = resultFactory.newResult();
         IDate startDate = phase.getStartDate();
 
         // Precompute boundaries using epoch day values.
@@ -53,10 +62,10 @@ public class CallEngine implements IEngine {
         // Compute final epoch day from phase duration.
         int finalEpochDay = (int) (startEpochDay + phase.getDuration());
 
-        int nextMonthStartEpochDay = startDate.computeNextMonthStart();
-        int currentMonthEndEpochDay = startDate.computeNextMonthEnd();
-        int nextYearStartEpochDay = startDate.computeNextYearStart();
-        int currentYearEndEpochDay = startDate.computeNextYearEnd();
+        int nextMonthStartEpochDay = CalendarTable.nextMonthStart(startDate.getEpochDay());
+        int currentMonthEndEpochDay = CalendarTable.nextMonthEnd(startDate.getEpochDay());
+        int nextYearStartEpochDay = CalendarTable.nextYearStart(startDate.getEpochDay());
+        int currentYearEndEpochDay = CalendarTable.nextYearEnd(startDate.getEpochDay());
 
         // Sim init methods here
         phase.onPhaseStart();
@@ -71,39 +80,34 @@ public class CallEngine implements IEngine {
             if (currentEpochDay == nextMonthStartEpochDay && currentEpochDay != startEpochDay) {
                 phase.onMonthStart();
                 // Update boundary for next month start.
-                IDate newCurrentDate = dateFactory.fromEpochDay(currentEpochDay);
-                nextMonthStartEpochDay = newCurrentDate.computeNextMonthStart();
+                nextMonthStartEpochDay = CalendarTable.nextMonthStart(currentEpochDay);
             }
 
             // Call Month End Methods.
             if (currentEpochDay == currentMonthEndEpochDay) {
                 phase.onMonthEnd();
                 // Update boundary for month end.
-                IDate nextDay = dateFactory.fromEpochDay(currentEpochDay);
-                currentMonthEndEpochDay = nextDay.computeNextMonthEnd();
+                currentMonthEndEpochDay = CalendarTable.nextMonthEnd(currentEpochDay);
             }
 
             // Call Year Start Methods.
             if (currentEpochDay == nextYearStartEpochDay && currentEpochDay != startEpochDay) {
                 phase.onYearStart();
-                IDate newCurrentDate = dateFactory.fromEpochDay(currentEpochDay);
-                nextYearStartEpochDay = newCurrentDate.computeNextYearStart();
+                nextYearStartEpochDay = CalendarTable.nextYearStart(currentEpochDay);
             }
 
             // Call Year End Methods.
             if (currentEpochDay == currentYearEndEpochDay) {
                 phase.onYearEnd();
-                IDate nextDay = dateFactory.fromEpochDay(currentEpochDay);
-                currentYearEndEpochDay = nextDay.computeNextYearEnd();
-                result.addSnapshot(snapshotFactory.snapshot((ILiveData) phase.getLiveData()));
+                currentYearEndEpochDay = CalendarTable.nextYearEnd(currentEpochDay);
+                snapshotFactory.record(result, (ILiveData) phase.getLiveData());
             }
             phase.onDayEnd();
         }
         phase.onPhaseEnd();
 
-        result.addSnapshot(snapshotFactory.snapshot((ILiveData) phase.getLiveData()));
+        snapshotFactory.record(result, (ILiveData) phase.getLiveData());
         phase.getLiveData().resetSession();
-        return result;
     }
 
     @Override
@@ -1,5 +1,6 @@
 package dk.gormkrings.simulation.engine.event;
 
+import dk.gormkrings.calendar.CalendarTable;
 import dk.gormkrings.data.IDate;
 import dk.gormkrings.data.ILiveData;
 import dk.gormkrings.engine.IEngine;
@@ -35,17 +36,16 @@ public class EventEngine implements IEngine {
     }
 
     public IRunResult simulatePhases(List<IPhase> phaseCopies) {
-        IRunResult result = resultFactory.newResult();
-        result.addSnapshot(snapshotFactory.snapshot((ILiveData) phaseCopies.getFirst().getLiveData()));
+        IRunResult result = resultFactory.newResult(phaseCopies.size() + 1);
+        snapshotFactory.record(result, (ILiveData) phaseCopies.getFirst().getLiveData());
         for (IPhase phase : phaseCopies) {
-            result.addResult(simulatePhase((IEventPhase) phase));
+            simulatePhase((IEventPhase) phase, result);
         }
         return result;
     }
 
-    private IRunResult simulatePhase(IEventPhase phase) {
+    private void simulatePhase(IEventPhase phase, IRunResult result) {
         log.debug("Simulation running for {} days", phase.getDuration());
-        IRunResult result = resultFactory.newResult();
         ILiveData data = (ILiveData) phase.getLiveData();
         IDate startDate = phase.getStartDate();
         EventDispatcher dispatcher = new EventDispatcher(new SimpleApplicationEventMulticaster());
@@ -60,10 +60,10 @@ public class EventEngine implements IEngine {
         // Compute final epoch day from phase duration.
         int finalEpochDay = (int) (startEpochDay + phase.getDuration());
 
-        int nextMonthStartEpochDay = startDate.computeNextMonthStart();
-        int currentMonthEndEpochDay = startDate.computeNextMonthEnd();
-        int nextYearStartEpochDay = startDate.computeNextYearStart();
-        int currentYearEndEpochDay = startDate.computeNextYearEnd();
+        int nextMonthStartEpochDay = CalendarTable.nextMonthStart(startDate.getEpochDay());
+        int currentMonthEndEpochDay = CalendarTable.nextMonthEnd(startDate.getEpochDay());
+        int nextYearStartEpochDay = CalendarTable.nextYearStart(startDate.getEpochDay());
+        int currentYearEndEpochDay = CalendarTable.nextYearEnd(startDate.getEpochDay());
 
         // Create reusable event objects.
         DayEvent dayEvent = new DayEvent(this);
@@ -84,40 +84,35 @@ public class EventEngine implements IEngine {
             if (currentEpochDay == nextMonthStartEpochDay && currentEpochDay != startEpochDay) {
                 dispatcher.notifyListeners(monthEventStart);
                 // Update boundary for next month start.
-                IDate newCurrentDate = dateFactory.fromEpochDay(currentEpochDay);
-                nextMonthStartEpochDay = newCurrentDate.computeNextMonthStart();
+                nextMonthStartEpochDay = CalendarTable.nextMonthStart(currentEpochDay);
             }
 
             // Publish Month End Event.
             if (currentEpochDay == currentMonthEndEpochDay) {
                 dispatcher.notifyListeners(monthEventEnd);
                 // Update boundary for month end.
-                IDate nextDay = dateFactory.fromEpochDay(currentEpochDay);
-                currentMonthEndEpochDay = nextDay.computeNextMonthEnd();
+                currentMonthEndEpochDay = CalendarTable.nextMonthEnd(currentEpochDay);
             }
 
             // Publish Year Start Event.
             if (currentEpochDay == nextYearStartEpochDay && currentEpochDay != startEpochDay) {
                 dispatcher.notifyListeners(yearEventStart);
-                IDate newCurrentDate = dateFactory.fromEpochDay(currentEpochDay);
-                nextYearStartEpochDay = newCurrentDate.computeNextYearStart();
+                nextYearStartEpochDay = CalendarTable.nextYearStart(currentEpochDay);
             }
 
             // Publish Year End Event.
             if (currentEpochDay == currentYearEndEpochDay) {
                 dispatcher.notifyListeners(yearEventEnd);
-                IDate nextDay = dateFactory.fromEpochDay(currentEpochDay);
-                currentYearEndEpochDay = nextDay.computeNextYearEnd();
+                currentYearEndEpochDay = CalendarTable.nextYearEnd(currentEpochDay);
             }
         }
 
         RunEvent simEnd = new RunEvent(this, Type.END);
         dispatcher.notifyListeners(simEnd);
 
-        result.addSnapshot(snapshotFactory.snapshot(data));
+        snapshotFactory.record(result, data);
         data.resetSession();
         dispatcher.clearRegistrations();
-        return result;
     }
 
     @Override
@@ -3,7 +3,6 @@ package dk.gormkrings.simulation.engine.schedule;
 import dk.gormkrings.data.IDate;
 import dk.gormkrings.engine.schedule.ISchedule;
 import dk.gormkrings.engine.schedule.IScheduleFactory;
-import dk.gormkrings.engine.schedule.IScheduleEvent;
 import dk.gormkrings.event.EventType;
 import dk.gormkrings.factory.IDateFactory;
 import dk.gormkrings.phase.ICallPhase;
@@ -12,7 +11,6 @@ import lombok.Getter;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -26,22 +24,23 @@ public class DefaultScheduleFactory implements IScheduleFactory {
     private int yearEndEpoch;
     private int finalEpoch;
     private int currentEpoch;
-    private List<IScheduleEvent> events;
+    private Schedule.Builder events;
     private final IDateFactory dateFactory;
     @Getter
-    private ISchedule schedule;
+    private volatile ISchedule schedule;
 
     public DefaultScheduleFactory(IDateFactory dateFactory) {
         this.dateFactory = dateFactory;
     }
 
-    public ISchedule build(List<IPhase> phases) {
+    public synchronized ISchedule build(List<IPhase> phases) {
         if (schedule != null) return schedule;
-        events = new ArrayList<>();
+        events = new Schedule.Builder();
         for (IPhase phase : phases) {
             buildSchedule((ICallPhase) phase);
         }
-        schedule = new Schedule(events);
+        schedule = events.build();
+        events = null;
         return schedule;
     }
 
@@ -76,8 +75,8 @@ public class DefaultScheduleFactory implements IScheduleFactory {
         addEvent(EventType.PHASE_START);
         // Loop over each day in the phase.
         while (currentEpoch < finalEpoch) {
-            checkDayStartEvent(supportDayStart);
-            checkDayEndEvent(supportDayEnd);
+            // Ordinary days are folded into one run segment by the builder.
+            events.day(currentEpoch, supportDayStart, supportDayEnd);
             checkWeekStartEvent(supportWeekStart);
             checkWeekEndEvent(supportWeekEnd);
             checkMonthStartEvent(supportMonthStart);
@@ -87,7 +86,7 @@ public class DefaultScheduleFactory implements IScheduleFactory {
             currentEpoch++; // Advance one day.
         }
         int phaseEndEpoch = currentEpoch == 0 ? currentEpoch : currentEpoch - 1;
-        events.add(new ScheduleEvent(phaseEndEpoch, EventType.PHASE_END));
+        events.add(phaseEndEpoch, EventType.PHASE_END);
     }
 
     private void checkYearEndEvent(boolean supportYearEnd) {
@@ -144,19 +143,7 @@ public class DefaultScheduleFactory implements IScheduleFactory {
         this.nextWeekStartEpoch = newDate.computeNextWeekStart();
     }
 
-    private void checkDayEndEvent(boolean supportDayEnd) {
-        // Check for DAY_END event.
-        if (!supportDayEnd) return;
-        addEvent(EventType.DAY_END);
-    }
-
-    private void checkDayStartEvent(boolean supportDayStart) {
-        // Check for DAY_START event.
-        if (!supportDayStart) return;
-        addEvent(EventType.DAY_START);
-    }
-
     private void addEvent(EventType eventType) {
-        events.add(new ScheduleEvent(currentEpoch, eventType));
+        events.add(currentEpoch, eventType);
     }
 }
@@ -2,15 +2,156 @@ package dk.gormkrings.simulation.engine.schedule;
 
 import dk.gormkrings.engine.schedule.ISchedule;
 import dk.gormkrings.engine.schedule.IScheduleEvent;
-import lombok.Getter;
+import dk.gormkrings.event.EventType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-@Getter
-public class Schedule implements ISchedule {
-    private final List<IScheduleEvent> events;
+/**
+ * Immutable, precompiled schedule stored as flat primitive segments instead of one event object per day.
+ *
+ * <p>Each segment is an epoch, a code and a count. Codes {@code 0..9} are single {@link EventType}
+ * events (by ordinal, count 1). The three day codes describe a run of {@code count} consecutive days
+ * that carry nothing but day-start and/or day-end events, so a 100-year horizon compiles to a few
+ * thousand segments rather than ~36k events. A built schedule never changes and can be shared by every
+ * thread of a simulation.</p>
+ *
+ * <p>{@link #getEvents()} expands the segments into the equivalent event list on first use; the engine
+ * walks the segments directly.</p>
+ */
+public final class Schedule implements ISchedule {
+    static final byte DAYS_START = 10;
+    static final byte DAYS_END = 11;
+    static final byte DAYS_START_END = 12;
 
+    private static final EventType[] TYPES = EventType.values();
+
+    private final int[] epochs;
+    private final byte[] codes;
+    private final int[] counts;
+    private final int segments;
+    private volatile List<IScheduleEvent> events;
+
+    private Schedule(int[] epochs, byte[] codes, int[] counts, int segments) {
+        this.epochs = epochs;
+        this.codes = codes;
+        this.counts = counts;
+        this.segments = segments;
+    }
+
+    /** Compiles the events of {@code events} one-to-one, without folding day runs. */
     public Schedule(List<IScheduleEvent> events) {
-        this.events = events;
+        Builder builder = new Builder(events.size());
+        for (IScheduleEvent event : events) builder.add(event.getEpoch(), event.getType());
+        this.epochs = builder.epochs;
+        this.codes = builder.codes;
+        this.counts = builder.counts;
+        this.segments = builder.size;
+    }
+
+    /** Returns {@code schedule} itself if it is already compiled, otherwise a compiled copy of its events. */
+    public static Schedule of(ISchedule schedule) {
+        if (schedule instanceof Schedule compiled) return compiled;
+        return new Schedule(schedule.getEvents());
+    }
+
+    public int segments() {
+        return segments;
+    }
+
+    public int epoch(int segment) {
+        return epochs[segment];
+    }
+
+    public byte code(int segment) {
+        return codes[segment];
+    }
+
+    public int count(int segment) {
+        return counts[segment];
+    }
+
+    @Override
+    public List<IScheduleEvent> getEvents() {
+        List<IScheduleEvent> expanded = events;
+        if (expanded == null) {
+            expanded = Collections.unmodifiableList(expand());
+            events = expanded;
+        }
+        return expanded;
+    }
+
+    private List<IScheduleEvent> expand() {
+        List<IScheduleEvent> out = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            byte code = codes[i];
+            if (code < DAYS_START) {
+                out.add(new ScheduleEvent(epochs[i], TYPES[code]));
+                continue;
+            }
+            for (int d = 0; d < counts[i]; d++) {
+                int epoch = epochs[i] + d;
+                if (code != DAYS_END) out.add(new ScheduleEvent(epoch, EventType.DAY_START));
+                if (code != DAYS_START) out.add(new ScheduleEvent(epoch, EventType.DAY_END));
+            }
+        }
+        return out;
+    }
+
+    /** Collects segments; consecutive calls to {@link #day} extend the current day run. */
+    static final class Builder {
+        private int[] epochs;
+        private byte[] codes;
+        private int[] counts;
+        private int size;
+
+        Builder() {
+            this(64);
+        }
+
+        Builder(int capacity) {
+            int initial = Math.max(1, capacity);
+            this.epochs = new int[initial];
+            this.codes = new byte[initial];
+            this.counts = new int[initial];
+        }
+
+        void add(int epoch, EventType type) {
+            append(epoch, (byte) type.ordinal());
+        }
+
+        void day(int epoch, boolean dayStart, boolean dayEnd) {
+            if (!dayStart && !dayEnd) return;
+            byte code = dayStart ? (dayEnd ? DAYS_START_END : DAYS_START) : DAYS_END;
+            int last = size - 1;
+            if (last >= 0 && codes[last] == code && epochs[last] + counts[last] == epoch) {
+                counts[last]++;
+                return;
+            }
+            append(epoch, code);
+        }
+
+        Schedule build() {
+            return new Schedule(
+                    Arrays.copyOf(epochs, size),
+                    Arrays.copyOf(codes, size),
+                    Arrays.copyOf(counts, size),
+                    size);
+        }
+
+        private void append(int epoch, byte code) {
+            if (size == codes.length) {
+                int capacity = size + (size >> 1) + 1;
+                epochs = Arrays.copyOf(epochs, capacity);
+                codes = Arrays.copyOf(codes, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            epochs[size] = epoch;
+            codes[size] = code;
+            counts[size] = 1;
+            size++;
+        }
     }
 }
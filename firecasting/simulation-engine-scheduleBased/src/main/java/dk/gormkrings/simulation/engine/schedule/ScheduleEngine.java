@@ -1,10 +1,11 @@
 package dk.gormkrings.simulation.engine.schedule;
 
+import dk.gormkrings.data.ILive;
 import dk.gormkrings.data.ILiveData;
 import dk.gormkrings.engine.IEngine;
 import dk.gormkrings.engine.schedule.ISchedule;
-import dk.gormkrings.engine.schedule.IScheduleEvent;
 import dk.gormkrings.engine.schedule.IScheduleFactory;
+import dk.gormkrings.event.EventType;
 import dk.gormkrings.factory.IResultFactory;
 import dk.gormkrings.factory.ISnapshotFactory;
 import dk.gormkrings.phase.ICallPhase;
@@ -22,70 +23,95 @@ import java.util.List;
 @Service("scheduleEngine")
 @Scope("prototype")
 public class ScheduleEngine implements IEngine {
+    private static final byte PHASE_START = (byte) EventType.PHASE_START.ordinal();
+    private static final byte DAY_START = (byte) EventType.DAY_START.ordinal();
+    private static final byte DAY_END = (byte) EventType.DAY_END.ordinal();
+    private static final byte WEEK_START = (byte) EventType.WEEK_START.ordinal();
+    private static final byte WEEK_END = (byte) EventType.WEEK_END.ordinal();
+    private static final byte MONTH_START = (byte) EventType.MONTH_START.ordinal();
+    private static final byte MONTH_END = (byte) EventType.MONTH_END.ordinal();
+    private static final byte YEAR_START = (byte) EventType.YEAR_START.ordinal();
+    private static final byte YEAR_END = (byte) EventType.YEAR_END.ordinal();
+    private static final byte PHASE_END = (byte) EventType.PHASE_END.ordinal();
+
     private IResultFactory resultFactory;
     private ISnapshotFactory snapshotFactory;
-    private static IScheduleFactory scheduleFactory;
+    private IScheduleFactory scheduleFactory;
 
     public ScheduleEngine(IResultFactory resultFactory, ISnapshotFactory snapshotFactory, IScheduleFactory scheduleFactory) {
         this.resultFactory = resultFactory;
         this.snapshotFactory = snapshotFactory;
-        ScheduleEngine.scheduleFactory = scheduleFactory;
+        this.scheduleFactory = scheduleFactory;
     }
 
     @Override
     public IRunResult simulatePhases(List<IPhase> phaseCopies) {
-        ISchedule schedule = scheduleFactory.getSchedule();
+        ISchedule built = scheduleFactory.getSchedule();
         IRunResult result = resultFactory.newResult();
         ICallPhase currentPhase = (ICallPhase) phaseCopies.removeFirst();
+        Schedule schedule = Schedule.of(built);
         boolean simStart = true;
 
-        for (IScheduleEvent event : schedule.getEvents()) {
-            switch (event.getType()) {
-                case DAY_START:
-                    currentPhase.onDayStart();
-                    break;
-                case DAY_END:
-                    currentPhase.getLiveData().incrementTime();
-                    currentPhase.onDayEnd();
-                    break;
-                case WEEK_START:
-                    currentPhase.onWeekStart();
-                    break;
-                case WEEK_END:
-                    currentPhase.onWeekEnd();
-                    break;
-                case MONTH_START:
-                    currentPhase.onMonthStart();
-                    break;
-                case MONTH_END:
-                    currentPhase.onMonthEnd();
-                    break;
-                case YEAR_START:
-                    currentPhase.onYearStart();
-                    break;
-                case YEAR_END:
-                    currentPhase.onYearEnd();
-                    result.addSnapshot(snapshotFactory.snapshot((ILiveData) currentPhase.getLiveData()));
-                    break;
-                case PHASE_START:
-                    currentPhase.onPhaseStart();
-                    if (simStart) {
-                        result.addSnapshot(snapshotFactory.snapshot((ILiveData) currentPhase.getLiveData()));
-                        simStart = false;
-                    }
-                    break;
-                case PHASE_END:
-                    currentPhase.onPhaseEnd();
-                    if (!phaseCopies.isEmpty()) {
-                        currentPhase = (ICallPhase) phaseCopies.removeFirst();
-                        currentPhase.getLiveData().resetSession();
-                    }
-                    break;
+        for (int i = 0, n = schedule.segments(); i < n; i++) {
+            byte code = schedule.code(i);
+            if (code >= Schedule.DAYS_START) {
+                runDays(currentPhase, code, schedule.count(i));
+            } else if (code == DAY_START) {
+                currentPhase.onDayStart();
+            } else if (code == DAY_END) {
+                currentPhase.getLiveData().incrementTime();
+                currentPhase.onDayEnd();
+            } else if (code == WEEK_START) {
+                currentPhase.onWeekStart();
+            } else if (code == WEEK_END) {
+                currentPhase.onWeekEnd();
+            } else if (code == MONTH_START) {
+                currentPhase.onMonthStart();
+            } else if (code == MONTH_END) {
+                currentPhase.onMonthEnd();
+            } else if (code == YEAR_START) {
+                currentPhase.onYearStart();
+            } else if (code == YEAR_END) {
+                currentPhase.onYearEnd();
+                snapshotFactory.record(result, (ILiveData) currentPhase.getLiveData());
+            } else if (code == PHASE_START) {
+                currentPhase.onPhaseStart();
+                if (simStart) {
+                    snapshotFactory.record(result, (ILiveData) currentPhase.getLiveData());
+                    simStart = false;
+                }
+            } else if (code == PHASE_END) {
+                currentPhase.onPhaseEnd();
+                if (!phaseCopies.isEmpty()) {
+                    currentPhase = (ICallPhase) phaseCopies.removeFirst();
+                    currentPhase.getLiveData().resetSession();
+                }
             }
         }
         return result;
     }
 
+    /** Runs {@code days} ordinary days back to back without going through the event dispatch. */
+    private static void runDays(ICallPhase phase, byte code, int days) {
+        if (code == Schedule.DAYS_START) {
+            for (int d = 0; d < days; d++) phase.onDayStart();
+            return;
+        }
+        ILive liveData = phase.getLiveData();
+        if (code == Schedule.DAYS_END) {
+            for (int d = 0; d < days; d++) {
+                liveData.incrementTime();
+                phase.onDayEnd();
+            }
+        } else {
+            for (int d = 0; d < days; d++) {
+                phase.onDayStart();
+                liveData.incrementTime();
+                phase.onDayEnd();
+            }
+        }
+    }
+
     @Override
     public void init(List<IPhase> phases) {
         scheduleFactory.build(phases);
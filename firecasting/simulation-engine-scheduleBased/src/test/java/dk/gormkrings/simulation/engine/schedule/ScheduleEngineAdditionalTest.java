@@ -14,7 +14,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.lang.reflect.Field;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -40,7 +39,7 @@ public class ScheduleEngineAdditionalTest {
     private ILiveData liveData;
 
     @Test
-    public void testConstructorInitialization() throws Exception {
+    public void testConstructorInitialization() {
         // Create mocks for the dependencies
         IResultFactory resultFactory = mock(IResultFactory.class);
         ISnapshotFactory snapshotFactory = mock(ISnapshotFactory.class);
@@ -53,11 +52,7 @@ public class ScheduleEngineAdditionalTest {
         assertSame(resultFactory, engine.getResultFactory(), "ResultFactory should be assigned correctly");
         assertSame(snapshotFactory, engine.getSnapshotFactory(), "SnapshotFactory should be assigned correctly");
 
-        // Verify that the static scheduleFactory field is correctly assigned using reflection
-        Field staticField = ScheduleEngine.class.getDeclaredField("scheduleFactory");
-        staticField.setAccessible(true);
-        IScheduleFactory actualScheduleFactory = (IScheduleFactory) staticField.get(null); // null for static field
-        assertSame(scheduleFactory, actualScheduleFactory, "Static scheduleFactory should be assigned correctly");
+        assertSame(scheduleFactory, engine.getScheduleFactory(), "ScheduleFactory should be assigned correctly");
     }
 
     @Test
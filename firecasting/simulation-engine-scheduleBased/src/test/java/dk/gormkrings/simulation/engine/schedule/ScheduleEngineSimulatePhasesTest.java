@@ -19,12 +19,13 @@ import org.mockito.InOrder;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.Mock;
 
-import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -199,31 +200,50 @@ public class ScheduleEngineSimulatePhasesTest {
     }
 
     @Test
-    public void testStaticScheduleFactoryOverwritten() throws Exception {
-        // Create mocks for non-static dependencies.
+    public void testScheduleFactoryIsPerEngine() {
         IResultFactory resultFactory = mock(IResultFactory.class);
         ISnapshotFactory snapshotFactory = mock(ISnapshotFactory.class);
 
-        // Create two different mocks for scheduleFactory.
         IScheduleFactory scheduleFactory1 = mock(IScheduleFactory.class);
         IScheduleFactory scheduleFactory2 = mock(IScheduleFactory.class);
 
-        // Create first instance of ScheduleEngine using scheduleFactory1.
         ScheduleEngine engine1 = new ScheduleEngine(resultFactory, snapshotFactory, scheduleFactory1);
+        ScheduleEngine engine2 = new ScheduleEngine(resultFactory, snapshotFactory, scheduleFactory2);
 
-        // Use reflection to access the private static field "scheduleFactory".
-        Field staticField = ScheduleEngine.class.getDeclaredField("scheduleFactory");
-        staticField.setAccessible(true);
+        // Creating a second engine must not redirect the first one to another simulation's schedule.
+        assertSame(scheduleFactory1, engine1.getScheduleFactory(), "engine1 should keep scheduleFactory1");
+        assertSame(scheduleFactory2, engine2.getScheduleFactory(), "engine2 should use scheduleFactory2");
+    }
 
-        // Assert that the static scheduleFactory is scheduleFactory1.
-        assertSame(scheduleFactory1, staticField.get(null),
-                "The static scheduleFactory should be set to scheduleFactory1");
+    @Test
+    public void testOrdinaryDaysRunWithoutPerDayEvents() {
+        when(phase.supportsEvent(any())).thenReturn(false);
+        when(phase.supportsEvent(EventType.DAY_END)).thenReturn(true);
+        when(phase.supportsEvent(EventType.MONTH_END)).thenReturn(true);
 
-        // Create second instance of ScheduleEngine using scheduleFactory2.
-        ScheduleEngine engine2 = new ScheduleEngine(resultFactory, snapshotFactory, scheduleFactory2);
+        ISchedule built = scheduleFactory.build(List.of(phase));
+        Schedule schedule = (Schedule) built;
+
+        // PHASE_START, days 1-5, MONTH_END, days 6-10, PHASE_END
+        assertEquals(5, schedule.segments());
+        assertEquals(Schedule.DAYS_END, schedule.code(1));
+        assertEquals(5, schedule.count(1));
+        assertEquals(13, schedule.getEvents().size());
+
+        IRunResult result = mock(IRunResult.class);
+        when(resultFactory.newResult()).thenReturn(result);
+        ScheduleEngine engine = new ScheduleEngine(resultFactory, snapshotFactory, scheduleFactory);
+
+        List<IPhase> phaseList = new LinkedList<>();
+        phaseList.add(phase);
+        engine.simulatePhases(phaseList);
 
-        // Assert that the static scheduleFactory has been overwritten with scheduleFactory2.
-        assertSame(scheduleFactory2, staticField.get(null),
-                "The static scheduleFactory should now be overwritten with scheduleFactory2");
+        InOrder inOrder = inOrder(phase);
+        inOrder.verify(phase).onPhaseStart();
+        inOrder.verify(phase).onMonthEnd();
+        inOrder.verify(phase).onPhaseEnd();
+        verify(liveData, times(10)).incrementTime();
+        verify(phase, times(10)).onDayEnd();
+        verify(phase, never()).onDayStart();
     }
 }
@@ -0,0 +1,276 @@
+package dk.gormkrings.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MetricSummary inputs of a {@link RunAggregationSink}, laid out densely: (phase, year) -> one
+ * {@link QuantileSummary} per {@link Metric}, plus a row per phase and one for the whole run.
+ *
+ * <p>Phase names are interned to ids once per run and years are offsets from the first year a phase
+ * reached, so folding a snapshot indexes arrays instead of hashing keys and metric names. The per-run
+ * period accumulators live next to their rows and are reset lazily with a run stamp, so a run allocates
+ * nothing once the table has grown to the simulation's horizon (which the first run does).</p>
+ */
+final class MetricTable {
+
+    /** Reported metrics, declared in output order (by name). */
+    enum Metric {
+        CAPITAL, DEPOSIT, FEE, INFLATION, RETURN, TAX, WITHDRAW;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    @FunctionalInterface
+    interface SummaryVisitor {
+        void accept(String phaseName, Integer year, String metric, QuantileSummary values);
+    }
+
+    /** Flow sums and end-of-period values of one period in the current run. */
+    static final class PeriodAccumulator {
+        private final QuantileSummary[] into;
+        private long run;
+        double deposit;
+        double withdraw;
+        double tax;
+        double fee;
+        double ret;
+        boolean hasFlows;
+        double lastCapital;
+        double lastInflation;
+
+        private PeriodAccumulator(QuantileSummary[] into) {
+            this.into = into;
+        }
+
+        void addFlows(double deposit, double withdraw, double tax, double fee, double ret) {
+            this.deposit += deposit;
+            this.withdraw += withdraw;
+            this.tax += tax;
+            this.fee += fee;
+            this.ret += ret;
+            hasFlows = true;
+        }
+
+        private void reset(long run) {
+            this.run = run;
+            deposit = withdraw = tax = fee = ret = 0.0;
+            hasFlows = false;
+            lastCapital = Double.NaN;
+            lastInflation = Double.NaN;
+        }
+    }
+
+    /** Rows of one phase: per year (offset from {@link #firstYear}) and for the whole phase. */
+    private static final class PhaseRows {
+        final String name;
+        int firstYear;
+        QuantileSummary[][] years = new QuantileSummary[0][];
+        PeriodAccumulator[] periods = new PeriodAccumulator[0];
+        final QuantileSummary[] total = new QuantileSummary[METRICS.length];
+        final PeriodAccumulator totalPeriod = new PeriodAccumulator(total);
+
+        PhaseRows(String name) {
+            this.name = name;
+        }
+
+        PeriodAccumulator period(int year) {
+            int offset = offset(year);
+            PeriodAccumulator period = periods[offset];
+            if (period == null) {
+                years[offset] = new QuantileSummary[METRICS.length];
+                period = new PeriodAccumulator(years[offset]);
+                periods[offset] = period;
+            }
+            return period;
+        }
+
+        QuantileSummary[] row(int year) {
+            int offset = year - firstYear;
+            return offset < 0 || offset >= years.length ? null : years[offset];
+        }
+
+        int lastYear() {
+            return firstYear + years.length - 1;
+        }
+
+        private int offset(int year) {
+            if (years.length == 0) {
+                firstYear = year;
+                grow(0, 8);
+            } else if (year < firstYear) {
+                grow(firstYear - year, years.length + firstYear - year);
+                firstYear = year;
+            } else if (year - firstYear >= years.length) {
+                grow(0, Math.max(year - firstYear + 1, years.length + (years.length >> 1)));
+            }
+            return year - firstYear;
+        }
+
+        private void grow(int shift, int capacity) {
+            QuantileSummary[][] y = new QuantileSummary[capacity][];
+            PeriodAccumulator[] p = new PeriodAccumulator[capacity];
+            System.arraycopy(years, 0, y, shift, years.length);
+            System.arraycopy(periods, 0, p, shift, periods.length);
+            years = y;
+            periods = p;
+        }
+    }
+
+    private final QuantileEngine engine;
+    private final List<PhaseRows> phases = new ArrayList<>(4);
+    private final Map<String, Integer> phaseIds = new HashMap<>();
+    private final QuantileSummary[] overall = new QuantileSummary[METRICS.length];
+    private final PeriodAccumulator overallPeriod = new PeriodAccumulator(overall);
+
+    // Per-run state
+    private final List<PeriodAccumulator> touched = new ArrayList<>();
+    private int[] runPhaseIds = new int[4];
+    private long run;
+
+    MetricTable(QuantileEngine engine) {
+        this.engine = engine;
+    }
+
+    /** Starts a run and maps its phase names (in the run's own index order) to table phase ids. */
+    int[] beginRun(List<String> runPhaseNames) {
+        run++;
+        touched.clear();
+        overallPeriod.reset(run);
+        if (runPhaseIds.length < runPhaseNames.size()) runPhaseIds = new int[runPhaseNames.size()];
+        for (int i = 0; i < runPhaseNames.size(); i++) runPhaseIds[i] = phaseId(runPhaseNames.get(i));
+        return runPhaseIds;
+    }
+
+    PeriodAccumulator yearPeriod(int phaseId, int year) {
+        return touch(phases.get(phaseId).period(year));
+    }
+
+    PeriodAccumulator phasePeriod(int phaseId) {
+        return touch(phases.get(phaseId).totalPeriod);
+    }
+
+    PeriodAccumulator overallPeriod() {
+        return overallPeriod;
+    }
+
+    /** Appends the finished run's period values; periods only reached by the first snapshot carry no flows and are skipped. */
+    void endRun() {
+        for (PeriodAccumulator period : touched) {
+            if (period.hasFlows) flush(period);
+        }
+        if (overallPeriod.hasFlows) {
+            flush(overallPeriod);
+        } else {
+            appendIfFinite(overall, Metric.CAPITAL, overallPeriod.lastCapital);
+            appendIfFinite(overall, Metric.INFLATION, overallPeriod.lastInflation);
+        }
+    }
+
+    /** Adopts the summaries of {@code other}, which must not be used afterwards. */
+    void merge(MetricTable other) {
+        for (PhaseRows theirs : other.phases) {
+            PhaseRows mine = phases.get(phaseId(theirs.name));
+            for (int i = 0; i < theirs.years.length; i++) {
+                if (theirs.years[i] == null) continue;
+                int year = theirs.firstYear + i;
+                mergeRow(mine.period(year).into, theirs.years[i]);
+            }
+            mergeRow(mine.total, theirs.total);
+        }
+        mergeRow(overall, other.overall);
+    }
+
+    /** Visits yearly summaries ordered by year ASC, phase name ASC (nulls first), metric name ASC. */
+    void forEachYearly(SummaryVisitor visitor) {
+        List<PhaseRows> ordered = orderedPhases();
+        int from = Integer.MAX_VALUE;
+        int to = Integer.MIN_VALUE;
+        for (PhaseRows p : ordered) {
+            if (p.years.length == 0) continue;
+            from = Math.min(from, p.firstYear);
+            to = Math.max(to, p.lastYear());
+        }
+        for (int year = from; year <= to; year++) {
+            for (PhaseRows p : ordered) {
+                QuantileSummary[] row = p.row(year);
+                if (row != null) visitRow(visitor, p.name, year, row);
+            }
+        }
+    }
+
+    /** Visits whole-phase summaries ordered by phase name ASC (nulls first), metric name ASC. */
+    void forEachPhaseTotal(SummaryVisitor visitor) {
+        for (PhaseRows p : orderedPhases()) visitRow(visitor, p.name, null, p.total);
+    }
+
+    /** Visits whole-run summaries ordered by metric name ASC. */
+    void forEachOverallTotal(SummaryVisitor visitor) {
+        visitRow(visitor, null, null, overall);
+    }
+
+    private int phaseId(String name) {
+        Integer id = phaseIds.get(name);
+        if (id != null) return id;
+        phases.add(new PhaseRows(name));
+        phaseIds.put(name, phases.size() - 1);
+        return phases.size() - 1;
+    }
+
+    private PeriodAccumulator touch(PeriodAccumulator period) {
+        if (period.run != run) {
+            period.reset(run);
+            touched.add(period);
+        }
+        return period;
+    }
+
+    private void flush(PeriodAccumulator period) {
+        QuantileSummary[] row = period.into;
+        appendIfFinite(row, Metric.DEPOSIT, period.deposit);
+        appendIfFinite(row, Metric.WITHDRAW, period.withdraw);
+        appendIfFinite(row, Metric.TAX, period.tax);
+        appendIfFinite(row, Metric.FEE, period.fee);
+        appendIfFinite(row, Metric.RETURN, period.ret);
+        appendIfFinite(row, Metric.CAPITAL, period.lastCapital);
+        appendIfFinite(row, Metric.INFLATION, period.lastInflation);
+    }
+
+    private void appendIfFinite(QuantileSummary[] row, Metric metric, double value) {
+        if (!Double.isFinite(value)) return;
+        QuantileSummary values = row[metric.ordinal()];
+        if (values == null) {
+            values = engine.newSummary();
+            row[metric.ordinal()] = values;
+        }
+        values.add(value);
+    }
+
+    private static void mergeRow(QuantileSummary[] into, QuantileSummary[] from) {
+        for (int m = 0; m < into.length; m++) {
+            if (from[m] == null) continue;
+            if (into[m] == null) into[m] = from[m];
+            else into[m].merge(from[m]);
+        }
+    }
+
+    private static void visitRow(SummaryVisitor visitor, String phaseName, Integer year, QuantileSummary[] row) {
+        for (Metric metric : METRICS) {
+            QuantileSummary values = row[metric.ordinal()];
+            if (values != null) visitor.accept(phaseName, year, metric.label, values);
+        }
+    }
+
+    private List<PhaseRows> orderedPhases() {
+        PhaseRows[] ordered = phases.toArray(new PhaseRows[0]);
+        Arrays.sort(ordered, Comparator.comparing((PhaseRows p) -> p.name, Comparator.nullsFirst(String::compareTo)));
+        return Arrays.asList(ordered);
+    }
+}
@@ -0,0 +1,286 @@
+package dk.gormkrings.statistics;
+
+import dk.gormkrings.calendar.CalendarTable;
+import dk.gormkrings.result.IRunResult;
+import dk.gormkrings.simulation.IRunResultSink;
+import dk.gormkrings.simulation.result.ColumnarRunResult;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static dk.gormkrings.statistics.StatisticsUtils.quantile;
+
+/**
+ * Folds run results into the per-(phase, year) inputs used by {@link SimulationAggregationService},
+ * so a simulation can be aggregated without keeping the full {@code List<IRunResult>} alive.
+ *
+ * <p>Each run is reduced to primitive columns as soon as it completes:
+ * - capitals per (phase, year), already failure-marked, for YearlySummary
+ * - flow sums and end-of-period values per (phase, year) / phase / overall, for MetricSummary, kept in a
+ *   dense {@link MetricTable}</p>
+ *
+ * <p>Values are collected in {@link QuantileSummary}s from the configured {@link QuantileEngine}. Outlier
+ * filtering needs the final capital of every run, so when it is enabled each capital value carries its
+ * run's final capital, values are kept exactly and filtering is applied when the summaries are built.</p>
+ */
+public final class RunAggregationSink implements IRunResultSink {
+
+    record Key(String phaseName, int year) {
+    }
+
+    /** Capitals for one (phase, year) key, in run order. */
+    static final class CapitalColumn {
+        final QuantileSummary capitals;
+        // Per-value run final and failure flag; only tracked when outliers are filtered at the end.
+        final DoubleList runFinals;
+        final BitSet failed;
+        long failedCount;
+
+        CapitalColumn(QuantileSummary capitals, boolean trackRuns) {
+            this.capitals = capitals;
+            this.runFinals = trackRuns ? new DoubleList() : null;
+            this.failed = trackRuns ? new BitSet() : null;
+        }
+
+        void add(double capital, boolean runFailed, double runFinal) {
+            if (runFailed) {
+                failedCount++;
+                if (failed != null) failed.set((int) capitals.count());
+            }
+            capitals.add(capital);
+            if (runFinals != null) runFinals.add(runFinal);
+        }
+
+        void addAll(CapitalColumn other) {
+            if (failed != null) {
+                int offset = (int) capitals.count();
+                for (int i = other.failed.nextSetBit(0); i >= 0; i = other.failed.nextSetBit(i + 1)) {
+                    failed.set(offset + i);
+                }
+                runFinals.addAll(other.runFinals);
+            }
+            capitals.merge(other.capitals);
+            failedCount += other.failedCount;
+        }
+
+        long size() {
+            return capitals.count();
+        }
+    }
+
+    private final boolean collectYearly;
+    private final boolean collectMetrics;
+    private final QuantileEngine engine;
+    private final boolean filterOutliers;
+
+    // YearlySummary inputs
+    private final DoubleList runFinals = new DoubleList();
+    private final Map<Key, CapitalColumn> capitalsByKey = new HashMap<>();
+
+    // MetricSummary inputs (finite values only)
+    private final MetricTable metrics;
+
+    /**
+     * @param filterOutliers when false, every run is kept and capitals go straight into the engine's
+     *                       summaries; {@link #inlierCapitalsByPhaseYear} then ignores its percentiles.
+     */
+    public RunAggregationSink(boolean collectYearly, boolean collectMetrics, QuantileEngine engine, boolean filterOutliers) {
+        this.collectYearly = collectYearly;
+        this.collectMetrics = collectMetrics;
+        this.engine = engine;
+        this.filterOutliers = filterOutliers;
+        this.metrics = new MetricTable(engine);
+    }
+
+    @Override
+    public void accept(IRunResult result) {
+        if (result == null) return;
+        ColumnarRunResult run = ColumnarRunResult.of(result);
+        if (collectYearly) foldCapitals(run);
+        if (collectMetrics && run.size() > 0) foldMetrics(run);
+    }
+
+    @Override
+    public RunAggregationSink fork() {
+        return new RunAggregationSink(collectYearly, collectMetrics, engine, filterOutliers);
+    }
+
+    @Override
+    public void merge(IRunResultSink other) {
+        RunAggregationSink o = (RunAggregationSink) other;
+        runFinals.addAll(o.runFinals);
+        // Forks are discarded after merging, so their columns and summaries can be adopted as they are.
+        o.capitalsByKey.forEach((k, col) -> capitalsByKey.merge(k, col, (mine, theirs) -> {
+            mine.addAll(theirs);
+            return mine;
+        }));
+        metrics.merge(o.metrics);
+    }
+
+    // ---------- YearlySummary inputs ----------
+
+    /**
+     * Extract capitals per (phase, year) and mark failures forward.
+     * A run fails at the first non-deposit snapshot with capital <= 0 once it has had money
+     * (or immediately in a withdraw phase); that point and every later one count as 0 capital.
+     */
+    private void foldCapitals(ColumnarRunResult run) {
+        int n = run.size();
+        double finalEffectiveCapital = n == 0 ? 0.0 : run.capital(n - 1);
+        if (filterOutliers) runFinals.add(finalEffectiveCapital);
+
+        boolean failed = false;
+        boolean everHadPositiveCapital = false;
+        for (int i = 0; i < n; i++) {
+            int year = CalendarTable.yearOf((int) run.startTime(i) + (int) run.totalDurationAlive(i));
+            String phase = run.phaseName(i);
+            double capital = run.capital(i);
+
+            if (!failed) {
+                boolean isDeposit = "Deposit".equalsIgnoreCase(phase);
+                boolean isWithdraw = "Withdraw".equalsIgnoreCase(phase);
+
+                // "Wait" behavior without new UI:
+                // We don't treat a run as failed just because it has 0 capital before any money was ever added.
+                // But withdrawals with <= 0 capital should still count as failure even if the run never had capital.
+                failed = !isDeposit
+                        && capital <= 0.0
+                        && (everHadPositiveCapital || isWithdraw);
+            }
+
+            capitalsByKey.computeIfAbsent(new Key(phase, year), __ -> newCapitalColumn())
+                    .add(failed ? 0.0 : capital, failed, finalEffectiveCapital);
+
+            if (capital > 0.0) {
+                everHadPositiveCapital = true;
+            }
+        }
+    }
+
+    private CapitalColumn newCapitalColumn() {
+        // Filtering needs indexed access to every value, so those columns are always exact.
+        return filterOutliers
+                ? new CapitalColumn(new ExactQuantileSummary(), true)
+                : new CapitalColumn(engine.newSummary(), false);
+    }
+
+    /**
+     * Capitals of inlier runs grouped by (phase, year), in deterministic key order: year ASC, phaseName ASC.
+     * A run is an inlier when its (unmarked) final capital lies within the given percentiles of all finals.
+     */
+    LinkedHashMap<Key, CapitalColumn> inlierCapitalsByPhaseYear(double lowerPercentile, double upperPercentile) {
+        LinkedHashMap<Key, CapitalColumn> out = new LinkedHashMap<>();
+        if (filterOutliers && runFinals.isEmpty()) return out;
+
+        final double lower;
+        final double upper;
+        if (filterOutliers) {
+            double[] sortedFinals = runFinals.toArray();
+            Arrays.sort(sortedFinals);
+            lower = quantile(sortedFinals, lowerPercentile);
+            upper = quantile(sortedFinals, upperPercentile);
+        } else {
+            lower = Double.NaN;
+            upper = Double.NaN;
+        }
+
+        capitalsByKey.entrySet().stream()
+                .sorted(Comparator
+                        .comparing((Map.Entry<Key, ?> e) -> e.getKey().year())
+                        .thenComparing(e -> e.getKey().phaseName(), Comparator.nullsFirst(String::compareTo)))
+                .forEach(e -> {
+                    CapitalColumn inliers = filterOutliers ? filterInliers(e.getValue(), lower, upper) : e.getValue();
+                    if (inliers.size() > 0) out.put(e.getKey(), inliers);
+                });
+        return out;
+    }
+
+    private CapitalColumn filterInliers(CapitalColumn col, double lower, double upper) {
+        int n = (int) col.size();
+        boolean allInliers = true;
+        for (int i = 0; i < n && allInliers; i++) {
+            double f = col.runFinals.get(i);
+            allInliers = f >= lower && f <= upper;
+        }
+        if (allInliers && engine.isExact()) return col;
+
+        ExactQuantileSummary capitals = (ExactQuantileSummary) col.capitals;
+        CapitalColumn out = new CapitalColumn(engine.newSummary(), false);
+        for (int i = 0; i < n; i++) {
+            double f = col.runFinals.get(i);
+            if (f >= lower && f <= upper) {
+                out.add(capitals.get(i), col.failed.get(i), f);
+            }
+        }
+        return out;
+    }
+
+    // ---------- MetricSummary inputs ----------
+
+    private void foldMetrics(ColumnarRunResult run) {
+        int[] phaseIds = metrics.beginRun(run.phaseNames());
+        MetricTable.PeriodAccumulator overall = metrics.overallPeriod();
+
+        for (int i = 0; i < run.size(); i++) {
+            // IMPORTANT: flows (deposit/withdraw/tax/fee/return) are deltas between snapshots.
+            // We attribute those flows to the *period that just ended* (i.e., snapshotTime - 1 day)
+            // so boundary snapshots on Jan 1 don't shift the whole prior year's flows into the next year.
+            int year = yearForPeriodEndingAt(run, i);
+            int phase = phaseIds[run.phaseIndex(i)];
+
+            MetricTable.PeriodAccumulator y = metrics.yearPeriod(phase, year);
+            MetricTable.PeriodAccumulator p = metrics.phasePeriod(phase);
+
+            if (i > 0) {
+                int prev = i - 1;
+                // Deposited is a "principal basis" that is reduced during withdrawals.
+                // For the "deposit" flow metric we only want actual deposits (non-negative).
+                double dDeposit = Math.max(0.0, safeDelta(run.deposited(i), run.deposited(prev)));
+                double dWithdraw = safeDelta(run.withdrawn(i), run.withdrawn(prev));
+                double dTax = safeDelta(run.tax(i), run.tax(prev));
+                double dFee = safeDelta(run.fee(i), run.fee(prev));
+                double dReturn = safeDelta(run.returned(i), run.returned(prev));
+
+                y.addFlows(dDeposit, dWithdraw, dTax, dFee, dReturn);
+                p.addFlows(dDeposit, dWithdraw, dTax, dFee, dReturn);
+                overall.addFlows(dDeposit, dWithdraw, dTax, dFee, dReturn);
+            }
+
+            // End-of-period series values
+            double capital = run.capital(i);
+            double inflation = run.inflation(i);
+            y.lastCapital = capital;
+            y.lastInflation = inflation;
+            p.lastCapital = capital;
+            p.lastInflation = inflation;
+            overall.lastCapital = capital;
+            overall.lastInflation = inflation;
+        }
+
+        metrics.endRun();
+    }
+
+    MetricTable metrics() {
+        return metrics;
+    }
+
+    /**
+     * Year for the period that ends at this snapshot.
+     * If a snapshot is exactly on a boundary (e.g., Jan 1), using "minus 1 day" keeps yearly flows aligned.
+     */
+    private static int yearForPeriodEndingAt(ColumnarRunResult run, int row) {
+        long alive = Math.max(0L, run.totalDurationAlive(row));
+        long days = alive > 0 ? (alive - 1) : 0;
+        return CalendarTable.yearOf((int) run.startTime(row) + (int) days);
+    }
+
+    private static double safeDelta(double current, double previous) {
+        if (!Double.isFinite(current) || !Double.isFinite(previous)) return 0.0;
+        double d = current - previous;
+        return Double.isFinite(d) ? d : 0.0;
+    }
+}
@@ -1,12 +1,8 @@
 package dk.gormkrings.statistics;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import dk.gormkrings.dto.ProgressUpdate;
 import dk.gormkrings.result.IRunResult;
-import dk.gormkrings.result.ISnapshot;
 import dk.gormkrings.simulation.IProgressCallback;
-import dk.gormkrings.simulation.data.Date;
-import dk.gormkrings.simulation.result.Snapshot;
 import dk.gormkrings.statistics.MetricSummary;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,9 +11,6 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.stream.Collectors;
-
-import static dk.gormkrings.statistics.StatisticsUtils.*;
 
 @Slf4j
 @Component
@@ -29,10 +22,21 @@ public class SimulationAggregationService {
     private double lowerThresholdPercentile = 0;
     private double upperThresholdPercentile = 1;
 
-    // Composite key: (phase, year)
-    private record Key(String phaseName, int year) {}
-    private static final ObjectMapper OM = new ObjectMapper();
+    // Percentile engine: "exact" (primitive arrays + selection) or "sketch" (mergeable t-digest)
+    private String quantileMode = "exact";
+    private double sketchCompression = 200;
+
+    /** A sink that collects everything needed by both aggregations; feed it to {@code ISimulation#runStreaming}. */
+    public RunAggregationSink newAggregationSink() {
+        return newSink(true, true);
+    }
 
+    private RunAggregationSink newSink(boolean collectYearly, boolean collectMetrics) {
+        QuantileEngine engine = QuantileEngine.of(quantileMode, sketchCompression);
+        // Exact mode always goes through the filtering path so results stay identical to sorting the full lists.
+        boolean filterOutliers = engine.isExact() || lowerThresholdPercentile > 0 || upperThresholdPercentile < 1;
+        return new RunAggregationSink(collectYearly, collectMetrics, engine, filterOutliers);
+    }
 
     /**
      * Aggregate into YearlySummary per (phase,year).
@@ -40,10 +44,18 @@ public class SimulationAggregationService {
      * Growth is computed per phase across years.
      */
     public List<YearlySummary> aggregateResults(List<IRunResult> results, String simulationId, IProgressCallback cb) {
+        RunAggregationSink sink = newSink(true, false);
+        for (IRunResult r : results) sink.accept(r);
+        return aggregateResults(sink, simulationId, cb);
+    }
+
+    /** Same as {@link #aggregateResults(List, String, IProgressCallback)} for runs already folded into {@code sink}. */
+    public List<YearlySummary> aggregateResults(RunAggregationSink sink, String simulationId, IProgressCallback cb) {
         long t0 = System.currentTimeMillis();
 
-        // Build filtered+marked data grouped by (phase,year) in deterministic key order
-        LinkedHashMap<Key, List<DataPoint>> dataByKey = computeMarkedDataByPhaseYear(results);
+        // Filter outliers by final capital; data is already failure-marked and grouped in deterministic key order
+        LinkedHashMap<RunAggregationSink.Key, RunAggregationSink.CapitalColumn> dataByKey =
+                sink.inlierCapitalsByPhaseYear(lowerThresholdPercentile, upperThresholdPercentile);
 
         long t1 = System.currentTimeMillis();
         log.debug("Prepared data for summaries in {} ms", (t1 - t0));
@@ -74,177 +86,33 @@ public class SimulationAggregationService {
     public List<MetricSummary> aggregateMetricSummaries(List<IRunResult> results) {
         if (results == null || results.isEmpty()) return List.of();
 
-        record Key(String phaseName, int year) {
-        }
-
-        // Global aggregators across runs
-        Map<Key, Map<String, List<Double>>> yearly = new HashMap<>();
-        Map<String, Map<String, List<Double>>> phaseTotals = new HashMap<>();
-        Map<String, List<Double>> overallTotals = new HashMap<>();
-
-        for (IRunResult run : results) {
-            if (run == null || run.getSnapshots() == null || run.getSnapshots().isEmpty()) continue;
-
-            // Per-run accumulators
-            Map<Key, Map<String, Double>> yearlySums = new HashMap<>();
-            Map<Key, Double> yearlyLastCapital = new HashMap<>();
-            Map<Key, Double> yearlyLastInflation = new HashMap<>();
-
-            Map<String, Map<String, Double>> phaseSums = new HashMap<>();
-            Map<String, Double> phaseLastCapital = new HashMap<>();
-            Map<String, Double> phaseLastInflation = new HashMap<>();
-
-            Map<String, Double> overallSums = new HashMap<>();
-            Double overallLastCapital = null;
-            Double overallLastInflation = null;
-
-            ISnapshot prevSnap = null;
-            for (ISnapshot snap0 : run.getSnapshots()) {
-                if (snap0 == null) continue;
-                Snapshot snap = (Snapshot) snap0;
-                var state = snap.getState();
-
-                // IMPORTANT: flows (deposit/withdraw/tax/fee/return) are deltas between snapshots.
-                // We attribute those flows to the *period that just ended* (i.e., snapshotTime - 1 day)
-                // so boundary snapshots on Jan 1 don't shift the whole prior year's flows into the next year.
-                int year = yearForPeriodEndingAt(state);
-                String phase = state.getPhaseName();
-
-                if (prevSnap == null) {
-                    prevSnap = snap0;
-                    // Still capture end-of-period series values for this snapshot.
-                    Key k0 = new Key(phase, year);
-                    yearlyLastCapital.put(k0, finiteOrNull(state.getCapital()));
-                    yearlyLastInflation.put(k0, finiteOrNull(state.getInflation()));
-                    phaseLastCapital.put(phase, finiteOrNull(state.getCapital()));
-                    phaseLastInflation.put(phase, finiteOrNull(state.getInflation()));
-                    overallLastCapital = finiteOrNull(state.getCapital());
-                    overallLastInflation = finiteOrNull(state.getInflation());
-                    continue;
-                }
-
-                var prev = ((Snapshot) prevSnap).getState();
-
-                // Deposited is a "principal basis" that is reduced during withdrawals.
-                // For the "deposit" flow metric we only want actual deposits (non-negative).
-                double dDepositRaw = safeDelta(state.getDeposited(), prev.getDeposited());
-                double dDeposit = Math.max(0.0, dDepositRaw);
-
-                double dWithdraw = safeDelta(state.getWithdrawn(), prev.getWithdrawn());
-                double dTax = safeDelta(state.getTax(), prev.getTax());
-                double dFee = safeDelta(state.getFee(), prev.getFee());
-                double dReturn = safeDelta(state.getReturned(), prev.getReturned());
-
-                Key k = new Key(phase, year);
-                Map<String, Double> sumsForKey = yearlySums.computeIfAbsent(k, __ -> new HashMap<>());
-                sumsForKey.merge("deposit", dDeposit, Double::sum);
-                sumsForKey.merge("withdraw", dWithdraw, Double::sum);
-                sumsForKey.merge("tax", dTax, Double::sum);
-                sumsForKey.merge("fee", dFee, Double::sum);
-                sumsForKey.merge("return", dReturn, Double::sum);
-
-                yearlyLastCapital.put(k, finiteOrNull(state.getCapital()));
-                yearlyLastInflation.put(k, finiteOrNull(state.getInflation()));
-
-                Map<String, Double> phaseSumsForPhase = phaseSums.computeIfAbsent(phase, __ -> new HashMap<>());
-                phaseSumsForPhase.merge("deposit", dDeposit, Double::sum);
-                phaseSumsForPhase.merge("withdraw", dWithdraw, Double::sum);
-                phaseSumsForPhase.merge("tax", dTax, Double::sum);
-                phaseSumsForPhase.merge("fee", dFee, Double::sum);
-                phaseSumsForPhase.merge("return", dReturn, Double::sum);
-                phaseLastCapital.put(phase, finiteOrNull(state.getCapital()));
-                phaseLastInflation.put(phase, finiteOrNull(state.getInflation()));
-
-                overallSums.merge("deposit", dDeposit, Double::sum);
-                overallSums.merge("withdraw", dWithdraw, Double::sum);
-                overallSums.merge("tax", dTax, Double::sum);
-                overallSums.merge("fee", dFee, Double::sum);
-                overallSums.merge("return", dReturn, Double::sum);
-                overallLastCapital = finiteOrNull(state.getCapital());
-                overallLastInflation = finiteOrNull(state.getInflation());
-
-                prevSnap = snap0;
-            }
-
-            // Flush per-run yearly to global
-            for (var e : yearlySums.entrySet()) {
-                Key k = e.getKey();
-                yearly.computeIfAbsent(k, __ -> new HashMap<>());
-
-                // flows
-                for (var me : e.getValue().entrySet()) {
-                    yearly.get(k).computeIfAbsent(me.getKey(), __ -> new ArrayList<>()).add(me.getValue());
-                }
-
-                // end-of-year/phase series
-                Double cap = yearlyLastCapital.get(k);
-                if (cap != null) yearly.get(k).computeIfAbsent("capital", __ -> new ArrayList<>()).add(cap);
-                Double infl = yearlyLastInflation.get(k);
-                if (infl != null) yearly.get(k).computeIfAbsent("inflation", __ -> new ArrayList<>()).add(infl);
-            }
-
-            // Flush per-run phase totals
-            for (var pe : phaseSums.entrySet()) {
-                String phase = pe.getKey();
-                phaseTotals.computeIfAbsent(phase, __ -> new HashMap<>());
-                for (var me : pe.getValue().entrySet()) {
-                    phaseTotals.get(phase).computeIfAbsent(me.getKey(), __ -> new ArrayList<>()).add(me.getValue());
-                }
-                Double cap = phaseLastCapital.get(phase);
-                if (cap != null) phaseTotals.get(phase).computeIfAbsent("capital", __ -> new ArrayList<>()).add(cap);
-                Double infl = phaseLastInflation.get(phase);
-                if (infl != null) phaseTotals.get(phase).computeIfAbsent("inflation", __ -> new ArrayList<>()).add(infl);
-            }
-
-            // Flush per-run overall totals
-            for (var me : overallSums.entrySet()) {
-                overallTotals.computeIfAbsent(me.getKey(), __ -> new ArrayList<>()).add(me.getValue());
-            }
-            if (overallLastCapital != null) {
-                overallTotals.computeIfAbsent("capital", __ -> new ArrayList<>()).add(overallLastCapital);
-            }
-            if (overallLastInflation != null) {
-                overallTotals.computeIfAbsent("inflation", __ -> new ArrayList<>()).add(overallLastInflation);
-            }
-        }
+        RunAggregationSink sink = newSink(false, true);
+        for (IRunResult run : results) sink.accept(run);
+        return aggregateMetricSummaries(sink);
+    }
 
+    /** Same as {@link #aggregateMetricSummaries(List)} for runs already folded into {@code sink}. */
+    public List<MetricSummary> aggregateMetricSummaries(RunAggregationSink sink) {
         List<MetricSummary> out = new ArrayList<>();
 
-        // YEARLY
-        yearly.entrySet().stream()
-            .sorted(Comparator
-                .comparing((Map.Entry<Key, ?> e) -> e.getKey().year())
-                .thenComparing(e -> e.getKey().phaseName(), Comparator.nullsFirst(String::compareTo)))
-            .forEach(e -> {
-                Key k = e.getKey();
-                e.getValue().entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(me -> out.add(buildSummary(MetricSummary.Scope.YEARLY, k.phaseName(), k.year(), me.getKey(), me.getValue())));
-            });
+        MetricTable metrics = sink.metrics();
+
+        // YEARLY: year ASC, phaseName ASC, metric ASC
+        metrics.forEachYearly((phase, year, metric, values) ->
+                out.add(buildSummary(MetricSummary.Scope.YEARLY, phase, year, metric, values)));
 
         // PHASE_TOTAL
-        phaseTotals.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey(Comparator.nullsFirst(String::compareTo)))
-            .forEach(e -> e.getValue().entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(me -> out.add(buildSummary(MetricSummary.Scope.PHASE_TOTAL, e.getKey(), null, me.getKey(), me.getValue()))));
+        metrics.forEachPhaseTotal((phase, year, metric, values) ->
+                out.add(buildSummary(MetricSummary.Scope.PHASE_TOTAL, phase, null, metric, values)));
 
         // OVERALL_TOTAL
-        overallTotals.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .forEach(me -> out.add(buildSummary(MetricSummary.Scope.OVERALL_TOTAL, null, null, me.getKey(), me.getValue())));
+        metrics.forEachOverallTotal((phase, year, metric, values) ->
+                out.add(buildSummary(MetricSummary.Scope.OVERALL_TOTAL, null, null, metric, values)));
 
         return out;
     }
 
-    private static MetricSummary buildSummary(MetricSummary.Scope scope, String phaseName, Integer year, String metric, List<Double> values) {
-        List<Double> sorted = (values == null)
-            ? List.of()
-            : values.stream()
-            .filter(Objects::nonNull)
-            .filter(Double::isFinite)
-            .sorted()
-            .toList();
+    private static MetricSummary buildSummary(MetricSummary.Scope scope, String phaseName, Integer year, String metric, QuantileSummary values) {
 
         MetricSummary s = new MetricSummary();
         s.setScope(scope);
@@ -252,7 +120,7 @@ public class SimulationAggregationService {
         s.setYear(year);
         s.setMetric(metric);
 
-        if (sorted.isEmpty()) {
+        if (values == null || values.count() == 0) {
             s.setP5(Double.NaN);
             s.setP10(Double.NaN);
             s.setP25(Double.NaN);
@@ -263,98 +131,32 @@ public class SimulationAggregationService {
             return s;
         }
 
-        s.setP5(quantile(sorted, 0.05));
-        s.setP10(quantile(sorted, 0.10));
-        s.setP25(quantile(sorted, 0.25));
-        s.setP50(quantile(sorted, 0.50));
-        s.setP75(quantile(sorted, 0.75));
-        s.setP90(quantile(sorted, 0.90));
-        s.setP95(quantile(sorted, 0.95));
+        s.setP5(values.quantile(0.05));
+        s.setP10(values.quantile(0.10));
+        s.setP25(values.quantile(0.25));
+        s.setP50(values.quantile(0.50));
+        s.setP75(values.quantile(0.75));
+        s.setP90(values.quantile(0.90));
+        s.setP95(values.quantile(0.95));
         return s;
     }
 
-    /**
-     * Year for the period that ends at this snapshot.
-     * If a snapshot is exactly on a boundary (e.g., Jan 1), using "minus 1 day" keeps yearly flows aligned.
-     */
-    private static int yearForPeriodEndingAt(dk.gormkrings.data.ILiveData state) {
-        long alive = Math.max(0L, state.getTotalDurationAlive());
-        long days = alive > 0 ? (alive - 1) : 0;
-        return new Date((int) state.getStartTime()).plusDays(days).getYear();
-    }
-
-    private static double safeDelta(double current, double previous) {
-        if (!Double.isFinite(current) || !Double.isFinite(previous)) return 0.0;
-        double d = current - previous;
-        return Double.isFinite(d) ? d : 0.0;
-    }
-
-    private static Double finiteOrNull(double v) {
-        return Double.isFinite(v) ? v : null;
-    }
-
-    // ---------- pipeline shared by summaries & grids ----------
-
-    /**
-     * Process → filter outliers by final capital → mark failures → group by (phase,year).
-     * Returns LinkedHashMap in deterministic key order: year ASC, phaseName ASC.
-     */
-    private LinkedHashMap<Key, List<DataPoint>> computeMarkedDataByPhaseYear(List<IRunResult> results) {
-        // 1) Extract per-run data
-        List<SimulationRunData> runs = new ArrayList<>(results.size());
-        for (IRunResult r : results) runs.add(processRun(r));
-        if (runs.isEmpty()) return new LinkedHashMap<>();
-
-        // 2) Outlier thresholds on final effective capitals
-        List<Double> finals = runs.stream().map(SimulationRunData::finalEffectiveCapital).toList();
-        List<Double> sortedFinals = new ArrayList<>(finals);
-        Collections.sort(sortedFinals);
-        double lower = quantile(sortedFinals, lowerThresholdPercentile);
-        double upper = quantile(sortedFinals, upperThresholdPercentile);
-
-        // 3) Filter inliers and mark failures forward
-        List<SimulationRunData> marked = runs.stream()
-                .filter(r -> r.finalEffectiveCapital() >= lower && r.finalEffectiveCapital() <= upper)
-                .map(this::markFailures)
-                .toList();
-
-        // 4) Group by (phase,year)
-        Map<Key, List<DataPoint>> tmp = new HashMap<>();
-        for (SimulationRunData r : marked) {
-            for (DataPoint dp : r.dataPoints()) {
-                Key k = new Key(dp.phaseName(), dp.year());
-                tmp.computeIfAbsent(k, __ -> new ArrayList<>()).add(dp);
-            }
-        }
-
-        // 5) Deterministic iteration order: year ASC, then phaseName ASC
-        return tmp.entrySet().stream()
-                .sorted(Comparator
-                        .comparing((Map.Entry<Key, ?> e) -> e.getKey().year())
-                        .thenComparing(e -> e.getKey().phaseName(), Comparator.nullsFirst(String::compareTo)))
-                .collect(LinkedHashMap::new,
-                        (m, e) -> m.put(e.getKey(), e.getValue()),
-                        LinkedHashMap::putAll);
-    }
-
     // ---------- summaries & growth ----------
 
-    private void buildYearlySummaries(LinkedHashMap<Key, List<DataPoint>> dataByKey,
+    private void buildYearlySummaries(LinkedHashMap<RunAggregationSink.Key, RunAggregationSink.CapitalColumn> dataByKey,
                                       List<YearlySummary> out,
                                       IProgressCallback cb) {
         int total = dataByKey.size();
         long t0 = System.currentTimeMillis();
         int i = 0;
 
-        for (Map.Entry<Key, List<DataPoint>> entry : dataByKey.entrySet()) {
+        for (Map.Entry<RunAggregationSink.Key, RunAggregationSink.CapitalColumn> entry : dataByKey.entrySet()) {
             i++;
-            Key k = entry.getKey();
-            List<DataPoint> raw = entry.getValue();
-
-            List<Double> capitals = raw.stream().map(DataPoint::capital).collect(Collectors.toList());
-            List<Boolean> failed = raw.stream().map(DataPoint::runFailed).collect(Collectors.toList());
+            RunAggregationSink.Key k = entry.getKey();
+            RunAggregationSink.CapitalColumn raw = entry.getValue();
 
-            YearlySummary summary = YearlySummaryCalculator.calculateYearlySummary(k.phaseName(), k.year(), capitals, failed);
+            YearlySummary summary = YearlySummaryCalculator.calculateYearlySummary(
+                    k.phaseName(), k.year(), raw.capitals, raw.failedCount);
             out.add(summary);
 
             long elapsedSec = (System.currentTimeMillis() - t0) / 1000;
@@ -363,14 +165,8 @@ public class SimulationAggregationService {
                     i, total, k.year(), k.phaseName(), elapsedSec
             );
 
-            try {
-                // send as typed JSON so the controller can pace/coalesce without parsing strings
-                cb.update(OM.writeValueAsString(ProgressUpdate.message(human)));
-                log.info(OM.writeValueAsString(ProgressUpdate.message(human)));
-            } catch (Exception e) {
-                // ultra-safe fallback: still send the human line
-                cb.update(human);
-            }
+            // Typed, so nothing is serialised here; the SSE flush coalesces these per frame
+            cb.update(ProgressUpdate.message(human));
         }
     }
 
@@ -393,59 +189,4 @@ public class SimulationAggregationService {
             lastYearByPhase.put(phase, s.getYear());
         }
     }
-
-    // ---------- per-run processing & failure marking ----------
-
-    private SimulationRunData processRun(IRunResult result) {
-        double finalEffectiveCapital = 0.0;
-        List<DataPoint> dps = new ArrayList<>();
-        for (ISnapshot snap : result.getSnapshots()) {
-            var state = ((Snapshot) snap).getState();
-            int year = new Date((int) state.getStartTime()).plusDays(state.getTotalDurationAlive()).getYear();
-            double capital = state.getCapital();
-            dps.add(new DataPoint(capital, false, year, state.getPhaseName()));
-            finalEffectiveCapital = capital;
-        }
-        return new SimulationRunData(finalEffectiveCapital, dps);
-    }
-
-    private SimulationRunData markFailures(SimulationRunData runData) {
-        boolean failed = false;
-        boolean everHadPositiveCapital = false;
-        List<DataPoint> out = new ArrayList<>(runData.dataPoints().size());
-        for (DataPoint dp : runData.dataPoints()) {
-            DataPoint failPoint = new DataPoint(0.0, true, dp.year(), dp.phaseName());
-            if (!failed) {
-                boolean isDeposit = "Deposit".equalsIgnoreCase(dp.phaseName());
-                boolean isWithdraw = "Withdraw".equalsIgnoreCase(dp.phaseName());
-
-                // "Wait" behavior without new UI:
-                // We don't treat a run as failed just because it has 0 capital before any money was ever added.
-                // But withdrawals with <= 0 capital should still count as failure even if the run never had capital.
-                boolean shouldFailHere = !isDeposit
-                        && dp.capital() <= 0.0
-                        && (everHadPositiveCapital || isWithdraw);
-
-                if (shouldFailHere) {
-                    failed = true;
-                    out.add(failPoint);      // mark this and all next as failed
-                } else {
-                    out.add(dp);
-                }
-            } else {
-                out.add(failPoint);
-            }
-
-            if (dp.capital() > 0.0) {
-                everHadPositiveCapital = true;
-            }
-        }
-        double finalCap = out.isEmpty() ? 0.0 : out.get(out.size() - 1).capital();
-        return new SimulationRunData(finalCap, out);
-    }
-
-    // ---------- internal data carriers ----------
-
-    private record SimulationRunData(double finalEffectiveCapital, List<DataPoint> dataPoints) {}
-    private record DataPoint(double capital, boolean runFailed, int year, String phaseName) {}
 }
@@ -1,12 +1,15 @@
 package dk.gormkrings.simulation.monteCarlo;
 
+import dk.gormkrings.engine.IBatchEngine;
 import dk.gormkrings.engine.IEngine;
 import dk.gormkrings.phase.IPhase;
 import dk.gormkrings.result.IRunResult;
 import dk.gormkrings.simulation.IProgressCallback;
+import dk.gormkrings.simulation.IRunResultSink;
 import dk.gormkrings.simulation.ISimulation;
 import dk.gormkrings.specification.ISpecification;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
@@ -15,8 +18,9 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -29,15 +33,35 @@ public class MonteCarloSimulation implements ISimulation {
     /** Emit a progress update each time this many runs complete globally. */
     private final int progressStep;
 
+    /** Samples the completed-run counter into progress updates; null means the waiting thread samples. */
+    private final ScheduledExecutorService progressScheduler;
+    private final long progressIntervalMs;
+
+    /** Target number of chunks per worker, so there is always work left to steal near the end. */
+    private static final int CHUNKS_PER_WORKER = 8;
+
     /** If true, a task failure aborts the whole run (handy for tests). Default false for resilience. */
     private final boolean failOnTaskError;
 
+    public MonteCarloSimulation(
+            Map<String, IEngine> engines,
+            String engineName,
+            ExecutorService workerPool,
+            int progressStep,
+            boolean failOnTaskError
+    ) {
+        this(engines, engineName, workerPool, progressStep, failOnTaskError, null, 1000);
+    }
+
+    @Autowired
     public MonteCarloSimulation(
             Map<String, IEngine> engines,
             @Value("${simulation.engine.selected:scheduleEngine}") String engineName,
             @Qualifier("simWorkerPool") ExecutorService workerPool,
             @Value("${simulation.progressStep:1000}") int progressStep,
-            @Value("${simulation.failOnTaskError:false}") boolean failOnTaskError
+            @Value("${simulation.failOnTaskError:false}") boolean failOnTaskError,
+            @Qualifier("sseScheduler") ScheduledExecutorService progressScheduler,
+            @Value("${settings.progress-interval:1000}") long progressIntervalMs
     ) {
         if (!engines.containsKey(engineName)) {
             throw new IllegalArgumentException("No engine found with name: " + engineName +
@@ -47,6 +71,8 @@ public class MonteCarloSimulation implements ISimulation {
         this.workerPool = workerPool;
         this.progressStep = Math.max(1, progressStep);
         this.failOnTaskError = failOnTaskError;
+        this.progressScheduler = progressScheduler;
+        this.progressIntervalMs = Math.max(1, progressIntervalMs);
         log.info("Selected engine: {} (available: {}), progressStep={}", engineName, engines.keySet(), this.progressStep);
     }
 
@@ -57,145 +83,264 @@ public class MonteCarloSimulation implements ISimulation {
 
     @Override
     public List<IRunResult> runWithProgress(long runs, int batchSize, List<IPhase> phases, IProgressCallback cb) {
+        final ResultListSink sink = new ResultListSink((int) Math.min(Math.max(runs, 0), Integer.MAX_VALUE));
+        runStreaming(runs, batchSize, phases, cb, sink);
+        return sink.results;
+    }
+
+    @Override
+    public void runStreaming(long runs, int batchSize, List<IPhase> phases, IProgressCallback cb, IRunResultSink sink) {
         if (phases == null || phases.isEmpty() || runs <= 0) {
             throw new IllegalArgumentException("No phases to run or runs <= 0");
         }
         if (batchSize <= 0) {
             throw new IllegalArgumentException("batchSize must be > 0");
         }
+        Objects.requireNonNull(sink, "sink");
 
         engine.init(phases);
 
-        final List<IRunResult> allResults = new ArrayList<>((int) Math.min(runs, Integer.MAX_VALUE));
         final long t0 = System.currentTimeMillis();
 
-        // Global counters shared across worker tasks
-        final AtomicLong completed = new AtomicLong(0);
-        final AtomicLong nextMilestone = new AtomicLong(Math.min(progressStep, runs));
-
         // Determine effective parallelism from the pool if possible
-        final int cores = (workerPool instanceof ThreadPoolExecutor tpe)
-                ? Math.max(1, tpe.getCorePoolSize())
-                : Math.max(1, Runtime.getRuntime().availableProcessors());
+        final int cores = switch (workerPool) {
+            case ForkJoinPool fjp -> Math.max(1, fjp.getParallelism());
+            case ThreadPoolExecutor tpe -> Math.max(1, tpe.getCorePoolSize());
+            default -> Math.max(1, Runtime.getRuntime().availableProcessors());
+        };
+
+        // Every path derives its specification from this one via copyForPath(pathIndex), which never
+        // mutates it. A path's random streams therefore depend only on the seeds and its index, not on
+        // which thread runs it, in which order, or how the range was split.
+        final ISpecification base = phases.getFirst().getSpecification();
+
+        // batchSize only caps how many paths a chunk folds into its own sink before handing it up
+        final int chunk = (int) Math.min(batchSize, Math.max(1, ceilDiv(runs, (long) cores * CHUNKS_PER_WORKER)));
+
+        final RunProgress progress = new RunProgress(runs, progressStep, cb);
+        final ScheduledFuture<?> sampler = (cb != null && progressScheduler != null)
+                ? progressScheduler.scheduleAtFixedRate(progress::sample, progressIntervalMs, progressIntervalMs, TimeUnit.MILLISECONDS)
+                : null;
 
         try {
-            for (long offset = 0; offset < runs; offset += batchSize) {
-                final int thisBatch = (int) Math.min(batchSize, runs - offset);
-
-                // Build a small number of "fat" tasks; each task runs many paths and reports progress as it goes
-                final List<Callable<List<IRunResult>>> tasks = buildTasks(phases, cores, thisBatch, runs,
-                        completed, nextMilestone, cb, t0);
-
-                // Submit and wait for the batch to finish
-                final List<Future<List<IRunResult>>> futures = workerPool.invokeAll(tasks);
-
-                for (Future<List<IRunResult>> f : futures) {
-                    try {
-                        final List<IRunResult> chunk = f.get(); // may throw only in strict mode
-                        if (chunk != null && !chunk.isEmpty()) {
-                            allResults.addAll(chunk);
-                        }
-                    } catch (ExecutionException ee) {
-                        // Only happens in strict mode; abort entire run
-                        log.error("Simulation task failed (strict mode abort)", ee.getCause());
-                        throw new RuntimeException("Simulation task failed", ee.getCause());
-                    }
-                }
-            }
+            final IRunResultSink folded = (workerPool instanceof ForkJoinPool forkJoin)
+                    ? await(forkJoin.submit(new PathRange(phases, base, 0, runs, chunk, sink, progress)), progress, sampler == null)
+                    : runChunks(phases, base, runs, chunk, cores, sink, progress, sampler == null);
+            sink.merge(folded);
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
-            log.warn("Simulation interrupted after {} runs", completed.get());
+            log.warn("Simulation interrupted after {} runs", progress.completed());
             throw new RuntimeException("Simulation interrupted", ie);
+        } finally {
+            if (sampler != null) sampler.cancel(false);
         }
 
-        // Ensure a final "Completed runs/runs" is emitted if we didn't land exactly on a milestone
-        long done = completed.get();
-        if (cb != null && done < runs) {
-            cb.update(String.format("Completed %,d/%,d runs", runs, runs));
-        }
+        // Ensure a final "runs/runs" is emitted if the sampler didn't land exactly on it
+        progress.finish();
+        long done = progress.completed();
 
         log.info("Monte Carlo finished: {}/{} runs in {} ms",
-                allResults.size(), runs, System.currentTimeMillis() - t0);
-        return allResults;
+                done, runs, System.currentTimeMillis() - t0);
     }
 
-    private List<Callable<List<IRunResult>>> buildTasks(
+    /**
+     * Splits a range of path indices in halves until it is at most one chunk; idle workers steal the
+     * pending halves. Sinks are merged left before right, so the fold follows path order.
+     */
+    private final class PathRange extends RecursiveTask<IRunResultSink> {
+        private final List<IPhase> phases;
+        private final ISpecification base;
+        private final long from;
+        private final long to;
+        private final int chunk;
+        private final IRunResultSink sink;
+        private final RunProgress progress;
+
+        private PathRange(List<IPhase> phases, ISpecification base, long from, long to, int chunk,
+                          IRunResultSink sink, RunProgress progress) {
+            this.phases = phases;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.sink = sink;
+            this.progress = progress;
+        }
+
+        @Override
+        protected IRunResultSink compute() {
+            if (to - from <= chunk) {
+                return runPaths(phases, base, from, to, sink.fork(), progress);
+            }
+            long mid = (from + to) >>> 1;
+            PathRange right = new PathRange(phases, base, mid, to, chunk, sink, progress);
+            right.fork();
+            IRunResultSink left = new PathRange(phases, base, from, mid, chunk, sink, progress).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * Fallback for plain executors: {@code workers} tasks pull chunks from a shared cursor, so a slow chunk
+     * never leaves the other workers waiting on a barrier. Chunk sinks are merged in path order afterwards.
+     */
+    private IRunResultSink runChunks(
             List<IPhase> phases,
-            int cores,
-            int thisBatch,
-            long totalRuns,
-            AtomicLong completed,
-            AtomicLong nextMilestone,
-            IProgressCallback cb,
-            long t0
+            ISpecification base,
+            long runs,
+            int chunk,
+            int workers,
+            IRunResultSink sink,
+            RunProgress progress,
+            boolean sampleHere
+    ) throws InterruptedException {
+        final int chunkCount = Math.toIntExact(ceilDiv(runs, chunk));
+        final IRunResultSink[] parts = new IRunResultSink[chunkCount];
+        final AtomicInteger cursor = new AtomicInteger();
+
+        final int taskCount = Math.min(workers, chunkCount);
+        final List<Future<?>> futures = new ArrayList<>(taskCount);
+        for (int t = 0; t < taskCount; t++) {
+            futures.add(workerPool.submit(() -> {
+                for (int c; (c = cursor.getAndIncrement()) < chunkCount; ) {
+                    long from = (long) c * chunk;
+                    parts[c] = runPaths(phases, base, from, Math.min(runs, from + chunk), sink.fork(), progress);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> f : futures) await(f, progress, sampleHere);
+        } finally {
+            // In strict mode one failure aborts the rest; cancelled workers stop at their next path
+            for (Future<?> f : futures) f.cancel(true);
+        }
+
+        IRunResultSink folded = sink.fork();
+        for (IRunResultSink part : parts) folded.merge(part);
+        return folded;
+    }
+
+    /** Waits for {@code future}; without a scheduler the waiting thread samples progress in between. */
+    private <T> T await(Future<T> future, RunProgress progress, boolean sampleHere) throws InterruptedException {
+        try {
+            if (!sampleHere) return future.get();
+            while (true) {
+                try {
+                    return future.get(progressIntervalMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException te) {
+                    progress.sample();
+                }
+            }
+        } catch (ExecutionException ee) {
+            // Only happens in strict mode; abort entire run
+            log.error("Simulation task failed (strict mode abort)", ee.getCause());
+            throw new RuntimeException("Simulation task failed", ee.getCause());
+        } catch (InterruptedException ie) {
+            future.cancel(true);
+            throw ie;
+        }
+    }
+
+    /** Simulates paths {@code [from, to)} into {@code out}. */
+    private IRunResultSink runPaths(
+            List<IPhase> phases,
+            ISpecification base,
+            long from,
+            long to,
+            IRunResultSink out,
+            RunProgress progress
     ) {
-        final int taskCount   = Math.min(cores, thisBatch);
-        final int basePerTask = thisBatch / taskCount;
-        final int remainder   = thisBatch % taskCount;
-
-        // IMPORTANT:
-        // - Specification.copy() can deterministically "split" RNG streams (SplittableRandom.split via RNG.copy()).
-        // - Those splits mutate the source RNG state.
-        // - Therefore, copying the *same* base specification concurrently across worker threads can produce
-        //   nondeterministic results.
-        // Pre-create independent per-task spec bases on this (calling) thread to avoid concurrent mutation.
-        final ISpecification batchSpecBase = phases.getFirst().getSpecification().copy();
-
-        List<Callable<List<IRunResult>>> tasks = new ArrayList<>(taskCount);
-        for (int ti = 0; ti < taskCount; ti++) {
-            final int quota = basePerTask + (ti < remainder ? 1 : 0);
-
-            // Create a per-task base spec deterministically/sequentially.
-            final ISpecification taskSpecBase = batchSpecBase.copy();
-
-            tasks.add(() -> {
-                List<IRunResult> chunk = new ArrayList<>(quota);
-
-                for (int k = 0; k < quota; k++) {
-                    // fresh copies per run for isolation
-                    ISpecification specCopy = taskSpecBase.copy();
-                    List<IPhase> phaseCopies = new ArrayList<>(phases.size());
-                    for (IPhase p : phases) phaseCopies.add(p.copy(specCopy));
-
-                    try {
-                        IRunResult r = engine.simulatePhases(phaseCopies);
-                        if (r != null) chunk.add(r);
-                    } catch (Throwable t) {
-                        if (failOnTaskError) {
-                            throw t; // propagate → ExecutionException → abort the whole run
-                        } else {
-                            log.error("Simulation task failed (run skipped): {}", t.toString(), t);
-                            // continue; resilient mode
-                        }
-                    }
-
-                    // ---- progress every progressStep runs (global) ----
-                    long done = completed.incrementAndGet();
-
-                    // Advance milestones one-by-one; only one thread will win each CAS
-                    while (true) {
-                        long target = nextMilestone.get();
-                        if (done < target) break; // not yet at next milestone
-
-                        long newTarget = Math.min(target + progressStep, totalRuns);
-                        if (nextMilestone.compareAndSet(target, newTarget)) {
-                            if (cb != null) {
-                                // Keep the message short; the controller will coalesce & pace
-                                cb.update(String.format("Completed %,d/%,d runs", target, totalRuns));
-                            }
-                            // if many runs just finished at once, loop to potentially emit the next milestone too
-                            if (newTarget == target) break; // safety
-                        } else {
-                            // lost the race; re-check with updated target
-                            if (nextMilestone.get() <= done) continue;
-                            break;
-                        }
-                    }
+        if (engine instanceof IBatchEngine batchEngine) {
+            runBatched(batchEngine, phases, base, from, to, out, progress);
+            return out;
+        }
+        for (long path = from; path < to; path++) {
+            // fresh copies per run for isolation
+            List<IPhase> phaseCopies = copyPhases(phases, base, path);
+
+            try {
+                IRunResult r = engine.simulatePhases(phaseCopies);
+                if (r != null) out.accept(r);
+            } catch (RuntimeException | Error t) {
+                if (failOnTaskError) {
+                    throw t; // propagate → ExecutionException → abort the whole run
+                } else {
+                    log.error("Simulation task failed (run skipped): {}", t.toString(), t);
+                    // continue; resilient mode
+                }
+            }
+
+            progress.add(1);
+        }
+        return out;
+    }
+
+    /** Runs paths {@code [from, to)} through a batch engine, {@link IBatchEngine#getLanes()} paths at a time. */
+    private void runBatched(
+            IBatchEngine batchEngine,
+            List<IPhase> phases,
+            ISpecification base,
+            long from,
+            long to,
+            IRunResultSink out,
+            RunProgress progress
+    ) {
+        final int lanes = Math.max(1, batchEngine.getLanes());
+        for (long first = from; first < to; first += lanes) {
+            final int count = (int) Math.min(lanes, to - first);
+            List<List<IPhase>> paths = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) paths.add(copyPhases(phases, base, first + j));
+
+            try {
+                for (IRunResult r : batchEngine.simulateBatch(paths)) {
+                    if (r != null) out.accept(r);
                 }
+            } catch (RuntimeException | Error t) {
+                if (failOnTaskError) {
+                    throw t;
+                } else {
+                    log.error("Simulation batch failed ({} runs skipped): {}", count, t.toString(), t);
+                }
+            }
+
+            progress.add(count);
+        }
+    }
+
+    private static List<IPhase> copyPhases(List<IPhase> phases, ISpecification base, long pathIndex) {
+        ISpecification specCopy = base.copyForPath(pathIndex);
+        List<IPhase> phaseCopies = new ArrayList<>(phases.size());
+        for (IPhase p : phases) phaseCopies.add(p.copy(specCopy));
+        return phaseCopies;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    /** Collects every run; used by {@link #runWithProgress} to keep the list-returning contract. */
+    private static final class ResultListSink implements IRunResultSink {
+        private final List<IRunResult> results;
+
+        private ResultListSink(int expected) {
+            this.results = new ArrayList<>(expected);
+        }
+
+        @Override
+        public void accept(IRunResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public IRunResultSink fork() {
+            return new ResultListSink(0);
+        }
 
-                return chunk;
-            });
+        @Override
+        public void merge(IRunResultSink other) {
+            results.addAll(((ResultListSink) other).results);
         }
-        return tasks;
     }
 }
@@ -0,0 +1,55 @@
+package dk.gormkrings.simulation.monteCarlo;
+
+import dk.gormkrings.dto.ProgressUpdate;
+import dk.gormkrings.simulation.IProgressCallback;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completed-run counter for one simulation.
+ *
+ * <p>Workers only add to a {@link LongAdder}, which spreads contended updates over padded per-thread
+ * cells: no CAS loop on a shared cache line and no string formatting on the worker, whichever thread
+ * happens to run a path. A sampler reads the sum and turns passed {@code progressStep} milestones into
+ * {@link ProgressUpdate.Kind#RUNS} updates.</p>
+ */
+final class RunProgress {
+    private final LongAdder completed = new LongAdder();
+    private final long total;
+    private final int step;
+    private final IProgressCallback cb;
+
+    /** Last milestone handed to {@link #cb}; guarded by {@code this}. */
+    private long reported;
+
+    RunProgress(long total, int step, IProgressCallback cb) {
+        this.total = total;
+        this.step = Math.max(1, step);
+        this.cb = cb;
+    }
+
+    void add(long runs) {
+        completed.add(runs);
+    }
+
+    long completed() {
+        return completed.sum();
+    }
+
+    /** Emits the latest milestone passed since the previous call, if any. */
+    synchronized void sample() {
+        if (cb == null) return;
+        long done = completed();
+        long milestone = done >= total ? total : (done / step) * step;
+        if (milestone <= reported) return;
+        reported = milestone;
+        cb.update(ProgressUpdate.runs(milestone, total));
+    }
+
+    /** Emits the final {@code total/total} update unless it has already been sent. */
+    synchronized void finish() {
+        if (cb == null || reported >= total) return;
+        reported = total;
+        cb.update(ProgressUpdate.runs(total, total));
+    }
+}
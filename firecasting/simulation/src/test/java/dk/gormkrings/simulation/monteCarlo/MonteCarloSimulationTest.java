@@ -1,5 +1,6 @@
 package dk.gormkrings.simulation.monteCarlo;
 
+import dk.gormkrings.dto.ProgressUpdate;
 import dk.gormkrings.engine.IEngine;
 import dk.gormkrings.phase.IPhase;
 import dk.gormkrings.result.IRunResult;
@@ -10,6 +11,8 @@ import org.mockito.stubbing.Answer;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -27,7 +30,7 @@ class MonteCarloSimulationTest {
     private static List<IPhase> phasesWithSharedSpec(IPhase... phases) {
         // each run must use a fresh spec copy; we just wire mocks so copy() returns same mock
         ISpecification base = mock(ISpecification.class);
-        when(base.copy()).thenReturn(base);
+        when(base.copyForPath(anyLong())).thenReturn(base);
         for (IPhase p : phases) {
             when(p.getSpecification()).thenReturn(base);
             when(p.copy(base)).thenReturn(p);
@@ -127,9 +130,7 @@ class MonteCarloSimulationTest {
         ISpecification base = mock(ISpecification.class);
         ISpecification copy = mock(ISpecification.class);
         when(p1.getSpecification()).thenReturn(base);
-        when(base.copy()).thenReturn(copy);
-        // MonteCarloSimulation builds a task-local base spec (base.copy()), then copies that per run.
-        when(copy.copy()).thenReturn(copy);
+        when(base.copyForPath(anyLong())).thenReturn(copy);
         when(p1.copy(copy)).thenReturn(p1);
         when(p2.copy(copy)).thenReturn(p2);
         List<IPhase> phases = List.of(p1, p2);
@@ -140,13 +141,13 @@ class MonteCarloSimulationTest {
             int runs = 3;
             sim.run(runs, phases);
 
-            // buildTasks() fetches the base spec ONCE per batch from the first phase,
-            // then deterministically splits it into per-task bases (still on the calling thread),
-            // and finally each run copies again from its task-local base.
-            int tasks = Math.min(2, runs);
+            // The base spec is fetched once and never copied statefully;
+            // each path derives its own spec from its index.
             verify(p1, times(1)).getSpecification();
-            verify(base, times(1)).copy();
-            verify(copy, times(runs + tasks)).copy();
+            verify(base, never()).copy();
+            for (long path = 0; path < runs; path++) {
+                verify(base, times(1)).copyForPath(path);
+            }
             verify(p1, times(runs)).copy(copy);
             verify(p2, times(runs)).copy(copy);
         } finally {
@@ -154,6 +155,41 @@ class MonteCarloSimulationTest {
         }
     }
 
+    @Test
+    void pathResultsDependOnlyOnPathIndex() throws Exception {
+        int runs = 57;
+        IPhase phase = mock(IPhase.class);
+        ISpecification base = mock(ISpecification.class);
+        when(phase.getSpecification()).thenReturn(base);
+
+        // Path i gets its own spec and phase copy; the engine maps that copy to result i.
+        Map<IPhase, IRunResult> resultByCopy = new HashMap<>();
+        List<IRunResult> expected = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            ISpecification spec = mock(ISpecification.class);
+            IPhase copy = mock(IPhase.class);
+            IRunResult result = mock(IRunResult.class, "path" + i);
+            when(base.copyForPath(i)).thenReturn(spec);
+            when(phase.copy(spec)).thenReturn(copy);
+            resultByCopy.put(copy, result);
+            expected.add(result);
+        }
+        IEngine engine = mock(IEngine.class);
+        when(engine.simulatePhases(anyList()))
+                .thenAnswer(inv -> resultByCopy.get(inv.<List<IPhase>>getArgument(0).getFirst()));
+
+        ExecutorService forkJoin = new ForkJoinPool(3);
+        ExecutorService fixed = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(expected, newSim(engine, forkJoin, 1000).runWithProgress(runs, 5, List.of(phase), null));
+            assertEquals(expected, newSim(engine, forkJoin, 1000).runWithProgress(runs, 10_000, List.of(phase), null));
+            assertEquals(expected, newSim(engine, fixed, 1000).runWithProgress(runs, 1, List.of(phase), null));
+        } finally {
+            forkJoin.shutdownNow();
+            fixed.shutdownNow();
+        }
+    }
+
     @Test
     void resultsResetBetweenRuns() throws Exception {
         IEngine engine = mock(IEngine.class);
@@ -205,6 +241,51 @@ class MonteCarloSimulationTest {
         }
     }
 
+    @Test
+    void progressEndsWithTotalWithoutScheduler() {
+        IEngine engine = mock(IEngine.class);
+        when(engine.simulatePhases(anyList())).thenReturn(mock(IRunResult.class));
+        List<IPhase> phases = phasesWithSharedSpec(mock(IPhase.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            MonteCarloSimulation sim = newSim(engine, pool, 4);
+            List<String> updates = Collections.synchronizedList(new ArrayList<>());
+
+            sim.runWithProgress(10, 4, phases, updates::add);
+
+            // Without a scheduler the waiting thread samples; the final update is always total/total
+            assertEquals(ProgressUpdate.runsJson(10, 10), updates.getLast());
+            assertEquals(1, updates.stream().filter(ProgressUpdate.runsJson(10, 10)::equals).count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void samplerOnSchedulerReportsFinalTotalOnce() {
+        IEngine engine = mock(IEngine.class);
+        when(engine.simulatePhases(anyList())).thenReturn(mock(IRunResult.class));
+        List<IPhase> phases = phasesWithSharedSpec(mock(IPhase.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            MonteCarloSimulation sim = new MonteCarloSimulation(
+                    Map.of("testEngine", engine), "testEngine", pool, 100, true, scheduler, 1);
+            List<String> updates = Collections.synchronizedList(new ArrayList<>());
+
+            sim.runWithProgress(250, 50, phases, updates::add);
+
+            assertFalse(updates.isEmpty());
+            assertEquals(ProgressUpdate.runsJson(250, 250), updates.getLast());
+            assertEquals(1, updates.stream().filter(ProgressUpdate.runsJson(250, 250)::equals).count());
+        } finally {
+            scheduler.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
     @Test
     void returnsExactlyTheDistinctResults() throws Exception {
         IEngine engine = mock(IEngine.class);
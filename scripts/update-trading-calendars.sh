@@ -0,0 +1,7 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+PROJECT_ROOT="${1:-$(cd "$(dirname "$0")/../firecasting" && pwd)}"
+cd "$PROJECT_ROOT"
+
+./mvnw -pl common-simulation -Dtest='dk.gormkrings.calendar.BitmapTradingCalendarTest#shippedCalendarsMatchTheHolidayRules' -Dtrading.calendars.update=true test